@@ -0,0 +1,196 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.FUTURE_ONLY;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.annotation.Resource;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.models.activities.ActivityEvent;
+import org.sagebionetworks.bridge.models.activities.ActivityEventType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * A cache in Redis of the activity event map of each participant (global, or in a study), so the events don't have
+ * to be queried from DynamoDB on every request for scheduled activities. Each map is a Redis hash of event keys to
+ * epoch milliseconds. Published events are written through to a cached map; deleted events remove the map.
+ *
+ * Every change to the events of a participant also increments a version number, and a map loaded from DynamoDB is
+ * only cached if the version has not changed since the load started. Otherwise an event published while the map
+ * was being loaded could be missing from the cached map until it expires.
+ */
+@Component
+public class ActivityEventMapCache {
+    static final String ENABLED_PROPERTY = "activity.event.cache.enabled";
+    static final String EXPIRE_PROPERTY = "activity.event.cache.expire.seconds";
+
+    /** Present in every cached map, so that a participant with no events also has a cached map. */
+    static final String LOADED_FIELD = ":loaded";
+
+    private static final String ANSWERED_EVENT_POSTFIX = ":" + ActivityEventType.ANSWERED.name().toLowerCase();
+
+    /**
+     * Returns the version, followed by the fields and values of the map (if it is cached).
+     * KEYS[1] = map key, KEYS[2] = version key.
+     */
+    static final RedisScript GET_SCRIPT = new RedisScript(
+            "local fields = redis.call('HGETALL', KEYS[1])\n" +
+            "table.insert(fields, 1, redis.call('GET', KEYS[2]) or '0')\n" +
+            "return fields");
+
+    /**
+     * Caches a map loaded from DynamoDB, unless the events have changed since the version was read, or another
+     * server has already cached the map.
+     * KEYS[1] = map key, KEYS[2] = version key, ARGV[1] = version, ARGV[2] = expiration, ARGV[3...] = fields and
+     * values.
+     */
+    static final RedisScript LOAD_SCRIPT = new RedisScript(
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] or redis.call('EXISTS', KEYS[1]) == 1 then\n" +
+            "  return 0\n" +
+            "end\n" +
+            "for i = 3, #ARGV, 2 do\n" +
+            "  redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])\n" +
+            "end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "return 1");
+
+    /**
+     * Writes a published event to the cached map, if there is one. If the event can only move into the future, a
+     * later value that is already cached is kept, since writes can reach Redis in a different order than DynamoDB.
+     * KEYS[1] = map key, KEYS[2] = version key, ARGV[1] = field, ARGV[2] = value, ARGV[3] = "1" to only write a
+     * later value, ARGV[4] = expiration.
+     */
+    static final RedisScript PUT_SCRIPT = new RedisScript(
+            "redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[4])\n" +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "local current = redis.call('HGET', KEYS[1], ARGV[1])\n" +
+            "if ARGV[3] == '1' and current and tonumber(current) >= tonumber(ARGV[2]) then return 0 end\n" +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "return 1");
+
+    /**
+     * Removes the cached map.
+     * KEYS[1] = map key, KEYS[2] = version key, ARGV[1] = expiration.
+     */
+    static final RedisScript INVALIDATE_SCRIPT = new RedisScript(
+            "redis.call('DEL', KEYS[1])\n" +
+            "redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[1])\n" +
+            "return 1");
+
+    private JedisPool jedisPool;
+    private boolean enabled;
+    private String expireInSeconds;
+
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.expireInSeconds = Integer.toString(config.getInt(EXPIRE_PROPERTY));
+    }
+
+    /**
+     * Get the activity event map of the participant (in the study, if there is one). If it is not cached, it is
+     * retrieved with the loader and cached.
+     */
+    public Map<String, DateTime> get(String healthCode, String studyId, Supplier<Map<String, DateTime>> loader) {
+        checkNotNull(healthCode);
+        checkNotNull(loader);
+
+        if (!enabled) {
+            return loader.get();
+        }
+        List<String> keys = keys(healthCode, studyId);
+        String version;
+        try (Jedis jedis = jedisPool.getResource()) {
+            @SuppressWarnings("unchecked")
+            List<String> result = (List<String>) GET_SCRIPT.eval(jedis, keys, ImmutableList.of());
+            if (result.size() > 1) {
+                return toEventMap(result);
+            }
+            version = result.get(0);
+        }
+        Map<String, DateTime> eventMap = loader.get();
+
+        ImmutableList.Builder<String> args = ImmutableList.builder();
+        args.add(version, expireInSeconds, LOADED_FIELD, "1");
+        for (Map.Entry<String, DateTime> entry : eventMap.entrySet()) {
+            args.add(entry.getKey(), Long.toString(entry.getValue().getMillis()));
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            LOAD_SCRIPT.eval(jedis, keys, args.build());
+        }
+        return eventMap;
+    }
+
+    /**
+     * Write an event that has been published to DynamoDB through to the cached map of the participant. Answered
+     * events are keyed by their answer in the map, so the key of the previous answer cannot be found; the map is
+     * removed instead.
+     */
+    public void put(String healthCode, ActivityEvent event) {
+        checkNotNull(healthCode);
+        checkNotNull(event);
+
+        if (!enabled) {
+            return;
+        }
+        if (event.getEventId().endsWith(ANSWERED_EVENT_POSTFIX)) {
+            invalidate(healthCode, event.getStudyId());
+            return;
+        }
+        String onlyIfLater = (event.getUpdateType() == FUTURE_ONLY) ? "1" : "0";
+        try (Jedis jedis = jedisPool.getResource()) {
+            PUT_SCRIPT.eval(jedis, keys(healthCode, event.getStudyId()), ImmutableList.of(event.getEventId(),
+                    Long.toString(event.getTimestamp().getMillis()), onlyIfLater, expireInSeconds));
+        }
+    }
+
+    /** Remove the cached map of the participant. Call this when events are deleted. */
+    public void invalidate(String healthCode, String studyId) {
+        checkNotNull(healthCode);
+
+        if (!enabled) {
+            return;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            INVALIDATE_SCRIPT.eval(jedis, keys(healthCode, studyId), ImmutableList.of(expireInSeconds));
+        }
+    }
+
+    private static List<String> keys(String healthCode, String studyId) {
+        return ImmutableList.of(CacheKey.activityEventMap(healthCode, studyId).toString(),
+                CacheKey.activityEventMapVersion(healthCode, studyId).toString());
+    }
+
+    // The first element is the version, followed by the fields and values of the hash.
+    private static Map<String, DateTime> toEventMap(List<String> result) {
+        ImmutableMap.Builder<String, DateTime> builder = ImmutableMap.builder();
+        for (int i = 1; i + 1 < result.size(); i += 2) {
+            String field = result.get(i);
+            if (!LOADED_FIELD.equals(field)) {
+                builder.put(field, new DateTime(Long.parseLong(result.get(i + 1)), DateTimeZone.UTC));
+            }
+        }
+        return builder.build();
+    }
+}
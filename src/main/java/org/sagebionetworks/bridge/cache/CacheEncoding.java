@@ -0,0 +1,75 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * The versioned binary format of objects stored in Redis. An entry in this format starts with a one-byte format
+ * version, followed by the object encoded with Smile (binary JSON) in the current schema, so it can be deserialized
+ * in one pass without the adjustments needed for legacy entries. Entries written before this format was introduced
+ * are JSON text, which can never start with the version byte.
+ */
+final class CacheEncoding {
+    static final byte BINARY_FORMAT_VERSION = 2;
+
+    private static final SmileFactory SMILE_FACTORY = new SmileFactory()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+
+    private CacheEncoding() {
+    }
+
+    /** Encode the object with the given writer (which determines which fields are serialized). */
+    static byte[] encode(ObjectWriter writer, Object object) throws IOException {
+        checkNotNull(writer);
+        checkNotNull(object);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(BINARY_FORMAT_VERSION);
+        try (JsonGenerator generator = SMILE_FACTORY.createGenerator(out)) {
+            writer.writeValue(generator, object);
+        }
+        return out.toByteArray();
+    }
+
+    /** Decode an entry in the binary format. The entry must have a version header. */
+    static <T> T decode(byte[] blob, Class<T> clazz) throws IOException {
+        checkNotNull(clazz);
+        return decode(blob, BridgeObjectMapper.get().constructType(clazz));
+    }
+
+    /** Decode an entry in the binary format into a generic type, like a list. The entry must have a version header. */
+    static <T> T decode(byte[] blob, JavaType type) throws IOException {
+        checkNotNull(blob);
+        checkNotNull(type);
+        if (!isBinary(blob)) {
+            throw new IllegalArgumentException("Cache entry is not in a supported binary format");
+        }
+        try (JsonParser parser = SMILE_FACTORY.createParser(blob, 1, blob.length - 1)) {
+            return BridgeObjectMapper.get().readValue(parser, type);
+        }
+    }
+
+    /** True if the bytes read from Redis are in the binary format (and not legacy JSON text). */
+    static boolean isBinary(byte[] blob) {
+        return blob != null && blob.length > 0 && blob[0] == BINARY_FORMAT_VERSION;
+    }
+
+    /**
+     * True if a string read from Redis is actually an entry in the binary format. The version byte survives being
+     * decoded as UTF-8, but the remainder of the entry does not, so it must be read again as bytes.
+     */
+    static boolean isBinary(String ser) {
+        return ser != null && !ser.isEmpty() && ser.charAt(0) == (char) BINARY_FORMAT_VERSION;
+    }
+}
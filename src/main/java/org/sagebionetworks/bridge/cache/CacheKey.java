@@ -35,6 +35,18 @@ public final class CacheKey {
     public static final CacheKey orgSponsoredStudies(String appId, String orgId) {
         return new CacheKey(orgId, appId, "OrgSponsoredStudies");
     }
+    public static final CacheKey activityEventMap(String healthCode, String studyId) {
+        if (studyId == null) {
+            return new CacheKey(healthCode, "ActivityEventMap");
+        }
+        return new CacheKey(healthCode, studyId, "ActivityEventMap");
+    }
+    public static final CacheKey activityEventMapVersion(String healthCode, String studyId) {
+        if (studyId == null) {
+            return new CacheKey(healthCode, "ActivityEventMapVersion");
+        }
+        return new CacheKey(healthCode, studyId, "ActivityEventMapVersion");
+    }
     public static final CacheKey tagList() {
         return new CacheKey("TagList");
     }
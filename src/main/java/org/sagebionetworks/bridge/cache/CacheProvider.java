@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.cache;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.util.List;
 import java.util.Set;
@@ -8,6 +9,7 @@ import java.util.Set;
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -18,11 +20,16 @@ import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
 
 /**
  * A wrapper around our use of Redis.
@@ -30,14 +37,66 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 @Component
 public class CacheProvider {
     private static final String LOCAL_SERVICE_ERROR = "Cannot find cache service, have you started Redis? (original message: %s)";
+    static final String SESSION_SCRIPTS_PROPERTY = "session.redis.scripts.enabled";
+    static final String BINARY_FORMAT_PROPERTY = "cache.binary.format.enabled";
+    
+    /**
+     * Resolves session token to user ID to session in one round trip. The session key is derived from the user ID 
+     * in the script, so this script requires a non-clustered Redis (as do our MULTI/EXEC transactions). The session 
+     * may be stored in JSON or in the binary format, so the caller verifies that it still belongs to the token.
+     * KEYS[1] = token key, ARGV[1] = suffix of the session key after the user ID.
+     */
+    static final RedisScript GET_SESSION_SCRIPT = new RedisScript(
+            "local userId = redis.call('GET', KEYS[1])\n" +
+            "if not userId then return nil end\n" +
+            "return redis.call('GET', userId .. ARGV[1])");
+    
+    /**
+     * Writes both session keys, preserving the remaining time to expiration of an existing session, in one round 
+     * trip. Returns the expiration that was used.
+     * KEYS[1] = token key, KEYS[2] = session key, ARGV[1] = user ID, ARGV[2] = session, ARGV[3] = default expiration.
+     */
+    static final RedisScript SET_SESSION_SCRIPT = new RedisScript(
+            "local ttl = redis.call('TTL', KEYS[2])\n" +
+            "if ttl <= 0 then ttl = tonumber(ARGV[3]) end\n" +
+            "redis.call('SETEX', KEYS[1], ttl, ARGV[1])\n" +
+            "redis.call('SETEX', KEYS[2], ttl, ARGV[2])\n" +
+            "return ttl");
+    
     private JedisOps jedisOps;
+    private JedisPool jedisPool;
     private int sessionExpireInSeconds;
+    private LocalSessionCache localSessionCache;
+    private boolean sessionScriptsEnabled;
+    private boolean binaryFormatEnabled;
 
     @Resource(name = "jedisOps")
     final void setJedisOps(JedisOps jedisOps) {
         this.jedisOps = jedisOps;
     }
 
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+    
+    /**
+     * If enabled, session reads and writes are each performed with a single Lua script call to Redis, rather than 
+     * two GETs for a read, and a TTL and a MULTI/EXEC for a write. If the binary format is enabled, sessions and 
+     * apps are written in the versioned binary format (see CacheEncoding). Entries in either format are always 
+     * readable, so all servers must be deployed before the binary format is enabled.
+     */
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.sessionScriptsEnabled = Boolean.parseBoolean(config.get(SESSION_SCRIPTS_PROPERTY));
+        this.binaryFormatEnabled = Boolean.parseBoolean(config.get(BINARY_FORMAT_PROPERTY));
+    }
+
+    @Autowired
+    final void setLocalSessionCache(LocalSessionCache localSessionCache) {
+        this.localSessionCache = localSessionCache;
+    }
+
     @Resource(name = "sessionExpireInSeconds")
     final void setSessionExpireInSeconds(@SuppressWarnings("SameParameterValue") int sessionExpireInSeconds) {
         this.sessionExpireInSeconds = sessionExpireInSeconds;
@@ -87,6 +146,40 @@ public class CacheProvider {
         checkNotNull(session.getSessionToken());
         checkNotNull(session.getId());
         
+        // Binary values cannot be written through a JedisTransaction, so they are always written with the script
+        if (sessionScriptsEnabled || binaryFormatEnabled) {
+            setUserSessionWithScript(session);
+        } else {
+            setUserSessionWithTransaction(session);
+        }
+        if (isLocalSessionCacheEnabled()) {
+            localSessionCache.invalidate(session.getId());
+            localSessionCache.put(session);
+        }
+    }
+    
+    private void setUserSessionWithScript(UserSession session) {
+        CacheKey tokenToUserIdKey = CacheKey.tokenToUserId(session.getSessionToken());
+        CacheKey userIdToSessionKey = CacheKey.userIdToSession(session.getId());
+        
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] ser = binaryFormatEnabled ?
+                    CacheEncoding.encode(StudyParticipant.CACHE_WRITER, session) :
+                    StudyParticipant.CACHE_WRITER.writeValueAsBytes(session);
+            
+            Object result = SET_SESSION_SCRIPT.evalBinary(jedis,
+                    ImmutableList.of(bytes(tokenToUserIdKey.toString()), bytes(userIdToSessionKey.toString())),
+                    ImmutableList.of(bytes(session.getId()), ser, bytes(Integer.toString(sessionExpireInSeconds))));
+            if (result == null) {
+                throw new BridgeServiceException("Session storage error.");
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    private void setUserSessionWithTransaction(UserSession session) {
         CacheKey tokenToUserIdKey = CacheKey.tokenToUserId(session.getSessionToken());
         CacheKey userIdToSessionKey = CacheKey.userIdToSession(session.getId());
         
@@ -115,32 +208,49 @@ public class CacheProvider {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
         }
-
     }
     
+    /**
+     * Get the session for this token. If the local session cache is enabled, a session cached in this server is
+     * returned without calling Redis (unless the cache is in shadow mode, in which case the session is always read
+     * from Redis, and the cached copy is only compared to it). A session read from Redis is not cached locally if
+     * the user's session was invalidated while it was being read.
+     */
     public UserSession getUserSession(String sessionToken) {
         checkNotNull(sessionToken);
+        
+        UserSession localSession = null;
+        long invalidationSequence = 0L;
+        if (isLocalSessionCacheEnabled()) {
+            localSession = localSessionCache.get(sessionToken);
+            if (localSession != null && !localSessionCache.isShadowMode()) {
+                return localSession;
+            }
+            invalidationSequence = localSessionCache.getInvalidationSequence();
+        }
+        UserSession session = getUserSessionFromRedis(sessionToken);
+        if (isLocalSessionCacheEnabled()) {
+            if (localSessionCache.isShadowMode()) {
+                localSessionCache.compare(sessionToken, localSession, session);
+            }
+            if (session != null) {
+                localSessionCache.put(session, invalidationSequence);
+            }
+        }
+        return session;
+    }
+    
+    private UserSession getUserSessionFromRedis(String sessionToken) {
+        if (sessionScriptsEnabled) {
+            return getUserSessionWithScript(sessionToken);
+        }
         try {
             CacheKey tokenToUserIdKey = CacheKey.tokenToUserId(sessionToken);
             String userId = jedisOps.get(tokenToUserIdKey.toString());
             if (userId != null) {
                 CacheKey userIdToSessionKey = CacheKey.userIdToSession(userId);
-                String ser = jedisOps.get(userIdToSessionKey.toString());
-                if (ser != null) {
-                    JsonNode node = adjustJsonWithStudyIdentifier(ser);
-                    UserSession session = BridgeObjectMapper.get().treeToValue(node,  UserSession.class);
-                    
-                    // The token --> userId look up is not replaced on session invalidation. 
-                    // Check here and only return if the sessionToken is valid. It is possible 
-                    // to successfully sign in and then have this fail due to concurrent requests.
-                    // The client needs to manage concurrent requests if it doesn't want to 
-                    // invalidate its own session.
-                    if (session.getSessionToken().equals(sessionToken)) {
-                        return session;
-                    }
-                    // Otherwise, delete the key sessionToken key (it's known to be invalid)
-                    removeObject(tokenToUserIdKey);
-                }
+                UserSession session = readObject(userIdToSessionKey.toString(), UserSession.class, true);
+                return verifySessionToken(tokenToUserIdKey, sessionToken, session);
             }
             return null;
         } catch (Throwable e) {
@@ -149,17 +259,98 @@ public class CacheProvider {
         }
     }
     
+    /**
+     * The token --> userId look up is not replaced on session invalidation. Check here and only return if the 
+     * sessionToken is valid. It is possible to successfully sign in and then have this fail due to concurrent 
+     * requests. The client needs to manage concurrent requests if it doesn't want to invalidate its own session.
+     */
+    private UserSession verifySessionToken(CacheKey tokenToUserIdKey, String sessionToken, UserSession session) {
+        if (session == null) {
+            return null;
+        }
+        if (session.getSessionToken().equals(sessionToken)) {
+            return session;
+        }
+        // Otherwise, delete the key sessionToken key (it's known to be invalid)
+        removeObject(tokenToUserIdKey);
+        return null;
+    }
+    
+    private UserSession getUserSessionWithScript(String sessionToken) {
+        CacheKey tokenToUserIdKey = CacheKey.tokenToUserId(sessionToken);
+        // The key of the session is the user ID followed by this suffix
+        String sessionKeySuffix = CacheKey.userIdToSession("").toString();
+        
+        UserSession session;
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] ser = (byte[]) GET_SESSION_SCRIPT.evalBinary(jedis,
+                    ImmutableList.of(bytes(tokenToUserIdKey.toString())), ImmutableList.of(bytes(sessionKeySuffix)));
+            session = decode(ser, UserSession.class, true);
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+        return verifySessionToken(tokenToUserIdKey, sessionToken, session);
+    }
+    
+    /**
+     * Read an object that may be stored in JSON or in the binary format. When the binary format is enabled, the 
+     * value is read as bytes. Otherwise it is read as a string, and only read again as bytes if another server 
+     * has already written it in the binary format. Legacy JSON can be adjusted for the transition away from 
+     * study identifiers.
+     */
+    private <T> T readObject(String key, Class<T> clazz, boolean adjustLegacyJson) throws Exception {
+        if (binaryFormatEnabled) {
+            return decode(getBytes(key), clazz, adjustLegacyJson);
+        }
+        String ser = jedisOps.get(key);
+        if (CacheEncoding.isBinary(ser)) {
+            return decode(getBytes(key), clazz, adjustLegacyJson);
+        }
+        return decode(ser, clazz, adjustLegacyJson);
+    }
+    
+    private byte[] getBytes(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.get(bytes(key));
+        }
+    }
+    
+    private <T> T decode(byte[] ser, Class<T> clazz, boolean adjustLegacyJson) throws Exception {
+        if (ser == null) {
+            return null;
+        }
+        if (CacheEncoding.isBinary(ser)) {
+            return CacheEncoding.decode(ser, clazz);
+        }
+        return decode(new String(ser, UTF_8), clazz, adjustLegacyJson);
+    }
+    
+    private <T> T decode(String ser, Class<T> clazz, boolean adjustLegacyJson) throws Exception {
+        if (ser == null) {
+            return null;
+        }
+        if (adjustLegacyJson) {
+            JsonNode node = adjustJsonWithStudyIdentifier(ser);
+            return BridgeObjectMapper.get().treeToValue(node, clazz);
+        }
+        return BridgeObjectMapper.get().readValue(ser, clazz);
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(UTF_8);
+    }
+    
+    private boolean isLocalSessionCacheEnabled() {
+        return localSessionCache != null && localSessionCache.isEnabled();
+    }
+    
     public UserSession getUserSessionByUserId(String userId) {
         checkNotNull(userId);
         
         try {
             CacheKey userIdToSessionKey = CacheKey.userIdToSession(userId);
-            String ser = jedisOps.get(userIdToSessionKey.toString());
-            if (ser == null) {
-                return null;
-            }
-            JsonNode node = adjustJsonWithStudyIdentifier(ser);
-            return BridgeObjectMapper.get().treeToValue(node,  UserSession.class);
+            return readObject(userIdToSessionKey.toString(), UserSession.class, true);
         } catch(Throwable e) {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
@@ -225,6 +416,9 @@ public class CacheProvider {
             promptToStartRedisIfLocal(e);
             throw new BridgeServiceException(e);
         }
+        if (isLocalSessionCacheEnabled()) {
+            localSessionCache.invalidate(session.getId());
+        }
     }
     
     public void removeSessionByUserId(final String userId) {
@@ -239,13 +433,39 @@ public class CacheProvider {
     public void setApp(App app) {
         checkNotNull(app);
         CacheKey redisKey = CacheKey.app(app.getIdentifier());
-        setObject(redisKey, app, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        if (!binaryFormatEnabled) {
+            setObject(redisKey, app, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+            return;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] ser = CacheEncoding.encode(BridgeObjectMapper.get().writer(), app);
+            String result = jedis.setex(bytes(redisKey.toString()), BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS,
+                    ser);
+            if (!"OK".equals(result)) {
+                throw new BridgeServiceException("App storage error");
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
     }
 
+    /**
+     * Get the app, resetting its expiration period.
+     */
     public App getApp(String appId) {
         checkNotNull(appId);
         CacheKey redisKey = CacheKey.app(appId);
-        return getObject(redisKey, App.class, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+        try {
+            App app = readObject(redisKey.toString(), App.class, false);
+            if (app != null) {
+                jedisOps.expire(redisKey.toString(), BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+            }
+            return app;
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
     }
 
     public void removeApp(String appId) {
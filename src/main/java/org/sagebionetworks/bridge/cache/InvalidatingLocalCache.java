@@ -0,0 +1,173 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+
+/**
+ * A local cache of copies of objects, which are invalidated in groups in every server. Each entry belongs to a group
+ * (for example, all the revisions of one upload schema), and invalidating the group removes all of its entries from
+ * this server and publishes the invalidation to the other servers. Optionally, one global group (like the shared app)
+ * invalidates every entry, and entries that don't exist are cached as missing for a separate (usually shorter) time.
+ *
+ * A value that was still being loaded when its group was invalidated is returned but not cached, since it may have
+ * been read before the change. Values are held in the binary cache format, so every caller deserializes its own copy.
+ * The local caches of specific objects build their keys and adjust their copies around this class.
+ */
+final class InvalidatingLocalCache<V> {
+    static final String INVALIDATION_COUNTER = "invalidations";
+    static final String OUTDATED_LOAD_COUNTER = "outdatedLoadsDiscarded";
+    static final String MISSING_CACHE_SUFFIX = "Missing";
+    static final char KEY_DELIMITER = '|';
+
+    private final LocalCacheManager localCacheManager;
+    private final String name;
+    private final JavaType type;
+    private final String globalGroup;
+    private final Cache<String, byte[]> entries;
+    private final Cache<String, Boolean> missingEntries;
+    private final Cache<String, Long> invalidations;
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    InvalidatingLocalCache(LocalCacheManager localCacheManager, String name, int maximumSize, int expireInSeconds,
+            Class<V> clazz) {
+        this(localCacheManager, name, maximumSize, expireInSeconds, BridgeObjectMapper.get().constructType(clazz),
+                null);
+    }
+
+    /**
+     * Create the cache and register it with the cache manager. The type is the type of the values, and the global
+     * group, if not null, is the group whose invalidation removes every entry.
+     */
+    InvalidatingLocalCache(LocalCacheManager localCacheManager, String name, int maximumSize, int expireInSeconds,
+            JavaType type, String globalGroup) {
+        this(localCacheManager, name, maximumSize, expireInSeconds, type, globalGroup, 0);
+    }
+
+    /**
+     * Create the cache and register it with the cache manager. If the missing expiration is greater than zero, the
+     * loads that find nothing are also cached, for that long, in a second cache named with the "Missing" suffix.
+     */
+    InvalidatingLocalCache(LocalCacheManager localCacheManager, String name, int maximumSize, int expireInSeconds,
+            JavaType type, String globalGroup, int missingExpireInSeconds) {
+        this.localCacheManager = checkNotNull(localCacheManager);
+        this.name = name;
+        this.type = checkNotNull(type);
+        this.globalGroup = globalGroup;
+        this.entries = localCacheManager.newCache(name, maximumSize, expireInSeconds);
+        this.missingEntries = (missingExpireInSeconds > 0) ? localCacheManager.newCache(name + MISSING_CACHE_SUFFIX,
+                maximumSize, missingExpireInSeconds) : null;
+        // Invalidations are remembered for as long as an entry can be cached.
+        this.invalidations = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .expireAfterWrite(expireInSeconds, TimeUnit.SECONDS).build();
+        localCacheManager.addInvalidationListener(name, this::onInvalidation);
+    }
+
+    /**
+     * Get a copy of the entry, or null if it is cached as missing. If it is not cached, it is retrieved with the
+     * loader, and cached if not null.
+     */
+    V get(String group, String subKey, Supplier<V> loader) {
+        return get(group, subKey, loader, value -> true);
+    }
+
+    /**
+     * Get a copy of the entry, or null if it is cached as missing. If it is not cached, it is retrieved with the
+     * loader, and cached if it passes the cacheable test. A null value is cached as missing, if missing entries are
+     * cached.
+     */
+    V get(String group, String subKey, Supplier<V> loader, Predicate<? super V> cacheable) {
+        checkArgument(isNotBlank(group));
+        checkNotNull(subKey);
+        checkNotNull(loader);
+        checkNotNull(cacheable);
+
+        String key = group + KEY_DELIMITER + subKey;
+        byte[] serializedValue = entries.getIfPresent(key);
+        if (serializedValue != null) {
+            return decode(serializedValue);
+        }
+        if (missingEntries != null && missingEntries.getIfPresent(key) != null) {
+            return null;
+        }
+        long sequence = invalidationSequence.get();
+        V value = loader.get();
+        if (value == null) {
+            if (missingEntries != null && !isOutdated(group, sequence)) {
+                missingEntries.put(key, Boolean.TRUE);
+            }
+        } else if (cacheable.test(value) && !isOutdated(group, sequence)) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /** Remove the entries of the group from this server, and tell the other servers to do the same. */
+    void invalidate(String group) {
+        checkArgument(isNotBlank(group));
+
+        onInvalidation(group);
+        localCacheManager.publishInvalidation(name, group);
+    }
+
+    void onInvalidation(String group) {
+        localCacheManager.incrementCounter(name, INVALIDATION_COUNTER);
+        invalidations.put(group, invalidationSequence.incrementAndGet());
+        if (group.equals(globalGroup)) {
+            entries.invalidateAll();
+            if (missingEntries != null) {
+                missingEntries.invalidateAll();
+            }
+        } else {
+            // Ends with the delimiter, so the keys of one group are not a prefix of the keys of another.
+            String prefix = group + KEY_DELIMITER;
+            entries.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+            if (missingEntries != null) {
+                missingEntries.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+            }
+        }
+    }
+
+    // True if the group was invalidated while the value was loaded, in which case it is counted and not cached.
+    private boolean isOutdated(String group, long sequence) {
+        if (isInvalidatedAfter(group, sequence) || (globalGroup != null && isInvalidatedAfter(globalGroup, sequence))) {
+            localCacheManager.incrementCounter(name, OUTDATED_LOAD_COUNTER);
+            return true;
+        }
+        return false;
+    }
+
+    private void put(String key, V value) {
+        try {
+            entries.put(key, CacheEncoding.encode(BridgeObjectMapper.get().writer(), value));
+        } catch (IOException e) {
+            throw new BridgeServiceException(e);
+        }
+    }
+
+    private boolean isInvalidatedAfter(String group, long sequence) {
+        Long invalidatedAt = invalidations.getIfPresent(group);
+        return invalidatedAt != null && invalidatedAt > sequence;
+    }
+
+    private V decode(byte[] serializedValue) {
+        try {
+            return CacheEncoding.decode(serializedValue, type);
+        } catch (IOException e) {
+            throw new BridgeServiceException(e);
+        }
+    }
+}
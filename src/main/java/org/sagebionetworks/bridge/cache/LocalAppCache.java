@@ -0,0 +1,232 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.joda.time.DateTimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.apps.App;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * An in-process cache of apps, consulted by the AppService before Redis. Each app is held as an immutable snapshot
+ * (the app in the binary cache format), so every caller deserializes its own copy and cannot change the cached
+ * app. Once a snapshot is older than the refresh interval, it continues to be served while it is reloaded in the
+ * background; snapshots that are not read are dropped once they expire.
+ *
+ * Invalidations carry the version of the app that was written. Servers drop snapshots older than that version,
+ * and will not cache an older version of the app that was still being loaded when the invalidation arrived.
+ */
+@Component
+public class LocalAppCache {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalAppCache.class);
+
+    static final String APP_CACHE_NAME = "App";
+    static final String REFRESH_COUNTER = "refreshes";
+    static final String REFRESH_FAILURE_COUNTER = "refreshFailures";
+    static final String STALE_READ_COUNTER = "staleReads";
+    static final String STALE_READ_AGE_COUNTER = "staleReadAgeMillis";
+    static final String INVALIDATION_COUNTER = "invalidations";
+    static final String OUTDATED_VERSION_COUNTER = "outdatedVersionsDiscarded";
+
+    static final String ENABLED_PROPERTY = "app.local.cache.enabled";
+    static final String MAX_SIZE_PROPERTY = "app.local.cache.max.size";
+    static final String REFRESH_PROPERTY = "app.local.cache.refresh.seconds";
+    static final String EXPIRE_PROPERTY = "app.local.cache.expire.seconds";
+
+    private static final char VERSION_DELIMITER = '|';
+    private static final Splitter KEY_SPLITTER = Splitter.on(VERSION_DELIMITER).limit(2);
+    // Deleted apps have no version; no earlier snapshot of the app may be cached after it is deleted.
+    private static final long DELETED_VERSION = Long.MAX_VALUE;
+
+    private LocalCacheManager localCacheManager;
+    private ExecutorService asyncExecutorService;
+    private boolean enabled;
+    private int maximumSize;
+    private long refreshMillis;
+    private int expireInSeconds;
+    private Cache<String, Snapshot> apps;
+    private Cache<String, Long> invalidatedVersions;
+
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+
+    @Resource(name = "asyncExecutorService")
+    final void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.maximumSize = config.getInt(MAX_SIZE_PROPERTY);
+        this.refreshMillis = TimeUnit.SECONDS.toMillis(config.getInt(REFRESH_PROPERTY));
+        this.expireInSeconds = config.getInt(EXPIRE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            checkArgument(refreshMillis < TimeUnit.SECONDS.toMillis(expireInSeconds),
+                    "App refresh interval must be shorter than its expiration");
+            apps = localCacheManager.newCache(APP_CACHE_NAME, maximumSize, expireInSeconds);
+            invalidatedVersions = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                    .expireAfterWrite(expireInSeconds, TimeUnit.SECONDS).build();
+            localCacheManager.addInvalidationListener(APP_CACHE_NAME, this::onInvalidation);
+        }
+    }
+
+    /** True if apps should be cached in this server. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get a copy of the app. If it is not cached in this server, it is retrieved with the loader (and cached, if
+     * the loader returns an app). If the cached app is due to be refreshed, it is returned, and reloaded in the
+     * background with the same loader.
+     */
+    public App get(String appId, Function<String, App> loader) {
+        checkArgument(isNotBlank(appId));
+        checkNotNull(loader);
+
+        Snapshot snapshot = apps.getIfPresent(appId);
+        if (snapshot == null) {
+            App app = loader.apply(appId);
+            if (app != null) {
+                put(appId, app);
+            }
+            return app;
+        }
+        long age = DateTimeUtils.currentTimeMillis() - snapshot.loadedOn;
+        if (age >= refreshMillis) {
+            localCacheManager.incrementCounter(APP_CACHE_NAME, STALE_READ_COUNTER);
+            localCacheManager.addToCounter(APP_CACHE_NAME, STALE_READ_AGE_COUNTER, age);
+            if (snapshot.startRefresh()) {
+                asyncExecutorService.execute(() -> refresh(appId, snapshot, loader));
+            }
+        }
+        return snapshot.toApp();
+    }
+
+    /**
+     * Remove the app from this server, and tell the other servers to remove any snapshot of the app older than
+     * this version. The version is null if the app was deleted.
+     */
+    public void invalidate(String appId, Long version) {
+        checkArgument(isNotBlank(appId));
+
+        long invalidatedVersion = (version == null) ? DELETED_VERSION : version;
+        recordInvalidation(appId, invalidatedVersion);
+        apps.invalidate(appId);
+        localCacheManager.publishInvalidation(APP_CACHE_NAME, appId + VERSION_DELIMITER + invalidatedVersion);
+    }
+
+    void onInvalidation(String key) {
+        List<String> parts = KEY_SPLITTER.splitToList(key);
+        if (parts.size() != 2) {
+            return;
+        }
+        String appId = parts.get(0);
+        long invalidatedVersion;
+        try {
+            invalidatedVersion = Long.parseLong(parts.get(1));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        recordInvalidation(appId, invalidatedVersion);
+        Snapshot snapshot = apps.getIfPresent(appId);
+        if (snapshot != null && isOutdated(snapshot.version, invalidatedVersion)) {
+            apps.asMap().remove(appId, snapshot);
+        }
+    }
+
+    private void recordInvalidation(String appId, long invalidatedVersion) {
+        localCacheManager.incrementCounter(APP_CACHE_NAME, INVALIDATION_COUNTER);
+        invalidatedVersions.asMap().merge(appId, invalidatedVersion, Math::max);
+    }
+
+    private void refresh(String appId, Snapshot snapshot, Function<String, App> loader) {
+        try {
+            App app = loader.apply(appId);
+            localCacheManager.incrementCounter(APP_CACHE_NAME, REFRESH_COUNTER);
+            if (app == null) {
+                apps.asMap().remove(appId, snapshot);
+            } else {
+                put(appId, app);
+            }
+        } catch (Exception e) {
+            // Drop the snapshot, so the next request loads the app (and receives the error, if it persists).
+            localCacheManager.incrementCounter(APP_CACHE_NAME, REFRESH_FAILURE_COUNTER);
+            LOG.warn("Could not refresh locally cached app " + appId, e);
+            apps.asMap().remove(appId, snapshot);
+        }
+    }
+
+    private void put(String appId, App app) {
+        Long invalidatedVersion = invalidatedVersions.getIfPresent(appId);
+        if (invalidatedVersion != null && isOutdated(app.getVersion(), invalidatedVersion)) {
+            localCacheManager.incrementCounter(APP_CACHE_NAME, OUTDATED_VERSION_COUNTER);
+            return;
+        }
+        try {
+            byte[] ser = CacheEncoding.encode(BridgeObjectMapper.get().writer(), app);
+            apps.put(appId, new Snapshot(ser, app.getVersion(), DateTimeUtils.currentTimeMillis()));
+        } catch (IOException e) {
+            throw new BridgeServiceException(e);
+        }
+    }
+
+    private static boolean isOutdated(Long version, long invalidatedVersion) {
+        return version == null || version < invalidatedVersion;
+    }
+
+    private static final class Snapshot {
+        private final byte[] ser;
+        private final Long version;
+        private final long loadedOn;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Snapshot(byte[] ser, Long version, long loadedOn) {
+            this.ser = ser;
+            this.version = version;
+            this.loadedOn = loadedOn;
+        }
+
+        /** True if the caller should refresh this snapshot (only one caller will). */
+        private boolean startRefresh() {
+            return refreshing.compareAndSet(false, true);
+        }
+
+        private App toApp() {
+            try {
+                return CacheEncoding.decode(ser, App.class);
+            } catch (IOException e) {
+                throw new BridgeServiceException(e);
+            }
+        }
+    }
+}
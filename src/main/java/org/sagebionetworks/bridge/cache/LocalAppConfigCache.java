@@ -0,0 +1,99 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.sagebionetworks.bridge.BridgeConstants.SHARED_APP_ID;
+
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+/**
+ * An in-process cache of app configs with their survey, assessment, and config element references resolved. An app
+ * config is cached under its GUID and the time it was last modified, so a changed app config is resolved again. The
+ * references of an app config point to specific versions and revisions, but the resolved values can still change
+ * when a referenced survey, assessment, or config element is changed or deleted; those changes invalidate every
+ * resolved app config of the app, in every server. A change in the shared app invalidates the app configs of all
+ * apps, since they can reference shared assessments.
+ *
+ * App configs are held in the binary cache format, so every caller deserializes its own copy (see
+ * InvalidatingLocalCache).
+ */
+@Component
+public class LocalAppConfigCache {
+    static final String APP_CONFIG_CACHE_NAME = "ResolvedAppConfigs";
+
+    static final String ENABLED_PROPERTY = "app.config.local.cache.enabled";
+    static final String MAX_SIZE_PROPERTY = "app.config.local.cache.max.size";
+    static final String EXPIRE_PROPERTY = "app.config.local.cache.expire.seconds";
+
+    private static final char KEY_DELIMITER = '|';
+
+    private LocalCacheManager localCacheManager;
+    private boolean enabled;
+    private int maximumSize;
+    private int expireInSeconds;
+    private InvalidatingLocalCache<AppConfig> appConfigs;
+
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.maximumSize = config.getInt(MAX_SIZE_PROPERTY);
+        this.expireInSeconds = config.getInt(EXPIRE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            appConfigs = new InvalidatingLocalCache<>(localCacheManager, APP_CONFIG_CACHE_NAME, maximumSize,
+                    expireInSeconds, BridgeObjectMapper.get().constructType(AppConfig.class), SHARED_APP_ID);
+        }
+    }
+
+    /**
+     * Get a copy of the app config with its references resolved. If it is not cached in this server, it is resolved
+     * with the resolver and cached. App configs that have not been persisted (with no GUID) are not cached.
+     */
+    public AppConfig get(String appId, AppConfig appConfig, Supplier<AppConfig> resolver) {
+        checkArgument(isNotBlank(appId));
+        checkNotNull(appConfig);
+        checkNotNull(resolver);
+
+        if (!enabled || appConfig.getGuid() == null) {
+            return resolver.get();
+        }
+        String subKey = appConfig.getGuid() + KEY_DELIMITER + appConfig.getModifiedOn();
+        AppConfig copy = appConfigs.get(appId, subKey, resolver);
+        if (copy != null) {
+            // The app ID is not part of the app config's JSON.
+            copy.setAppId(appId);
+        }
+        return copy;
+    }
+
+    /**
+     * Remove the resolved app configs of the app from this server, and tell the other servers to do the same. Call
+     * this when an app config, or anything it can reference, is changed. Changes in the shared app remove the app
+     * configs of every app.
+     */
+    public void invalidate(String appId) {
+        checkArgument(isNotBlank(appId));
+
+        if (enabled) {
+            appConfigs.invalidate(appId);
+        }
+    }
+}
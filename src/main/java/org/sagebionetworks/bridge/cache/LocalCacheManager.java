@@ -0,0 +1,195 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Creates and tracks the in-process (per-server) caches that sit in front of Redis and our databases. Each cache
+ * is registered under a name, so that its statistics can be reported through the cache administration API, and
+ * so that a change made on one server can evict the matching entries on every other server. Eviction messages are
+ * broadcast over a Redis pub/sub channel; delivery is best effort, so every local cache must also be given an
+ * expiration period that bounds how stale an entry can become if a message is lost.
+ */
+@Component
+public class LocalCacheManager {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalCacheManager.class);
+
+    static final String INVALIDATION_CHANNEL = "bridge:local-cache-invalidation";
+    static final char DELIMITER = '|';
+    private static final Splitter MESSAGE_SPLITTER = Splitter.on(DELIMITER).limit(3);
+    private static final long RESUBSCRIBE_DELAY_MILLIS = 5000L;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Consumer<String>> invalidationListeners = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, AtomicLong>> counters = new ConcurrentHashMap<>();
+    private final JedisPubSub subscriber = new InvalidationSubscriber();
+    private JedisPool jedisPool;
+    private volatile boolean running;
+
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    /** The ID used to recognize (and skip) invalidation messages that this server sent itself. */
+    String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Create a new cache, bounded by both size and time since the entry was written, and register it under the
+     * given name. Cache statistics are recorded.
+     */
+    public <K, V> Cache<K, V> newCache(String name, long maximumSize, long expireAfterWriteSeconds) {
+        checkArgument(isNotBlank(name));
+        checkArgument(maximumSize > 0L);
+        checkArgument(expireAfterWriteSeconds > 0L);
+
+        Cache<K, V> cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Local cache already registered: " + name);
+        }
+        return cache;
+    }
+
+    /**
+     * Register the callback that evicts entries from the named cache when another server publishes an
+     * invalidation message for that cache.
+     */
+    public void addInvalidationListener(String name, Consumer<String> listener) {
+        checkArgument(isNotBlank(name));
+        checkNotNull(listener);
+        invalidationListeners.put(name, listener);
+    }
+
+    /**
+     * Tell the other servers in the cluster to evict the entry for this key from the named cache. The caller is
+     * responsible for evicting the entry from the local cache. Failures are logged, not thrown: the entry will
+     * expire on the other servers in any case.
+     */
+    public void publishInvalidation(String name, String key) {
+        checkArgument(isNotBlank(name));
+        checkArgument(isNotBlank(key));
+
+        String message = nodeId + DELIMITER + name + DELIMITER + key;
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.publish(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            LOG.warn("Could not publish invalidation of local cache " + name, e);
+        }
+    }
+
+    /** Add one to a named counter that is reported with the statistics of a cache. */
+    public void incrementCounter(String name, String counterName) {
+        addToCounter(name, counterName, 1L);
+    }
+
+    /** Add an amount (e.g. a duration in milliseconds) to a named counter of a cache. */
+    public void addToCounter(String name, String counterName, long amount) {
+        counters.computeIfAbsent(name, (k) -> new ConcurrentHashMap<>())
+            .computeIfAbsent(counterName, (k) -> new AtomicLong()).addAndGet(amount);
+    }
+
+    /** The statistics of every registered cache, sorted by cache name. */
+    public Map<String, LocalCacheStats> getStats() {
+        Map<String, LocalCacheStats> stats = new TreeMap<>();
+        for (Map.Entry<String, Cache<?, ?>> entry : caches.entrySet()) {
+            Map<String, Long> cacheCounters = new TreeMap<>();
+            Map<String, AtomicLong> counterMap = counters.get(entry.getKey());
+            if (counterMap != null) {
+                counterMap.forEach((counterName, value) -> cacheCounters.put(counterName, value.get()));
+            }
+            Cache<?, ?> cache = entry.getValue();
+            stats.put(entry.getKey(), new LocalCacheStats(cache.size(), cache.stats(), cacheCounters));
+        }
+        return stats;
+    }
+
+    void onMessage(String message) {
+        List<String> parts = MESSAGE_SPLITTER.splitToList(message);
+        if (parts.size() != 3 || nodeId.equals(parts.get(0))) {
+            return;
+        }
+        Consumer<String> listener = invalidationListeners.get(parts.get(1));
+        if (listener != null) {
+            listener.accept(parts.get(2));
+        }
+    }
+
+    @PostConstruct
+    public void startSubscriber() {
+        running = true;
+        Thread thread = new Thread(this::subscribe, "local-cache-invalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stopSubscriber() {
+        running = false;
+        if (subscriber.isSubscribed()) {
+            subscriber.unsubscribe();
+        }
+    }
+
+    private void subscribe() {
+        // subscribe() blocks until the subscription ends. If the connection fails, wait and subscribe again.
+        // Entries will be stale for up to their expiration period when invalidation messages are missed.
+        while (running) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                jedis.subscribe(subscriber, INVALIDATION_CHANNEL);
+            } catch (Exception e) {
+                LOG.warn("Local cache invalidation subscription failed, retrying", e);
+                try {
+                    Thread.sleep(RESUBSCRIBE_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class InvalidationSubscriber extends JedisPubSub {
+        @Override
+        public void onMessage(String channel, String message) {
+            try {
+                LocalCacheManager.this.onMessage(message);
+            } catch (Exception e) {
+                LOG.warn("Could not process local cache invalidation message", e);
+            }
+        }
+    }
+}
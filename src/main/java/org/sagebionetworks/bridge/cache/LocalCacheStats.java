@@ -0,0 +1,53 @@
+package org.sagebionetworks.bridge.cache;
+
+import java.util.Map;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A snapshot of the statistics of one in-process cache, as reported through the cache administration API.
+ * Counters are additional, cache-specific counts (e.g. the number of times a cached value did not match the
+ * value in Redis).
+ */
+public final class LocalCacheStats {
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final double hitRate;
+    private final Map<String, Long> counters;
+
+    public LocalCacheStats(long size, CacheStats stats, Map<String, Long> counters) {
+        this.size = size;
+        this.hitCount = stats.hitCount();
+        this.missCount = stats.missCount();
+        this.evictionCount = stats.evictionCount();
+        this.hitRate = stats.hitRate();
+        this.counters = (counters == null) ? ImmutableMap.of() : ImmutableMap.copyOf(counters);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+}
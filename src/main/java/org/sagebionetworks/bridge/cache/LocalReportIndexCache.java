@@ -0,0 +1,104 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.reports.ReportDataKey;
+import org.sagebionetworks.bridge.models.reports.ReportIndex;
+
+/**
+ * An in-process cache of report indices, consulted by the ReportService before DynamoDB. Every read, save, and delete
+ * of report data looks up the report's index to check study memberships, and indices change very rarely. Reports
+ * without an index are cached as well, so that saving records to a report without an index does not read the index
+ * every time.
+ *
+ * Adding, updating, or removing an index invalidates it in every server. Since the index decides who can access a
+ * report, and a report without an index can be accessed by anyone, entries expire quickly in case an invalidation
+ * message is lost, and reports without an index expire more quickly still. Indices are held in the binary cache
+ * format, so every caller deserializes its own copy (see InvalidatingLocalCache).
+ */
+@Component
+public class LocalReportIndexCache {
+    static final String CACHE_NAME = "ReportIndices";
+
+    static final String ENABLED_PROPERTY = "report.index.local.cache.enabled";
+    static final String MAX_SIZE_PROPERTY = "report.index.local.cache.max.size";
+    static final String EXPIRE_PROPERTY = "report.index.local.cache.expire.seconds";
+    static final String MISSING_EXPIRE_PROPERTY = "report.index.local.cache.missing.expire.seconds";
+
+    private static final char KEY_DELIMITER = '|';
+    // Each report has one index, so there is one entry in each group.
+    private static final String INDEX_SUB_KEY = "";
+
+    private LocalCacheManager localCacheManager;
+    private boolean enabled;
+    private int maximumSize;
+    private int expireInSeconds;
+    private int missingExpireInSeconds;
+    private InvalidatingLocalCache<ReportIndex> indices;
+
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.maximumSize = config.getInt(MAX_SIZE_PROPERTY);
+        this.expireInSeconds = config.getInt(EXPIRE_PROPERTY);
+        this.missingExpireInSeconds = config.getInt(MISSING_EXPIRE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            indices = new InvalidatingLocalCache<>(localCacheManager, CACHE_NAME, maximumSize, expireInSeconds,
+                    BridgeObjectMapper.get().constructType(ReportIndex.class), null, missingExpireInSeconds);
+        }
+    }
+
+    /**
+     * Get a copy of the index of the report, or null if the report has no index. If it is not cached in this server,
+     * it is retrieved with the loader and cached, even if there is no index.
+     */
+    public ReportIndex getIndex(ReportDataKey key, Supplier<ReportIndex> loader) {
+        checkNotNull(key);
+        checkNotNull(loader);
+
+        if (!enabled) {
+            return loader.get();
+        }
+        ReportIndex copy = indices.get(group(key), INDEX_SUB_KEY, loader);
+        if (copy != null) {
+            // The DynamoDB key is not part of the index's JSON.
+            copy.setKey(key.getIndexKeyString());
+        }
+        return copy;
+    }
+
+    /**
+     * Remove the index of the report from this server, and tell the other servers to do the same. Call this when an
+     * index is added, updated, or removed.
+     */
+    public void invalidate(ReportDataKey key) {
+        checkNotNull(key);
+
+        if (enabled) {
+            indices.invalidate(group(key));
+        }
+    }
+
+    // Participant reports share one index for all participants, so the health code is not part of the key.
+    private static String group(ReportDataKey key) {
+        return key.getIndexKeyString() + KEY_DELIMITER + key.getIdentifier();
+    }
+}
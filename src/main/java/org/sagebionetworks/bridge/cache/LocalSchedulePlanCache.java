@@ -0,0 +1,92 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.schedules.SchedulePlan;
+
+/**
+ * An in-process cache of the schedule plans of each app, with their criteria, consulted by the SchedulePlanService
+ * before DynamoDB. Plans are held in the binary cache format, so every caller deserializes its own copies and cannot
+ * change the cached plans.
+ *
+ * The plans of an app are invalidated in every server when any of them is changed. A list of plans that was still
+ * being loaded when the invalidation arrived is not cached (see InvalidatingLocalCache).
+ */
+@Component
+public class LocalSchedulePlanCache {
+    static final String SCHEDULE_PLAN_CACHE_NAME = "SchedulePlans";
+
+    static final String ENABLED_PROPERTY = "schedule.plan.local.cache.enabled";
+    static final String MAX_SIZE_PROPERTY = "schedule.plan.local.cache.max.size";
+    static final String EXPIRE_PROPERTY = "schedule.plan.local.cache.expire.seconds";
+
+    private static final String ACTIVE_PLANS_KEY = "active";
+    private static final String ALL_PLANS_KEY = "all";
+
+    private LocalCacheManager localCacheManager;
+    private boolean enabled;
+    private int maximumSize;
+    private int expireInSeconds;
+    private InvalidatingLocalCache<List<SchedulePlan>> plans;
+
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.maximumSize = config.getInt(MAX_SIZE_PROPERTY);
+        this.expireInSeconds = config.getInt(EXPIRE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            plans = new InvalidatingLocalCache<>(localCacheManager, SCHEDULE_PLAN_CACHE_NAME, maximumSize,
+                    expireInSeconds, BridgeObjectMapper.get().getTypeFactory()
+                            .constructCollectionType(List.class, SchedulePlan.class), null);
+        }
+    }
+
+    /**
+     * Get copies of the schedule plans of the app. If they are not cached in this server, they are retrieved with
+     * the loader and cached.
+     */
+    public List<SchedulePlan> get(String appId, boolean includeDeleted, Supplier<List<SchedulePlan>> loader) {
+        checkArgument(isNotBlank(appId));
+        checkNotNull(loader);
+
+        if (!enabled) {
+            return loader.get();
+        }
+        List<SchedulePlan> copies = plans.get(appId, includeDeleted ? ALL_PLANS_KEY : ACTIVE_PLANS_KEY, loader);
+        if (copies != null) {
+            // The app ID is not part of the plan's JSON.
+            copies.forEach(plan -> plan.setAppId(appId));
+        }
+        return copies;
+    }
+
+    /** Remove the plans of the app from this server, and tell the other servers to do the same. */
+    public void invalidate(String appId) {
+        checkArgument(isNotBlank(appId));
+
+        if (enabled) {
+            plans.invalidate(appId);
+        }
+    }
+}
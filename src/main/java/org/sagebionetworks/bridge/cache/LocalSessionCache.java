@@ -0,0 +1,205 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * An in-process near cache of deserialized user sessions, consulted by the CacheProvider before Redis. It mirrors
+ * the layout of the sessions in Redis (session token to user ID, and user ID to session), so that a change to a
+ * user's session on any server can be invalidated by user ID without knowing the session tokens other servers
+ * have cached. Entries expire after a short period so that a lost invalidation message cannot keep a stale
+ * session alive for long. A session that was read from Redis while the user's session was invalidated is returned
+ * but not cached, since it may have been read before the change.
+ *
+ * In shadow mode, the CacheProvider continues to read every session from Redis and only uses this cache to
+ * compare the two values, counting matches and mismatches, so that the cache can be verified before it is
+ * allowed to serve requests.
+ */
+@Component
+public class LocalSessionCache {
+    private static final Logger LOG = LoggerFactory.getLogger(LocalSessionCache.class);
+
+    static final String SESSION_CACHE_NAME = "UserSession";
+    static final String TOKEN_CACHE_NAME = "UserSessionToken";
+    static final String SHADOW_MATCH_COUNTER = "shadowMatches";
+    static final String SHADOW_MISMATCH_COUNTER = "shadowMismatches";
+
+    static final String ENABLED_PROPERTY = "session.local.cache.enabled";
+    static final String SHADOW_MODE_PROPERTY = "session.local.cache.shadow.mode";
+    static final String MAX_SIZE_PROPERTY = "session.local.cache.max.size";
+    static final String EXPIRE_PROPERTY = "session.local.cache.expire.seconds";
+
+    private LocalCacheManager localCacheManager;
+    private boolean enabled;
+    private boolean shadowMode;
+    private int maximumSize;
+    private int expireInSeconds;
+    private Cache<String, String> tokenToUserId;
+    private Cache<String, UserSession> userIdToSession;
+    private Cache<String, Long> invalidations;
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.shadowMode = Boolean.parseBoolean(config.get(SHADOW_MODE_PROPERTY));
+        this.maximumSize = config.getInt(MAX_SIZE_PROPERTY);
+        this.expireInSeconds = config.getInt(EXPIRE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            tokenToUserId = localCacheManager.newCache(TOKEN_CACHE_NAME, maximumSize, expireInSeconds);
+            userIdToSession = localCacheManager.newCache(SESSION_CACHE_NAME, maximumSize, expireInSeconds);
+            // Invalidations are remembered for as long as a session can be cached.
+            invalidations = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                    .expireAfterWrite(expireInSeconds, TimeUnit.SECONDS).build();
+            localCacheManager.addInvalidationListener(SESSION_CACHE_NAME, this::onInvalidation);
+        }
+    }
+
+    /** True if sessions should be cached in this server. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** True if the cache should only be compared against Redis, and never used to serve a session. */
+    public boolean isShadowMode() {
+        return shadowMode;
+    }
+
+    /**
+     * Get a copy of the session for this token, or null if it is not cached in this server (or the user has since
+     * been issued a session with a different token).
+     */
+    public UserSession get(String sessionToken) {
+        checkNotNull(sessionToken);
+
+        String userId = tokenToUserId.getIfPresent(sessionToken);
+        if (userId == null) {
+            return null;
+        }
+        UserSession session = userIdToSession.getIfPresent(userId);
+        if (session == null || !sessionToken.equals(session.getSessionToken())) {
+            return null;
+        }
+        return copy(session);
+    }
+
+    /**
+     * The current position in the sequence of invalidations. Read this before reading a session from Redis, and pass
+     * it to {@link #put(UserSession, long)} when caching that session.
+     */
+    public long getInvalidationSequence() {
+        return invalidationSequence.get();
+    }
+
+    /** Cache a copy of a session that has just been written to Redis. */
+    public void put(UserSession session) {
+        checkNotNull(session);
+
+        tokenToUserId.put(session.getSessionToken(), session.getId());
+        userIdToSession.put(session.getId(), copy(session));
+    }
+
+    /**
+     * Cache a copy of a session that has been read from Redis, unless the user's session was invalidated after the
+     * read started (at the given position in the sequence of invalidations), in which case it is counted and not
+     * cached.
+     */
+    public void put(UserSession session, long sequence) {
+        checkNotNull(session);
+
+        Long invalidatedAt = invalidations.getIfPresent(session.getId());
+        if (invalidatedAt != null && invalidatedAt > sequence) {
+            localCacheManager.incrementCounter(SESSION_CACHE_NAME, InvalidatingLocalCache.OUTDATED_LOAD_COUNTER);
+            return;
+        }
+        put(session);
+    }
+
+    /** Remove the user's session from this server, and tell the other servers to do the same. */
+    public void invalidate(String userId) {
+        checkNotNull(userId);
+
+        onInvalidation(userId);
+        localCacheManager.publishInvalidation(SESSION_CACHE_NAME, userId);
+    }
+
+    void onInvalidation(String userId) {
+        invalidations.put(userId, invalidationSequence.incrementAndGet());
+        userIdToSession.invalidate(userId);
+    }
+
+    /**
+     * In shadow mode, record whether the locally cached session matches the session that was read from Redis. If
+     * they do not match, the local copy is dropped.
+     */
+    public void compare(String sessionToken, UserSession localSession, UserSession redisSession) {
+        if (localSession == null) {
+            return;
+        }
+        if (Objects.equals(serialize(localSession), serialize(redisSession))) {
+            localCacheManager.incrementCounter(SESSION_CACHE_NAME, SHADOW_MATCH_COUNTER);
+        } else {
+            localCacheManager.incrementCounter(SESSION_CACHE_NAME, SHADOW_MISMATCH_COUNTER);
+            LOG.warn("Locally cached session does not match Redis for user " + localSession.getId());
+            tokenToUserId.invalidate(sessionToken);
+            userIdToSession.invalidate(localSession.getId());
+        }
+    }
+
+    // The cache writer encrypts the health code with a random IV, so compare the sessions with the plain health code.
+    private String serialize(UserSession session) {
+        if (session == null) {
+            return null;
+        }
+        try {
+            return StudyParticipant.API_WITH_HEALTH_CODE_WRITER.writeValueAsString(session);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sessions are mutable, so each caller gets its own copy. The participant and the consent statuses are
+     * immutable and can be shared. The reauthentication token is not persisted to Redis, so it is not copied,
+     * in order to return exactly what a read from Redis would return.
+     */
+    static UserSession copy(UserSession session) {
+        UserSession copy = new UserSession();
+        copy.setParticipant(session.getParticipant());
+        copy.setAuthenticated(session.isAuthenticated());
+        copy.setEnvironment(session.getEnvironment());
+        copy.setIpAddress(session.getIpAddress());
+        copy.setSessionToken(session.getSessionToken());
+        copy.setInternalSessionToken(session.getInternalSessionToken());
+        copy.setAppId(session.getAppId());
+        copy.setConsentStatuses(session.getConsentStatuses());
+        return copy;
+    }
+}
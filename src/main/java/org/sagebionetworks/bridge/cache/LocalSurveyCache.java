@@ -0,0 +1,137 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
+import org.sagebionetworks.bridge.models.surveys.Survey;
+
+/**
+ * An in-process cache of published surveys, consulted by the SurveyService before DynamoDB. A published survey
+ * version (GUID and createdOn) cannot be edited, so it is cached under its keys until it is evicted by size or time.
+ * Surveys are cached with and without their elements, since the two are retrieved separately.
+ *
+ * The most recently published version of each survey is held in a second cache with a shorter expiration, since
+ * publishing a new version changes it. Publishing, versioning, or deleting (or undeleting) a survey invalidates both
+ * caches for that survey GUID, in every server. Surveys are held in the binary cache format, so every caller
+ * deserializes its own copy (see InvalidatingLocalCache).
+ */
+@Component
+public class LocalSurveyCache {
+    static final String PUBLISHED_SURVEY_CACHE_NAME = "PublishedSurveys";
+    static final String MOST_RECENTLY_PUBLISHED_CACHE_NAME = "MostRecentlyPublishedSurveys";
+
+    static final String ENABLED_PROPERTY = "survey.local.cache.enabled";
+    static final String MAX_SIZE_PROPERTY = "survey.local.cache.max.size";
+    static final String EXPIRE_PROPERTY = "survey.local.cache.expire.seconds";
+    static final String MOST_RECENT_EXPIRE_PROPERTY = "survey.local.cache.most.recent.expire.seconds";
+
+    private static final char KEY_DELIMITER = '|';
+    private static final String ELEMENTS_SUFFIX = "elements";
+    private static final String NO_ELEMENTS_SUFFIX = "noElements";
+
+    private LocalCacheManager localCacheManager;
+    private boolean enabled;
+    private int maximumSize;
+    private int expireInSeconds;
+    private int mostRecentExpireInSeconds;
+    private InvalidatingLocalCache<Survey> publishedSurveys;
+    private InvalidatingLocalCache<Survey> mostRecentlyPublishedSurveys;
+
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.maximumSize = config.getInt(MAX_SIZE_PROPERTY);
+        this.expireInSeconds = config.getInt(EXPIRE_PROPERTY);
+        this.mostRecentExpireInSeconds = config.getInt(MOST_RECENT_EXPIRE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            publishedSurveys = new InvalidatingLocalCache<>(localCacheManager, PUBLISHED_SURVEY_CACHE_NAME,
+                    maximumSize, expireInSeconds, Survey.class);
+            mostRecentlyPublishedSurveys = new InvalidatingLocalCache<>(localCacheManager,
+                    MOST_RECENTLY_PUBLISHED_CACHE_NAME, maximumSize, mostRecentExpireInSeconds, Survey.class);
+        }
+    }
+
+    /**
+     * Get a copy of the survey version. If it is not cached in this server, it is retrieved with the loader, and
+     * cached if it has been published. Unpublished versions can still be edited, so they are never cached.
+     */
+    public Survey getSurvey(String appId, GuidCreatedOnVersionHolder keys, boolean includeElements,
+            Supplier<Survey> loader) {
+        checkNotNull(keys);
+        checkNotNull(loader);
+
+        if (!enabled || appId == null || keys.getGuid() == null) {
+            return loader.get();
+        }
+        String subKey = Long.toString(keys.getCreatedOn()) + KEY_DELIMITER + elementsSuffix(includeElements);
+        Survey survey = publishedSurveys.get(group(appId, keys.getGuid()), subKey, loader, Survey::isPublished);
+        return withAppId(appId, survey);
+    }
+
+    /**
+     * Get a copy of the most recently published version of the survey. If it is not cached in this server, it is
+     * retrieved with the loader and cached.
+     */
+    public Survey getMostRecentlyPublishedSurvey(String appId, String guid, boolean includeElements,
+            Supplier<Survey> loader) {
+        checkArgument(isNotBlank(appId));
+        checkArgument(isNotBlank(guid));
+        checkNotNull(loader);
+
+        if (!enabled) {
+            return loader.get();
+        }
+        Survey survey = mostRecentlyPublishedSurveys.get(group(appId, guid), elementsSuffix(includeElements), loader);
+        return withAppId(appId, survey);
+    }
+
+    /**
+     * Remove every cached version of the survey from this server, and tell the other servers to do the same. Call
+     * this when a survey is published, versioned, updated, or deleted.
+     */
+    public void invalidate(String appId, String guid) {
+        checkArgument(isNotBlank(appId));
+        checkArgument(isNotBlank(guid));
+
+        if (enabled) {
+            String group = group(appId, guid);
+            publishedSurveys.invalidate(group);
+            mostRecentlyPublishedSurveys.invalidate(group);
+        }
+    }
+
+    // The app ID is not part of the survey's JSON.
+    private static Survey withAppId(String appId, Survey survey) {
+        if (survey != null) {
+            survey.setAppId(appId);
+        }
+        return survey;
+    }
+
+    private static String group(String appId, String guid) {
+        return appId + KEY_DELIMITER + guid;
+    }
+
+    private static String elementsSuffix(boolean includeElements) {
+        return includeElements ? ELEMENTS_SUFFIX : NO_ELEMENTS_SUFFIX;
+    }
+}
@@ -0,0 +1,108 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.models.schedules2.Schedule2;
+import org.sagebionetworks.bridge.models.schedules2.timelines.Timeline;
+
+import com.google.common.cache.Cache;
+
+/**
+ * An in-process cache of the timelines calculated from schedules. A timeline is determined by its schedule and the
+ * caller's languages, so it is cached under the schedule's GUID, the time the schedule was last modified, and the
+ * language key; a change to the schedule produces a new key and the old timeline is never served. Timelines are
+ * immutable and are shared between callers.
+ *
+ * Schedules are invalidated when they are changed or deleted, to free the timelines cached for the earlier
+ * versions of the schedule in every server.
+ */
+@Component
+public class LocalTimelineCache {
+    static final String TIMELINE_CACHE_NAME = "Timeline";
+    static final String INVALIDATION_COUNTER = "invalidations";
+
+    static final String ENABLED_PROPERTY = "timeline.local.cache.enabled";
+    static final String MAX_SIZE_PROPERTY = "timeline.local.cache.max.size";
+    static final String EXPIRE_PROPERTY = "timeline.local.cache.expire.seconds";
+
+    private static final char KEY_DELIMITER = '|';
+
+    private LocalCacheManager localCacheManager;
+    private boolean enabled;
+    private int maximumSize;
+    private int expireInSeconds;
+    private Cache<String, Timeline> timelines;
+
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.maximumSize = config.getInt(MAX_SIZE_PROPERTY);
+        this.expireInSeconds = config.getInt(EXPIRE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            timelines = localCacheManager.newCache(TIMELINE_CACHE_NAME, maximumSize, expireInSeconds);
+            localCacheManager.addInvalidationListener(TIMELINE_CACHE_NAME, this::onInvalidation);
+        }
+    }
+
+    /**
+     * Get the timeline for this version of the schedule in the given languages. If it is not cached, it is
+     * calculated with the calculator and cached. Schedules that have not been persisted (with no modification
+     * time) are not cached.
+     */
+    public Timeline get(Schedule2 schedule, String languageKey, Supplier<Timeline> calculator) {
+        checkNotNull(schedule);
+        checkNotNull(calculator);
+
+        if (!enabled || schedule.getModifiedOn() == null) {
+            return calculator.get();
+        }
+        String key = prefix(schedule.getAppId(), schedule.getGuid()) + schedule.getModifiedOn().getMillis()
+                + KEY_DELIMITER + languageKey;
+        Timeline timeline = timelines.getIfPresent(key);
+        if (timeline == null) {
+            timeline = calculator.get();
+            timelines.put(key, timeline);
+        }
+        return timeline;
+    }
+
+    /** Remove every timeline of the schedule from this server, and tell the other servers to do the same. */
+    public void invalidate(String appId, String guid) {
+        checkArgument(isNotBlank(appId));
+        checkArgument(isNotBlank(guid));
+
+        if (enabled) {
+            String prefix = prefix(appId, guid);
+            onInvalidation(prefix);
+            localCacheManager.publishInvalidation(TIMELINE_CACHE_NAME, prefix);
+        }
+    }
+
+    void onInvalidation(String prefix) {
+        localCacheManager.incrementCounter(TIMELINE_CACHE_NAME, INVALIDATION_COUNTER);
+        timelines.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static String prefix(String appId, String guid) {
+        return appId + KEY_DELIMITER + guid + KEY_DELIMITER;
+    }
+}
@@ -0,0 +1,97 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.models.upload.UploadSchema;
+
+/**
+ * An in-process cache of upload schema revisions, consulted by the UploadSchemaService before DynamoDB. Every upload
+ * and health data submission looks up its schema revision, and the same few revisions are looked up over and over.
+ *
+ * Revisions are mostly, but not strictly, immutable: fields can be added to a revision, and a revision can be
+ * deleted. Updating or deleting any revision of a schema invalidates every cached revision of that schema ID, in
+ * every server. Missing revisions are not cached, so a newly created revision is found right away. Schemas are held
+ * in the binary cache format, so every caller deserializes its own copy (see InvalidatingLocalCache).
+ */
+@Component
+public class LocalUploadSchemaCache {
+    static final String CACHE_NAME = "UploadSchemaRevisions";
+
+    static final String ENABLED_PROPERTY = "upload.schema.local.cache.enabled";
+    static final String MAX_SIZE_PROPERTY = "upload.schema.local.cache.max.size";
+    static final String EXPIRE_PROPERTY = "upload.schema.local.cache.expire.seconds";
+
+    private static final char KEY_DELIMITER = '|';
+
+    private LocalCacheManager localCacheManager;
+    private boolean enabled;
+    private int maximumSize;
+    private int expireInSeconds;
+    private InvalidatingLocalCache<UploadSchema> schemaRevisions;
+
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(ENABLED_PROPERTY));
+        this.maximumSize = config.getInt(MAX_SIZE_PROPERTY);
+        this.expireInSeconds = config.getInt(EXPIRE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            schemaRevisions = new InvalidatingLocalCache<>(localCacheManager, CACHE_NAME, maximumSize,
+                    expireInSeconds, UploadSchema.class);
+        }
+    }
+
+    /**
+     * Get a copy of the schema revision. If it is not cached in this server, it is retrieved with the loader, and
+     * cached if it exists.
+     */
+    public UploadSchema getUploadSchema(String appId, String schemaId, int revision, Supplier<UploadSchema> loader) {
+        checkArgument(isNotBlank(schemaId));
+        checkNotNull(loader);
+
+        if (!enabled || appId == null) {
+            return loader.get();
+        }
+        UploadSchema copy = schemaRevisions.get(group(appId, schemaId), Integer.toString(revision), loader);
+        if (copy != null) {
+            // The schema was cached under this app ID, so it always belongs to the caller's app.
+            copy.setAppId(appId);
+        }
+        return copy;
+    }
+
+    /**
+     * Remove every cached revision of the schema from this server, and tell the other servers to do the same. Call
+     * this when a schema revision is updated or deleted.
+     */
+    public void invalidate(String appId, String schemaId) {
+        checkArgument(isNotBlank(appId));
+        checkArgument(isNotBlank(schemaId));
+
+        if (enabled) {
+            schemaRevisions.invalidate(group(appId, schemaId));
+        }
+    }
+
+    private static String group(String appId, String schemaId) {
+        return appId + KEY_DELIMITER + schemaId;
+    }
+}
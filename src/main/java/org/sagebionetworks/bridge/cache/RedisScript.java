@@ -0,0 +1,69 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * A Lua script executed atomically in Redis. The script is executed by its SHA1 digest, so the body of the script is
+ * only sent to Redis the first time it is used (or after Redis has lost its script cache, e.g. on a restart or
+ * failover).
+ */
+public final class RedisScript {
+    private static final String NO_SCRIPT_ERROR = "NOSCRIPT";
+
+    private final String script;
+    private final String sha;
+    private final byte[] scriptBytes;
+    private final byte[] shaBytes;
+
+    public RedisScript(String script) {
+        checkArgument(isNotBlank(script));
+        this.script = script;
+        this.sha = DigestUtils.sha1Hex(script);
+        this.scriptBytes = script.getBytes(UTF_8);
+        this.shaBytes = sha.getBytes(UTF_8);
+    }
+
+    public String getSha() {
+        return sha;
+    }
+
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha, keys, args);
+        } catch (JedisDataException e) {
+            if (isNoScript(e)) {
+                // EVAL also adds the script to the script cache, so subsequent EVALSHA calls will succeed.
+                return jedis.eval(script, keys, args);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Execute the script with binary keys and arguments. Bulk replies are returned as byte arrays rather than
+     * strings, so binary values stored in Redis are returned intact.
+     */
+    public Object evalBinary(Jedis jedis, List<byte[]> keys, List<byte[]> args) {
+        try {
+            return jedis.evalsha(shaBytes, keys, args);
+        } catch (JedisDataException e) {
+            if (isNoScript(e)) {
+                return jedis.eval(scriptBytes, keys, args);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isNoScript(JedisDataException e) {
+        return e.getMessage() != null && e.getMessage().startsWith(NO_SCRIPT_ERROR);
+    }
+}
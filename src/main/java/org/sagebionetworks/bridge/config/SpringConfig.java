@@ -13,8 +13,11 @@ import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.servlet.Filter;
@@ -40,6 +43,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mchange.v2.c3p0.DriverManagerDataSource;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -292,6 +296,52 @@ public class SpringConfig {
         return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("async.worker.thread.count"));
     }
 
+    // Runs upload validation handlers that don't depend on each other at the same time. Upload validation tasks wait
+    // on these threads, so they must not share a pool with the tasks.
+    @Bean(name = "uploadValidationStageExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService uploadValidationStageExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("upload.validation.stage.thread.count"),
+                new ThreadFactoryBuilder().setNameFormat("upload-validation-stage-%d").setDaemon(true).build());
+    }
+
+    // Runs the activity history queries of requests for scheduled activities. Requests wait on these threads, and
+    // each request runs a limited number of queries at the same time. The queue is bounded; a query that can't be
+    // queued runs on the request thread, so a burst of requests can't queue up queries in memory without bound.
+    @Bean(name = "activityQueryExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService activityQueryExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("activity.query.thread.count");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bridgeConfig.getPropertyAsInt("activity.query.queue.size")),
+                new ThreadFactoryBuilder().setNameFormat("activity-query-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Hashes and checks passwords and other credentials (see CredentialHasher). The queue is bounded, and credentials
+    // that can't be queued fail the request with a 503, so a burst of sign-ins can't occupy every request thread.
+    @Bean(name = "credentialHashExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService credentialHashExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("credential.hash.thread.count");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bridgeConfig.getPropertyAsInt("credential.hash.queue.size")),
+                new ThreadFactoryBuilder().setNameFormat("credential-hash-%d").setDaemon(true).build());
+    }
+
+    // Resolves the references of app configs that are not yet cached. Each lookup is a single read, so the
+    // references of one app config are looked up at the same time. The queue is bounded; a lookup that can't be
+    // queued runs on the request thread.
+    @Bean(name = "appConfigResolverExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService appConfigResolverExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("app.config.resolver.thread.count");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bridgeConfig.getPropertyAsInt("app.config.resolver.queue.size")),
+                new ThreadFactoryBuilder().setNameFormat("app-config-resolver-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
     @Bean(name = "supportEmail")
     @Resource(name = "bridgeConfig")
     public String supportEmail(BridgeConfig bridgeConfig) {
@@ -0,0 +1,189 @@
+package org.sagebionetworks.bridge.crypto;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+import org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm;
+import org.sagebionetworks.bridge.util.TimingHistogram;
+import org.sagebionetworks.bridge.util.TimingStats;
+
+/**
+ * Hashes and checks passwords and other credentials on a dedicated, bounded pool of threads, rather than on request
+ * threads. Hashing is deliberately expensive, and without a limit a burst of sign-ins could keep every request
+ * thread busy hashing. When the queue of the pool is full, or a credential has waited in the queue longer than the
+ * queue timeout, the request fails quickly with a 503. A request also stops waiting, with a 503, once the queue timeout
+ * and the hash timeout have both passed, so a request thread is never held longer than that.
+ *
+ * The time spent hashing is recorded for each algorithm, along with the time spent waiting in the queue, and
+ * periodically written to the logs.
+ */
+@Component
+public class CredentialHasher {
+    private static final Logger LOG = LoggerFactory.getLogger(CredentialHasher.class);
+
+    static final String QUEUE_TIMEOUT_PROPERTY = "credential.hash.queue.timeout.millis";
+    static final String HASH_TIMEOUT_PROPERTY = "credential.hash.timeout.millis";
+    static final String REPORT_INTERVAL_PROPERTY = "credential.hash.metrics.report.seconds";
+    static final String BUSY_MESSAGE = "The server is too busy to verify credentials, please try again later.";
+    static final String QUEUE_WAIT_KEY = "queueWait";
+
+    private ExecutorService executorService;
+    private long queueTimeoutMillis;
+    private long hashTimeoutMillis;
+    private int reportIntervalSeconds;
+    private ScheduledExecutorService reportExecutor;
+    private final ConcurrentMap<String, TimingHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Resource(name = "credentialHashExecutorService")
+    public final void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /** A queue timeout of zero turns off the queue timeout; a hash timeout of zero turns off the wait timeout. */
+    @Autowired
+    public final void setBridgeConfig(BridgeConfig config) {
+        this.queueTimeoutMillis = config.getInt(QUEUE_TIMEOUT_PROPERTY);
+        this.hashTimeoutMillis = config.getInt(HASH_TIMEOUT_PROPERTY);
+        this.reportIntervalSeconds = config.getInt(REPORT_INTERVAL_PROPERTY);
+    }
+
+    @PostConstruct
+    public void startReporting() {
+        if (reportIntervalSeconds > 0) {
+            reportExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("credential-hash-metrics").setDaemon(true).build());
+            reportExecutor.scheduleWithFixedDelay(this::report, reportIntervalSeconds, reportIntervalSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stopReporting() {
+        if (reportExecutor != null) {
+            reportExecutor.shutdownNow();
+        }
+    }
+
+    /** Check whether the plaintext matches the hash. See {@link PasswordAlgorithm#checkHash}. */
+    public boolean checkHash(PasswordAlgorithm algorithm, String hash, String plaintext)
+            throws InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException {
+        checkNotNull(algorithm);
+        return run("checkHash:" + algorithm.name(), () -> algorithm.checkHash(hash, plaintext));
+    }
+
+    /** Generate a hash of the plaintext. See {@link PasswordAlgorithm#generateHash}. */
+    public String generateHash(PasswordAlgorithm algorithm, String plaintext)
+            throws InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException {
+        checkNotNull(algorithm);
+        return run("generateHash:" + algorithm.name(), () -> algorithm.generateHash(plaintext));
+    }
+
+    /**
+     * A snapshot of the hash times since the server started, by operation and algorithm, along with the time spent
+     * waiting in the queue.
+     */
+    public Map<String, TimingStats> getStats() {
+        // Sorted, so the output is easy to read.
+        Map<String, TimingStats> stats = new TreeMap<>();
+        for (Map.Entry<String, TimingHistogram> entry : histograms.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return ImmutableMap.copyOf(stats);
+    }
+
+    private <T> T run(String key, Callable<T> hashTask)
+            throws InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executorService.submit(() -> {
+                long startedAt = System.nanoTime();
+                long waitMillis = TimeUnit.NANOSECONDS.toMillis(startedAt - queuedAt);
+                record(QUEUE_WAIT_KEY, waitMillis);
+                // The caller is still waiting, but has waited long enough that the pool is saturated.
+                if (queueTimeoutMillis > 0 && waitMillis > queueTimeoutMillis) {
+                    throw new ServiceUnavailableException(BUSY_MESSAGE);
+                }
+                T result = hashTask.call();
+                record(key, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                return result;
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Credential hash queue is full, rejecting request");
+            throw new ServiceUnavailableException(BUSY_MESSAGE);
+        }
+        try {
+            if (hashTimeoutMillis > 0) {
+                return future.get(queueTimeoutMillis + hashTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            return future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            LOG.warn("Timed out waiting for credential hash, rejecting request");
+            throw new ServiceUnavailableException(BUSY_MESSAGE);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof InvalidKeyException) {
+                throw (InvalidKeyException) cause;
+            } else if (cause instanceof InvalidKeySpecException) {
+                throw (InvalidKeySpecException) cause;
+            } else if (cause instanceof NoSuchAlgorithmException) {
+                throw (NoSuchAlgorithmException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BridgeServiceException(cause);
+        }
+    }
+
+    private void record(String key, long millis) {
+        histograms.computeIfAbsent(key, k -> new TimingHistogram()).record(millis, 0L);
+    }
+
+    /** Write a snapshot of the timings to the logs. Package-scoped for unit tests. */
+    void report() {
+        for (Map.Entry<String, TimingStats> entry : getStats().entrySet()) {
+            TimingStats stats = entry.getValue();
+            LOG.info(String.format("Credential hash timing %s count=%d meanMs=%d minMs=%d maxMs=%d p50Ms=%d " +
+                    "p95Ms=%d p99Ms=%d", entry.getKey(), stats.getCount(), stats.getMeanMillis(),
+                    stats.getMinMillis(), stats.getMaxMillis(), stats.getP50Millis(), stats.getP95Millis(),
+                    stats.getP99Millis()));
+        }
+    }
+}
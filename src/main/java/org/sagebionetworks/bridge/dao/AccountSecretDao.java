@@ -11,14 +11,17 @@ import org.sagebionetworks.bridge.models.accounts.AccountSecretType;
  */
 public interface AccountSecretDao {
     /**
-     * Add a secret to the set of secrets. 
+     * Add a secret to the set of secrets. If the secret has a selector (see 
+     * {@link AccountSecret#SELECTOR_DELIMITER}), the selector is stored so the secret can be found 
+     * without hashing any other secrets.
      */
     void createSecret(AccountSecretType type, String accountId, String plaintext);
     
     /**
-     * Retrieve N secret records (indicated by rotations), and compare the provided secret 
-     * against all of those secrets looking for a match. Return the record if a match is found,
-     * or null otherwise.
+     * Verify the provided secret against the N most recent secret records (indicated by rotations). 
+     * A secret with a selector is compared only against the record with that selector; a secret 
+     * without one is compared against all of the records that were created without a selector. 
+     * Return the record if a match is found, or an empty optional otherwise.
      */
     Optional<AccountSecret> verifySecret(AccountSecretType type, String accountId, String plaintext, int rotations);
     
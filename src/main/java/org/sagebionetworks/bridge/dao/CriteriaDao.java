@@ -1,5 +1,8 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.Map;
+import java.util.Set;
+
 import org.sagebionetworks.bridge.models.Criteria;
 
 public interface CriteriaDao {
@@ -15,6 +18,12 @@ public interface CriteriaDao {
      * an EntityNotFoundException).
      */
     Criteria getCriteria(String key);
+    
+    /**
+     * Get the criteria objects with these keys, in as few requests as possible. The map does not contain 
+     * keys for criteria that do not exist.
+     */
+    Map<String, Criteria> getCriteriaByKeys(Set<String> keys);
 
     /**
      * Delete the criteria if it exists (if criteria does not exist, does not throw
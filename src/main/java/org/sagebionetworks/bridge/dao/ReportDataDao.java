@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.List;
+
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 
@@ -38,6 +40,16 @@ public interface ReportDataDao {
      */
     void saveReportData(ReportData reportData);
     
+    /**
+     * Writes report data records to the backing store in batches, retrying records the store could not process 
+     * right away. The records must have distinct keys and dates.
+     *
+     * @param reportDataList
+     *         report data objects
+     * @return the records that could not be written, or an empty list if every record was written
+     */
+    List<ReportData> saveReportDataBatch(List<ReportData> reportDataList);
+    
     /***
      * Delete all records regardless of date for a report. This can be used as part of testing, 
      * and in development, but there will be too many records in production to do a deletion.
@@ -1,6 +1,11 @@
 package org.sagebionetworks.bridge.dynamodb;
 
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.LT;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NE;
+import static com.amazonaws.services.dynamodbv2.model.ConditionalOperator.OR;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.FUTURE_ONLY;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.IMMUTABLE;
 
 import java.util.List;
 import java.util.Map;
@@ -14,13 +19,19 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.models.activities.ActivityEvent;
 import org.sagebionetworks.bridge.models.activities.ActivityEventType;
+import org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType;
 
 import org.springframework.stereotype.Component;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.Lists;
@@ -28,6 +39,9 @@ import com.google.common.collect.Lists;
 @Component
 public class DynamoActivityEventDao implements ActivityEventDao {
 
+    static final String EVENT_ID_FIELD = "eventId";
+    static final String TIMESTAMP_FIELD = "timestamp";
+
     private static final String ANSWERED_EVENT_POSTFIX = ":"+ActivityEventType.ANSWERED.name().toLowerCase();
     
     private DynamoDBMapper mapper;
@@ -54,21 +68,40 @@ public class DynamoActivityEventDao implements ActivityEventDao {
         return false;
     }
     
+    /**
+     * Events are written with a condition that enforces the event's update type, so publishing an event is a single
+     * write, and concurrent writes of the same event cannot overwrite each other in the wrong order.
+     */
     @Override
     public boolean publishEvent(ActivityEvent event) {
         checkNotNull(event);
         
-        DynamoActivityEvent hashKey = new DynamoActivityEvent();
-        hashKey.setHealthCode(event.getHealthCode());
-        hashKey.setStudyId(event.getStudyId());
-        hashKey.setEventId(event.getEventId());
-        
-        ActivityEvent savedEvent = mapper.load(hashKey);
-        if (event.getUpdateType().canUpdate(savedEvent, event)) {
-            mapper.save(event);
+        try {
+            mapper.save(event, getSaveExpression(event));
             return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
         }
-        return false;
+    }
+
+    /**
+     * The equivalent of {@link ActivityEventUpdateType#canUpdate} as a condition on the persisted event: any event 
+     * can be written if it does not exist yet, a mutable event can be written with a different timestamp, and a 
+     * future-only event can be written with a later timestamp. With a comparison operator, DynamoDB takes the 
+     * operand from the attribute value list (the value is only used with the exists flag).
+     */
+    static DynamoDBSaveExpression getSaveExpression(ActivityEvent event) {
+        ExpectedAttributeValue doesNotExist = new ExpectedAttributeValue(false);
+        if (event.getUpdateType() == IMMUTABLE) {
+            return new DynamoDBSaveExpression().withExpected(ImmutableMap.of(EVENT_ID_FIELD, doesNotExist));
+        }
+        ComparisonOperator operator = (event.getUpdateType() == FUTURE_ONLY) ? LT : NE;
+        AttributeValue timestamp = new AttributeValue().withN(Long.toString(event.getTimestamp().getMillis()));
+        return new DynamoDBSaveExpression()
+                .withExpected(ImmutableMap.of(EVENT_ID_FIELD, doesNotExist, TIMESTAMP_FIELD,
+                        new ExpectedAttributeValue().withComparisonOperator(operator)
+                                .withAttributeValueList(timestamp)))
+                .withConditionalOperator(OR);
     }
 
     @Override
@@ -4,6 +4,10 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import javax.annotation.Resource;
 
 import org.springframework.stereotype.Component;
@@ -12,6 +16,9 @@ import org.sagebionetworks.bridge.dao.CriteriaDao;
 import org.sagebionetworks.bridge.models.Criteria;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * The DAO for managing criteria, which are optionally associated with models that can be filtered by Criteria 
@@ -45,6 +52,29 @@ public class DynamoCriteriaDao implements CriteriaDao {
 
         return criteriaMapper.load(hashKey);
     }
+    
+    @Override
+    public Map<String, Criteria> getCriteriaByKeys(Set<String> keys) {
+        checkNotNull(keys);
+        if (keys.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        List<Object> hashKeys = Lists.newArrayListWithCapacity(keys.size());
+        for (String key : keys) {
+            checkArgument(isNotBlank(key));
+            DynamoCriteria hashKey = new DynamoCriteria();
+            hashKey.setKey(key);
+            hashKeys.add(hashKey);
+        }
+        Map<String, Criteria> criteriaByKey = Maps.newHashMap();
+        for (List<Object> results : criteriaMapper.batchLoad(hashKeys).values()) {
+            for (Object result : results) {
+                Criteria criteria = (Criteria) result;
+                criteriaByKey.put(criteria.getKey(), criteria);
+            }
+        }
+        return criteriaByKey;
+    }
 
     @Override
     public void deleteCriteria(String key) {
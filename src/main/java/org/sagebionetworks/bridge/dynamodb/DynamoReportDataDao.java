@@ -9,13 +9,19 @@ import static org.sagebionetworks.bridge.models.ResourceList.END_DATE;
 import static org.sagebionetworks.bridge.models.ResourceList.START_TIME;
 import static org.sagebionetworks.bridge.models.ResourceList.END_TIME;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
@@ -31,11 +37,14 @@ import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 @Component
 public class DynamoReportDataDao implements ReportDataDao {
+    private static final Logger LOG = LoggerFactory.getLogger(DynamoReportDataDao.class);
 
     private DynamoDBMapper mapper;
 
@@ -136,6 +145,45 @@ public class DynamoReportDataDao implements ReportDataDao {
         mapper.save(reportData);
     }
 
+    @Override
+    public List<ReportData> saveReportDataBatch(List<ReportData> reportDataList) {
+        checkNotNull(reportDataList);
+        
+        if (reportDataList.isEmpty()) {
+            return ImmutableList.of();
+        }
+        for (ReportData reportData : reportDataList) {
+            DateTime dateTime = reportData.getDateTime();
+            if (dateTime != null) {
+                reportData.setDateTime(dateTime.withZone(DateTimeZone.UTC));
+            }
+        }
+        // The mapper writes up to 25 records per BatchWriteItem call, and retries unprocessed items with backoff.
+        // Whatever is still unprocessed after that is returned as a failed batch.
+        List<FailedBatch> failures = mapper.batchSave(reportDataList);
+        if (failures.isEmpty()) {
+            return ImmutableList.of();
+        }
+        Set<String> failedRecords = new HashSet<>();
+        for (FailedBatch failure : failures) {
+            LOG.warn("Failed to save batch of report data: " + failure.getException().getMessage(),
+                    failure.getException());
+            for (List<WriteRequest> requests : failure.getUnprocessedItems().values()) {
+                for (WriteRequest request : requests) {
+                    Map<String, AttributeValue> item = request.getPutRequest().getItem();
+                    failedRecords.add(recordKey(item.get("key").getS(), item.get("date").getS()));
+                }
+            }
+        }
+        return reportDataList.stream()
+                .filter(reportData -> failedRecords.contains(recordKey(reportData.getKey(), reportData.getDate())))
+                .collect(Collectors.toList());
+    }
+    
+    private static String recordKey(String key, String date) {
+        return key + "|" + date;
+    }
+
     @Override
     public void deleteReportData(ReportDataKey key) {
         checkNotNull(key);
@@ -7,6 +7,8 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 import javax.annotation.Resource;
@@ -31,6 +33,7 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 @Component
 public class DynamoSchedulePlanDao implements SchedulePlanDao {
@@ -73,10 +76,20 @@ public class DynamoSchedulePlanDao implements SchedulePlanDao {
         
         List<DynamoSchedulePlan> dynamoPlans = mapper.queryPage(DynamoSchedulePlan.class, query).getResults();
         
+        // Load the criteria of all the plans at once.
+        Set<String> criteriaKeys = Sets.newHashSet();
+        for (DynamoSchedulePlan dynamoPlan : dynamoPlans) {
+            forEachCriteria(dynamoPlan, scheduleCriteria -> {
+                criteriaKeys.add(scheduleCriteria.getCriteria().getKey());
+                return null;
+            });
+        }
+        Map<String, Criteria> criteriaByKey = criteriaDao.getCriteriaByKeys(criteriaKeys);
+        
         ArrayList<SchedulePlan> plans = Lists.newArrayListWithCapacity(dynamoPlans.size());
         for(DynamoSchedulePlan dynamoPlan : dynamoPlans) {
             plans.add(dynamoPlan);
-            forEachCriteria(dynamoPlan, scheduleCriteria -> loadCriteria(scheduleCriteria));
+            forEachCriteria(dynamoPlan, scheduleCriteria -> criteriaByKey.get(scheduleCriteria.getCriteria().getKey()));
         }
         return plans;
     }
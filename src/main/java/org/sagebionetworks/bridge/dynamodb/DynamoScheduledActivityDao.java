@@ -16,6 +16,7 @@ import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -31,6 +32,7 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.document.Item;
@@ -294,7 +296,7 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
         if (!activities.isEmpty()) {
             // Health code is (now) set during construction in the scheduler.
             List<FailedBatch> failures = mapper.batchSave(activities);
-            BridgeUtils.ifFailuresThrowException(failures);
+            ifSaveFailuresThrowException(failures);
         }
     }
     
@@ -303,7 +305,30 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
     public void updateActivities(String healthCode, List<ScheduledActivity> activities) {
         if (!activities.isEmpty()) {
             List<FailedBatch> failures = mapper.batchSave(activities);
-            BridgeUtils.ifFailuresThrowException(failures);
+            ifSaveFailuresThrowException(failures);
+        }
+    }
+    
+    /**
+     * The mapper saves activities in batches, and retries the activities in a batch that DynamoDB did not process.
+     * If some activities still could not be saved, report which ones they were.
+     */
+    private static void ifSaveFailuresThrowException(List<FailedBatch> failures) {
+        if (!failures.isEmpty()) {
+            List<String> guids = Lists.newArrayList();
+            for (FailedBatch failure : failures) {
+                for (List<WriteRequest> requests : failure.getUnprocessedItems().values()) {
+                    for (WriteRequest request : requests) {
+                        if (request.getPutRequest() != null) {
+                            AttributeValue guid = request.getPutRequest().getItem().get(GUID);
+                            guids.add(guid == null ? null : guid.getS());
+                        }
+                    }
+                }
+            }
+            String message = failures.get(0).getException().getMessage();
+            throw new BridgeServiceException(
+                    "Could not save " + guids.size() + " activities " + guids + ": " + message);
         }
     }
     
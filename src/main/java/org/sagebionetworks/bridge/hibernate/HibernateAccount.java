@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static java.lang.Boolean.TRUE;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeUtils.collectExternalIds;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.DISABLED;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.ENABLED;
@@ -35,6 +36,7 @@ import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import org.joda.time.DateTime;
@@ -52,7 +54,10 @@ import org.sagebionetworks.bridge.models.studies.Enrollment;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 
-/** MySQL implementation of accounts via Hibernate. */
+/**
+ * MySQL implementation of accounts via Hibernate. The collections of accounts loaded by a query are fetched for a 
+ * page of accounts at a time, rather than with separate queries for each account.
+ */
 @Entity
 @Table(name = "Accounts")
 @BridgeTypeName("Account")
@@ -220,6 +225,7 @@ public class HibernateAccount implements Account {
             referencedColumnName = "id"))
     @Column(name = "attributeValue")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     @MapKeyColumn(name = "attributeKey")
     public Map<String, String> getAttributes() {
         if (attributes == null) {
@@ -238,6 +244,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountConsents", joinColumns = @JoinColumn(name = "accountId",
             referencedColumnName = "id"))
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     @MapKeyClass(HibernateAccountConsentKey.class)
     @JsonIgnore
     public Map<HibernateAccountConsentKey, HibernateAccountConsent> getConsents() {
@@ -354,6 +361,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountRoles", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "role")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     @Enumerated(EnumType.STRING)
     public Set<Roles> getRoles() {
         if (roles == null) {
@@ -458,6 +466,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountDataGroups", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "dataGroup")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     public Set<String> getDataGroups() {
         if (dataGroups == null) {
             dataGroups = new HashSet<>();
@@ -476,6 +485,7 @@ public class HibernateAccount implements Account {
     @Column(name = "language")
     @OrderColumn(name="order_index", insertable=true, updatable=true)
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     public List<String> getLanguages() {
         if (languages == null) {
             languages = new ArrayList<>();
@@ -511,6 +521,7 @@ public class HibernateAccount implements Account {
     
     @OneToMany(mappedBy = "accountId", cascade = CascadeType.ALL, orphanRemoval = true, 
         fetch = FetchType.EAGER, targetEntity=HibernateEnrollment.class)
+    @BatchSize(size = API_MAXIMUM_PAGE_SIZE)
     @OnDelete(action=OnDeleteAction.CASCADE)
     @JsonIgnore
     @Override
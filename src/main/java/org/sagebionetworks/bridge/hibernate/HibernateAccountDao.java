@@ -6,25 +6,34 @@ import static org.sagebionetworks.bridge.Roles.RESEARCHER;
 import static org.sagebionetworks.bridge.Roles.WORKER;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.BridgeUtils.StudyAssociations;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.LocalCacheManager;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
@@ -40,13 +49,23 @@ public class HibernateAccountDao implements AccountDao {
     
     private static final Logger LOG = LoggerFactory.getLogger(HibernateAccountDao.class);
 
-    static final String ID_QUERY = "SELECT acct.id FROM HibernateAccount AS acct";
+    static final String ID_QUERY = "SELECT acct.id, acct.createdOn FROM HibernateAccount AS acct";
     
     static final String FULL_QUERY = "SELECT acct FROM HibernateAccount AS acct";
     
     static final String COUNT_QUERY = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct";
     
+    static final String OFFSET_KEY_DELIMITER = ":";
+    
+    static final String COUNT_CACHE_NAME = "AccountSummaryCounts";
+    static final String COUNT_CACHE_MAX_SIZE_PROPERTY = "account.summary.count.cache.max.size";
+    static final String COUNT_CACHE_EXPIRE_PROPERTY = "account.summary.count.cache.expire.seconds";
+    
     private HibernateHelper hibernateHelper;
+    private LocalCacheManager localCacheManager;
+    private int countCacheMaximumSize;
+    private int countCacheExpireInSeconds;
+    private Cache<String, Integer> countCache;
 
     /** This makes interfacing with Hibernate easier. */
     @Resource(name = "accountHibernateHelper")
@@ -54,6 +73,26 @@ public class HibernateAccountDao implements AccountDao {
         this.hibernateHelper = hibernateHelper;
     }
     
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
+    
+    /** The count cache is disabled if its expiration is zero. */
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.countCacheMaximumSize = config.getInt(COUNT_CACHE_MAX_SIZE_PROPERTY);
+        this.countCacheExpireInSeconds = config.getInt(COUNT_CACHE_EXPIRE_PROPERTY);
+    }
+    
+    @PostConstruct
+    public void init() {
+        if (countCacheExpireInSeconds > 0) {
+            countCache = localCacheManager.newCache(COUNT_CACHE_NAME, countCacheMaximumSize,
+                    countCacheExpireInSeconds);
+        }
+    }
+    
     // Provided to override in tests
     protected String generateGUID() {
         return BridgeUtils.generateGuid();
@@ -173,12 +212,45 @@ public class HibernateAccountDao implements AccountDao {
             } else if (!callerStudies.isEmpty() && !context.isInRole(ADMIN, RESEARCHER, WORKER)) {
                 builder.append("AND enrollment.studyId IN (:studies)", "studies", callerStudies);
             }
+            // The total of a search doesn't depend on the page.
+            if (!isCount && search.getOffsetKey() != null) {
+                appendOffsetKey(builder, search.getOffsetKey());
+            }
         }
         if (!isCount) {
-            builder.append("GROUP BY acct.id");
+            // Searches are ordered so that pages can also be retrieved after the last account of the prior page. They
+            // are grouped in the same order, so the grouping can use the index on the creation time and ID.
+            if (search != null) {
+                builder.append("GROUP BY acct.createdOn, acct.id");
+                builder.append("ORDER BY acct.createdOn, acct.id");
+            } else {
+                builder.append("GROUP BY acct.id");
+            }
         }
         return builder;
     }
+    
+    /** The offset key is the creation time (in epoch milliseconds) and the ID of the last account of a page. */
+    static String getOffsetKey(DateTime createdOn, String id) {
+        return createdOn.getMillis() + OFFSET_KEY_DELIMITER + id;
+    }
+    
+    // Limit the search to the accounts after the account in the offset key.
+    private static void appendOffsetKey(QueryBuilder builder, String offsetKey) {
+        String[] parts = offsetKey.split(OFFSET_KEY_DELIMITER, 2);
+        if (parts.length != 2 || parts[1].isEmpty()) {
+            throw new BadRequestException("Invalid offsetKey: " + offsetKey);
+        }
+        DateTime offsetCreatedOn;
+        try {
+            offsetCreatedOn = new DateTime(Long.parseLong(parts[0]));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid offsetKey: " + offsetKey);
+        }
+        builder.append("AND (acct.createdOn > :offsetCreatedOn OR "
+                + "(acct.createdOn = :offsetCreatedOn AND acct.id > :offsetId))",
+                "offsetCreatedOn", offsetCreatedOn, "offsetId", parts[1]);
+    }
 
     /** {@inheritDoc} */
     @Override
@@ -189,40 +261,89 @@ public class HibernateAccountDao implements AccountDao {
     /** {@inheritDoc} */
     @Override
     public PagedResourceList<AccountSummary> getPagedAccountSummaries(String appId, AccountSummarySearch search) {
-        // Getting the IDs and loading the records individually leads to N+1 queries (one id query and a 
-        // query for each object), whereas querying for a constructor of a subset of columns leads to 
-        // (N*Y)+1 queries as we must load each collection individually... Y=1 in the prior code to load
-        // studies, and Y=2 once we add attributes. On the downside, this approach loads all 
-        // HibernateAccount fields, like clientData, though it is not returned.
+        // The IDs of the page are retrieved first, because the join with enrollments can return several rows for 
+        // each account. The accounts of the page are then loaded with one query, and their collections are 
+        // fetched in batches for all accounts of the page (see HibernateAccount). This loads all HibernateAccount 
+        // fields, like clientData, though they are not returned.
+        // 
+        // With an offset key, the page is found with the index on the app ID, creation time, and ID of accounts, 
+        // rather than by skipping all the accounts of the prior pages.
         QueryBuilder builder = makeQuery(ID_QUERY, appId, null, search, false);
         
-        List<String> ids = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(),
-                search.getOffsetBy(), search.getPageSize(), String.class);
+        Integer offsetBy = (search.getOffsetKey() == null) ? search.getOffsetBy() : null;
+        List<Object[]> rows = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(),
+                offsetBy, search.getPageSize(), Object[].class);
+        List<String> ids = rows.stream().map(row -> (String) row[0]).collect(Collectors.toList());
         
-        List<AccountSummary>accountSummaryList = ids.stream()
-                .map(id -> hibernateHelper.getById(HibernateAccount.class, id))
+        List<HibernateAccount> accounts = getAccounts(ids);
+        List<AccountSummary> accountSummaryList = accounts.stream()
                 .map(this::unmarshallAccountSummary)
                 .collect(Collectors.toList());
+        
+        // The key is taken from the last ID of the page, not the last account loaded, so that the next page is 
+        // found even if accounts of this page were deleted in between.
+        String nextPageOffsetKey = null;
+        if (rows.size() == search.getPageSize()) {
+            Object[] lastRow = rows.get(rows.size() - 1);
+            nextPageOffsetKey = getOffsetKey((DateTime) lastRow[1], (String) lastRow[0]);
+        }
 
         // Get count of accounts.
         builder = makeQuery(COUNT_QUERY, appId, null, search, true);
-        int count = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        int count = getCount(builder);
         
         // Package results and return.
         return new PagedResourceList<>(accountSummaryList, count)
+                .withNextPageOffsetKey(nextPageOffsetKey)
                 .withRequestParam(ResourceList.ADMIN_ONLY, search.isAdminOnly())
                 .withRequestParam(ResourceList.ALL_OF_GROUPS, search.getAllOfGroups())
                 .withRequestParam(ResourceList.EMAIL_FILTER, search.getEmailFilter())
                 .withRequestParam(ResourceList.END_TIME, search.getEndTime())
                 .withRequestParam(ResourceList.LANGUAGE, search.getLanguage())
                 .withRequestParam(ResourceList.NONE_OF_GROUPS, search.getNoneOfGroups())
-                .withRequestParam(ResourceList.OFFSET_BY, search.getOffsetBy())
+                .withRequestParam(ResourceList.OFFSET_BY, offsetBy)
+                .withRequestParam(ResourceList.OFFSET_KEY, search.getOffsetKey())
                 .withRequestParam(ResourceList.ORG_MEMBERSHIP, search.getOrgMembership())
                 .withRequestParam(ResourceList.PAGE_SIZE, search.getPageSize())
                 .withRequestParam(ResourceList.PHONE_FILTER, search.getPhoneFilter())
                 .withRequestParam(ResourceList.START_TIME, search.getStartTime());
     }
     
+    /** Load the accounts with the given IDs, in the same order. Accounts that no longer exist are skipped. */
+    private List<HibernateAccount> getAccounts(List<String> ids) {
+        if (ids.isEmpty()) {
+            return ImmutableList.of();
+        }
+        QueryBuilder builder = new QueryBuilder();
+        builder.append(FULL_QUERY);
+        builder.append("WHERE acct.id IN (:ids)", "ids", ids);
+        List<HibernateAccount> accounts = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(), 
+                null, null, HibernateAccount.class);
+        
+        Map<String, HibernateAccount> accountsById = Maps.newHashMapWithExpectedSize(accounts.size());
+        for (HibernateAccount account : accounts) {
+            accountsById.put(account.getId(), account);
+        }
+        return ids.stream().map(accountsById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+    
+    /**
+     * The total of a search is the same for every page, so it is cached for a short time (if enabled), and paging 
+     * through the results only counts the accounts once. The total can be slightly out of date.
+     */
+    private int getCount(QueryBuilder builder) {
+        if (countCache == null) {
+            return hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        }
+        String key = builder.getQuery() + builder.getParameters();
+        Integer count = countCache.getIfPresent(key);
+        if (count == null) {
+            count = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+            countCache.put(key, count);
+        }
+        return count;
+    }
+    
     // Callers of AccountDao assume that an Account will always a health code and health ID. All accounts created
     // through the DAO will automatically have health code and ID populated, but accounts created in the DB directly
     // are left in a bad state. This method validates the health code mapping on a HibernateAccount and updates it as
@@ -30,6 +30,7 @@ public class HibernateAccountSecret implements AccountSecret {
     private DateTime createdOn;
     @Enumerated(EnumType.STRING)
     private AccountSecretType type;
+    private String selector;
     
     @Override
     public String getAccountId() {
@@ -80,4 +81,14 @@ public class HibernateAccountSecret implements AccountSecret {
     public void setType(AccountSecretType type) {
         this.type = type;
     }
+    
+    @Override
+    public String getSelector() {
+        return selector;
+    }
+
+    @Override
+    public void setSelector(String selector) {
+        this.selector = selector;
+    }
 }
@@ -14,8 +14,10 @@ import javax.annotation.Resource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.crypto.CredentialHasher;
 import org.sagebionetworks.bridge.dao.AccountSecretDao;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.accounts.AccountSecret;
@@ -31,19 +33,31 @@ public class HibernateAccountSecretDao implements AccountSecretDao {
     static final String GET_QUERY = "SELECT secret FROM HibernateAccountSecret as secret " + 
             "WHERE accountId = :accountId AND type = :type ORDER BY createdOn DESC";
     
+    static final String GET_BY_SELECTOR_QUERY = "SELECT secret FROM HibernateAccountSecret as secret " + 
+            "WHERE accountId = :accountId AND type = :type AND selector = :selector";
+    
+    static final String COUNT_NEWER_QUERY = "SELECT count(*) FROM HibernateAccountSecret " + 
+            "WHERE accountId = :accountId AND type = :type AND createdOn > :createdOn";
+    
     static final String DELETE_QUERY = "DELETE FROM HibernateAccountSecret WHERE " + 
             "accountId = :accountId AND type = :type";
     
     private HibernateHelper hibernateHelper;
+    private CredentialHasher credentialHasher;
     
     @Resource(name = "basicHibernateHelper")
     final void setHibernateHelper(HibernateHelper hibernateHelper) {
         this.hibernateHelper = hibernateHelper;
     }
     
+    @Autowired
+    final void setCredentialHasher(CredentialHasher credentialHasher) {
+        this.credentialHasher = credentialHasher;
+    }
+    
     protected String generateHash(PasswordAlgorithm algorithm, String plaintext) {
         try {
-            return algorithm.generateHash(plaintext);
+            return credentialHasher.generateHash(algorithm, plaintext);
         } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException e) {
             throw new BridgeServiceException("Could not generate secret", e);
         }
@@ -60,6 +74,7 @@ public class HibernateAccountSecretDao implements AccountSecretDao {
         secret.setAlgorithm(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM);
         secret.setHash(generateHash(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM, plaintext));
         secret.setType(type);
+        secret.setSelector(getSelector(plaintext));
         secret.setCreatedOn(DateUtils.getCurrentDateTime());
 
         hibernateHelper.create(secret); 
@@ -76,14 +91,31 @@ public class HibernateAccountSecretDao implements AccountSecretDao {
         params.put("accountId", accountId);
         params.put("type", type);
         
-        List<HibernateAccountSecret> secrets = hibernateHelper.queryGet(
-                GET_QUERY, params, 0, rotations, HibernateAccountSecret.class);
+        List<HibernateAccountSecret> secrets;
+        String selector = getSelector(plaintext);
+        if (selector != null) {
+            // Only the secret with this selector can match, so it is the only one that is hashed. It is still only 
+            // valid if it is one of the N most recent secrets.
+            params.put("selector", selector);
+            secrets = hibernateHelper.queryGet(GET_BY_SELECTOR_QUERY, params, 0, 1, HibernateAccountSecret.class);
+            if (!secrets.isEmpty() && countNewerSecrets(type, accountId, secrets.get(0)) >= rotations) {
+                return Optional.empty();
+            }
+        } else {
+            // The most recent secrets are checked first, and checking stops at the first match, since the most 
+            // recently issued secret is the one most likely to be in use. Secrets with a selector can't match a 
+            // secret without one, so they are not hashed.
+            secrets = hibernateHelper.queryGet(GET_QUERY, params, 0, rotations, HibernateAccountSecret.class);
+        }
         for (HibernateAccountSecret accountSecret : secrets) {
+            if (selector == null && accountSecret.getSelector() != null) {
+                continue;
+            }
             try {
                 // It's not possible to cache the hashed plaintext, as it is being compared to a hash
                 // that has been seeded with a random salt (in the default algorithm's case). So we
                 // must extract and use that salt + iterations to compare the hashes.
-                if (accountSecret.getAlgorithm().checkHash(accountSecret.getHash(), plaintext)) {
+                if (credentialHasher.checkHash(accountSecret.getAlgorithm(), accountSecret.getHash(), plaintext)) {
                     return Optional.of(accountSecret);
                 }
             } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException e) {
@@ -104,5 +136,20 @@ public class HibernateAccountSecretDao implements AccountSecretDao {
         
         hibernateHelper.query(DELETE_QUERY, params);
     }
+    
+    private int countNewerSecrets(AccountSecretType type, String accountId, AccountSecret secret) {
+        Map<String,Object> params = new HashMap<>();
+        params.put("accountId", accountId);
+        params.put("type", type);
+        params.put("createdOn", secret.getCreatedOn());
+        
+        return hibernateHelper.queryCount(COUNT_NEWER_QUERY, params);
+    }
+    
+    // The selector is everything before the delimiter, if the secret has one.
+    static String getSelector(String plaintext) {
+        int index = plaintext.indexOf(AccountSecret.SELECTOR_DELIMITER);
+        return (index > 0) ? plaintext.substring(0, index) : null;
+    }
 
 }
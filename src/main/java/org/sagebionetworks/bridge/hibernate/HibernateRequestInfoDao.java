@@ -2,6 +2,8 @@ package org.sagebionetworks.bridge.hibernate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.List;
+
 import javax.annotation.Resource;
 
 import org.springframework.stereotype.Component;
@@ -31,6 +33,28 @@ public class HibernateRequestInfoDao implements RequestInfoDao {
         }        
     }
 
+    @Override
+    public void updateRequestInfos(List<RequestInfo> requestInfos) {
+        checkNotNull(requestInfos);
+        if (requestInfos.isEmpty()) {
+            return;
+        }
+        hibernateHelper.executeWithExceptionHandling(null, session -> {
+            for (RequestInfo requestInfo : requestInfos) {
+                RequestInfo existingRequestInfo = session.get(RequestInfo.class, requestInfo.getUserId());
+                if (existingRequestInfo != null) {
+                    RequestInfo.Builder builder = new RequestInfo.Builder();
+                    builder.copyOf(existingRequestInfo);
+                    builder.copyOf(requestInfo);
+                    session.merge(builder.build());
+                } else {
+                    session.save(requestInfo);
+                }
+            }
+            return null;
+        });
+    }
+
     @Override
     public RequestInfo getRequestInfo(String userId) {
         checkNotNull(userId);
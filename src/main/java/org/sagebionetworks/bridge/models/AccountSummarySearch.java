@@ -18,6 +18,7 @@ public final class AccountSummarySearch implements BridgeEntity {
     
     public static final AccountSummarySearch EMPTY_SEARCH = new AccountSummarySearch.Builder().build();
     private final int offsetBy;
+    private final String offsetKey;
     private final int pageSize;
     private final String emailFilter;
     private final String phoneFilter;
@@ -30,10 +31,11 @@ public final class AccountSummarySearch implements BridgeEntity {
     private final Boolean adminOnly;
     private final String enrolledInStudyId;
 
-    private AccountSummarySearch(int offsetBy, int pageSize, String emailFilter, String phoneFilter,
-            Set<String> allOfGroups, Set<String> noneOfGroups, String language, DateTime startTime, DateTime endTime,
-            String orgId, Boolean adminOnly, String enrolledInStudyId) {
+    private AccountSummarySearch(int offsetBy, String offsetKey, int pageSize, String emailFilter,
+            String phoneFilter, Set<String> allOfGroups, Set<String> noneOfGroups, String language, DateTime startTime,
+            DateTime endTime, String orgId, Boolean adminOnly, String enrolledInStudyId) {
         this.offsetBy = offsetBy;
+        this.offsetKey = offsetKey;
         this.pageSize = pageSize;
         this.emailFilter = emailFilter;
         this.phoneFilter = phoneFilter;
@@ -50,6 +52,14 @@ public final class AccountSummarySearch implements BridgeEntity {
     public int getOffsetBy() {
         return offsetBy;
     }
+    /**
+     * The nextPageOffsetKey of the previous page of results. When supplied, the page starts after the last 
+     * account of the previous page (accounts are ordered by their creation time and ID), and offsetBy is 
+     * ignored. Unlike offsetBy, retrieving a page does not get slower the further the page is into the results. 
+     */
+    public String getOffsetKey() {
+        return offsetKey;
+    }
     public int getPageSize() {
         return pageSize;
     }
@@ -114,7 +124,8 @@ public final class AccountSummarySearch implements BridgeEntity {
         // versus ISOChronology[-07:00] if that's the offset at the time of serialization). Using the ISO String
         // representation of the DateTime gives us equality across serialization.
         return Objects.hash(allOfGroups, emailFilter, nullsafeDateString(endTime), language, noneOfGroups, offsetBy,
-                pageSize, phoneFilter, nullsafeDateString(startTime), orgMembership, adminOnly, enrolledInStudyId);
+                offsetKey, pageSize, phoneFilter, nullsafeDateString(startTime), orgMembership, adminOnly,
+                enrolledInStudyId);
     }
 
     @Override
@@ -131,7 +142,8 @@ public final class AccountSummarySearch implements BridgeEntity {
         return Objects.equals(allOfGroups, other.allOfGroups) && Objects.equals(emailFilter, other.emailFilter)
                 && Objects.equals(nullsafeDateString(endTime),  nullsafeDateString(other.endTime))
                 && Objects.equals(language, other.language) && Objects.equals(noneOfGroups, other.noneOfGroups)
-                && Objects.equals(offsetBy, other.offsetBy) && Objects.equals(pageSize, other.pageSize)
+                && Objects.equals(offsetBy, other.offsetBy) && Objects.equals(offsetKey, other.offsetKey)
+                && Objects.equals(pageSize, other.pageSize)
                 && Objects.equals(phoneFilter, other.phoneFilter)
                 && Objects.equals(nullsafeDateString(startTime), nullsafeDateString(other.startTime))
                 && Objects.equals(orgMembership, other.orgMembership)
@@ -145,14 +157,16 @@ public final class AccountSummarySearch implements BridgeEntity {
     
     @Override
     public String toString() {
-        return "AccountSummarySearch [offsetBy=" + offsetBy + ", pageSize=" + pageSize + ", emailFilter=" + emailFilter
-                + ", phoneFilter=" + phoneFilter + ", allOfGroups=" + allOfGroups + ", noneOfGroups=" + noneOfGroups
-                + ", language=" + language + ", startTime=" + startTime + ", endTime=" + endTime + ", orgMembership="
-                + orgMembership + ", adminOnly=" + adminOnly + ", enrolledInStudyId=" + enrolledInStudyId + "]";
+        return "AccountSummarySearch [offsetBy=" + offsetBy + ", offsetKey=" + offsetKey + ", pageSize=" + pageSize
+                + ", emailFilter=" + emailFilter + ", phoneFilter=" + phoneFilter + ", allOfGroups=" + allOfGroups
+                + ", noneOfGroups=" + noneOfGroups + ", language=" + language + ", startTime=" + startTime
+                + ", endTime=" + endTime + ", orgMembership=" + orgMembership + ", adminOnly=" + adminOnly
+                + ", enrolledInStudyId=" + enrolledInStudyId + "]";
     }
     
     public static class Builder {
         private Integer offsetBy;
+        private String offsetKey;
         private Integer pageSize;
         private String emailFilter;
         private String phoneFilter;
@@ -169,6 +183,10 @@ public final class AccountSummarySearch implements BridgeEntity {
             this.offsetBy = offsetBy;
             return this;
         }
+        public Builder withOffsetKey(String offsetKey) {
+            this.offsetKey = offsetKey;
+            return this;
+        }
         public Builder withPageSize(Integer pageSize) {
             this.pageSize = pageSize;
             return this;
@@ -221,6 +239,7 @@ public final class AccountSummarySearch implements BridgeEntity {
         }
         public Builder copyOf(AccountSummarySearch search) {
             this.offsetBy = search.offsetBy;
+            this.offsetKey = search.offsetKey;
             this.pageSize = search.pageSize;
             this.emailFilter = search.emailFilter;
             this.phoneFilter = search.phoneFilter;
@@ -237,8 +256,9 @@ public final class AccountSummarySearch implements BridgeEntity {
         public AccountSummarySearch build() {
             int defaultedOffsetBy = (offsetBy == null) ? 0 : offsetBy;
             int defaultedPageSize = (pageSize == null) ? API_DEFAULT_PAGE_SIZE : pageSize;
-            return new AccountSummarySearch(defaultedOffsetBy, defaultedPageSize, emailFilter, phoneFilter, allOfGroups,
-                    noneOfGroups, language, startTime, endTime, orgMembership, adminOnly, enrolledInStudyId);
+            return new AccountSummarySearch(defaultedOffsetBy, offsetKey, defaultedPageSize, emailFilter,
+                    phoneFilter, allOfGroups, noneOfGroups, language, startTime, endTime, orgMembership, adminOnly,
+                    enrolledInStudyId);
         }
     }
 }
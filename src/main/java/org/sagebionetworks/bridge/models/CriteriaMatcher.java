@@ -0,0 +1,149 @@
+package org.sagebionetworks.bridge.models;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The values of a {@link CriteriaContext} that criteria are matched against, prepared once so that a list of objects
+ * can be filtered without re-examining the context for every object. Each user language is mapped to its position in
+ * the user's list of languages, so objects are sorted by language without searching the list in every comparison.
+ */
+final class CriteriaMatcher {
+    private static final int NO_LANGUAGE_MATCH = -1;
+
+    private final Integer appVersion;
+    private final String appOs;
+    private final Set<String> dataGroups;
+    private final Set<String> studyIds;
+    private final List<String> languages;
+    private final Map<String, Integer> languagePositions;
+
+    CriteriaMatcher(CriteriaContext context) {
+        checkNotNull(context);
+        checkNotNull(context.getLanguages());
+        checkNotNull(context.getClientInfo());
+        checkNotNull(context.getUserDataGroups());
+
+        this.appVersion = context.getClientInfo().getAppVersion();
+        this.appOs = context.getClientInfo().getOsName();
+        this.dataGroups = context.getUserDataGroups();
+        this.studyIds = context.getUserStudyIds();
+        this.languages = context.getLanguages();
+        // The same positions as List.indexOf(), which finds the first occurrence of a language.
+        this.languagePositions = new HashMap<>();
+        for (int i = 0; i < languages.size(); i++) {
+            languagePositions.putIfAbsent(languages.get(i), i);
+        }
+    }
+
+    /**
+     * Filter the objects that match the context, sorted by the position of their language in the user's languages
+     * (objects that don't declare a language are first), and then by the second comparator, if there is one. The sort
+     * is stable, so objects that are equal keep their order in the collection.
+     */
+    <T extends HasCriteria> List<T> filter(Collection<T> coll, Comparator<T> secondComparator) {
+        checkNotNull(coll);
+
+        List<Match<T>> matches = new ArrayList<>(coll.size());
+        for (T element : coll) {
+            Criteria criteria = element.getCriteria();
+            int languagePosition = getLanguagePosition(criteria);
+            if (matches(criteria, languagePosition)) {
+                matches.add(new Match<>(element, languagePosition));
+            }
+        }
+        Comparator<Match<T>> comparator = Comparator.comparingInt(match -> match.languagePosition);
+        if (secondComparator != null) {
+            comparator = comparator.thenComparing((match1, match2) -> secondComparator.compare(match1.element,
+                    match2.element));
+        }
+        matches.sort(comparator);
+
+        List<T> results = new ArrayList<>(matches.size());
+        for (Match<T> match : matches) {
+            results.add(match.element);
+        }
+        return results;
+    }
+
+    /** True if the context matches the criteria. */
+    boolean matches(Criteria criteria) {
+        checkNotNull(criteria);
+        return matches(criteria, getLanguagePosition(criteria));
+    }
+
+    private int getLanguagePosition(Criteria criteria) {
+        checkNotNull(criteria);
+        return languagePositions.getOrDefault(criteria.getLanguage(), NO_LANGUAGE_MATCH);
+    }
+
+    private boolean matches(Criteria criteria, int languagePosition) {
+        checkNotNull(criteria.getAllOfGroups());
+        checkNotNull(criteria.getNoneOfGroups());
+        checkNotNull(criteria.getAllOfStudyIds());
+        checkNotNull(criteria.getNoneOfStudyIds());
+
+        if (appVersion != null && appOs != null) {
+            Integer minAppVersion = criteria.getMinAppVersion(appOs);
+            Integer maxAppVersion = criteria.getMaxAppVersion(appOs);
+            if ((minAppVersion != null && appVersion < minAppVersion) ||
+                (maxAppVersion != null && appVersion > maxAppVersion)) {
+                return false;
+            }
+        }
+        return containsAll(dataGroups, criteria.getAllOfGroups()) &&
+                containsNone(dataGroups, criteria.getNoneOfGroups()) &&
+                containsAll(studyIds, criteria.getAllOfStudyIds()) &&
+                containsNone(studyIds, criteria.getNoneOfStudyIds()) &&
+                languageMatches(criteria.getLanguage(), languagePosition);
+    }
+
+    private static boolean containsAll(Set<String> userValues, Set<String> required) {
+        for (String value : required) {
+            if (!userValues.contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsNone(Set<String> userValues, Set<String> prohibited) {
+        for (String value : prohibited) {
+            if (userValues.contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // If the criteria declare a language, the user must declare the language, ignoring case. An exact match has a
+    // position, so the user's languages are only searched for languages that differ in case.
+    private boolean languageMatches(String targetLanguage, int languagePosition) {
+        if (targetLanguage == null || languagePosition != NO_LANGUAGE_MATCH) {
+            return true;
+        }
+        for (String prefLang : languages) {
+            if (targetLanguage.equalsIgnoreCase(prefLang)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Match<T> {
+        private final T element;
+        private final int languagePosition;
+
+        private Match(T element, int languagePosition) {
+            this.element = element;
+            this.languagePosition = languagePosition;
+        }
+    }
+}
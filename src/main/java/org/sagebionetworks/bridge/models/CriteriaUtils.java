@@ -1,12 +1,10 @@
 package org.sagebionetworks.bridge.models;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static java.util.stream.Collectors.toList;
 import static org.sagebionetworks.bridge.BridgeUtils.COMMA_SPACE_JOINER;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
@@ -32,21 +30,8 @@ public class CriteriaUtils {
         checkNotNull(context);
         checkNotNull(coll);
         
-        // Sort by language
-        final List<String> langs = context.getLanguages();
-        Comparator<T> comparator = (sel1, sel2) -> {
-            int posLang1 = langs.indexOf(sel1.getCriteria().getLanguage());
-            int posLang2 = langs.indexOf(sel2.getCriteria().getLanguage());
-            return posLang1 - posLang2;
-        };
-        // In the app config case, sort by createdOn timestamp as well
-        if (secondComparator != null) {
-            comparator = comparator.thenComparing(secondComparator);
-        }
-        return coll.stream()
-                .filter((el) -> matchCriteria(context, el.getCriteria()))
-                .sorted(comparator)
-                .collect(toList());
+        // Sorted by language, and in the app config case, by createdOn timestamp as well
+        return new CriteriaMatcher(context).filter(coll, secondComparator);
     }
     
     /**
@@ -55,44 +40,7 @@ public class CriteriaUtils {
      * included, and false otherwise.
      */
     static boolean matchCriteria(CriteriaContext context, Criteria criteria) {
-        checkNotNull(context);
-        checkNotNull(context.getLanguages());
-        checkNotNull(context.getClientInfo());
-        checkNotNull(context.getUserDataGroups());
-        checkNotNull(criteria);
-        checkNotNull(criteria.getAllOfGroups());
-        checkNotNull(criteria.getNoneOfGroups());
-        checkNotNull(criteria.getAllOfStudyIds());
-        checkNotNull(criteria.getNoneOfStudyIds());
-        
-        Integer appVersion = context.getClientInfo().getAppVersion();
-        String appOs = context.getClientInfo().getOsName();
-        if (appVersion != null && appOs != null) {
-            Integer minAppVersion = criteria.getMinAppVersion(appOs);
-            Integer maxAppVersion = criteria.getMaxAppVersion(appOs);
-            if ((minAppVersion != null && appVersion < minAppVersion) ||
-                (maxAppVersion != null && appVersion > maxAppVersion)) {
-                return false;
-            }
-        }
-        Set<String> dataGroups = context.getUserDataGroups();
-        if (!dataGroups.containsAll(criteria.getAllOfGroups())) {
-            return false;
-        }
-        if (!Collections.disjoint(dataGroups, criteria.getNoneOfGroups())) {
-            return false;
-        }
-        Set<String> studies = context.getUserStudyIds();
-        if (!studies.containsAll(criteria.getAllOfStudyIds())) {
-            return false;
-        }
-        if (!Collections.disjoint(studies, criteria.getNoneOfStudyIds())) {
-            return false;
-        }
-        if (languageDoesNotMatch(context.getLanguages(), criteria.getLanguage())) {
-            return false;
-        }
-        return true;
+        return new CriteriaMatcher(context).matches(criteria);
     }
 
     /**
@@ -139,22 +87,6 @@ public class CriteriaUtils {
         errors.popNestedPath();
     }
 
-    // This is a simple match: if a criteria declares a language, the user must declare the language
-    // This does NOT necessarily return the user's most desired language.
-    private static boolean languageDoesNotMatch(List<String> preferredLanguages, String targetLanguage) {
-        // It doesn't match if 1) target language has been specified or 
-        // 2) user has declared the required language. 
-        if (targetLanguage == null) {
-            return false;
-        }
-        for (String prefLang : preferredLanguages) {
-            if (targetLanguage.equalsIgnoreCase(prefLang)) {
-                return false;
-            }
-        }
-        return true;
-    }
-    
     /**
      * This is called externally by AccountSummarySearchValidator.
      */
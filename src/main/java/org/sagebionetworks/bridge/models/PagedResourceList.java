@@ -21,11 +21,15 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  * with a generic type and also use a builder. Not fixed as of Jackson v2.7.3. We're using a pattern here 
  * that you see in the AWS SDK of having "withFoo" methods on an object that set and return the updated object 
  * (not a new object as everything is final here except the request parameters map, and that's only accessed 
- * as an ImmutableMap).
+ * as an ImmutableMap, and the nextPageOffsetKey).
+ * 
+ * Lists that can also be paged with a cursor include a <code>nextPageOffsetKey</code> when there is another page, 
+ * which can be supplied as the offsetKey of the next request instead of an offsetBy.
  */
 public class PagedResourceList<T> extends ResourceList<T> {
     
     private final Integer total;
+    private String nextPageOffsetKey;
 
     // This could have a nextPageOffsetBy, but it's trivial to calculate client-side
     @JsonCreator
@@ -68,6 +72,14 @@ public class PagedResourceList<T> extends ResourceList<T> {
     public Integer getTotal() {
         return total;
     }
+    public String getNextPageOffsetKey() {
+        return nextPageOffsetKey;
+    }
+    @JsonProperty(NEXT_PAGE_OFFSET_KEY)
+    public PagedResourceList<T> withNextPageOffsetKey(String nextPageOffsetKey) {
+        this.nextPageOffsetKey = nextPageOffsetKey;
+        return this;
+    }
     public PagedResourceList<T> withRequestParam(String key, Object value) {
         super.withRequestParam(key, value);
         return this;
@@ -11,6 +11,13 @@ import org.sagebionetworks.bridge.hibernate.HibernateAccountSecret;
  */
 public interface AccountSecret {
     
+    /**
+     * Separates the selector of a secret from the rest of the secret. A secret in the form 
+     * "[selector].[validator]" is found by its selector, so only that one secret has to be hashed 
+     * to verify it. The selector is not secret and is stored unhashed.
+     */
+    String SELECTOR_DELIMITER = ".";
+    
     static AccountSecret create() {
         return new HibernateAccountSecret();
     }
@@ -27,6 +34,10 @@ public interface AccountSecret {
     String getHash();
     void setHash(String hash);
     
+    /** The selector of the secret, or null for secrets that were created without one. */
+    String getSelector();
+    void setSelector(String selector);
+    
     DateTime getCreatedOn();
     void setCreatedOn(DateTime createdOn);
 }
@@ -8,6 +8,7 @@ import org.sagebionetworks.bridge.json.BridgeTypeName;
 import org.sagebionetworks.bridge.models.BridgeEntity;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 
+import java.util.List;
 import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
@@ -21,6 +22,9 @@ public interface ReportData extends BridgeEntity {
 
     static TypeReference<ForwardCursorPagedResourceList<ReportData>> PAGED_REPORT_DATA = new TypeReference<ForwardCursorPagedResourceList<ReportData>>() {
     };
+    
+    static TypeReference<List<ReportData>> REPORT_DATA_LIST = new TypeReference<List<ReportData>>() {
+    };
 
     static ReportData create() {
         return new DynamoReportData();
@@ -0,0 +1,30 @@
+package org.sagebionetworks.bridge.models.reports;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The outcome of saving a batch of records to a report. Records are identified by their date, which is unique within
+ * a report. Every record in the batch is either saved or failed; failed records can be submitted again.
+ */
+public final class ReportDataBatchResult {
+
+    private final List<String> savedDates;
+    private final List<String> failedDates;
+
+    public ReportDataBatchResult(List<String> savedDates, List<String> failedDates) {
+        this.savedDates = ImmutableList.copyOf(savedDates);
+        this.failedDates = ImmutableList.copyOf(failedDates);
+    }
+
+    /** Dates of the records that were saved. */
+    public List<String> getSavedDates() {
+        return savedDates;
+    }
+
+    /** Dates of the records that could not be saved. */
+    public List<String> getFailedDates() {
+        return failedDates;
+    }
+}
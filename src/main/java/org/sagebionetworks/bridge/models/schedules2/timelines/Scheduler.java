@@ -46,12 +46,19 @@ public class Scheduler {
     }
 
     void calculateLanguageKey(Timeline.Builder builder) {
-        builder.withLang("en");
+        builder.withLang(calculateLanguageKey());
+    }
+    
+    /**
+     * The languages of the caller, which determine the labels in a timeline. 
+     */
+    public String calculateLanguageKey() {
         List<String> callerLangs = RequestContext.get().getCallerLanguages();
-        if (!callerLangs.isEmpty()) {
-            callerLangs = callerLangs.stream().map(s -> s.toLowerCase()).collect(toList());
-            builder.withLang(COMMA_JOINER.join(callerLangs));
+        if (callerLangs.isEmpty()) {
+            return "en";
         }
+        callerLangs = callerLangs.stream().map(s -> s.toLowerCase()).collect(toList());
+        return COMMA_JOINER.join(callerLangs);
     }
     
     int calculateEndDay(int studyLengthInDays, LocalTime startTime, int startDay, Period expiration) {
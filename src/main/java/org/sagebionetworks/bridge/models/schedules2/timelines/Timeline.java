@@ -126,8 +126,9 @@ public class Timeline {
                 }
                 return res;
             });
-            return new Timeline(duration, lang, scheduledSessions, ImmutableList.copyOf(assessments.values()),
-                    ImmutableList.copyOf(sessions.values()), metadata);
+            return new Timeline(duration, lang, ImmutableList.copyOf(scheduledSessions),
+                    ImmutableList.copyOf(assessments.values()), ImmutableList.copyOf(sessions.values()),
+                    ImmutableList.copyOf(metadata));
         }
     }
 }
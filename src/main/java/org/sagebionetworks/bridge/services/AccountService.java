@@ -31,6 +31,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.crypto.CredentialHasher;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.AccountSecretDao;
 import org.sagebionetworks.bridge.exceptions.AccountDisabledException;
@@ -62,6 +63,7 @@ public class AccountService {
     private AppService appService;
     private ActivityEventService activityEventService;
     private StudyActivityEventService studyActivityEventService;
+    private CredentialHasher credentialHasher;
 
     @Autowired
     public final void setAccountDao(AccountDao accountDao) {
@@ -88,6 +90,11 @@ public class AccountService {
         this.studyActivityEventService = studyActivityEventService;
     }
     
+    @Autowired
+    public final void setCredentialHasher(CredentialHasher credentialHasher) {
+        this.credentialHasher = credentialHasher;
+    }
+    
     // Provided to override in tests
     protected String generateGUID() {
         return BridgeUtils.generateGuid();
@@ -398,7 +405,7 @@ public class AccountService {
             throw new EntityNotFoundException(Account.class);
         }
         try {
-            if (!account.getPasswordAlgorithm().checkHash(account.getPasswordHash(), plaintext)) {
+            if (!credentialHasher.checkHash(account.getPasswordAlgorithm(), account.getPasswordHash(), plaintext)) {
                 // To prevent enumeration attacks, if the credential doesn't match, throw 404 account not found.
                 throw new EntityNotFoundException(Account.class);
             }
@@ -409,7 +416,7 @@ public class AccountService {
     
     protected String hashCredential(PasswordAlgorithm algorithm, String type, String value) {
         try {
-            return algorithm.generateHash(value);
+            return credentialHasher.generateHash(algorithm, value);
         } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException ex) {
             throw new BridgeServiceException("Error creating "+type+": " + ex.getMessage(), ex);
         }
@@ -26,6 +26,7 @@ import org.joda.time.Period;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.ActivityEventMapCache;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -57,6 +58,7 @@ import org.sagebionetworks.bridge.validators.Validate;
 public class ActivityEventService {
 
     private ActivityEventDao activityEventDao;
+    private ActivityEventMapCache activityEventMapCache;
     private ParticipantService participantService;
     private AppService appService;
     
@@ -65,6 +67,11 @@ public class ActivityEventService {
         this.activityEventDao = activityEventDao;
     }
     
+    @Autowired
+    final void setActivityEventMapCache(ActivityEventMapCache activityEventMapCache) {
+        this.activityEventMapCache = activityEventMapCache;
+    }
+    
     @Autowired
     final void setParticipantService(ParticipantService participantService) {
         this.participantService = participantService;
@@ -91,7 +98,9 @@ public class ActivityEventService {
                 .withStudyId(studyId)
                 .build();
 
-        activityEventDao.deleteCustomEvent(event);
+        if (activityEventDao.deleteCustomEvent(event)) {
+            activityEventMapCache.invalidate(healthCode, studyId);
+        }
     }
     
     /**
@@ -119,7 +128,7 @@ public class ActivityEventService {
         // If the globalEvent is valid, all other derivations are valid 
         Validate.entityThrowingException(INSTANCE, event);
         
-        if (activityEventDao.publishEvent(event)) {
+        if (publishEvent(healthCode, event)) {
             // Create automatic events, as defined in the app
             createAutomaticCustomEvents(app, studyId, healthCode, event);
         }
@@ -145,7 +154,7 @@ public class ActivityEventService {
         // If the globalEvent is valid, all other derivations are valid 
         Validate.entityThrowingException(INSTANCE, globalEvent);
         
-        if (activityEventDao.publishEvent(globalEvent)) {
+        if (publishEvent(healthCode, globalEvent)) {
             // Create automatic events, as defined in the app
             createAutomaticCustomEvents(app, null, healthCode, globalEvent);
         }
@@ -155,7 +164,7 @@ public class ActivityEventService {
                     .withTimestamp(enrolledOn)
                     .withObjectType(ENROLLMENT)
                     .withStudyId(studyId).build();
-            if (activityEventDao.publishEvent(studyEvent)) {
+            if (publishEvent(healthCode, studyEvent)) {
                 createAutomaticCustomEvents(app, studyId, healthCode, studyEvent);
             }
         }
@@ -173,7 +182,7 @@ public class ActivityEventService {
         // If the globalEvent is valid, all other derivations are valid
         Validate.entityThrowingException(INSTANCE, globalEvent);
         
-        if (activityEventDao.publishEvent(globalEvent)) {
+        if (publishEvent(healthCode, globalEvent)) {
             // Create automatic events, as defined in the app
             createAutomaticCustomEvents(app, null, healthCode, globalEvent);
         }
@@ -183,7 +192,7 @@ public class ActivityEventService {
                     .withTimestamp(timestamp)
                     .withObjectType(ACTIVITIES_RETRIEVED)
                     .withStudyId(studyId).build();
-            if (activityEventDao.publishEvent(studyEvent)) {
+            if (publishEvent(healthCode, studyEvent)) {
                 // Create automatic events, as defined in the app
                 createAutomaticCustomEvents(app, studyId, healthCode, studyEvent);
             }
@@ -207,7 +216,7 @@ public class ActivityEventService {
         
         Validate.entityThrowingException(INSTANCE, event);
         
-        activityEventDao.publishEvent(event);
+        publishEvent(healthCode, event);
     }
     
     /**
@@ -233,7 +242,7 @@ public class ActivityEventService {
             // If the globalEvent is valid, all other derivations are valid 
             Validate.entityThrowingException(INSTANCE, event);
             
-            activityEventDao.publishEvent(event);
+            publishEvent(schActivity.getHealthCode(), event);
         }
     }
     
@@ -248,7 +257,7 @@ public class ActivityEventService {
                 .withHealthCode(healthCode)
                 .withTimestamp(createdOn)
                 .withObjectType(CREATED_ON).build();
-        activityEventDao.publishEvent(globalEvent);
+        publishEvent(healthCode, globalEvent);
         
         // If the globalEvent is valid, all other derivations are valid 
         Validate.entityThrowingException(INSTANCE, globalEvent);
@@ -259,7 +268,7 @@ public class ActivityEventService {
                     .withTimestamp(createdOn)
                     .withObjectType(CREATED_ON)
                     .withStudyId(studyId).build();
-            activityEventDao.publishEvent(studyEvent);
+            publishEvent(healthCode, studyEvent);
         }
     }
     
@@ -270,7 +279,8 @@ public class ActivityEventService {
         checkNotNull(appId);
         checkNotNull(healthCode);
         
-        Map<String, DateTime> activityMap = activityEventDao.getActivityEventMap(healthCode, studyId);
+        Map<String, DateTime> activityMap = activityEventMapCache.get(healthCode, studyId,
+                () -> activityEventDao.getActivityEventMap(healthCode, studyId));
         
         Builder<String, DateTime> builder = ImmutableMap.<String, DateTime>builder();
         
@@ -320,6 +330,16 @@ public class ActivityEventService {
     public void deleteActivityEvents(String studyId, String healthCode) {
         checkNotNull(healthCode);
         activityEventDao.deleteActivityEvents(healthCode, studyId);
+        activityEventMapCache.invalidate(healthCode, studyId);
+    }
+
+    /** Publish the event, and write it through to the cached event map if it was published. */
+    private boolean publishEvent(String healthCode, ActivityEvent event) {
+        if (activityEventDao.publishEvent(event)) {
+            activityEventMapCache.put(healthCode, event);
+            return true;
+        }
+        return false;
     }
 
     /**
@@ -343,7 +363,7 @@ public class ActivityEventService {
                         .withObjectId(automaticEventKey)
                         .withTimestamp(automaticEventTime)
                         .withStudyId(studyId).build();
-                activityEventDao.publishEvent(automaticEvent);
+                publishEvent(healthCode, automaticEvent);
             }
         }        
     }
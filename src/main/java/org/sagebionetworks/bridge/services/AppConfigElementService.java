@@ -5,6 +5,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.List;
 
 import org.joda.time.DateTime;
+import org.sagebionetworks.bridge.cache.LocalAppConfigCache;
 import org.sagebionetworks.bridge.dao.AppConfigElementDao;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -22,11 +23,20 @@ public class AppConfigElementService {
     
     private AppConfigElementDao appConfigElementDao;
     
+    private LocalAppConfigCache appConfigCache;
+    
     @Autowired
     final void setAppConfigElementDao(AppConfigElementDao appConfigElementDao) {
         this.appConfigElementDao = appConfigElementDao;
     }
     
+    // App configs are cached with the data of the elements they reference, so they are invalidated whenever an 
+    // element is changed.
+    @Autowired
+    final void setLocalAppConfigCache(LocalAppConfigCache appConfigCache) {
+        this.appConfigCache = appConfigCache;
+    }
+    
     public List<AppConfigElement> getMostRecentElements(String appId, boolean includeDeleted) {
         checkNotNull(appId);
         
@@ -56,7 +66,9 @@ public class AppConfigElementService {
             throw new EntityAlreadyExistsException(AppConfigElement.class,
                     ImmutableMap.of("id", existing.getId(), "revision", existing.getRevision()));
         }
-        return appConfigElementDao.saveElementRevision(element);
+        VersionHolder version = appConfigElementDao.saveElementRevision(element);
+        appConfigCache.invalidate(appId);
+        return version;
     }
 
     public List<AppConfigElement> getElementRevisions(String appId, String id, boolean includeDeleted) {
@@ -103,7 +115,9 @@ public class AppConfigElementService {
         element.setModifiedOn(DateTime.now().getMillis());
         // cannot change the creation timestamp
         element.setCreatedOn(existing.getCreatedOn());
-        return appConfigElementDao.saveElementRevision(element);
+        VersionHolder version = appConfigElementDao.saveElementRevision(element);
+        appConfigCache.invalidate(appId);
+        return version;
     }
     
     public void deleteElementRevision(String appId, String id, long revision) {
@@ -114,6 +128,7 @@ public class AppConfigElementService {
         existing.setDeleted(true);
         existing.setModifiedOn(DateTime.now().getMillis());
         appConfigElementDao.saveElementRevision(existing);
+        appConfigCache.invalidate(appId);
     }
     
     public void deleteElementAllRevisions(String appId, String id) {
@@ -127,6 +142,7 @@ public class AppConfigElementService {
             oneElement.setModifiedOn(modifiedOn);
             appConfigElementDao.saveElementRevision(oneElement);
         }
+        appConfigCache.invalidate(appId);
     }
     
     public void deleteElementRevisionPermanently(String appId, String id, long revision) {
@@ -136,6 +152,7 @@ public class AppConfigElementService {
         // Throws exception if the element does not exist.
         getElementRevision(appId, id, revision);
         appConfigElementDao.deleteElementRevisionPermanently(appId, id, revision);
+        appConfigCache.invalidate(appId);
     }
     
     public void deleteElementAllRevisionsPermanently(String appId, String id) {
@@ -146,5 +163,6 @@ public class AppConfigElementService {
         for (AppConfigElement oneElement : elements) {
             appConfigElementDao.deleteElementRevisionPermanently(appId, oneElement.getId(), oneElement.getRevision());
         }
+        appConfigCache.invalidate(appId);
     }
 }
@@ -8,12 +8,20 @@ import static org.sagebionetworks.bridge.BridgeConstants.SHARED_APP_ID;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.annotation.Resource;
+
 import org.joda.time.DateTime;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.LocalAppConfigCache;
 import org.sagebionetworks.bridge.dao.AppConfigDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoAppConfig;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.CriteriaContext;
@@ -37,7 +45,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.validation.Validator;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 @Component
 public class AppConfigService {
@@ -59,6 +71,10 @@ public class AppConfigService {
     
     private AssessmentService assessmentService;
     
+    private LocalAppConfigCache appConfigCache;
+    
+    private ExecutorService resolverExecutorService;
+    
     @Autowired
     final void setAppConfigDao(AppConfigDao appConfigDao) {
         this.appConfigDao = appConfigDao;
@@ -99,6 +115,16 @@ public class AppConfigService {
         this.assessmentService = assessmentService;
     }
     
+    @Autowired
+    final void setLocalAppConfigCache(LocalAppConfigCache appConfigCache) {
+        this.appConfigCache = appConfigCache;
+    }
+    
+    @Resource(name = "appConfigResolverExecutorService")
+    final void setResolverExecutorService(ExecutorService resolverExecutorService) {
+        this.resolverExecutorService = resolverExecutorService;
+    }
+    
     // In order to mock this value;
     protected long getCurrentTimestamp() {
         return DateUtils.getCurrentMillisFromEpoch(); 
@@ -144,29 +170,71 @@ public class AppConfigService {
             LOG.info("CriteriaContext matches more than one app config: criteriaContext=" + context + ", appConfigs="+matches);
         }
         AppConfig matched = matches.get(0);
-        resolveReferences(context.getAppId(), matched);
-        return matched;
+        return appConfigCache.get(context.getAppId(), matched, () -> {
+            resolveReferences(context.getAppId(), matched);
+            return matched;
+        });
     }
     
+    /**
+     * Resolve the references of the app config. Every reference is a separate lookup, so they are all looked up at 
+     * the same time.
+     */
     protected void resolveReferences(String appId, AppConfig config) {
-        config.setSurveyReferences(config.getSurveyReferences().stream()
-                .map(ref -> resolveSurvey(appId, ref))
-                .collect(Collectors.toList()));
+        List<Future<?>> futures = Lists.newArrayList();
+        try {
+            List<Future<SurveyReference>> surveyRefs = config.getSurveyReferences().stream()
+                    .map(ref -> resolveAsync(futures, () -> resolveSurvey(appId, ref)))
+                    .collect(Collectors.toList());
             
-        // Resolve the identifiers for the assessment and its shared assessment, if there
-        // is one. These are useful to locate the right reference.
-        config.setAssessmentReferences(config.getAssessmentReferences().stream()
-                .map(ref -> resolveAssessment(appId, ref))
-                .collect(Collectors.toList()));
-        
-        ImmutableMap.Builder<String, JsonNode> ceBuilder = new ImmutableMap.Builder<>();
-        for (ConfigReference configRef : config.getConfigReferences()) {
-            AppConfigElement element = retrieveConfigElement(config.getAppId(), configRef, config.getGuid());
-            if (element != null) {
-                ceBuilder.put(configRef.getId(), element.getData());    
+            // Resolve the identifiers for the assessment and its shared assessment, if there
+            // is one. These are useful to locate the right reference.
+            List<Future<AssessmentReference>> assessmentRefs = config.getAssessmentReferences().stream()
+                    .map(ref -> resolveAsync(futures, () -> resolveAssessment(appId, ref)))
+                    .collect(Collectors.toList());
+            
+            List<ConfigReference> configRefs = config.getConfigReferences();
+            List<Future<AppConfigElement>> elements = configRefs.stream()
+                    .map(ref -> resolveAsync(futures,
+                            () -> retrieveConfigElement(config.getAppId(), ref, config.getGuid())))
+                    .collect(Collectors.toList());
+            
+            config.setSurveyReferences(surveyRefs.stream().map(this::getResolved).collect(Collectors.toList()));
+            config.setAssessmentReferences(
+                    assessmentRefs.stream().map(this::getResolved).collect(Collectors.toList()));
+            
+            ImmutableMap.Builder<String, JsonNode> ceBuilder = new ImmutableMap.Builder<>();
+            for (int i=0; i < configRefs.size(); i++) {
+                AppConfigElement element = getResolved(elements.get(i));
+                if (element != null) {
+                    ceBuilder.put(configRefs.get(i).getId(), element.getData());    
+                }
             }
+            config.setConfigElements(ceBuilder.build());
+        } finally {
+            // Stops any lookups that haven't finished if one of them fails.
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    private <T> Future<T> resolveAsync(List<Future<?>> futures, Supplier<T> lookup) {
+        if (resolverExecutorService == null) {
+            return Futures.immediateFuture(lookup.get());
+        }
+        Future<T> future = resolverExecutorService.submit(lookup::get);
+        futures.add(future);
+        return future;
+    }
+    
+    private <T> T getResolved(Future<T> future) {
+        try {
+            return Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new BridgeServiceException(e.getCause());
         }
-        config.setConfigElements(ceBuilder.build());
     }
     
     protected AssessmentReference resolveAssessment(String appId, AssessmentReference ref) {
@@ -289,7 +357,9 @@ public class AppConfigService {
         appConfig.setCreatedOn(persistedConfig.getCreatedOn());
         appConfig.setModifiedOn(getCurrentTimestamp());
         
-        return appConfigDao.updateAppConfig(appConfig);
+        AppConfig updated = appConfigDao.updateAppConfig(appConfig);
+        appConfigCache.invalidate(appId);
+        return updated;
     }
     
     public void deleteAppConfig(String appId, String guid) {
@@ -297,6 +367,7 @@ public class AppConfigService {
         checkArgument(isNotBlank(guid));
         
         appConfigDao.deleteAppConfig(appId, guid);
+        appConfigCache.invalidate(appId);
     }
     
     public void deleteAppConfigPermanently(String appId, String guid) {
@@ -304,5 +375,6 @@ public class AppConfigService {
         checkArgument(isNotBlank(guid));
         
         appConfigDao.deleteAppConfigPermanently(appId, guid);
+        appConfigCache.invalidate(appId);
     }
 }
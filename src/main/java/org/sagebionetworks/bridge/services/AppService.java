@@ -57,6 +57,7 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.SecureTokenGenerator;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.LocalAppCache;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.dao.AppDao;
@@ -121,6 +122,7 @@ public class AppService {
     private AppValidator validator;
     private AppAndUsersValidator appAndUsersValidator;
     private CacheProvider cacheProvider;
+    private LocalAppCache localAppCache;
     private SubpopulationService subpopService;
     private NotificationTopicService topicService;
     private EmailVerificationService emailVerificationService;
@@ -193,6 +195,10 @@ public class AppService {
         this.cacheProvider = cacheProvider;
     }
     @Autowired
+    final void setLocalAppCache(LocalAppCache localAppCache) {
+        this.localAppCache = localAppCache;
+    }
+    @Autowired
     final void setSubpopulationService(SubpopulationService subpopService) {
         this.subpopService = subpopService;
     }
@@ -232,11 +238,7 @@ public class AppService {
     public App getApp(String identifier, boolean includeDeleted) {
         checkArgument(isNotBlank(identifier), Validate.CANNOT_BE_BLANK, IDENTIFIER_PROPERTY);
 
-        App app = cacheProvider.getApp(identifier);
-        if (app == null) {
-            app = appDao.getApp(identifier);
-            cacheProvider.setApp(app);
-        }
+        App app = isLocalAppCacheEnabled() ? localAppCache.get(identifier, this::loadApp) : loadApp(identifier);
         if (app != null) {
             // If it it exists and has been deactivated, and this call is not supposed to retrieve deactivated
             // apps, treat it as if it doesn't exist.
@@ -251,6 +253,19 @@ public class AppService {
         return app;
     }
 
+    private App loadApp(String identifier) {
+        App app = cacheProvider.getApp(identifier);
+        if (app == null) {
+            app = appDao.getApp(identifier);
+            cacheProvider.setApp(app);
+        }
+        return app;
+    }
+    
+    private boolean isLocalAppCacheEnabled() {
+        return localAppCache != null && localAppCache.isEnabled();
+    }
+
     // only return active app
     public App getApp(String identifier) {
         if (isBlank(identifier)) {
@@ -577,6 +592,9 @@ public class AppService {
         cacheProvider.removeApp(app.getIdentifier());
         App updatedApp = appDao.updateApp(app);
         cacheProvider.setApp(updatedApp);
+        if (isLocalAppCacheEnabled()) {
+            localAppCache.invalidate(updatedApp.getIdentifier(), updatedApp.getVersion());
+        }
         return updatedApp;
     }
 
@@ -649,6 +667,9 @@ public class AppService {
         }
 
         cacheProvider.removeApp(identifier);
+        if (isLocalAppCacheEnabled()) {
+            localAppCache.invalidate(identifier, null);
+        }
     }
     
     /**
@@ -42,6 +42,7 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.LocalAppConfigCache;
 import org.sagebionetworks.bridge.dao.AssessmentDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
@@ -64,6 +65,8 @@ public class AssessmentService {
     
     private OrganizationService organizationService;
     
+    private LocalAppConfigCache appConfigCache;
+    
     @Autowired
     final void setAssessmentDao(AssessmentDao assessmentDao) {
         this.dao = assessmentDao;
@@ -79,6 +82,13 @@ public class AssessmentService {
         this.organizationService = organizationService;
     }
     
+    // App configs are cached with the identifiers of the assessments they reference, and of the shared assessments
+    // those were published to. Publishing and permanently deleting are the only changes to those identifiers.
+    @Autowired
+    final void setLocalAppConfigCache(LocalAppConfigCache appConfigCache) {
+        this.appConfigCache = appConfigCache;
+    }
+    
     // accessor to mock for tests
     String generateGuid() {
         return BridgeUtils.generateGuid();
@@ -313,7 +323,9 @@ public class AssessmentService {
         
         original.setOriginGuid(assessmentToPublish.getGuid());
         
-        return dao.publishAssessment(appId, original, assessmentToPublish, configToPublish);
+        Assessment published = dao.publishAssessment(appId, original, assessmentToPublish, configToPublish);
+        appConfigCache.invalidate(appId);
+        return published;
     }
     
     /**
@@ -376,6 +388,7 @@ public class AssessmentService {
         Optional<Assessment> opt = dao.getAssessment(appId, guid);
         if (opt.isPresent()) {
             dao.deleteAssessment(appId, opt.get());
+            appConfigCache.invalidate(appId);
         }
     }
 
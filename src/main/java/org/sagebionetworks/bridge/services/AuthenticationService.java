@@ -36,6 +36,7 @@ import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountSecret;
 import org.sagebionetworks.bridge.models.accounts.AccountStatus;
 import org.sagebionetworks.bridge.models.accounts.Verification;
 import org.sagebionetworks.bridge.models.apps.App;
@@ -228,14 +229,17 @@ public class AuthenticationService {
         
         Validate.entityThrowingException(SignInValidator.REAUTH_SIGNIN, signIn); 
 
-        // Reauth token is a 21-character alphanumeric (upper, lower, numbers), generated by a SecureRandom. This is
-        // 125 bits of entropy. To see if apps are sending the old reauth token after successfully reauthenticating, we
-        // will call .hashCode() on the reauth token, mod 1000, and log it (about 10 bits). Even if attackers steal
-        // this hash-mod from the logs, they still need to determine the remaining 115 bits of the reauth token (about
-        // 19 alphanumeric characters worth), and they have 5 minutes to do it before the grace period expires.
+        // The reauth token is a selector followed by a secret. The selector only identifies the token; it is not
+        // secret and adds nothing to its entropy. The secret is a 21-character alphanumeric (upper, lower, numbers),
+        // generated by a SecureRandom, which is 125 bits of entropy; the figures below describe the secret alone.
         //
-        // This is effectively equivalent to the app submitting an token identification token and a 19-character reauth
-        // token, which is still reasonably secure.
+        // To see if apps are sending the old reauth token after successfully reauthenticating, we will call
+        // .hashCode() on the reauth token, mod 1000, and log it (about 10 bits). Even if attackers steal this
+        // hash-mod from the logs, they still need to determine the remaining 115 bits of the secret (about 19
+        // alphanumeric characters worth), and they have 5 minutes to do it before the grace period expires.
+        //
+        // This is effectively equivalent to the app submitting a token identification token and a 19-character
+        // reauth token, which is still reasonably secure.
         int reauthHashMod = signIn.getReauthToken().hashCode() % 1000;
         LOG.debug("Reauth token hash-mod " + reauthHashMod + " submitted in request " + RequestContext.get().getId());
 
@@ -558,9 +562,11 @@ public class AuthenticationService {
         return session;
     }
     
-    // Provided to override in tests
+    // Provided to override in tests. The token starts with a selector, so it can be verified by hashing only the 
+    // secret it was created with.
     protected String generateReauthToken() {
-        return SecureTokenGenerator.INSTANCE.nextToken();
+        return SecureTokenGenerator.INSTANCE.nextToken() + AccountSecret.SELECTOR_DELIMITER
+                + SecureTokenGenerator.INSTANCE.nextToken();
     }
     
     public UserSession oauthSignIn(CriteriaContext context, OAuthAuthorizationToken authToken) {
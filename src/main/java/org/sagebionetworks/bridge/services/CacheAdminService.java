@@ -3,12 +3,18 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.LocalCacheManager;
+import org.sagebionetworks.bridge.cache.LocalCacheStats;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import redis.clients.jedis.Jedis;
@@ -19,12 +25,29 @@ import com.google.common.collect.Sets;
 @Component
 public class CacheAdminService {
     
+    // The key of a user's session is the user ID followed by this suffix
+    private static final String SESSION_KEY_SUFFIX = CacheKey.userIdToSession("").toString();
+    
     private JedisPool jedisPool;
+    
+    private CacheProvider cacheProvider;
+    
+    private LocalCacheManager localCacheManager;
 
     @Resource(name = "jedisPool")
     public void setJedisPool(JedisPool jedisPool) {
         this.jedisPool = jedisPool;
     }
+    
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
+    @Autowired
+    final void setLocalCacheManager(LocalCacheManager localCacheManager) {
+        this.localCacheManager = localCacheManager;
+    }
 
     /**
      * Returns all keys in the cache that are not user session keys.
@@ -44,14 +67,23 @@ public class CacheAdminService {
     }
 
     /**
-     * Delete an item by its key from the cache (cannot delete sessions).
+     * Delete an item by its key from the cache (cannot delete sessions, other than by the user ID key of the 
+     * session). A session is removed through the CacheProvider, so that servers caching the session in process 
+     * drop it as well.
      * @param cacheKey
      */
     public void removeItem(String cacheKey) {
         checkArgument(isNotBlank(cacheKey));
         Long removed = null;
         
-        if (CacheKey.isPublic(cacheKey)) {
+        if (cacheKey.endsWith(SESSION_KEY_SUFFIX) && cacheKey.length() > SESSION_KEY_SUFFIX.length()) {
+            String userId = cacheKey.substring(0, cacheKey.length() - SESSION_KEY_SUFFIX.length());
+            UserSession session = cacheProvider.getUserSessionByUserId(userId);
+            if (session != null) {
+                cacheProvider.removeSession(session);
+                removed = 1L;
+            }
+        } else if (CacheKey.isPublic(cacheKey)) {
             try (Jedis jedis = jedisPool.getResource()) {
                 removed = jedis.del(cacheKey);
             }
@@ -61,4 +93,11 @@ public class CacheAdminService {
         }
     }
     
+    /**
+     * Returns the statistics (size, hits, misses, evictions) of the in-process caches of this server. Each server 
+     * reports only on its own caches.
+     */
+    public Map<String, LocalCacheStats> getLocalCacheStats() {
+        return localCacheManager.getStats();
+    }
 }
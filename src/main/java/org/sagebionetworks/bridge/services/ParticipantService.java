@@ -25,6 +25,8 @@ import static org.sagebionetworks.bridge.validators.ValidatorUtils.accountHasVal
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,6 +36,7 @@ import com.amazonaws.services.sqs.model.SendMessageResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -54,6 +57,7 @@ import org.sagebionetworks.bridge.BridgeUtils.StudyAssociations;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.crypto.CredentialHasher;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -145,6 +149,8 @@ public class ParticipantService {
 
     private AmazonSQSClient sqsClient;
 
+    private CredentialHasher credentialHasher;
+
     @Autowired
     public final void setAccountWorkflowService(AccountWorkflowService accountWorkflowService) {
         this.accountWorkflowService = accountWorkflowService;
@@ -230,6 +236,11 @@ public class ParticipantService {
     final void setSqsClient(AmazonSQSClient sqsClient) {
         this.sqsClient = sqsClient;
     }
+
+    @Autowired
+    final void setCredentialHasher(CredentialHasher credentialHasher) {
+        this.credentialHasher = credentialHasher;
+    }
     
     /**
      * This is a researcher API to backfill SMS notification registrations for a user. We generally prefer the app
@@ -398,6 +409,44 @@ public class ParticipantService {
         return accountService.getPagedAccountSummaries(app.getIdentifier(), search);
     }
 
+    /**
+     * Iterate over all the account summaries that match the search, ordered by their creation time. The accounts 
+     * are retrieved a page at a time as the iterator advances, each page starting after the last account of the 
+     * prior page, so only one page is held in memory and retrieving each page takes the same time. The paging 
+     * parameters of the search are ignored.
+     */
+    public Iterator<AccountSummary> getAccountSummaryIterator(App app, AccountSummarySearch search) {
+        checkNotNull(app);
+        checkNotNull(search);
+        
+        AccountSummarySearch pageSearch = new AccountSummarySearch.Builder().copyOf(search).withOffsetBy(0)
+                .withOffsetKey(null).withPageSize(BridgeConstants.API_MAXIMUM_PAGE_SIZE).build();
+        Validate.entityThrowingException(new AccountSummarySearchValidator(app.getDataGroups()), pageSearch);
+        
+        return new AbstractIterator<AccountSummary>() {
+            private Iterator<AccountSummary> page = Collections.emptyIterator();
+            private String nextPageOffsetKey;
+            private boolean lastPage;
+            
+            @Override
+            protected AccountSummary computeNext() {
+                while (!page.hasNext()) {
+                    if (lastPage) {
+                        return endOfData();
+                    }
+                    AccountSummarySearch nextSearch = new AccountSummarySearch.Builder().copyOf(pageSearch)
+                            .withOffsetKey(nextPageOffsetKey).build();
+                    PagedResourceList<AccountSummary> nextPage = accountService
+                            .getPagedAccountSummaries(app.getIdentifier(), nextSearch);
+                    page = nextPage.getItems().iterator();
+                    nextPageOffsetKey = nextPage.getNextPageOffsetKey();
+                    lastPage = (nextPageOffsetKey == null);
+                }
+                return page.next();
+            }
+        };
+    }
+
     /**
      * Gets the timestamp representing when the participant started the study. Canonically, we define this as
      * activities_retrieved event time, then fall back to enrollment (for studies that don't use scheduling), then fall
@@ -468,7 +517,7 @@ public class ParticipantService {
         if (participant.getPassword() != null) {
             try {
                 PasswordAlgorithm passwordAlgorithm = DEFAULT_PASSWORD_ALGORITHM;
-                String passwordHash = passwordAlgorithm.generateHash(participant.getPassword());
+                String passwordHash = credentialHasher.generateHash(passwordAlgorithm, participant.getPassword());
                 account.setPasswordAlgorithm(passwordAlgorithm);
                 account.setPasswordHash(passwordHash);
             } catch (InvalidKeyException | InvalidKeySpecException | NoSuchAlgorithmException ex) {
@@ -4,7 +4,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MINIMUM_PAGE_SIZE;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.Sets;
@@ -20,6 +24,7 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.LocalReportIndexCache;
 import org.sagebionetworks.bridge.dao.ReportDataDao;
 import org.sagebionetworks.bridge.dao.ReportIndexDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -31,6 +36,7 @@ import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.RangeTuple;
 import org.sagebionetworks.bridge.models.ReportTypeResourceList;
 import org.sagebionetworks.bridge.models.reports.ReportData;
+import org.sagebionetworks.bridge.models.reports.ReportDataBatchResult;
 import org.sagebionetworks.bridge.models.reports.ReportDataKey;
 import org.sagebionetworks.bridge.models.reports.ReportIndex;
 import org.sagebionetworks.bridge.models.reports.ReportType;
@@ -54,6 +60,11 @@ import org.sagebionetworks.bridge.validators.Validate;
 public class ReportService {
     private static final int MAX_RANGE_DAYS = 45;
     
+    static final int MAX_BATCH_SIZE = 500;
+    
+    static final String BATCH_SIZE_MSG = "A batch of report data must contain between 1 and " + MAX_BATCH_SIZE
+            + " records";
+    
     private static final String RECORD_DATE_MISSING_MSG = "Date of report record is required";
     
     private static final String EITHER_BOTH_DATES_OR_NEITHER = "Only one date of a date range provided (both startTime and endTime required)";
@@ -64,6 +75,7 @@ public class ReportService {
     
     private ReportDataDao reportDataDao;
     private ReportIndexDao reportIndexDao;
+    private LocalReportIndexCache localReportIndexCache;
     
     @Autowired
     final void setReportDataDao(ReportDataDao reportDataDao) {
@@ -74,6 +86,12 @@ public class ReportService {
     final void setReportIndexDao(ReportIndexDao reportIndexDao) {
         this.reportIndexDao = reportIndexDao;
     }
+
+    /** Cache of report indices, consulted by every report call to check study memberships. */
+    @Autowired
+    final void setLocalReportIndexCache(LocalReportIndexCache localReportIndexCache) {
+        this.localReportIndexCache = localReportIndexCache;
+    }
     
     /**
      * Get a report index. Study memberships are ignored.
@@ -81,7 +99,7 @@ public class ReportService {
     public ReportIndex getReportIndex(ReportDataKey key) {
         checkNotNull(key);
         
-        return reportIndexDao.getIndex(key);
+        return getIndex(key);
     }
     
     /**
@@ -100,7 +118,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -125,7 +143,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -151,7 +169,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -176,7 +194,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -202,7 +220,7 @@ public class ReportService {
                 .withAppId(appId).build();
         reportData.setReportDataKey(key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -233,7 +251,7 @@ public class ReportService {
                 .withAppId(appId).build();
         reportData.setReportDataKey(key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }
@@ -247,6 +265,70 @@ public class ReportService {
         }
     }
     
+    /**
+     * Save a batch of participant report records, with one check of the report index. Study memberships are 
+     * enforced as they are for {@link #saveParticipantReport}. If this is the first batch for this report, the 
+     * studies of the first record define who can see this report, and the other records cannot specify different 
+     * studies. All records are validated before any are saved. If the batch contains more than one record for 
+     * a date, the last one is saved. Records that cannot be written are reported as failed, and can be submitted 
+     * again.
+     */
+    public ReportDataBatchResult saveParticipantReportBatch(String appId, String identifier, String healthCode,
+            List<ReportData> reportDataList) {
+        checkNotNull(reportDataList);
+        if (reportDataList.isEmpty() || reportDataList.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(BATCH_SIZE_MSG);
+        }
+        
+        ReportDataKey key = new ReportDataKey.Builder()
+                .withHealthCode(healthCode)
+                .withReportType(ReportType.PARTICIPANT)
+                .withIdentifier(identifier)
+                .withAppId(appId).build();
+        
+        ReportIndex index = getIndex(key);
+        if (!canAccess(index)) {
+            throw new UnauthorizedException();
+        }
+        
+        // Validate the records as if the first record had already created the index.
+        Set<String> studyIds = reportDataList.get(0).getStudyIds();
+        ReportIndex validationIndex = index;
+        if (index == null) {
+            validationIndex = ReportIndex.create();
+            validationIndex.setStudyIds(studyIds);
+        }
+        ReportDataValidator validator = new ReportDataValidator(validationIndex);
+        Map<String, ReportData> recordsByDate = new LinkedHashMap<>();
+        for (ReportData reportData : reportDataList) {
+            reportData.setReportDataKey(key);
+            Validate.entityThrowingException(validator, reportData);
+            // A batch write fails if it contains the same record twice, so only the last record for a date is saved.
+            // The date is the range key of the record. Date times keep the caller's time zone offset, so the same
+            // time in two time zones is two records.
+            String date = reportData.getDate();
+            recordsByDate.remove(date);
+            recordsByDate.put(date, reportData);
+        }
+        
+        Set<ReportData> failedRecords = new HashSet<>(
+                reportDataDao.saveReportDataBatch(new ArrayList<>(recordsByDate.values())));
+        
+        List<String> savedDates = new ArrayList<>();
+        List<String> failedDates = new ArrayList<>();
+        for (ReportData reportData : recordsByDate.values()) {
+            if (failedRecords.contains(reportData)) {
+                failedDates.add(reportData.getDate());
+            } else {
+                savedDates.add(reportData.getDate());
+            }
+        }
+        if (index == null && !savedDates.isEmpty()) {
+            addToIndex(key, studyIds);
+        }
+        return new ReportDataBatchResult(savedDates, failedDates);
+    }
+    
     /**
      * Delete all records for a study report. Study memberships will be enforced.
      */
@@ -257,12 +339,12 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
         reportDataDao.deleteReportData(key);
-        reportIndexDao.removeIndex(key);
+        removeIndex(key);
     }
     
     /**
@@ -279,7 +361,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
@@ -290,7 +372,7 @@ public class ReportService {
         LocalDate endDate = LocalDate.now();
         DateRangeResourceList<? extends ReportData> results = getStudyReport(appId, identifier, startDate, endDate);
         if (results.getItems().isEmpty()) {
-            reportIndexDao.removeIndex(key);
+            removeIndex(key);
         }
     }
     
@@ -315,7 +397,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
@@ -337,7 +419,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
@@ -357,11 +439,11 @@ public class ReportService {
                 .withIdentifier(identifier)
                 .withAppId(appId).build();
         
-        ReportIndex index = reportIndexDao.getIndex(key);
+        ReportIndex index = getIndex(key);
         if (!canAccess(index)) {
             throw new UnauthorizedException();
         }        
-        reportIndexDao.removeIndex(key);
+        removeIndex(key);
     }
 
     /**
@@ -378,7 +460,7 @@ public class ReportService {
                 .withAppId(appId).build();
         Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
         
-        ReportIndex existingIndex = reportIndexDao.getIndex(key);
+        ReportIndex existingIndex = getIndex(key);
         if (existingIndex == null) {
             throw new EntityNotFoundException(ReportIndex.class);
         }
@@ -394,6 +476,7 @@ public class ReportService {
             index.setStudyIds(existingIndex.getStudyIds());
         }
         reportIndexDao.updateIndex(index);
+        localReportIndexCache.invalidate(key);
     }
     
     protected boolean canAccess(ReportIndex index) {
@@ -411,8 +494,18 @@ public class ReportService {
         return !Sets.intersection(allStudyIds, index.getStudyIds()).isEmpty();
     }
 
+    private ReportIndex getIndex(ReportDataKey key) {
+        return localReportIndexCache.getIndex(key, () -> reportIndexDao.getIndex(key));
+    }
+
     private void addToIndex(ReportDataKey key, Set<String> studies) {
         reportIndexDao.addIndex(key, studies);
+        localReportIndexCache.invalidate(key);
+    }
+
+    private void removeIndex(ReportDataKey key) {
+        reportIndexDao.removeIndex(key);
+        localReportIndexCache.invalidate(key);
     }
     
     private RangeTuple<DateTime> validateDateTimeRange(DateTime startTime, DateTime endTime) {
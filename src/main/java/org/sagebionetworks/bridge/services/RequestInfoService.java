@@ -3,19 +3,62 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.RequestInfoDao;
+import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
 import org.sagebionetworks.bridge.models.RequestInfo;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Request info is updated on most authenticated requests. When write-behind is enabled, updates are merged in
+ * memory per user and persisted in batches by a background thread, so requests do not wait on the database. Reads
+ * include any update that has not been persisted yet. The number of users with pending updates is bounded; when
+ * the bound is reached, an update for another user is persisted on the request thread. Pending updates are
+ * persisted when the server shuts down (updates that cannot be persisted at that point are dropped). An update that
+ * cannot be persisted is retried a limited number of times, and an update that violates a constraint (usually
+ * because the account has been deleted) is dropped.
+ */
 @Component
 public class RequestInfoService {
-    
+    private static final Logger LOG = LoggerFactory.getLogger(RequestInfoService.class);
+
+    static final String WRITE_BEHIND_ENABLED_PROPERTY = "request.info.write.behind.enabled";
+    static final String FLUSH_INTERVAL_PROPERTY = "request.info.write.behind.flush.millis";
+    static final String MAX_PENDING_PROPERTY = "request.info.write.behind.max.pending";
+    static final String BATCH_SIZE_PROPERTY = "request.info.write.behind.batch.size";
+    static final int MAX_ATTEMPTS = 3;
+
+    private final ConcurrentMap<String, RequestInfo> pending = new ConcurrentHashMap<>();
+    // Updates that are being persisted, so they can still be read until they are committed
+    private final ConcurrentMap<String, RequestInfo> persisting = new ConcurrentHashMap<>();
+    // The number of times in a row that the update of a user could not be persisted
+    private final ConcurrentMap<String, Integer> failedAttempts = new ConcurrentHashMap<>();
     private CacheProvider cacheProvider;
     private RequestInfoDao requestInfoDao;
-    
+    private boolean writeBehindEnabled;
+    private int flushIntervalMillis;
+    private int maxPending;
+    private int batchSize;
+    private ScheduledExecutorService flushExecutor;
+
     @Autowired
     final void setCacheProvider(CacheProvider cacheProvider) {
         this.cacheProvider = cacheProvider;
@@ -24,16 +67,58 @@ public class RequestInfoService {
     final void setRequestInfoDao(RequestInfoDao requestInfoDao) {
         this.requestInfoDao = requestInfoDao;
     }
-    
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.writeBehindEnabled = Boolean.parseBoolean(config.get(WRITE_BEHIND_ENABLED_PROPERTY));
+        this.flushIntervalMillis = config.getInt(FLUSH_INTERVAL_PROPERTY);
+        this.maxPending = config.getInt(MAX_PENDING_PROPERTY);
+        this.batchSize = config.getInt(BATCH_SIZE_PROPERTY);
+    }
+
+    @PostConstruct
+    public void startFlushing() {
+        if (writeBehindEnabled) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("request-info-writer").setDaemon(true).build());
+            flushExecutor.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stopFlushing() throws InterruptedException {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            flushExecutor.awaitTermination(flushIntervalMillis, TimeUnit.MILLISECONDS);
+            flush();
+            if (!pending.isEmpty()) {
+                LOG.warn("Dropped " + pending.size() + " request info updates on shutdown");
+                pending.clear();
+            }
+            failedAttempts.clear();
+        }
+    }
+
+    /** True if updates are persisted in the background, and do not need to be merged by the caller. */
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
     public void updateRequestInfo(RequestInfo requestInfo) {
         checkNotNull(requestInfo);
-        
+
+        if (writeBehindEnabled && requestInfo.getUserId() != null) {
+            if (pending.size() < maxPending || pending.containsKey(requestInfo.getUserId())) {
+                pending.merge(requestInfo.getUserId(), requestInfo, RequestInfoService::merge);
+                return;
+            }
+        }
         requestInfoDao.updateRequestInfo(requestInfo);
     }
-    
+
     public RequestInfo getRequestInfo(String userId) {
         isNotBlank(userId);
-        
+
         RequestInfo requestInfo = requestInfoDao.getRequestInfo(userId);
         if (requestInfo == null) {
             requestInfo = cacheProvider.getRequestInfo(userId);
@@ -41,13 +126,110 @@ public class RequestInfoService {
                 requestInfoDao.updateRequestInfo(requestInfo);
             }
         }
+        RequestInfo persistingInfo = persisting.get(userId);
+        if (persistingInfo != null) {
+            requestInfo = merge(requestInfo, persistingInfo);
+        }
+        RequestInfo pendingInfo = pending.get(userId);
+        if (pendingInfo != null) {
+            requestInfo = merge(requestInfo, pendingInfo);
+        }
         return requestInfo;
     }
-    
+
     public void removeRequestInfo(String userId) {
         isNotBlank(userId);
-        
+
+        pending.remove(userId);
+        persisting.remove(userId);
+        failedAttempts.remove(userId);
         requestInfoDao.removeRequestInfo(userId);
         cacheProvider.removeRequestInfo(userId);
     }
+
+    /**
+     * Persist the pending updates in batches. Each update is visible in the persisting map before it is removed 
+     * from the pending map, so a concurrent read never misses it.
+     */
+    void flush() {
+        List<RequestInfo> batch = new ArrayList<>(batchSize);
+        for (String userId : pending.keySet()) {
+            RequestInfo requestInfo = pending.get(userId);
+            if (requestInfo == null) {
+                continue;
+            }
+            persisting.put(userId, requestInfo);
+            // An update received in the meantime was merged over the update that was read
+            requestInfo = pending.remove(userId);
+            if (requestInfo == null) {
+                // The request info was removed in the meantime
+                persisting.remove(userId);
+                continue;
+            }
+            persisting.put(userId, requestInfo);
+            batch.add(requestInfo);
+            if (batch.size() >= batchSize) {
+                persist(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            persist(batch);
+        }
+    }
+
+    /**
+     * Persist a batch of updates. If the batch fails, each update is persisted on its own, so that one update that 
+     * cannot be persisted does not hold back the rest of the batch.
+     */
+    private void persist(List<RequestInfo> batch) {
+        try {
+            requestInfoDao.updateRequestInfos(batch);
+            for (RequestInfo requestInfo : batch) {
+                failedAttempts.remove(requestInfo.getUserId());
+            }
+        } catch (Exception e) {
+            LOG.warn("Could not persist " + batch.size() + " request info updates in a batch, persisting them "
+                    + "one at a time", e);
+            for (RequestInfo requestInfo : batch) {
+                persistOne(requestInfo);
+            }
+        } finally {
+            for (RequestInfo requestInfo : batch) {
+                persisting.remove(requestInfo.getUserId());
+            }
+        }
+    }
+
+    /**
+     * Persist one update. An update that violates a constraint is dropped, as it will never succeed. Otherwise a 
+     * failed update is merged back under any update received since, to be retried on the next flush (as long as the 
+     * bound on pending updates allows), until it has failed MAX_ATTEMPTS times.
+     */
+    private void persistOne(RequestInfo requestInfo) {
+        String userId = requestInfo.getUserId();
+        try {
+            requestInfoDao.updateRequestInfo(requestInfo);
+            failedAttempts.remove(userId);
+        } catch (ConstraintViolationException e) {
+            LOG.warn("Dropped request info update that violates a constraint, user " + userId, e);
+            failedAttempts.remove(userId);
+        } catch (Exception e) {
+            int attempts = failedAttempts.merge(userId, 1, Integer::sum);
+            if (attempts >= MAX_ATTEMPTS) {
+                LOG.error("Dropped request info update after " + attempts + " attempts, user " + userId, e);
+                failedAttempts.remove(userId);
+            } else if (pending.size() < maxPending || pending.containsKey(userId)) {
+                LOG.warn("Could not persist request info update, will retry, user " + userId, e);
+                pending.merge(userId, requestInfo, (newer, failed) -> merge(failed, newer));
+            } else {
+                LOG.error("Dropped request info update, too many updates are pending, user " + userId, e);
+                failedAttempts.remove(userId);
+            }
+        }
+    }
+
+    private static RequestInfo merge(RequestInfo existing, RequestInfo update) {
+        return new RequestInfo.Builder().copyOf(existing).copyOf(update).build();
+    }
 }
@@ -29,6 +29,7 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.LocalTimelineCache;
 import org.sagebionetworks.bridge.dao.Schedule2Dao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -57,6 +58,8 @@ public class Schedule2Service {
     
     private Schedule2Dao dao;
     
+    private LocalTimelineCache timelineCache;
+    
     @Autowired
     final void setAppService(AppService appService) {
         this.appService = appService;
@@ -72,6 +75,11 @@ public class Schedule2Service {
         this.dao = dao;
     }
     
+    @Autowired
+    final void setLocalTimelineCache(LocalTimelineCache timelineCache) {
+        this.timelineCache = timelineCache;
+    }
+    
     DateTime getCreatedOn() {
         return DateTime.now();
     }
@@ -241,7 +249,9 @@ public class Schedule2Service {
 
         Validate.entityThrowingException(INSTANCE, schedule);
         
-        return dao.updateSchedule(schedule);
+        Schedule2 updated = dao.updateSchedule(schedule);
+        timelineCache.invalidate(existing.getAppId(), existing.getGuid());
+        return updated;
     }
     
     /**
@@ -261,7 +271,9 @@ public class Schedule2Service {
         }
         existing.setPublished(true);
         existing.setModifiedOn(getModifiedOn());
-        return dao.updateSchedule(existing);
+        Schedule2 updated = dao.updateSchedule(existing);
+        timelineCache.invalidate(appId, guid);
+        return updated;
     }
     
     /**
@@ -279,6 +291,7 @@ public class Schedule2Service {
         }
         CAN_EDIT_SCHEDULES.checkAndThrow(ORG_ID, existing.getOwnerId());
         dao.deleteSchedule(existing);
+        timelineCache.invalidate(appId, guid);
     }
     
     /**
@@ -295,14 +308,24 @@ public class Schedule2Service {
         
         CAN_EDIT_SCHEDULES.checkAndThrow(ORG_ID, existing.getOwnerId());
         dao.deleteSchedulePermanently(existing);
+        timelineCache.invalidate(appId, guid);
     }
     
     public Timeline getTimelineForSchedule(String appId, String guid) {
         Schedule2 schedule = dao.getSchedule(appId, guid)
                 .orElseThrow(() -> new EntityNotFoundException(Schedule2.class));
+        return getTimelineForSchedule(schedule);
+    }
+    
+    /**
+     * The timeline for this schedule in the caller's languages. Timelines are cached for each version of 
+     * a schedule, and are shared between callers, so they should not be modified.
+     */
+    public Timeline getTimelineForSchedule(Schedule2 schedule) {
+        checkNotNull(schedule);
         
-        // This is calculated so quickly it is not worth caching
-        return Scheduler.INSTANCE.calculateTimeline(schedule);
+        String languageKey = Scheduler.INSTANCE.calculateLanguageKey();
+        return timelineCache.get(schedule, languageKey, () -> Scheduler.INSTANCE.calculateTimeline(schedule));
     }
     
     public Optional<TimelineMetadata> getTimelineMetadata(String instanceGuid) {
@@ -12,20 +12,29 @@ import static org.sagebionetworks.bridge.util.BridgeCollectors.toImmutableList;
 import static org.sagebionetworks.bridge.validators.ScheduleContextValidator.MAX_DATE_RANGE_IN_DAYS;
 
 import java.io.UnsupportedEncodingException;
+import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import javax.annotation.Resource;
+
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.math.IntMath;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -35,8 +44,11 @@ import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.RangeTuple;
+import org.sagebionetworks.bridge.models.activities.ActivityEventObjectType;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.schedules.ActivityType;
@@ -70,6 +82,12 @@ public class ScheduledActivityService {
     private static final String INVALID_TIME_RANGE = "scheduledOnStart later in time than scheduledOnEnd";
 
     private static final String ENROLLMENT = "enrollment";
+    
+    private static final String ACTIVITIES_RETRIEVED = ActivityEventObjectType.ACTIVITIES_RETRIEVED.name()
+            .toLowerCase();
+    
+    // The most history queries that one request for v4 activities will run at the same time.
+    static final int MAX_CONCURRENT_HISTORY_QUERIES = 8;
 
     private static final ScheduleContextValidator VALIDATOR = new ScheduleContextValidator();
 
@@ -87,6 +105,8 @@ public class ScheduledActivityService {
     
     private AppConfigService appConfigService;
     
+    private ExecutorService activityQueryExecutorService;
+    
     @Autowired
     final void setScheduledActivityDao(ScheduledActivityDao activityDao) {
         this.activityDao = activityDao;
@@ -125,6 +145,15 @@ public class ScheduledActivityService {
     final void setAppConfigService(AppConfigService appConfigService) {
         this.appConfigService = appConfigService;
     }
+    
+    /**
+     * Runs the activity history queries for v4 activities. If not set, the queries run one after another in the 
+     * calling thread.
+     */
+    @Resource(name = "activityQueryExecutorService")
+    final void setActivityQueryExecutorService(ExecutorService activityQueryExecutorService) {
+        this.activityQueryExecutorService = activityQueryExecutorService;
+    }
 
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistory(String healthCode,
             String activityGuid, DateTime scheduledOnStart, DateTime scheduledOnEnd, String offsetKey,
@@ -186,11 +215,8 @@ public class ScheduledActivityService {
         
         Validate.nonEntityThrowingException(VALIDATOR, context);
 
-        String healthCode = context.getCriteriaContext().getHealthCode();
-        activityEventService.publishActivitiesRetrieved(app, null, healthCode, DateUtils.getCurrentDateTime());
-        
         // Add events for scheduling
-        Map<String, DateTime> events = createEventsMap(context);
+        Map<String, DateTime> events = createEventsMap(app, context);
         ScheduleContext updatedContext = new ScheduleContext.Builder().withContext(context).withEvents(events).build();
         
         List<ScheduledActivity> scheduledActivities = scheduleActivitiesForPlans(updatedContext);
@@ -214,11 +240,8 @@ public class ScheduledActivityService {
         
         Validate.nonEntityThrowingException(VALIDATOR, context);
         
-        String healthCode = context.getCriteriaContext().getHealthCode();
-        activityEventService.publishActivitiesRetrieved(app, null, healthCode, DateUtils.getCurrentDateTime());
-        
         // Add events for scheduling
-        Map<String, DateTime> events = createEventsMap(context);
+        Map<String, DateTime> events = createEventsMap(app, context);
         ScheduleContext updatedContext = new ScheduleContext.Builder().withContext(context).withEvents(events).build();
 
         List<ScheduledActivity> scheduledActivities = scheduleActivitiesForPlans(updatedContext);
@@ -273,44 +296,80 @@ public class ScheduledActivityService {
         Map<String,ScheduledActivity> dbMap = Maps.newHashMap();
         // IA-545: If a schedule has an identical activity but a new GUID (say if we change the schedule on the user), the user can 
         // lose existing activities. So during the time window the user is looking at, we will return any activities that exist.
-        for (String activityGuid : activityGuids) {
-            ForwardCursorPagedResourceList<ScheduledActivity> list = activityDao.getActivityHistoryV2(
-                    context.getCriteriaContext().getHealthCode(), activityGuid,
-                    context.getStartsOn(), context.getEndsOn(), null,
-                    API_MAXIMUM_PAGE_SIZE);
-            if (list != null) {
-                for(ScheduledActivity activity : list.getItems()) {
-                    dbMap.put(activity.getGuid(), activity);
-                }
-            }
+        for (ScheduledActivity activity : getActivityHistories(context, activityGuids)) {
+            dbMap.put(activity.getGuid(), activity);
         }
         // IA-587: When a one-time task falls outside the schedule window, it's not returned by the 
-        // query above, so it is recreated, and it loses its finished state. Load all remaining scheduled activities.
-        String healthCode = context.getCriteriaContext().getHealthCode();
+        // query above, so it is recreated, and it loses its finished state. Load all remaining scheduled activities
+        // (in batches, rather than one at a time).
+        Map<String, ScheduledActivity> remaining = Maps.newLinkedHashMap();
         for (ScheduledActivity activity : scheduledActivities) {
             if (!dbMap.containsKey(activity.getGuid())) {
-                ScheduledActivity dbActivity = activityDao.getActivity(context.getStartsOn().getZone(), healthCode,
-                        activity.getGuid(), false);
-                if (dbActivity != null) {
-                    dbMap.put(dbActivity.getGuid(), dbActivity);    
-                }
+                remaining.putIfAbsent(activity.getGuid(), activity);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            List<ScheduledActivity> dbActivities = activityDao.getActivities(context.getStartsOn().getZone(),
+                    ImmutableList.copyOf(remaining.values()));
+            for (ScheduledActivity dbActivity : dbActivities) {
+                dbMap.put(dbActivity.getGuid(), dbActivity);
             }
         }
         return dbMap;
     }
+    
+    /**
+     * Query the history of each activity within the time window of the context. DynamoDB can only query the history 
+     * of one activity at a time, so the activities are split into groups that are queried at the same time.
+     */
+    private List<ScheduledActivity> getActivityHistories(ScheduleContext context, Set<String> activityGuids) {
+        List<String> guids = ImmutableList.copyOf(activityGuids);
+        if (activityQueryExecutorService == null || guids.size() < 2) {
+            return queryActivityHistories(context, guids);
+        }
+        int groupSize = IntMath.divide(guids.size(), MAX_CONCURRENT_HISTORY_QUERIES, RoundingMode.CEILING);
+        List<Future<List<ScheduledActivity>>> futures = Lists.newArrayList();
+        try {
+            for (List<String> group : Lists.partition(guids, groupSize)) {
+                futures.add(activityQueryExecutorService.submit(() -> queryActivityHistories(context, group)));
+            }
+            List<ScheduledActivity> activities = Lists.newArrayList();
+            for (Future<List<ScheduledActivity>> future : futures) {
+                activities.addAll(Uninterruptibles.getUninterruptibly(future));
+            }
+            return activities;
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new BridgeServiceException(e.getCause());
+        } finally {
+            // Stops any queries that haven't finished if one of them fails.
+            for (Future<List<ScheduledActivity>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+    
+    private List<ScheduledActivity> queryActivityHistories(ScheduleContext context, List<String> activityGuids) {
+        String healthCode = context.getCriteriaContext().getHealthCode();
+        List<ScheduledActivity> activities = Lists.newArrayList();
+        for (String activityGuid : activityGuids) {
+            ForwardCursorPagedResourceList<ScheduledActivity> list = activityDao.getActivityHistoryV2(healthCode,
+                    activityGuid, context.getStartsOn(), context.getEndsOn(), null, API_MAXIMUM_PAGE_SIZE);
+            if (list != null) {
+                activities.addAll(list.getItems());
+            }
+        }
+        return activities;
+    }
 
     public void updateScheduledActivities(String healthCode, List<ScheduledActivity> scheduledActivities) {
         checkArgument(isNotBlank(healthCode));
         checkNotNull(scheduledActivities);
         
         // Remove duplicates sent by the client because these lead to an error when persisting the records
-        // (BRIDGE-2350). Preserve the order the activities were submitted in the list, mostly because tests 
-        // expect that order to be preserved.
-        Set<String> activitiesAlreadySeen = new HashSet<>();
-        List<ScheduledActivity> activitiesToSave = new LinkedList<>();
-        
-        // According to the client team, the last activity is most likely to be correct, so iterate from 
-        // the last one
+        // (BRIDGE-2350). According to the client team, the last activity is most likely to be correct, so 
+        // iterate from the last one.
+        Map<String, ScheduledActivity> activitiesByGuid = Maps.newLinkedHashMap();
         for (int i=scheduledActivities.size()-1; i >= 0; i--) {
             ScheduledActivity schActivity = scheduledActivities.get(i);
             if (schActivity == null) {
@@ -323,19 +382,19 @@ public class ScheduledActivityService {
                 throw new BadRequestException("Client data too large ("+CLIENT_DATA_MAX_BYTES+" bytes limit) for task "
                         + schActivity.getGuid());
             }
-
-            // This isn't returned to the client, so the exact time zone used does not matter.
-            ScheduledActivity dbActivity = activityDao.getActivity(DateTimeZone.UTC, healthCode, schActivity.getGuid(), true);
-            String key = dbActivity.getHealthCode()+":"+dbActivity.getGuid();
-            if (activitiesAlreadySeen.contains(key)) {
-                ScheduledActivity previouslyAdded = activitiesToSave.stream().filter((sch) -> {
-                    return sch.getHealthCode().equals(dbActivity.getHealthCode()) && 
-                            sch.getGuid().equals(dbActivity.getGuid()); 
-                }).findFirst().get();
-                LOG.warn("Duplicate activities submitted to server, activity to persist: " + previouslyAdded + ", duplicate: " + dbActivity);
-                continue;
+            ScheduledActivity previouslyAdded = activitiesByGuid.putIfAbsent(schActivity.getGuid(), schActivity);
+            if (previouslyAdded != null) {
+                LOG.warn("Duplicate activities submitted to server, activity to persist: " + previouslyAdded
+                        + ", duplicate: " + schActivity);
             }
-            activitiesAlreadySeen.add(key);
+        }
+        Map<String, ScheduledActivity> dbActivitiesByGuid = getActivitiesByGuid(healthCode, activitiesByGuid.keySet());
+        
+        // Preserve the order the activities were submitted in the list, mostly because tests expect that order
+        // to be preserved.
+        LinkedList<ScheduledActivity> activitiesToSave = new LinkedList<>();
+        for (ScheduledActivity schActivity : activitiesByGuid.values()) {
+            ScheduledActivity dbActivity = dbActivitiesByGuid.get(schActivity.getGuid());
             
             boolean addToSaves = false;
             if (hasUpdatedClientData(schActivity, dbActivity)) {
@@ -352,12 +411,34 @@ public class ScheduledActivityService {
                 addToSaves = true;
             }
             if (addToSaves) {
-                activitiesToSave.add(0, dbActivity);
+                activitiesToSave.addFirst(dbActivity);
             }
-            
         }
         activityDao.updateActivities(healthCode, activitiesToSave);
     }
+    
+    /**
+     * Load the persisted activities in batches, rather than one at a time. Throws an EntityNotFoundException if 
+     * any of the activities does not exist.
+     */
+    private Map<String, ScheduledActivity> getActivitiesByGuid(String healthCode, Set<String> guids) {
+        List<ScheduledActivity> keys = Lists.newArrayListWithCapacity(guids.size());
+        for (String guid : guids) {
+            ScheduledActivity key = ScheduledActivity.create();
+            key.setHealthCode(healthCode);
+            key.setGuid(guid);
+            keys.add(key);
+        }
+        // This isn't returned to the client, so the exact time zone used does not matter.
+        Map<String, ScheduledActivity> dbActivitiesByGuid = Maps.newHashMap();
+        for (ScheduledActivity dbActivity : activityDao.getActivities(DateTimeZone.UTC, keys)) {
+            dbActivitiesByGuid.put(dbActivity.getGuid(), dbActivity);
+        }
+        if (!dbActivitiesByGuid.keySet().containsAll(guids)) {
+            throw new EntityNotFoundException(ScheduledActivity.class);
+        }
+        return dbActivitiesByGuid;
+    }
 
     public void deleteActivitiesForUser(String healthCode) {
         checkArgument(isNotBlank(healthCode));
@@ -391,9 +472,18 @@ public class ScheduledActivityService {
         }
     }
 
-    private Map<String, DateTime> createEventsMap(ScheduleContext context) {
-        Map<String,DateTime> events = activityEventService.getActivityEventMap(context.getCriteriaContext().getAppId(),
-                null, context.getCriteriaContext().getHealthCode());
+    private Map<String, DateTime> createEventsMap(App app, ScheduleContext context) {
+        String appId = context.getCriteriaContext().getAppId();
+        String healthCode = context.getCriteriaContext().getHealthCode();
+        
+        // The activities_retrieved event is immutable, so it is only published the first time activities are 
+        // retrieved. After that, publishing it would be a DynamoDB write that can never succeed. The events are 
+        // retrieved again after it is published, to include any automatic custom events it triggered.
+        Map<String,DateTime> events = activityEventService.getActivityEventMap(appId, null, healthCode);
+        if (!events.containsKey(ACTIVITIES_RETRIEVED)) {
+            activityEventService.publishActivitiesRetrieved(app, null, healthCode, DateUtils.getCurrentDateTime());
+            events = activityEventService.getActivityEventMap(appId, null, healthCode);
+        }
         ImmutableMap.Builder<String,DateTime> builder = new ImmutableMap.Builder<String, DateTime>();
         if (!events.containsKey(ENROLLMENT)) {
             builder.put(ENROLLMENT, context.getAccountCreatedOn().withZone(context.getInitialTimeZone()));
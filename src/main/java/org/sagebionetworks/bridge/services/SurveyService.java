@@ -13,6 +13,8 @@ import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.LocalAppConfigCache;
+import org.sagebionetworks.bridge.cache.LocalSurveyCache;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
@@ -49,6 +51,8 @@ public class SurveyService {
     private SchedulePlanService schedulePlanService;
     private SharedModuleMetadataService sharedModuleMetadataService;
     private AppService appService;
+    private LocalAppConfigCache appConfigCache;
+    private LocalSurveyCache surveyCache;
 
     @Autowired
     final void setSurveyDao(SurveyDao surveyDao) {
@@ -74,9 +78,21 @@ public class SurveyService {
     public final void setAppService(AppService appService) {
         this.appService = appService;
     }
+
+    // App configs are cached with the identifiers of the surveys they reference.
+    @Autowired
+    final void setLocalAppConfigCache(LocalAppConfigCache appConfigCache) {
+        this.appConfigCache = appConfigCache;
+    }
+    
+    @Autowired
+    final void setLocalSurveyCache(LocalSurveyCache surveyCache) {
+        this.surveyCache = surveyCache;
+    }
     
     public Survey getSurvey(String appId, GuidCreatedOnVersionHolder keys, boolean includeElements, boolean throwException) {
-        Survey survey = surveyDao.getSurvey(appId, keys, includeElements);
+        Survey survey = surveyCache.getSurvey(appId, keys, includeElements,
+                () -> surveyDao.getSurvey(appId, keys, includeElements));
         if (!isInApp(appId, survey)) {
             if (throwException) {
                 throw new EntityNotFoundException(Survey.class);    
@@ -137,7 +153,10 @@ public class SurveyService {
             if (existing.isDeleted() && !survey.isDeleted()) {
                 existing = surveyDao.getSurvey(appId, survey, true); // get all the children for the update
                 existing.setDeleted(false);
-                return surveyDao.updateSurvey(appId, existing);
+                Survey updated = surveyDao.updateSurvey(appId, existing);
+                surveyCache.invalidate(appId, survey.getGuid());
+                appConfigCache.invalidate(appId);
+                return updated;
             } else {
                 throw new PublishedSurveyException(survey);
             }
@@ -150,7 +169,10 @@ public class SurveyService {
         }
         Validate.entityThrowingException(new SurveySaveValidator(dataGroups), survey);
         
-        return surveyDao.updateSurvey(appId, survey);
+        Survey updated = surveyDao.updateSurvey(appId, survey);
+        surveyCache.invalidate(appId, survey.getGuid());
+        appConfigCache.invalidate(appId);
+        return updated;
     }
 
     /**
@@ -168,7 +190,9 @@ public class SurveyService {
         }
         Validate.entityThrowingException(publishValidator, existing);
 
-        return surveyDao.publishSurvey(appId, existing, newSchemaRev);
+        Survey published = surveyDao.publishSurvey(appId, existing, newSchemaRev);
+        surveyCache.invalidate(appId, keys.getGuid());
+        return published;
     }
 
     /**
@@ -182,7 +206,9 @@ public class SurveyService {
         if (existing == null || existing.isDeleted() || !isInApp(appId, existing)) {
             throw new EntityNotFoundException(Survey.class);
         }
-        return surveyDao.versionSurvey(appId, keys);
+        Survey version = surveyDao.versionSurvey(appId, keys);
+        surveyCache.invalidate(appId, keys.getGuid());
+        return version;
     }
 
     /**
@@ -204,6 +230,8 @@ public class SurveyService {
         verifySharedModuleExistence(keys);
 
         surveyDao.deleteSurvey(existing);
+        surveyCache.invalidate(appId, keys.getGuid());
+        appConfigCache.invalidate(appId);
     }
 
     /**
@@ -227,6 +255,8 @@ public class SurveyService {
         }
         checkConstraintsBeforePhysicalDelete(appId, keys);
         surveyDao.deleteSurveyPermanently(appId, keys);
+        surveyCache.invalidate(appId, keys.getGuid());
+        appConfigCache.invalidate(appId);
     }
 
     // Helper method to verify if there is any shared module related to specified survey
@@ -294,7 +324,8 @@ public class SurveyService {
         checkNotNull(appId, Validate.CANNOT_BE_NULL, "appId");
         checkArgument(isNotBlank(guid), Validate.CANNOT_BE_BLANK, "survey guid");
 
-        Survey survey = surveyDao.getSurveyMostRecentlyPublishedVersion(appId, guid, includeElements);
+        Survey survey = surveyCache.getMostRecentlyPublishedSurvey(appId, guid, includeElements,
+                () -> surveyDao.getSurveyMostRecentlyPublishedVersion(appId, guid, includeElements));
         if (survey == null || !isInApp(appId, survey)) {
             throw new EntityNotFoundException(Survey.class);
         }
@@ -19,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.LocalUploadSchemaCache;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -41,6 +42,7 @@ import org.sagebionetworks.bridge.validators.Validate;
 public class UploadSchemaService {
     private SharedModuleMetadataService sharedModuleMetadataService;
     private UploadSchemaDao uploadSchemaDao;
+    private LocalUploadSchemaCache localUploadSchemaCache;
 
     /** DAO for upload schemas. This is configured by Spring. */
     @Autowired
@@ -53,6 +55,12 @@ public class UploadSchemaService {
         this.sharedModuleMetadataService = sharedModuleMetadataService;
     }
 
+    /** Cache of schema revisions, consulted by uploads and health data submissions before the DAO. */
+    @Autowired
+    final void setLocalUploadSchemaCache(LocalUploadSchemaCache localUploadSchemaCache) {
+        this.localUploadSchemaCache = localUploadSchemaCache;
+    }
+
     /**
      * Creates a schema revision using the new V4 semantics. The schema ID and revision will be taken from the
      * UploadSchema object. If the revision isn't specified, we'll get the latest schema rev for the schema ID and use
@@ -219,6 +227,7 @@ public class UploadSchemaService {
 
         List<UploadSchema> schemaList = getSchemaRevisionsForDelete(appId, schemaId);
         uploadSchemaDao.deleteUploadSchemas(schemaList);
+        localUploadSchemaCache.invalidate(appId, schemaId);
     }
 
     public void deleteUploadSchemaByIdPermanently(String appId, String schemaId) {
@@ -226,6 +235,7 @@ public class UploadSchemaService {
 
         List<UploadSchema> schemaList = getSchemaRevisionsForDelete(appId, schemaId);
         uploadSchemaDao.deleteUploadSchemasPermanently(schemaList);
+        localUploadSchemaCache.invalidate(appId, schemaId);
     }
 
     protected List<UploadSchema> getSchemaRevisionsForDelete(String appId, String schemaId) {
@@ -259,7 +269,8 @@ public class UploadSchemaService {
         if (schema == null || schema.isDeleted()) {
             throw new EntityNotFoundException(UploadSchema.class);
         }
-        uploadSchemaDao.deleteUploadSchemas(ImmutableList.of(schema));    
+        uploadSchemaDao.deleteUploadSchemas(ImmutableList.of(schema));
+        localUploadSchemaCache.invalidate(appId, schemaId);
     }
     
     public void deleteUploadSchemaByIdAndRevisionPermanently(String appId, String schemaId, int rev) {
@@ -269,7 +280,8 @@ public class UploadSchemaService {
         if (schema == null) {
             throw new EntityNotFoundException(UploadSchema.class);
         }
-        uploadSchemaDao.deleteUploadSchemasPermanently(ImmutableList.of(schema));    
+        uploadSchemaDao.deleteUploadSchemasPermanently(ImmutableList.of(schema));
+        localUploadSchemaCache.invalidate(appId, schemaId);
     }
 
     /** Returns all revisions of all schemas. */
@@ -377,7 +389,7 @@ public class UploadSchemaService {
 
     /**
      * Fetches the upload schema for the specified app, schema ID, and revision. If no schema is found, this API
-     * returns null.
+     * returns null. Schema revisions are cached, since every upload looks up its schema revision.
      */
     public UploadSchema getUploadSchemaByIdAndRevNoThrow(String appId, String schemaId,
             int revision) {
@@ -388,7 +400,8 @@ public class UploadSchemaService {
             throw new BadRequestException("Revision must be specified and positive");
         }
 
-        return uploadSchemaDao.getUploadSchemaByIdAndRevision(appId, schemaId, revision);
+        return localUploadSchemaCache.getUploadSchema(appId, schemaId, revision,
+                () -> uploadSchemaDao.getUploadSchemaByIdAndRevision(appId, schemaId, revision));
     }
 
     /**
@@ -512,7 +525,9 @@ public class UploadSchemaService {
         }
 
         // Call through to the DAO
-        return uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        UploadSchema updatedSchema = uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        localUploadSchemaCache.invalidate(appId, schemaId);
+        return updatedSchema;
     }
 
     // Helper method to get a map of fields by name for an Upload Schema. Returns a TreeMap so our error messaging has
@@ -434,29 +434,41 @@ public class UploadService {
             logger.error("Missing S3 server-side encryption (SSE) for presigned upload " + uploadId + ".");
         }
 
+        // Reserve a place in the upload validation queue before the upload is marked complete, so an upload is never
+        // marked complete without being validated. If too many uploads are waiting, this throws and the client can
+        // call uploadComplete again later.
+        uploadValidationService.reserve(appId);
+        boolean validationQueued = false;
         try {
-            uploadDao.uploadComplete(completedBy, upload);
-        } catch (ConcurrentModificationException ex) {
-            // The old workflow is the app calls uploadComplete. The new workflow has an S3 trigger to call
-            // uploadComplete. During the transition, it's very likely that this will be called twice, sometimes
-            // concurrently. As such, we should log and squelch the ConcurrentModificationException.
-            logger.info("Concurrent modification of upload " + uploadId + " while marking upload complete");
-
-            // Also short-circuit the call early, so we don't end up validating the upload twice, as this causes errors
-            // and duplicate records.
-            return;
-        }
+            try {
+                uploadDao.uploadComplete(completedBy, upload);
+            } catch (ConcurrentModificationException ex) {
+                // The old workflow is the app calls uploadComplete. The new workflow has an S3 trigger to call
+                // uploadComplete. During the transition, it's very likely that this will be called twice,
+                // sometimes concurrently. As such, we should log and squelch the ConcurrentModificationException.
+                logger.info("Concurrent modification of upload " + uploadId + " while marking upload complete");
+
+                // Also short-circuit the call early, so we don't end up validating the upload twice, as this causes
+                // errors and duplicate records.
+                return;
+            }
 
-        // kick off upload validation
-        App app = appService.getApp(appId);
-        Exporter3Configuration exporter3Config = app.getExporter3Configuration();
-        if (app.isExporter3Enabled() && exporter3Config != null && exporter3Config.isConfigured()) {
-            exporter3Service.completeUpload(app, upload);
-        }
+            // kick off upload validation
+            App app = appService.getApp(appId);
+            Exporter3Configuration exporter3Config = app.getExporter3Configuration();
+            if (app.isExporter3Enabled() && exporter3Config != null && exporter3Config.isConfigured()) {
+                exporter3Service.completeUpload(app, upload);
+            }
 
-        // For backwards compatibility, always call Legacy Exporter 2.0. In the future, we may introduce a setting to
-        // disable this for new apps.
-        uploadValidationService.validateUpload(appId, upload);
+            // For backwards compatibility, always call Legacy Exporter 2.0. In the future, we may introduce a
+            // setting to disable this for new apps.
+            uploadValidationService.validateUpload(appId, upload);
+            validationQueued = true;
+        } finally {
+            if (!validationQueued) {
+                uploadValidationService.cancelReservation(appId);
+            }
+        }
     }
     
     public void deleteUploadsForHealthCode(String healthCode) {
@@ -1,26 +1,28 @@
 package org.sagebionetworks.bridge.services;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Resource;
-
-import java.util.concurrent.ExecutorService;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutor;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutorStats;
+import org.sagebionetworks.bridge.upload.UploadValidationMetrics;
+import org.sagebionetworks.bridge.upload.UploadValidationMetricsStats;
 import org.sagebionetworks.bridge.upload.UploadValidationTask;
 import org.sagebionetworks.bridge.upload.UploadValidationTaskFactory;
 
 /** Service handler for upload validation. */
 @Component
 public class UploadValidationService {
-    private ExecutorService asyncExecutorService;
+    private UploadValidationExecutor uploadValidationExecutor;
     private UploadValidationTaskFactory taskFactory;
+    private UploadValidationMetrics uploadValidationMetrics;
 
-    /** Async thread pool. This is configured by Spring. */
-    @Resource(name = "asyncExecutorService")
-    public void setAsyncExecutorService(ExecutorService asyncExecutorService) {
-        this.asyncExecutorService = asyncExecutorService;
+    /** Upload validation thread pool and queue. This is configured by Spring. */
+    @Autowired
+    public void setUploadValidationExecutor(UploadValidationExecutor uploadValidationExecutor) {
+        this.uploadValidationExecutor = uploadValidationExecutor;
     }
 
     /** Task factory. This is configured by Spring. */
@@ -29,6 +31,29 @@ public class UploadValidationService {
         this.taskFactory = taskFactory;
     }
 
+    /** Upload validation timings. This is configured by Spring. */
+    @Autowired
+    public void setUploadValidationMetrics(UploadValidationMetrics uploadValidationMetrics) {
+        this.uploadValidationMetrics = uploadValidationMetrics;
+    }
+
+    /**
+     * Reserve a place in the upload validation queue for an upload of this app. This must be called before the
+     * upload is marked complete, and must be followed by either {@link #validateUpload} or
+     * {@link #cancelReservation}.
+     *
+     * @throws org.sagebionetworks.bridge.exceptions.ServiceUnavailableException
+     *         if too many uploads are waiting to be validated
+     */
+    public void reserve(@Nonnull String appId) {
+        uploadValidationExecutor.reserve(appId);
+    }
+
+    /** Release the place in the upload validation queue reserved for an upload that will not be validated. */
+    public void cancelReservation(@Nonnull String appId) {
+        uploadValidationExecutor.cancelReservation(appId);
+    }
+
     /**
      * <p>
      * Kick off upload validation. Since upload validation can take some time, we handle this asynchronously. This
@@ -38,6 +63,10 @@ public class UploadValidationService {
      * App and user comes from the controller and upload comes from UploadService.getUpload(), so none of the fields
      * are user input, so validation is not needed.
      * </p>
+     * <p>
+     * The upload takes the place in the queue reserved with {@link #reserve}. If the server shuts down before the
+     * upload is validated, the upload is marked as failed validation instead.
+     * </p>
      *
      * @param appId
      *         app this upload lives in
@@ -46,6 +75,16 @@ public class UploadValidationService {
      */
     public void validateUpload(@Nonnull String appId, @Nonnull Upload upload) {
         UploadValidationTask task = taskFactory.newTask(appId, upload);
-        asyncExecutorService.execute(task);
+        uploadValidationExecutor.execute(appId, upload.getContentLength(), task, task::markNotValidated);
+    }
+
+    /** Queue depth, wait times, and active threads of upload validation. */
+    public UploadValidationExecutorStats getExecutorStats() {
+        return uploadValidationExecutor.getStats();
+    }
+
+    /** Time spent validating uploads, by handler, app, and upload format, and from upload complete to validated. */
+    public UploadValidationMetricsStats getMetricsStats() {
+        return uploadValidationMetrics.getStats();
     }
 }
@@ -379,10 +379,13 @@ public abstract class BaseController {
         RequestContext reqContext = RequestContext.get();
         
         RequestInfo.Builder builder = new RequestInfo.Builder();
-        // If any timestamps exist, retrieve and preserve them in the returned requestInfo
-        RequestInfo requestInfo = requestInfoService.getRequestInfo(session.getId());
-        if (requestInfo != null) {
-            builder.copyOf(requestInfo);
+        // If any timestamps exist, retrieve and preserve them in the returned requestInfo. With write-behind,
+        // the update is merged with the existing request info when it is persisted, so it isn't read here.
+        if (!requestInfoService.isWriteBehindEnabled()) {
+            RequestInfo requestInfo = requestInfoService.getRequestInfo(session.getId());
+            if (requestInfo != null) {
+                builder.copyOf(requestInfo);
+            }
         }
         builder.withUserId(session.getId());
         builder.withClientInfo(reqContext.getCallerClientInfo());
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.spring.controllers;
 
 import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
 
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import org.sagebionetworks.bridge.cache.LocalCacheStats;
 import org.sagebionetworks.bridge.models.StatusMessage;
 import org.sagebionetworks.bridge.services.CacheAdminService;
 
@@ -34,6 +36,13 @@ public class CacheAdminController extends BaseController {
         return cacheAdminService.listItems();
     }
     
+    @GetMapping("/stats")
+    public Map<String, LocalCacheStats> getLocalCacheStats() {
+        getAuthenticatedSession(SUPERADMIN);
+        
+        return cacheAdminService.getLocalCacheStats();
+    }
+    
     @DeleteMapping("{cacheKey}")
     public StatusMessage removeItem(@PathVariable String cacheKey) {
         getAuthenticatedSession(SUPERADMIN);
@@ -18,10 +18,15 @@ import static org.sagebionetworks.bridge.models.ResourceList.START_DATE;
 import static org.sagebionetworks.bridge.models.ResourceList.START_TIME;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
 
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectWriter;
@@ -288,6 +293,15 @@ public class ParticipantController extends BaseController {
         return participantService.getPagedAccountSummaries(app, search);
     }
     
+    @PostMapping("/v3/participants/search/export")
+    public void exportAccountSummaries() throws IOException {
+        UserSession session = getAuthenticatedSession(RESEARCHER);
+        App app = appService.getApp(session.getAppId());
+        
+        AccountSummarySearch search = parseJson(AccountSummarySearch.class);
+        writeAccountSummaries(participantService.getAccountSummaryIterator(app, search));
+    }
+    
     @Deprecated
     @GetMapping(path = {"/v1/apps/{appId}/participants", "/v3/studies/{appId}/participants"})
     public JsonNode getParticipantsForWorker(@PathVariable String appId,
@@ -311,6 +325,16 @@ public class ParticipantController extends BaseController {
         return participantService.getPagedAccountSummaries(app, search);
     }
 
+    @PostMapping(path = {"/v1/apps/{appId}/participants/search/export",
+            "/v3/studies/{appId}/participants/search/export"})
+    public void exportAccountSummariesForWorker(@PathVariable String appId) throws IOException {
+        getAuthenticatedSession(WORKER);
+        App app = appService.getApp(appId);
+        
+        AccountSummarySearch search = parseJson(AccountSummarySearch.class);
+        writeAccountSummaries(participantService.getAccountSummaryIterator(app, search));
+    }
+
     @PostMapping("/v3/participants")
     @ResponseStatus(HttpStatus.CREATED)
     public IdentifierHolder createParticipant() {
@@ -640,6 +664,20 @@ public class ParticipantController extends BaseController {
         return new StatusMessage("Download initiated.");
     }
     
+    // All the accounts of a search are written as one JSON array, as each page of accounts is retrieved, so the 
+    // accounts are never all in memory.
+    private void writeAccountSummaries(Iterator<AccountSummary> iterator) throws IOException {
+        HttpServletResponse response = response();
+        response.setContentType(APPLICATION_JSON_UTF8_VALUE);
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+            }
+            generator.writeEndArray();
+        }
+    }
+    
     private JsonNode getParticipantsInternal(App app, String offsetByString, String pageSizeString,
             String emailFilter, String phoneFilter, String startDateString, String endDateString,
             String startTimeString, String endTimeString) {
@@ -10,6 +10,8 @@ import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.WORKER;
 
+import java.util.List;
+
 import com.fasterxml.jackson.databind.JsonNode;
 
 import org.joda.time.DateTime;
@@ -36,6 +38,7 @@ import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.reports.ReportData;
+import org.sagebionetworks.bridge.models.reports.ReportDataBatchResult;
 import org.sagebionetworks.bridge.models.reports.ReportDataKey;
 import org.sagebionetworks.bridge.models.reports.ReportIndex;
 import org.sagebionetworks.bridge.models.reports.ReportType;
@@ -102,6 +105,25 @@ public class ParticipantReportController extends BaseController {
         return new StatusMessage("Report data saved.");
     }
     
+    /**
+     * Save many records of a participant's own report in one call, such as when an app syncs reports for many 
+     * dates at once. The result lists which records were saved and which could not be saved.
+     */
+    @PostMapping("/v4/users/self/reports/{identifier}/batch")
+    public ReportDataBatchResult saveParticipantReportBatchForSelf(@PathVariable String identifier) {
+        UserSession session = getAuthenticatedSession();
+        
+        List<ReportData> reportDataList = parseJson(ReportData.REPORT_DATA_LIST);
+        for (ReportData reportData : reportDataList) {
+            if (reportData == null) {
+                throw new BadRequestException("Report data records cannot be null.");
+            }
+            reportData.setKey(null); // set in service, but just so no future use depends on it
+        }
+        return reportService.saveParticipantReportBatch(session.getAppId(), identifier, session.getHealthCode(),
+                reportDataList);
+    }
+    
     /**
      * Get a list of the identifiers used for participant reports in this app.
      */
@@ -11,7 +11,6 @@ import static org.sagebionetworks.bridge.cache.CacheKey.scheduleModificationTime
 import static org.sagebionetworks.bridge.models.RequestInfo.REQUEST_INFO_WRITER;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.CUSTOM;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.TIMELINE_RETRIEVED;
-import static org.sagebionetworks.bridge.models.schedules2.timelines.Scheduler.INSTANCE;
 import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
@@ -159,7 +158,7 @@ public class StudyParticipantController extends BaseController {
                 .objectType(TIMELINE_RETRIEVED)
                 .timestamp(getDateTime()));
         
-        return new ResponseEntity<>(INSTANCE.calculateTimeline(schedule), OK);
+        return new ResponseEntity<>(scheduleService.getTimelineForSchedule(schedule), OK);
     }
     
     private DateTime modifiedSinceHeader() {
@@ -0,0 +1,40 @@
+package org.sagebionetworks.bridge.spring.controllers;
+
+import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import org.sagebionetworks.bridge.services.UploadValidationService;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutorStats;
+import org.sagebionetworks.bridge.upload.UploadValidationMetricsStats;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/v3/uploadvalidation")
+public class UploadValidationAdminController extends BaseController {
+
+    private UploadValidationService uploadValidationService;
+
+    @Autowired
+    final void setUploadValidationService(UploadValidationService uploadValidationService) {
+        this.uploadValidationService = uploadValidationService;
+    }
+
+    @GetMapping("/executor")
+    public UploadValidationExecutorStats getExecutorStats() {
+        getAuthenticatedSession(SUPERADMIN);
+
+        return uploadValidationService.getExecutorStats();
+    }
+
+    @GetMapping("/metrics")
+    public UploadValidationMetricsStats getMetricsStats() {
+        getAuthenticatedSession(SUPERADMIN);
+
+        return uploadValidationService.getMetricsStats();
+    }
+}
@@ -6,14 +6,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Set;
 import javax.annotation.Nonnull;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.ByteStreams;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.file.FileHelper;
 import org.sagebionetworks.bridge.services.UploadArchiveService;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 /**
  * Validation handler for decrypting the upload. This handler reads from
@@ -21,7 +24,10 @@ import org.sagebionetworks.bridge.services.UploadArchiveService;
  * data to {@link org.sagebionetworks.bridge.upload.UploadValidationContext#setDecryptedDataFile }.
  */
 @Component
-public class DecryptHandler implements UploadValidationHandler {
+public class DecryptHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of(Field.DATA_FILE, Field.DECRYPTED_DATA);
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.DECRYPTED_DATA);
+
     private FileHelper fileHelper;
     private UploadArchiveService uploadArchiveService;
 
@@ -37,9 +43,26 @@ public class DecryptHandler implements UploadValidationHandler {
         this.uploadArchiveService = uploadArchiveService;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
+        if (context.getDecryptedData() != null || context.getDecryptedDataFile() != null) {
+            // Shortcut: The upload was decrypted as it was streamed from S3.
+            return;
+        }
+
         if (!context.getUpload().isEncrypted()) {
             // Shortcut: Input file is output file.
             context.setDecryptedDataFile(context.getDataFile());
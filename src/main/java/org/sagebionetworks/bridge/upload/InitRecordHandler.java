@@ -4,10 +4,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
 import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -19,6 +21,7 @@ import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.json.JsonUtils;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 /**
  * This handler initializes the Health Data Record and fills it in with various attributes, including userMetadata
@@ -26,7 +29,10 @@ import org.sagebionetworks.bridge.models.upload.Upload;
  * sets this record to {@link org.sagebionetworks.bridge.upload.UploadValidationContext#setHealthDataRecord}.
  */
 @Component
-public class InitRecordHandler implements UploadValidationHandler {
+public class InitRecordHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of(Field.UNZIPPED_DATA);
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.INFO_JSON, Field.RECORD, Field.RECORD_DATA);
+
     private FileHelper fileHelper;
 
     /** File helper, used to check the existence of info,json. */
@@ -35,6 +41,18 @@ public class InitRecordHandler implements UploadValidationHandler {
         this.fileHelper = fileHelper;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
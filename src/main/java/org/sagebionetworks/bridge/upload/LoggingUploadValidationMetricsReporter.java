@@ -0,0 +1,40 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.util.TimingStats;
+
+/** Writes upload validation timings to the logs, one line per handler, app, and format. */
+@Component
+public class LoggingUploadValidationMetricsReporter implements UploadValidationMetricsReporter {
+    private static final Logger LOG = LoggerFactory.getLogger(LoggingUploadValidationMetricsReporter.class);
+
+    /** {@inheritDoc} */
+    @Override
+    public void report(UploadValidationMetricsStats stats) {
+        logAll("handler", stats.getHandlers());
+        logAll("app", stats.getApps());
+        logAll("format", stats.getFormats());
+        log("endToEnd", "all", stats.getEndToEnd());
+    }
+
+    private static void logAll(String dimension, Map<String, TimingStats> statsByKey) {
+        for (Map.Entry<String, TimingStats> entry : statsByKey.entrySet()) {
+            log(dimension, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static void log(String dimension, String key, TimingStats stats) {
+        if (stats.getCount() == 0) {
+            return;
+        }
+        LOG.info(String.format("Upload validation timing %s=%s count=%d meanMs=%d minMs=%d maxMs=%d p50Ms=%d " +
+                "p95Ms=%d p99Ms=%d bytes=%d", dimension, key, stats.getCount(), stats.getMeanMillis(),
+                stats.getMinMillis(), stats.getMaxMillis(), stats.getP50Millis(), stats.getP95Millis(),
+                stats.getP99Millis(), stats.getTotalBytes()));
+    }
+}
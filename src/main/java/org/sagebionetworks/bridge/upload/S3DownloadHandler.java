@@ -2,26 +2,62 @@ package org.sagebionetworks.bridge.upload;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
 import org.sagebionetworks.bridge.file.FileHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.models.upload.Upload;
 import org.sagebionetworks.bridge.s3.S3Helper;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 /**
  * Validation handler for downloading the upload from S3. This handler reads
  * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getUpload} and writes the downloaded data (as a
  * byte array) to {@link org.sagebionetworks.bridge.upload.UploadValidationContext#setDataFile}.
+ *
+ * In streaming mode, the upload is decrypted as it is read from S3, and the encrypted data is never written to disk.
+ * The decrypted data is written to
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#setDecryptedData} if it fits in the memory buffer,
+ * or to {@link org.sagebionetworks.bridge.upload.UploadValidationContext#setDecryptedDataFile} if it does not, so the
+ * DecryptHandler has nothing left to do.
  */
 @Component
-public class S3DownloadHandler implements UploadValidationHandler {
+public class S3DownloadHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of();
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.DATA_FILE, Field.DECRYPTED_DATA);
+
+    private static final Logger LOG = LoggerFactory.getLogger(S3DownloadHandler.class);
+
     private static final String UPLOAD_BUCKET = BridgeConfigFactory.getConfig().getProperty("upload.bucket");
 
+    // Package-scoped for unit tests.
+    static final String STREAMING_ENABLED_PROPERTY = "upload.validation.streaming.enabled";
+    static final String MEMORY_BUFFER_PROPERTY = "upload.validation.memory.buffer.bytes";
+
     private FileHelper fileHelper;
     private S3Helper s3Helper;
+    private AmazonS3 s3Client;
+    private UploadArchiveService uploadArchiveService;
+    private boolean streamingEnabled;
+    private int memoryBufferBytes;
 
     /** File helper, used to manage the temp file that we download the S3 file into. */
     @Autowired
@@ -35,13 +71,88 @@ public class S3DownloadHandler implements UploadValidationHandler {
         this.s3Helper = s3Helper;
     }
 
+    /** S3 client, for streaming the upload from S3. This is configured by Spring. */
+    @Resource(name = "s3Client")
+    public final void setS3Client(AmazonS3 s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    /** Upload archive service, which decrypts the upload in streaming mode. This is configured by Spring. */
+    @Autowired
+    public final void setUploadArchiveService(UploadArchiveService uploadArchiveService) {
+        this.uploadArchiveService = uploadArchiveService;
+    }
+
+    /**
+     * Bridge config, which turns on streaming mode and sets the size of the decrypted upload that is held in memory
+     * before it is spilled to disk.
+     */
+    @Autowired
+    public final void setBridgeConfig(BridgeConfig config) {
+        this.streamingEnabled = Boolean.parseBoolean(config.get(STREAMING_ENABLED_PROPERTY));
+        this.memoryBufferBytes = config.getInt(MEMORY_BUFFER_PROPERTY);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
     /** {@inheritDoc} */
     @Override
-    public void handle(@Nonnull UploadValidationContext context) {
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
+        if (streamingEnabled) {
+            stream(context);
+            return;
+        }
+
         // Temp file name in the form "[uploadId]-encrypted"
         String destFilename = context.getUploadId() + "-encrypted";
         File destFile = fileHelper.newFile(context.getTempDir(), destFilename);
         s3Helper.downloadS3File(UPLOAD_BUCKET, context.getUpload().getObjectId(), destFile);
         context.setDataFile(destFile);
     }
+
+    private void stream(UploadValidationContext context) throws UploadValidationException {
+        Upload upload = context.getUpload();
+
+        // If the upload is spilled to disk, the temp file name is "[uploadId].zip", same as DecryptHandler.
+        File spillFile = fileHelper.newFile(context.getTempDir(), context.getUploadId() + ".zip");
+        SpillingOutputStream decryptedOutputStream = new SpillingOutputStream(fileHelper, spillFile,
+                memoryBufferBytes);
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        long downloadedBytes;
+        try (S3Object s3Object = s3Client.getObject(UPLOAD_BUCKET, upload.getObjectId())) {
+            CountingInputStream downloadInputStream = new CountingInputStream(new BufferedInputStream(
+                    s3Object.getObjectContent()));
+            try (InputStream decryptedInputStream = upload.isEncrypted() ?
+                    uploadArchiveService.decrypt(context.getAppId(), downloadInputStream) : downloadInputStream;
+                 SpillingOutputStream outputStream = decryptedOutputStream) {
+                ByteStreams.copy(decryptedInputStream, outputStream);
+            }
+            downloadedBytes = downloadInputStream.getCount();
+        } catch (IOException ex) {
+            throw new UploadValidationException("Error streaming file from S3: " + ex.getMessage(), ex);
+        }
+        long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+
+        if (decryptedOutputStream.isInMemory()) {
+            context.setDecryptedData(decryptedOutputStream.getBytes());
+        } else {
+            context.setDecryptedDataFile(decryptedOutputStream.getFile());
+        }
+
+        LOG.info(String.format("Upload %s downloaded and decrypted %d bytes to %d bytes in %d ms (%.2f MB/s), " +
+                "spilled %d bytes to disk", context.getUploadId(), downloadedBytes, decryptedOutputStream.getSize(),
+                elapsedMillis, UploadUtil.getThroughputMegabytesPerSecond(downloadedBytes, elapsedMillis),
+                decryptedOutputStream.getSpilledBytes()));
+    }
 }
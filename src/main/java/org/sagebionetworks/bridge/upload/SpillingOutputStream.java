@@ -0,0 +1,115 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.sagebionetworks.bridge.file.FileHelper;
+
+/**
+ * Output stream that holds the data written to it in memory, until the data exceeds the memory threshold. At that
+ * point, the data is moved to the spill file, and the rest of the data is written to that file. This lets upload
+ * validation keep small uploads off the local disk, while bounding the memory used by large uploads.
+ */
+public class SpillingOutputStream extends OutputStream {
+    private final FileHelper fileHelper;
+    private final File spillFile;
+    private final int memoryThreshold;
+
+    private ByteArrayOutputStream memoryStream = new ByteArrayOutputStream();
+    private OutputStream fileStream;
+    private long size;
+
+    /**
+     * @param fileHelper
+     *         file helper, used to write the spill file
+     * @param spillFile
+     *         file the data is moved to if it exceeds the memory threshold
+     * @param memoryThreshold
+     *         maximum number of bytes held in memory
+     */
+    public SpillingOutputStream(FileHelper fileHelper, File spillFile, int memoryThreshold) {
+        checkNotNull(fileHelper);
+        checkNotNull(spillFile);
+        checkArgument(memoryThreshold >= 0);
+        this.fileHelper = fileHelper;
+        this.spillFile = spillFile;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (fileStream == null && size + len > memoryThreshold) {
+            spill();
+        }
+        if (fileStream != null) {
+            fileStream.write(b, off, len);
+        } else {
+            memoryStream.write(b, off, len);
+        }
+        size += len;
+    }
+
+    private void spill() throws IOException {
+        // Neither FileHelper nor the file stream introduce any buffering.
+        fileStream = new BufferedOutputStream(fileHelper.getOutputStream(spillFile));
+        memoryStream.writeTo(fileStream);
+        memoryStream = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void flush() throws IOException {
+        if (fileStream != null) {
+            fileStream.flush();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        if (fileStream != null) {
+            fileStream.close();
+        }
+    }
+
+    /** True if the data is held in memory, false if it was spilled to the spill file. */
+    public boolean isInMemory() {
+        return fileStream == null;
+    }
+
+    /** The data written to this stream. Only available if the data is held in memory. */
+    public byte[] getBytes() {
+        checkState(isInMemory(), "Data was spilled to " + spillFile.getName());
+        return memoryStream.toByteArray();
+    }
+
+    /** The spill file. Only available if the data was spilled, and once this stream has been closed. */
+    public File getFile() {
+        checkState(!isInMemory(), "Data is held in memory");
+        return spillFile;
+    }
+
+    /** Number of bytes written to this stream. */
+    public long getSize() {
+        return size;
+    }
+
+    /** Number of bytes written to the spill file, or zero if the data is held in memory. */
+    public long getSpilledBytes() {
+        return isInMemory() ? 0L : size;
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Set;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,7 @@ import org.sagebionetworks.bridge.models.upload.UploadSchema;
 import org.sagebionetworks.bridge.models.upload.UploadValidationStrictness;
 import org.sagebionetworks.bridge.services.AppService;
 import org.sagebionetworks.bridge.services.UploadSchemaService;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 /**
  * <p>
@@ -48,7 +50,10 @@ import org.sagebionetworks.bridge.services.UploadSchemaService;
  * </p>
  */
 @Component
-public class StrictValidationHandler implements UploadValidationHandler {
+public class StrictValidationHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of(Field.RECORD, Field.RECORD_DATA);
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.RECORD_DATA, Field.RECORD_VALIDATION_ERRORS);
+
     private static final Logger logger = LoggerFactory.getLogger(StrictValidationHandler.class);
 
     private static final Joiner ERROR_MESSAGE_JOINER = Joiner.on("; ");
@@ -68,6 +73,18 @@ public class StrictValidationHandler implements UploadValidationHandler {
         this.uploadSchemaService = uploadSchemaService;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
@@ -7,6 +7,7 @@ import java.util.Set;
 
 import javax.annotation.Nonnull;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
 import org.joda.time.DateTime;
@@ -24,9 +25,13 @@ import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.services.AccountService;
 import org.sagebionetworks.bridge.services.ParticipantService;
 import org.sagebionetworks.bridge.time.DateUtils;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 @Component
-public class TranscribeConsentHandler implements UploadValidationHandler {
+public class TranscribeConsentHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of(Field.RECORD);
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.RECORD_PARTICIPANT);
+
     private AccountService accountService;
     private ParticipantService participantService;
 
@@ -40,6 +45,18 @@ public class TranscribeConsentHandler implements UploadValidationHandler {
         this.participantService = participantService;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
     @Override
     public void handle(@Nonnull UploadValidationContext context) {
         HealthDataRecord record = context.getHealthDataRecord();
@@ -1,27 +1,45 @@
 package org.sagebionetworks.bridge.upload;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.file.FileHelper;
 import org.sagebionetworks.bridge.models.upload.Upload;
 import org.sagebionetworks.bridge.services.UploadArchiveService;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 /**
  * Validation handler for unzipping the upload. This handler reads decrypted from
- * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getDecryptedDataFile}, unzips it, and writes the
- * unzipped data to {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getUnzippedDataFileMap}.
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getDecryptedDataFile} (or from
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getDecryptedData}, if the decrypted data is held
+ * in memory), unzips it, and writes the unzipped data to
+ * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getUnzippedDataFileMap}.
  */
 @Component
-public class UnzipHandler implements UploadValidationHandler {
+public class UnzipHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of(Field.DECRYPTED_DATA);
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.UNZIPPED_DATA);
+
+    private static final Logger LOG = LoggerFactory.getLogger(UnzipHandler.class);
+
     private FileHelper fileHelper;
     private UploadArchiveService uploadArchiveService;
 
@@ -37,6 +55,18 @@ public class UnzipHandler implements UploadValidationHandler {
         this.uploadArchiveService = uploadArchiveService;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
@@ -44,19 +74,37 @@ public class UnzipHandler implements UploadValidationHandler {
         context.setUnzippedDataFileMap(unzippedDataFileMap);
 
         Upload upload = context.getUpload();
+        byte[] decryptedData = context.getDecryptedData();
         if (!upload.isZipped()) {
             // Shortcut: If this isn't a zip file, then the decrypted data file is the only entry in our map.
-            unzippedDataFileMap.put(upload.getFilename(), context.getDecryptedDataFile());
+            File decryptedDataFile = context.getDecryptedDataFile();
+            if (decryptedData != null) {
+                // The downstream handlers read the unzipped data from files, so write the data to a file with the
+                // same name that DecryptHandler uses.
+                decryptedDataFile = fileHelper.newFile(context.getTempDir(), context.getUploadId() + ".zip");
+                try (OutputStream outputStream = fileHelper.getOutputStream(decryptedDataFile)) {
+                    outputStream.write(decryptedData);
+                } catch (IOException ex) {
+                    throw new UploadValidationException("Error writing file: " + ex.getMessage(), ex);
+                }
+            }
+            unzippedDataFileMap.put(upload.getFilename(), decryptedDataFile);
             return;
         }
 
-        try (InputStream zippedFileInputStream = fileHelper.getInputStream(context.getDecryptedDataFile())) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        AtomicLong unzippedBytes = new AtomicLong();
+        long zippedBytes;
+        try (InputStream zippedFileInputStream = decryptedData != null ? new ByteArrayInputStream(decryptedData) :
+                fileHelper.getInputStream(context.getDecryptedDataFile())) {
+            zippedBytes = decryptedData != null ? decryptedData.length :
+                    fileHelper.fileSize(context.getDecryptedDataFile());
             uploadArchiveService.unzip(zippedFileInputStream,
                     entryName -> {
                         File unzippedFile = fileHelper.newFile(context.getTempDir(), entryName);
                         unzippedDataFileMap.put(entryName, unzippedFile);
                         try {
-                            return fileHelper.getOutputStream(unzippedFile);
+                            return new CountingOutputStream(fileHelper.getOutputStream(unzippedFile));
                         } catch (FileNotFoundException ex) {
                             // BiConsumer doesn't throw, so wrap this in a RuntimeException.
                             throw new RuntimeException(ex);
@@ -69,9 +117,15 @@ public class UnzipHandler implements UploadValidationHandler {
                             // BiConsumer doesn't throw, so wrap this in a RuntimeException.
                             throw new RuntimeException(ex);
                         }
+                        unzippedBytes.addAndGet(((CountingOutputStream) outputStream).getCount());
                     });
         } catch (IOException ex) {
             throw new UploadValidationException("Error unzipping file: " + ex.getMessage(), ex);
         }
+        long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+
+        LOG.info(String.format("Upload %s unzipped %d bytes to %d bytes in %d entries in %d ms (%.2f MB/s)",
+                context.getUploadId(), zippedBytes, unzippedBytes.get(), unzippedDataFileMap.size(), elapsedMillis,
+                UploadUtil.getThroughputMegabytesPerSecond(zippedBytes, elapsedMillis)));
     }
 }
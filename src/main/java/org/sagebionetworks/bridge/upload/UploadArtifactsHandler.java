@@ -1,17 +1,25 @@
 package org.sagebionetworks.bridge.upload;
 
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.services.HealthDataService;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 /**
  * This handler submits the completed Health Data Record to the Health Data Service. This used to do more, but the
  * extra bookkeeping on attachments was deemed unnecessary.
  */
 @Component
-public class UploadArtifactsHandler implements UploadValidationHandler {
+public class UploadArtifactsHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of(Field.RECORD, Field.RECORD_DATA, Field.RECORD_PARTICIPANT,
+            Field.RECORD_RAW_DATA, Field.RECORD_VALIDATION_ERRORS);
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.RECORD_ID);
+
     private HealthDataService healthDataService;
 
     /** Health Data Service, used to submit health data records. */
@@ -20,6 +28,24 @@ public class UploadArtifactsHandler implements UploadValidationHandler {
         this.healthDataService = healthDataService;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
+    /** The record is written to DynamoDB, so it must not happen unless validation has succeeded. */
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handle(UploadValidationContext context) {
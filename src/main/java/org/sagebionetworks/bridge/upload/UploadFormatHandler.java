@@ -1,8 +1,11 @@
 package org.sagebionetworks.bridge.upload;
 
+import java.util.Set;
+
 import javax.annotation.Nonnull;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -10,6 +13,7 @@ import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.json.JsonUtils;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.time.DateUtils;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 /**
  * This handler reads the "format" field form info.json, and then determines whether to call IosSchemaValidationHandler
@@ -18,7 +22,10 @@ import org.sagebionetworks.bridge.time.DateUtils;
  * {@link org.sagebionetworks.bridge.upload.UploadValidationContext#getHealthDataRecord}.
  */
 @Component
-public class UploadFormatHandler implements UploadValidationHandler {
+public class UploadFormatHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of(Field.INFO_JSON, Field.UNZIPPED_DATA, Field.RECORD);
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.UPLOAD_FORMAT, Field.RECORD_DATA);
+
     private IosSchemaValidationHandler2 v1LegacyHandler;
     private GenericUploadFormatHandler v2GenericHandler;
 
@@ -34,6 +41,18 @@ public class UploadFormatHandler implements UploadValidationHandler {
         this.v2GenericHandler = v2GenericHandler;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
@@ -56,6 +75,7 @@ public class UploadFormatHandler implements UploadValidationHandler {
             // uppercase.
             format = UploadFormat.valueOf(formatString.toUpperCase());
         }
+        context.setUploadFormat(format);
 
         // Choose handler based on format.
         switch (format) {
@@ -1,16 +1,22 @@
 package org.sagebionetworks.bridge.upload;
 
 import java.io.IOException;
+import java.util.Set;
 
+import com.google.common.collect.ImmutableSet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 /** Uploads decrypted zip file to attachments and sets the record's raw data attachment ID appropriately. */
 @Component
-public class UploadRawZipHandler implements UploadValidationHandler {
+public class UploadRawZipHandler implements UploadValidationStage {
+    private static final Set<Field> INPUTS = ImmutableSet.of(Field.DECRYPTED_DATA, Field.RECORD);
+    private static final Set<Field> OUTPUTS = ImmutableSet.of(Field.RECORD_RAW_DATA);
+
     // Package-scoped for unit tests.
     static final String RAW_ATTACHMENT_SUFFIX = "-raw.zip";
 
@@ -22,6 +28,24 @@ public class UploadRawZipHandler implements UploadValidationHandler {
         this.uploadFileHelper = uploadFileHelper;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getInputs() {
+        return INPUTS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Field> getOutputs() {
+        return OUTPUTS;
+    }
+
+    /** The raw zip is written to S3, so it must not happen unless validation has succeeded. */
+    @Override
+    public boolean hasSideEffects() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handle(UploadValidationContext context) throws UploadValidationException {
@@ -38,7 +62,11 @@ public class UploadRawZipHandler implements UploadValidationHandler {
 
         // Upload raw data as an attachment.
         try {
-            uploadFileHelper.uploadFileAsAttachment(rawDataAttachmentId, context.getDecryptedDataFile());
+            if (context.getDecryptedData() != null) {
+                uploadFileHelper.uploadBytesAsAttachment(rawDataAttachmentId, context.getDecryptedData());
+            } else {
+                uploadFileHelper.uploadFileAsAttachment(rawDataAttachmentId, context.getDecryptedDataFile());
+            }
         } catch (IOException ex) {
             throw new UploadValidationException("Error upload raw data zip for upload " + context.getUploadId());
         }
@@ -756,4 +756,15 @@ public class UploadUtil {
         }
         return sanitizedFieldMap;
     }
+
+    /**
+     * Throughput of an upload validation stage, in megabytes (of 1024 * 1024 bytes) per second. Returns zero if the
+     * stage took no measurable time.
+     */
+    public static double getThroughputMegabytesPerSecond(long bytes, long elapsedMillis) {
+        if (elapsedMillis <= 0) {
+            return 0.0;
+        }
+        return bytes / (1024.0 * 1024.0) / (elapsedMillis / 1000.0);
+    }
 }
@@ -13,6 +13,37 @@ import com.google.common.collect.ImmutableList;
 
 /** This class encapsulates data read and generated during the process of upload validation. */
 public class UploadValidationContext {
+    /**
+     * Data in the context that upload validation handlers read and write. Handlers that implement
+     * {@link UploadValidationStage} declare which of these they use, so that handlers that don't depend on each other
+     * can run at the same time. Fields of the health data record are listed separately, since several handlers each
+     * fill in different parts of the record.
+     */
+    public enum Field {
+        /** The raw upload, downloaded from S3. See {@link #getDataFile}. */
+        DATA_FILE,
+        /** The decrypted upload. See {@link #getDecryptedDataFile} and {@link #getDecryptedData}. */
+        DECRYPTED_DATA,
+        /** See {@link #getUnzippedDataFileMap}. */
+        UNZIPPED_DATA,
+        /** See {@link #getInfoJsonNode}. */
+        INFO_JSON,
+        /** See {@link #getUploadFormat}. */
+        UPLOAD_FORMAT,
+        /** The health data record itself, and the upload and app info written when it is created. */
+        RECORD,
+        /** The record's data, schema, and createdOn. */
+        RECORD_DATA,
+        /** The record's participant info, such as sharing scope, external ID, and data groups. */
+        RECORD_PARTICIPANT,
+        /** The record's raw data attachment. */
+        RECORD_RAW_DATA,
+        /** The record's validation errors. */
+        RECORD_VALIDATION_ERRORS,
+        /** See {@link #getRecordId}. */
+        RECORD_ID,
+    }
+
     private String healthCode;
     private String appId;
     private Upload upload;
@@ -21,8 +52,10 @@ public class UploadValidationContext {
     private File tempDir;
     private File dataFile;
     private File decryptedDataFile;
+    private byte[] decryptedData;
     private Map<String, File> unzippedDataFileMap;
     private JsonNode infoJsonNode;
+    private UploadFormat uploadFormat;
     private HealthDataRecord healthDataRecord;
     private String recordId;
 
@@ -91,12 +124,17 @@ public class UploadValidationContext {
      * but validation handlers can add messages for other reasons.
      */
     public List<String> getMessageList() {
-        return ImmutableList.copyOf(messageList);
+        synchronized (messageList) {
+            return ImmutableList.copyOf(messageList);
+        }
     }
 
     /** @see #getMessageList */
     public void addMessage(String msg) {
-        messageList.add(msg);
+        // Handlers that don't depend on each other may run at the same time.
+        synchronized (messageList) {
+            messageList.add(msg);
+        }
     }
 
     /** Temporary directory in which we process the upload. */
@@ -129,6 +167,19 @@ public class UploadValidationContext {
         this.decryptedDataFile = decryptedDataFile;
     }
 
+    /**
+     * Decrypted upload data, held in memory. This is created by S3DownloadHandler when it streams a small upload, in
+     * place of the decrypted data file, and is read by UnzipHandler and UploadRawZipHandler.
+     */
+    public byte[] getDecryptedData() {
+        return decryptedData;
+    }
+
+    /** @see #getDecryptedData */
+    public void setDecryptedData(byte[] decryptedData) {
+        this.decryptedData = decryptedData;
+    }
+
     /**
      * Unzipped data files, keyed by filename. This is created by the UnzipHandler and read by InitRecordHandler, as
      * well as UploadFormatHandler, and its inner handlers.
@@ -155,6 +206,19 @@ public class UploadValidationContext {
         this.infoJsonNode = infoJsonNode;
     }
 
+    /**
+     * Upload format, as read from info.json by UploadFormatHandler. This is null if the upload has no info.json, or
+     * if UploadFormatHandler hasn't run yet.
+     */
+    public UploadFormat getUploadFormat() {
+        return uploadFormat;
+    }
+
+    /** @see #getUploadFormat */
+    public void setUploadFormat(UploadFormat uploadFormat) {
+        this.uploadFormat = uploadFormat;
+    }
+
     /**
      * Health Data Record, created from the uploaded data. This is initially created by InitRecordHandler, is further
      * updated by UploadFormatHandler and its inner handlers and by TranscribeConsentHandler, and is finalized and
@@ -204,13 +268,17 @@ public class UploadValidationContext {
         copy.tempDir = this.tempDir;
         copy.dataFile = this.dataFile;
         copy.decryptedDataFile = this.decryptedDataFile;
+        copy.decryptedData = this.decryptedData;
         copy.unzippedDataFileMap = this.unzippedDataFileMap;
         copy.infoJsonNode = this.infoJsonNode;
+        copy.uploadFormat = this.uploadFormat;
         copy.healthDataRecord = this.healthDataRecord;
         copy.recordId = this.recordId;
 
         // messageList is the only field that gets deep copied
-        copy.messageList = new ArrayList<>(this.messageList);
+        synchronized (messageList) {
+            copy.messageList = new ArrayList<>(this.messageList);
+        }
 
         return copy;
     }
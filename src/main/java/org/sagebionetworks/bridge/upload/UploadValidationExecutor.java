@@ -0,0 +1,360 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.joda.time.DateTimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs upload validation tasks on a dedicated pool of threads, so that a burst of uploads cannot delay the other
+ * asynchronous work on the server, and cannot queue up in memory without bound.
+ *
+ * Queued uploads wait in one of two lanes. Uploads no larger than the small upload size are dispatched ahead of
+ * larger uploads, except that every few dispatches go to a large upload (if one is waiting), so large uploads are
+ * not starved. Within each lane, apps take turns, so an app that completes a large batch of uploads does not hold up
+ * the uploads of other apps.
+ *
+ * Callers reserve a place in the queue before they accept an upload for validation. When the queue, or the app's
+ * share of the queue, is full, the reservation is refused with a ServiceUnavailableException, so the client can try
+ * again later.
+ *
+ * Uploads that are still queued when the server shuts down, or that are queued after it has started to shut down,
+ * are not validated. Their shutdown callback is called instead, so that they are not left in progress.
+ */
+@Component
+public class UploadValidationExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(UploadValidationExecutor.class);
+
+    static final String THREAD_COUNT_PROPERTY = "upload.validation.thread.count";
+    static final String MAX_QUEUED_PROPERTY = "upload.validation.max.queued";
+    static final String MAX_QUEUED_PER_APP_PROPERTY = "upload.validation.max.queued.per.app";
+    static final String SMALL_UPLOAD_PROPERTY = "upload.validation.small.upload.bytes";
+
+    // Every fourth dispatch goes to a large upload, if one is waiting.
+    static final int LARGE_UPLOAD_TURN = 4;
+
+    private final Object lock = new Object();
+    private final Lane smallUploads = new Lane();
+    private final Lane largeUploads = new Lane();
+    // Places in the queue per app, both reserved and queued
+    private final Multiset<String> held = HashMultiset.create();
+    // Places in the queue per app that have been reserved, and are not yet queued
+    private final Multiset<String> reservations = HashMultiset.create();
+    private final List<Thread> workers = new ArrayList<>();
+    private int threadCount;
+    private int maxQueued;
+    private int maxQueuedPerApp;
+    private long smallUploadBytes;
+    private boolean running;
+    private int activeThreads;
+    private long dispatchCount;
+    private long submittedCount;
+    private long rejectedCount;
+    private long completedCount;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.threadCount = config.getInt(THREAD_COUNT_PROPERTY);
+        this.maxQueued = config.getInt(MAX_QUEUED_PROPERTY);
+        this.maxQueuedPerApp = config.getInt(MAX_QUEUED_PER_APP_PROPERTY);
+        this.smallUploadBytes = config.getInt(SMALL_UPLOAD_PROPERTY);
+    }
+
+    @PostConstruct
+    public void start() {
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("upload-validation-%d")
+                .setDaemon(true).build();
+        synchronized (lock) {
+            running = true;
+            for (int i = 0; i < threadCount; i++) {
+                Thread worker = threadFactory.newThread(this::work);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        List<QueuedTask> dropped = new ArrayList<>();
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+            for (Lane lane : new Lane[] { smallUploads, largeUploads }) {
+                QueuedTask task;
+                while ((task = lane.poll()) != null) {
+                    held.remove(task.appId);
+                    dropped.add(task);
+                }
+            }
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        if (!dropped.isEmpty()) {
+            LOG.warn(dropped.size() + " uploads were not validated before shutdown");
+        }
+        for (QueuedTask task : dropped) {
+            runShutdownCallback(task);
+        }
+    }
+
+    /**
+     * Reserve a place in the queue for an upload of this app. Every reservation must be followed by either
+     * {@link #execute} or {@link #cancelReservation}.
+     *
+     * @throws ServiceUnavailableException
+     *         if the queue, or the app's share of the queue, is full
+     */
+    public void reserve(String appId) {
+        checkArgument(isNotBlank(appId));
+
+        synchronized (lock) {
+            if (!running) {
+                rejectedCount++;
+                throw new ServiceUnavailableException("Uploads cannot be validated while the server is shutting " +
+                        "down. Please try again later.");
+            }
+            if (held.size() >= maxQueued || held.count(appId) >= maxQueuedPerApp) {
+                rejectedCount++;
+                throw new ServiceUnavailableException("Too many uploads are waiting to be validated. Please try " +
+                        "again later.");
+            }
+            held.add(appId);
+            reservations.add(appId);
+        }
+    }
+
+    /** Release a place in the queue that was reserved for an upload that will not be validated. */
+    public void cancelReservation(String appId) {
+        checkArgument(isNotBlank(appId));
+
+        synchronized (lock) {
+            if (reservations.remove(appId, 1) > 0) {
+                held.remove(appId);
+            }
+        }
+    }
+
+    /**
+     * Queue an upload validation task, in the place reserved for it.
+     *
+     * @param appId
+     *         app the upload lives in, which must hold a reservation
+     * @param contentLength
+     *         size of the upload in bytes, which decides whether it is dispatched ahead of larger uploads
+     * @param task
+     *         upload validation task
+     * @param onShutdown
+     *         called instead of the task, if the server shuts down before the task is run
+     */
+    public void execute(String appId, long contentLength, Runnable task, Runnable onShutdown) {
+        checkArgument(isNotBlank(appId));
+        checkNotNull(task);
+        checkNotNull(onShutdown);
+
+        QueuedTask queuedTask = new QueuedTask(appId, task, onShutdown, DateTimeUtils.currentTimeMillis());
+        synchronized (lock) {
+            checkState(reservations.remove(appId, 1) > 0, "No place in the queue was reserved for app " + appId);
+            if (running) {
+                if (contentLength <= smallUploadBytes) {
+                    smallUploads.add(queuedTask);
+                } else {
+                    largeUploads.add(queuedTask);
+                }
+                submittedCount++;
+                lock.notify();
+                return;
+            }
+            // The place was reserved before shutdown, and the task would never be dispatched.
+            held.remove(appId);
+        }
+        LOG.warn("Upload for app " + appId + " was queued after shutdown, and will not be validated");
+        runShutdownCallback(queuedTask);
+    }
+
+    /** A snapshot of the queue depth, wait times, and active threads. */
+    public UploadValidationExecutorStats getStats() {
+        synchronized (lock) {
+            long now = DateTimeUtils.currentTimeMillis();
+            Long oldestQueuedOn = null;
+            for (Lane lane : new Lane[] { smallUploads, largeUploads }) {
+                Long laneOldest = lane.getOldestQueuedOn();
+                if (laneOldest != null && (oldestQueuedOn == null || laneOldest < oldestQueuedOn)) {
+                    oldestQueuedOn = laneOldest;
+                }
+            }
+            Map<String, Integer> queueDepthByApp = new LinkedHashMap<>();
+            for (Multiset.Entry<String> entry : held.entrySet()) {
+                int queued = entry.getCount() - reservations.count(entry.getElement());
+                if (queued > 0) {
+                    queueDepthByApp.put(entry.getElement(), queued);
+                }
+            }
+            long dispatched = submittedCount - smallUploads.size - largeUploads.size;
+            return new UploadValidationExecutorStats(threadCount, activeThreads, smallUploads.size,
+                    largeUploads.size, reservations.size(), maxQueued, ImmutableMap.copyOf(queueDepthByApp),
+                    oldestQueuedOn == null ? 0L : now - oldestQueuedOn,
+                    dispatched == 0 ? 0L : totalWaitMillis / dispatched, maxWaitMillis, submittedCount,
+                    rejectedCount, completedCount);
+        }
+    }
+
+    private void work() {
+        while (true) {
+            QueuedTask task = null;
+            synchronized (lock) {
+                while (running && (task = dispatch()) == null) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Shutting down; the loop exits once running is false.
+                    }
+                }
+                if (task == null) {
+                    return;
+                }
+            }
+            run(task);
+        }
+    }
+
+    /**
+     * Run the next queued task on the calling thread, if there is one. Returns false if there were no queued
+     * tasks. Package-scoped for unit tests.
+     */
+    boolean runNext() {
+        QueuedTask task;
+        synchronized (lock) {
+            task = dispatch();
+        }
+        if (task == null) {
+            return false;
+        }
+        run(task);
+        return true;
+    }
+
+    // Must be called while holding the lock.
+    private QueuedTask dispatch() {
+        boolean largeUploadTurn = (dispatchCount + 1) % LARGE_UPLOAD_TURN == 0;
+        QueuedTask task = largeUploadTurn ? largeUploads.poll() : smallUploads.poll();
+        if (task == null) {
+            task = largeUploadTurn ? smallUploads.poll() : largeUploads.poll();
+        }
+        if (task != null) {
+            dispatchCount++;
+            held.remove(task.appId);
+            long waitMillis = DateTimeUtils.currentTimeMillis() - task.queuedOn;
+            totalWaitMillis += waitMillis;
+            maxWaitMillis = Math.max(maxWaitMillis, waitMillis);
+            activeThreads++;
+        }
+        return task;
+    }
+
+    // Nothing the task throws, including an Error, may end the worker thread, or the pool would shrink.
+    private void run(QueuedTask task) {
+        try {
+            task.runnable.run();
+        } catch (Throwable e) {
+            LOG.error("Upload validation task for app " + task.appId + " failed", e);
+        } finally {
+            synchronized (lock) {
+                activeThreads--;
+                completedCount++;
+            }
+        }
+    }
+
+    private static void runShutdownCallback(QueuedTask task) {
+        try {
+            task.onShutdown.run();
+        } catch (Throwable e) {
+            LOG.error("Upload validation shutdown callback for app " + task.appId + " failed", e);
+        }
+    }
+
+    private static final class QueuedTask {
+        private final String appId;
+        private final Runnable runnable;
+        private final Runnable onShutdown;
+        private final long queuedOn;
+
+        private QueuedTask(String appId, Runnable runnable, Runnable onShutdown, long queuedOn) {
+            this.appId = appId;
+            this.runnable = runnable;
+            this.onShutdown = onShutdown;
+            this.queuedOn = queuedOn;
+        }
+    }
+
+    /** Queued tasks per app. Apps take turns in the order they were queued. Not thread-safe. */
+    private static final class Lane {
+        private final LinkedHashMap<String, Deque<QueuedTask>> queuesByApp = new LinkedHashMap<>();
+        private int size;
+
+        private void add(QueuedTask task) {
+            queuesByApp.computeIfAbsent(task.appId, appId -> new ArrayDeque<>()).add(task);
+            size++;
+        }
+
+        private QueuedTask poll() {
+            Iterator<Map.Entry<String, Deque<QueuedTask>>> iterator = queuesByApp.entrySet().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Map.Entry<String, Deque<QueuedTask>> next = iterator.next();
+            String appId = next.getKey();
+            Deque<QueuedTask> queue = next.getValue();
+            iterator.remove();
+
+            QueuedTask task = queue.poll();
+            if (!queue.isEmpty()) {
+                // The app goes to the back of the line.
+                queuesByApp.put(appId, queue);
+            }
+            size--;
+            return task;
+        }
+
+        private Long getOldestQueuedOn() {
+            Long oldest = null;
+            for (Deque<QueuedTask> queue : queuesByApp.values()) {
+                long queuedOn = queue.peek().queuedOn;
+                if (oldest == null || queuedOn < oldest) {
+                    oldest = queuedOn;
+                }
+            }
+            return oldest;
+        }
+    }
+}
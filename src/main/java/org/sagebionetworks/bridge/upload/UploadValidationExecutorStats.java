@@ -0,0 +1,101 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.Map;
+
+/**
+ * A snapshot of the upload validation queue, as reported through the upload validation administration API. Queue
+ * depths and thread counts are gauges; wait times and task counts cover the time since the server started.
+ */
+public final class UploadValidationExecutorStats {
+    private final int threadCount;
+    private final int activeThreads;
+    private final int smallUploadQueueDepth;
+    private final int largeUploadQueueDepth;
+    private final int reservations;
+    private final int maxQueued;
+    private final Map<String, Integer> queueDepthByApp;
+    private final long oldestWaitMillis;
+    private final long averageWaitMillis;
+    private final long maxWaitMillis;
+    private final long submittedCount;
+    private final long rejectedCount;
+    private final long completedCount;
+
+    public UploadValidationExecutorStats(int threadCount, int activeThreads, int smallUploadQueueDepth,
+            int largeUploadQueueDepth, int reservations, int maxQueued, Map<String, Integer> queueDepthByApp,
+            long oldestWaitMillis, long averageWaitMillis, long maxWaitMillis, long submittedCount,
+            long rejectedCount, long completedCount) {
+        this.threadCount = threadCount;
+        this.activeThreads = activeThreads;
+        this.smallUploadQueueDepth = smallUploadQueueDepth;
+        this.largeUploadQueueDepth = largeUploadQueueDepth;
+        this.reservations = reservations;
+        this.maxQueued = maxQueued;
+        this.queueDepthByApp = queueDepthByApp;
+        this.oldestWaitMillis = oldestWaitMillis;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.submittedCount = submittedCount;
+        this.rejectedCount = rejectedCount;
+        this.completedCount = completedCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    /** Number of queued uploads, of all sizes. */
+    public int getQueueDepth() {
+        return smallUploadQueueDepth + largeUploadQueueDepth;
+    }
+
+    public int getSmallUploadQueueDepth() {
+        return smallUploadQueueDepth;
+    }
+
+    public int getLargeUploadQueueDepth() {
+        return largeUploadQueueDepth;
+    }
+
+    /** Places in the queue reserved for uploads that are being marked complete. */
+    public int getReservations() {
+        return reservations;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public Map<String, Integer> getQueueDepthByApp() {
+        return queueDepthByApp;
+    }
+
+    /** How long the upload at the front of the queue has waited. */
+    public long getOldestWaitMillis() {
+        return oldestWaitMillis;
+    }
+
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+}
@@ -0,0 +1,79 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
+
+/**
+ * Dependencies between the handlers in an upload validation handler list. A handler depends on an earlier handler in
+ * the list if it reads what the earlier handler writes, writes what the earlier handler reads, or writes what the
+ * earlier handler writes. Handlers that aren't {@link UploadValidationStage stages} depend on every earlier handler,
+ * and every later handler depends on them. Stages with side effects depend on every earlier handler. Running each
+ * handler once all of its dependencies have finished gives the same result as running the handlers in list order.
+ */
+final class UploadValidationHandlerGraph {
+    private final int[] dependencyCounts;
+    private final List<List<Integer>> dependents;
+
+    UploadValidationHandlerGraph(List<UploadValidationHandler> handlerList) {
+        int handlerCount = handlerList.size();
+        dependencyCounts = new int[handlerCount];
+        List<List<Integer>> dependentsBuilder = new ArrayList<>();
+        for (int i = 0; i < handlerCount; i++) {
+            dependentsBuilder.add(new ArrayList<>());
+        }
+
+        for (int later = 0; later < handlerCount; later++) {
+            for (int earlier = 0; earlier < later; earlier++) {
+                if (dependsOn(handlerList.get(later), handlerList.get(earlier))) {
+                    dependencyCounts[later]++;
+                    dependentsBuilder.get(earlier).add(later);
+                }
+            }
+        }
+
+        ImmutableList.Builder<List<Integer>> dependentsListBuilder = ImmutableList.builder();
+        for (List<Integer> oneDependents : dependentsBuilder) {
+            dependentsListBuilder.add(ImmutableList.copyOf(oneDependents));
+        }
+        dependents = dependentsListBuilder.build();
+    }
+
+    private static boolean dependsOn(UploadValidationHandler later, UploadValidationHandler earlier) {
+        if (!(later instanceof UploadValidationStage) || !(earlier instanceof UploadValidationStage)) {
+            return true;
+        }
+        UploadValidationStage laterStage = (UploadValidationStage) later;
+        UploadValidationStage earlierStage = (UploadValidationStage) earlier;
+        if (laterStage.hasSideEffects()) {
+            return true;
+        }
+        return intersects(laterStage.getInputs(), earlierStage.getOutputs()) ||
+                intersects(laterStage.getOutputs(), earlierStage.getInputs()) ||
+                intersects(laterStage.getOutputs(), earlierStage.getOutputs());
+    }
+
+    private static boolean intersects(Set<Field> first, Set<Field> second) {
+        return !Collections.disjoint(first, second);
+    }
+
+    /** Number of handlers in the graph. */
+    int size() {
+        return dependencyCounts.length;
+    }
+
+    /** Number of earlier handlers that must finish before the given handler can run. */
+    int getDependencyCount(int handlerIndex) {
+        return dependencyCounts[handlerIndex];
+    }
+
+    /** Later handlers that depend on the given handler, in list order. */
+    List<Integer> getDependents(int handlerIndex) {
+        return dependents.get(handlerIndex);
+    }
+}
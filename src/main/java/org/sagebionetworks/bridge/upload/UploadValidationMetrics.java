@@ -0,0 +1,129 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.util.TimingHistogram;
+import org.sagebionetworks.bridge.util.TimingStats;
+
+/**
+ * Registry of upload validation timings. Keeps a histogram of the time spent in each validation handler, of the
+ * time spent validating each upload (by app and by upload format), and of the time from when an upload is marked
+ * complete until its validation status is written. Each histogram also counts the bytes uploaded. Timings are
+ * available through the upload validation administration API, and are periodically sent to every
+ * {@link UploadValidationMetricsReporter}.
+ */
+@Component
+public class UploadValidationMetrics {
+    private static final Logger LOG = LoggerFactory.getLogger(UploadValidationMetrics.class);
+
+    static final String REPORT_INTERVAL_PROPERTY = "upload.validation.metrics.report.seconds";
+
+    private final ConcurrentMap<String, TimingHistogram> handlers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TimingHistogram> apps = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TimingHistogram> formats = new ConcurrentHashMap<>();
+    private final TimingHistogram endToEnd = new TimingHistogram();
+    private List<UploadValidationMetricsReporter> reporters = ImmutableList.of();
+    private int reportIntervalSeconds;
+    private ScheduledExecutorService reportExecutor;
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.reportIntervalSeconds = config.getInt(REPORT_INTERVAL_PROPERTY);
+    }
+
+    /** Reporters that timings are sent to. This is configured by Spring. */
+    @Autowired(required = false)
+    final void setReporters(List<UploadValidationMetricsReporter> reporters) {
+        this.reporters = ImmutableList.copyOf(reporters);
+    }
+
+    @PostConstruct
+    public void startReporting() {
+        if (reportIntervalSeconds > 0 && !reporters.isEmpty()) {
+            reportExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("upload-validation-metrics").setDaemon(true).build());
+            reportExecutor.scheduleWithFixedDelay(this::report, reportIntervalSeconds, reportIntervalSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stopReporting() {
+        if (reportExecutor != null) {
+            reportExecutor.shutdownNow();
+        }
+    }
+
+    /** Record the time one upload spent in a validation handler. */
+    public void recordHandler(String handlerName, long millis, long bytes) {
+        checkNotNull(handlerName);
+        handlers.computeIfAbsent(handlerName, key -> new TimingHistogram()).record(millis, bytes);
+    }
+
+    /**
+     * Record the time spent validating one upload. The format is null if the upload has no info.json, or if
+     * validation failed before the format was read.
+     */
+    public void recordUpload(String appId, UploadFormat format, long millis, long bytes) {
+        checkNotNull(appId);
+        apps.computeIfAbsent(appId, key -> new TimingHistogram()).record(millis, bytes);
+        if (format != null) {
+            formats.computeIfAbsent(format.name().toLowerCase(), key -> new TimingHistogram()).record(millis, bytes);
+        }
+    }
+
+    /** Record the time from when one upload was marked complete until its validation status was written. */
+    public void recordEndToEnd(long millis, long bytes) {
+        endToEnd.record(millis, bytes);
+    }
+
+    /** A snapshot of the timings recorded since the server started. */
+    public UploadValidationMetricsStats getStats() {
+        return new UploadValidationMetricsStats(snapshot(handlers), snapshot(apps), snapshot(formats),
+                endToEnd.getStats());
+    }
+
+    private static Map<String, TimingStats> snapshot(Map<String, TimingHistogram> histograms) {
+        // Sorted, so the output is easy to read.
+        Map<String, TimingStats> stats = new TreeMap<>();
+        for (Map.Entry<String, TimingHistogram> entry : histograms.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return ImmutableMap.copyOf(stats);
+    }
+
+    /** Send a snapshot of the timings to every reporter. Package-scoped for unit tests. */
+    void report() {
+        UploadValidationMetricsStats stats = getStats();
+        for (UploadValidationMetricsReporter reporter : reporters) {
+            try {
+                reporter.report(stats);
+            } catch (RuntimeException ex) {
+                // Keep reporting to the other reporters, and on the next run.
+                LOG.error("Error reporting upload validation metrics to " + reporter.getClass().getSimpleName() +
+                        ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.sagebionetworks.bridge.upload;
+
+/**
+ * Sends upload validation timings somewhere they can be monitored. Every reporter bean in the Spring context is
+ * called periodically by {@link UploadValidationMetrics}.
+ */
+public interface UploadValidationMetricsReporter {
+    /** Report a snapshot of upload validation timings. */
+    void report(UploadValidationMetricsStats stats);
+}
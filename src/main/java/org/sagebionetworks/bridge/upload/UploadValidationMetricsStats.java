@@ -0,0 +1,44 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.Map;
+
+import org.sagebionetworks.bridge.util.TimingStats;
+
+/**
+ * A snapshot of upload validation timings, as reported through the upload validation administration API and the
+ * metrics reporters. Timings cover the time since the server started.
+ */
+public final class UploadValidationMetricsStats {
+    private final Map<String, TimingStats> handlers;
+    private final Map<String, TimingStats> apps;
+    private final Map<String, TimingStats> formats;
+    private final TimingStats endToEnd;
+
+    public UploadValidationMetricsStats(Map<String, TimingStats> handlers, Map<String, TimingStats> apps,
+            Map<String, TimingStats> formats, TimingStats endToEnd) {
+        this.handlers = handlers;
+        this.apps = apps;
+        this.formats = formats;
+        this.endToEnd = endToEnd;
+    }
+
+    /** Time spent in each validation handler, keyed by handler class name. */
+    public Map<String, TimingStats> getHandlers() {
+        return handlers;
+    }
+
+    /** Time spent validating each upload, keyed by app. */
+    public Map<String, TimingStats> getApps() {
+        return apps;
+    }
+
+    /** Time spent validating each upload, keyed by upload format. */
+    public Map<String, TimingStats> getFormats() {
+        return formats;
+    }
+
+    /** Time from when each upload was marked complete until its validation status was written. */
+    public TimingStats getEndToEnd() {
+        return endToEnd;
+    }
+}
@@ -0,0 +1,29 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.Set;
+
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
+
+/**
+ * An upload validation handler that declares which parts of the {@link UploadValidationContext} it reads and writes.
+ * UploadValidationTask runs a stage as soon as every earlier handler that writes what the stage reads (or reads or
+ * writes what the stage writes) has finished, so stages that don't depend on each other can run at the same time.
+ * Handlers that don't declare their inputs and outputs run after all earlier handlers, and before all later ones.
+ * Stages with side effects outside the context run after all earlier handlers have succeeded.
+ */
+public interface UploadValidationStage extends UploadValidationHandler {
+    /** Parts of the context this handler reads. */
+    Set<Field> getInputs();
+
+    /** Parts of the context this handler writes. */
+    Set<Field> getOutputs();
+
+    /**
+     * True if this handler has effects outside the context, such as writing to S3 or DynamoDB. Such a handler must
+     * not run unless every earlier handler (including the validation handlers) has succeeded, as if the handlers ran
+     * in list order, so it depends on every earlier handler.
+     */
+    default boolean hasSideEffects() {
+        return false;
+    }
+}
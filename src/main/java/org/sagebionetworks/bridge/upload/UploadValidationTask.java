@@ -4,10 +4,22 @@ import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Uninterruptibles;
 
+import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.file.FileHelper;
 import org.sagebionetworks.bridge.services.HealthDataService;
 import org.slf4j.Logger;
@@ -15,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
+import org.sagebionetworks.bridge.time.DateUtils;
 
 /**
  * This class represents an asynchronous upload validation task, corresponding with exactly one upload. It implements
@@ -23,12 +36,17 @@ import org.sagebionetworks.bridge.models.upload.UploadStatus;
 public class UploadValidationTask implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(UploadValidationTask.class);
 
+    static final String NOT_VALIDATED_MESSAGE = "Upload was not validated because the server shut down before " +
+            "validation started. The upload can be redriven.";
+
     private final UploadValidationContext context;
 
     private FileHelper fileHelper;
     private List<UploadValidationHandler> handlerList;
     private UploadDao uploadDao;
     private HealthDataService healthDataService;
+    private UploadValidationMetrics uploadValidationMetrics;
+    private ExecutorService stageExecutorService;
 
     public final void setHealthDataService(HealthDataService healthDataService) {
         this.healthDataService = healthDataService;
@@ -82,6 +100,29 @@ public class UploadValidationTask implements Runnable {
         return uploadDao;
     }
 
+    /** Upload validation timings. This is configured by Spring through the task factory. */
+    public final void setUploadValidationMetrics(UploadValidationMetrics uploadValidationMetrics) {
+        this.uploadValidationMetrics = uploadValidationMetrics;
+    }
+
+    /** This is package-scoped to facilitate unit tests. */
+    /* package-scoped*/ UploadValidationMetrics getUploadValidationMetrics() {
+        return uploadValidationMetrics;
+    }
+
+    /**
+     * Executor that runs handlers that don't depend on each other at the same time. If this isn't set, handlers run
+     * one at a time, in list order. This is configured by Spring through the task factory.
+     */
+    public final void setStageExecutorService(ExecutorService stageExecutorService) {
+        this.stageExecutorService = stageExecutorService;
+    }
+
+    /** This is package-scoped to facilitate unit tests. */
+    /* package-scoped*/ ExecutorService getStageExecutorService() {
+        return stageExecutorService;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void run() {
@@ -89,41 +130,11 @@ public class UploadValidationTask implements Runnable {
         File tempDir = fileHelper.createTempDir();
         context.setTempDir(tempDir);
 
-        Stopwatch stopwatch = Stopwatch.createUnstarted();
-        for (UploadValidationHandler oneHandler : handlerList) {
-            String handlerName = oneHandler.getClass().getName();
-            stopwatch.start();
-
-            try {
-                oneHandler.handle(context);
-            } catch (Throwable ex) {
-                context.setSuccess(false);
-                context.addMessage(String.format("Exception thrown from upload validation handler %s: %s: %s",
-                        handlerName, ex.getClass().getName(), ex.getMessage()));
-
-                if (ex instanceof Error) {
-                    // Something really bad happened, like an OutOfMemoryError. Log this at the error level.
-                    logger.error(String.format("Critical error in upload validation handler %s for app %s, " +
-                            "upload %s, filename %s: %s: %s", handlerName, context.getAppId(),
-                            context.getUpload().getUploadId(), context.getUpload().getFilename(),
-                            ex.getClass().getName(), ex.getMessage()), ex);
-                } else {
-                    // Upload validation failed. Since there are a lot of garbage uploads, log this at the info level
-                    // so it doesn't set off our alarms. Once the garbage uploads are cleaned up, we can bump this back
-                    // up to warning.
-                    logger.info(String.format("Exception thrown from upload validation handler %s for app %s, " +
-                            "upload %s, filename %s: %s: %s", handlerName, context.getAppId(),
-                            context.getUpload().getUploadId(), context.getUpload().getFilename(),
-                            ex.getClass().getName(), ex.getMessage()), ex);
-                }
-                break;
-            } finally {
-                long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
-                stopwatch.reset();
-                // TODO: send this to somewhere other than the logs
-                logger.info(String.format("Upload validation handler %s took %d ms", handlerName, elapsedMillis));
-            }
-        }
+        long uploadBytes = context.getUpload().getContentLength();
+        Stopwatch totalStopwatch = Stopwatch.createStarted();
+        runHandlers(uploadBytes);
+        uploadValidationMetrics.recordUpload(context.getAppId(), context.getUploadFormat(),
+                totalStopwatch.elapsed(TimeUnit.MILLISECONDS), uploadBytes);
 
         // write validation status to the upload DAO
         UploadStatus status = context.getSuccess() ? UploadStatus.SUCCEEDED : UploadStatus.VALIDATION_FAILED;
@@ -133,6 +144,13 @@ public class UploadValidationTask implements Runnable {
             logger.info(String.format("Upload validation for app %s, upload %s, record %s, with status %s",
                     context.getAppId(), context.getUpload().getUploadId(), context.getRecordId(),
                     status));
+
+            // Skip uploads that have no completion time, since there is nothing to measure from.
+            long completedOn = context.getUpload().getCompletedOn();
+            if (completedOn > 0) {
+                uploadValidationMetrics.recordEndToEnd(DateUtils.getCurrentMillisFromEpoch() - completedOn,
+                        uploadBytes);
+            }
         } catch (RuntimeException ex) {
             // ExceptionInterceptor doesn't handle asynchronous tasks, so we'll need to catch exceptions and log them
             // manually. Use the log helper function so we can verify it in unit tests.
@@ -149,6 +167,151 @@ public class UploadValidationTask implements Runnable {
         }
     }
 
+    /**
+     * Called instead of {@link #run} if the server shuts down before the upload is validated. The upload is marked as
+     * failed validation, so it is not left in progress. This runs while the server shuts down, so if the status
+     * cannot be written, the upload is logged so that it can be found and redriven.
+     */
+    public void markNotValidated() {
+        logger.warn("Upload validation for app " + context.getAppId() + ", upload " +
+                context.getUpload().getUploadId() + " was not started before shutdown");
+        try {
+            uploadDao.writeValidationStatus(context.getUpload(), UploadStatus.VALIDATION_FAILED,
+                    ImmutableList.of(NOT_VALIDATED_MESSAGE), null);
+        } catch (RuntimeException ex) {
+            logWriteValidationStatusException(UploadStatus.VALIDATION_FAILED, ex);
+        }
+    }
+
+    /**
+     * Runs each handler once the handlers it depends on have finished. Handlers that become ready together run at the
+     * same time on the stage executor (if there is one). Once a handler fails, no more handlers are started, but
+     * handlers that are already running are allowed to finish. The failure of the first handler in list order is
+     * then reported, as if the handlers had run one at a time; handlers that failed at the same time are only logged.
+     */
+    private void runHandlers(long uploadBytes) {
+        UploadValidationHandlerGraph graph = new UploadValidationHandlerGraph(handlerList);
+        int[] remainingDependencies = new int[graph.size()];
+        // Ready handlers, run in list order.
+        SortedSet<Integer> ready = new TreeSet<>();
+        for (int i = 0; i < graph.size(); i++) {
+            remainingDependencies[i] = graph.getDependencyCount(i);
+            if (remainingDependencies[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        Throwable[] failures = new Throwable[graph.size()];
+        BlockingQueue<Future<Integer>> finishedQueue = new LinkedBlockingQueue<>();
+        CompletionService<Integer> completionService = stageExecutorService != null ?
+                new ExecutorCompletionService<>(stageExecutorService, finishedQueue) : null;
+        int runningCount = 0;
+        boolean failed = false;
+        while (true) {
+            if (!failed && !ready.isEmpty()) {
+                if (completionService == null || (runningCount == 0 && ready.size() == 1)) {
+                    // Nothing to run alongside this handler, so run it on this thread.
+                    int handlerIndex = ready.first();
+                    ready.remove(handlerIndex);
+                    failures[handlerIndex] = runHandler(handlerList.get(handlerIndex), uploadBytes);
+                    failed = onHandlerFinished(graph, handlerIndex, failures, remainingDependencies, ready);
+                    continue;
+                }
+
+                for (int handlerIndex : ready) {
+                    completionService.submit(() -> {
+                        failures[handlerIndex] = runHandler(handlerList.get(handlerIndex), uploadBytes);
+                        return handlerIndex;
+                    });
+                    runningCount++;
+                }
+                ready.clear();
+            }
+
+            if (runningCount == 0) {
+                break;
+            }
+
+            // Handlers don't throw out of the stage executor, and must finish before we can write the validation
+            // status, so wait for them even if this thread is interrupted.
+            int handlerIndex = Futures.getUnchecked(Uninterruptibles.takeUninterruptibly(finishedQueue));
+            runningCount--;
+            failed |= onHandlerFinished(graph, handlerIndex, failures, remainingDependencies, ready);
+        }
+
+        boolean reported = false;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] == null) {
+                continue;
+            }
+            if (!reported) {
+                handleFailure(handlerList.get(i), failures[i]);
+                reported = true;
+            } else {
+                logger.info(String.format("Exception also thrown from upload validation handler %s for app %s, " +
+                        "upload %s: %s: %s", handlerList.get(i).getClass().getName(), context.getAppId(),
+                        context.getUpload().getUploadId(), failures[i].getClass().getName(),
+                        failures[i].getMessage()), failures[i]);
+            }
+        }
+    }
+
+    // Returns true if the handler failed. Otherwise, marks handlers that were waiting only on this handler as ready.
+    private static boolean onHandlerFinished(UploadValidationHandlerGraph graph, int handlerIndex,
+            Throwable[] failures, int[] remainingDependencies, SortedSet<Integer> ready) {
+        if (failures[handlerIndex] != null) {
+            return true;
+        }
+        for (int dependent : graph.getDependents(handlerIndex)) {
+            remainingDependencies[dependent]--;
+            if (remainingDependencies[dependent] == 0) {
+                ready.add(dependent);
+            }
+        }
+        return false;
+    }
+
+    // Runs and times one handler. Returns what the handler threw, or null if it succeeded. Handlers may set the
+    // request context (see TranscribeConsentHandler), and threads are shared between uploads, so the request context
+    // of the thread is restored afterwards.
+    private Throwable runHandler(UploadValidationHandler handler, long uploadBytes) {
+        RequestContext requestContext = RequestContext.get();
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            handler.handle(context);
+            return null;
+        } catch (Throwable ex) {
+            return ex;
+        } finally {
+            RequestContext.set(requestContext);
+            uploadValidationMetrics.recordHandler(handler.getClass().getSimpleName(),
+                    stopwatch.elapsed(TimeUnit.MILLISECONDS), uploadBytes);
+        }
+    }
+
+    private void handleFailure(UploadValidationHandler handler, Throwable ex) {
+        String handlerName = handler.getClass().getName();
+        context.setSuccess(false);
+        context.addMessage(String.format("Exception thrown from upload validation handler %s: %s: %s",
+                handlerName, ex.getClass().getName(), ex.getMessage()));
+
+        if (ex instanceof Error) {
+            // Something really bad happened, like an OutOfMemoryError. Log this at the error level.
+            logger.error(String.format("Critical error in upload validation handler %s for app %s, " +
+                    "upload %s, filename %s: %s: %s", handlerName, context.getAppId(),
+                    context.getUpload().getUploadId(), context.getUpload().getFilename(),
+                    ex.getClass().getName(), ex.getMessage()), ex);
+        } else {
+            // Upload validation failed. Since there are a lot of garbage uploads, log this at the info level
+            // so it doesn't set off our alarms. Once the garbage uploads are cleaned up, we can bump this back
+            // up to warning.
+            logger.info(String.format("Exception thrown from upload validation handler %s for app %s, " +
+                    "upload %s, filename %s: %s: %s", handlerName, context.getAppId(),
+                    context.getUpload().getUploadId(), context.getUpload().getFilename(),
+                    ex.getClass().getName(), ex.getMessage()), ex);
+        }
+    }
+
     // Log helper. Unit tests will mock (spy) this, so we verify that we're catching and logging the exception.
     // Package-scoped so unit tests have access to this.
     void logWriteValidationStatusException(UploadStatus status, Exception ex) {
@@ -1,10 +1,12 @@
 package org.sagebionetworks.bridge.upload;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
 
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.file.FileHelper;
 import org.sagebionetworks.bridge.models.upload.Upload;
@@ -19,10 +21,20 @@ import org.springframework.stereotype.Component;
  */
 @Component
 public class UploadValidationTaskFactory {
+    static final String PARALLEL_STAGES_ENABLED_PROPERTY = "upload.validation.parallel.stages.enabled";
+
     private FileHelper fileHelper;
     private List<UploadValidationHandler> handlerList;
     private UploadDao uploadDao;
     private HealthDataService healthDataService;
+    private UploadValidationMetrics uploadValidationMetrics;
+    private ExecutorService stageExecutorService;
+    private boolean parallelStagesEnabled;
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.parallelStagesEnabled = Boolean.parseBoolean(config.get(PARALLEL_STAGES_ENABLED_PROPERTY));
+    }
 
     /** File helper, used to create and delete the temp directory in which we process uploads. */
     @Autowired
@@ -47,6 +59,18 @@ public class UploadValidationTaskFactory {
         this.healthDataService = healthDataService;
     }
 
+    /** Upload validation timings, recorded by each task. This is configured by Spring. */
+    @Autowired
+    public final void setUploadValidationMetrics(UploadValidationMetrics uploadValidationMetrics) {
+        this.uploadValidationMetrics = uploadValidationMetrics;
+    }
+
+    /** Executor for running independent validation handlers at the same time. This is configured by Spring. */
+    @Resource(name = "uploadValidationStageExecutorService")
+    public final void setStageExecutorService(ExecutorService stageExecutorService) {
+        this.stageExecutorService = stageExecutorService;
+    }
+
     /**
      * Factory method for creating a validation task instance, for validating a single upload.
      *
@@ -69,6 +93,10 @@ public class UploadValidationTaskFactory {
         task.setHandlerList(handlerList);
         task.setUploadDao(uploadDao);
         task.setHealthDataService(healthDataService);
+        task.setUploadValidationMetrics(uploadValidationMetrics);
+        if (parallelStagesEnabled) {
+            task.setStageExecutorService(stageExecutorService);
+        }
         return task;
     }
 }
@@ -0,0 +1,62 @@
+package org.sagebionetworks.bridge.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A histogram of elapsed times, with the number of bytes processed. Times are counted in buckets of roughly doubling
+ * size, from 1 ms up to an hour, so percentiles are approximate: a percentile is reported as the upper bound of the
+ * bucket it falls in (or the largest time recorded, if that is smaller). This class is thread-safe.
+ */
+public final class TimingHistogram {
+    // Upper bounds (inclusive) of the buckets, in milliseconds. Anything longer falls in the overflow bucket.
+    static final long[] BUCKET_BOUNDS_MILLIS = { 1L, 2L, 5L, 10L, 20L, 50L, 100L, 200L, 500L, 1000L, 2000L, 5000L,
+            10000L, 20000L, 50000L, 100000L, 200000L, 500000L, 1000000L, 3600000L };
+
+    private final long[] bucketCounts = new long[BUCKET_BOUNDS_MILLIS.length + 1];
+    private long count;
+    private long totalMillis;
+    private long minMillis;
+    private long maxMillis;
+    private long totalBytes;
+
+    /** Record one measurement. Negative times (from clock skew) are counted as zero. */
+    public synchronized void record(long millis, long bytes) {
+        checkArgument(bytes >= 0, "bytes can't be negative");
+        long elapsed = Math.max(0L, millis);
+
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MILLIS.length && elapsed > BUCKET_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        bucketCounts[bucket]++;
+
+        minMillis = count == 0 ? elapsed : Math.min(minMillis, elapsed);
+        maxMillis = Math.max(maxMillis, elapsed);
+        count++;
+        totalMillis += elapsed;
+        totalBytes += bytes;
+    }
+
+    /** A snapshot of the measurements recorded so far. */
+    public synchronized TimingStats getStats() {
+        return new TimingStats(count, count == 0 ? 0L : totalMillis / count, minMillis, maxMillis,
+                getPercentile(50), getPercentile(95), getPercentile(99), totalBytes);
+    }
+
+    // Must be called while holding the lock.
+    private long getPercentile(int percentile) {
+        if (count == 0) {
+            return 0L;
+        }
+        // The rank of the measurement at this percentile, counting from 1.
+        long rank = Math.max(1L, (count * percentile + 99) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_BOUNDS_MILLIS[i], maxMillis);
+            }
+        }
+        return maxMillis;
+    }
+}
@@ -0,0 +1,60 @@
+package org.sagebionetworks.bridge.util;
+
+/**
+ * A snapshot of a {@link TimingHistogram}. Times are in milliseconds; percentiles are approximate.
+ */
+public final class TimingStats {
+    private final long count;
+    private final long meanMillis;
+    private final long minMillis;
+    private final long maxMillis;
+    private final long p50Millis;
+    private final long p95Millis;
+    private final long p99Millis;
+    private final long totalBytes;
+
+    public TimingStats(long count, long meanMillis, long minMillis, long maxMillis, long p50Millis, long p95Millis,
+            long p99Millis, long totalBytes) {
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.totalBytes = totalBytes;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMillis() {
+        return meanMillis;
+    }
+
+    public long getMinMillis() {
+        return minMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getP50Millis() {
+        return p50Millis;
+    }
+
+    public long getP95Millis() {
+        return p95Millis;
+    }
+
+    public long getP99Millis() {
+        return p99Millis;
+    }
+
+    /** Total size of the uploads measured, in bytes. */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+}
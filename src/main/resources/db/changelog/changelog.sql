@@ -677,3 +677,14 @@ CREATE TABLE `SessionNotifications` (
 
 ALTER TABLE `Accounts`
 ADD COLUMN `note` text;
+
+-- changeset bridge:37
+
+CREATE INDEX `Accounts-StudyId-CreatedOn-Id-Index` ON `Accounts`(`studyId`, `createdOn`, `id`);
+
+-- changeset bridge:38
+
+ALTER TABLE `AccountSecrets`
+ADD COLUMN `selector` varchar(60) DEFAULT NULL;
+
+CREATE INDEX `AccountSecrets-AccountId-Type-Selector-Index` ON `AccountSecrets`(`accountId`, `type`, `selector`);
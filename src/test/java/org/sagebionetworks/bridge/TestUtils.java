@@ -39,6 +39,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.mockito.ArgumentMatchers;
@@ -61,6 +62,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.config.Environment;
+import org.sagebionetworks.bridge.crypto.CredentialHasher;
 import org.sagebionetworks.bridge.dynamodb.DynamoCriteria;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -729,5 +731,12 @@ public class TestUtils {
         return new ConfigResolver(mockConfig);
     }
     
+    /** A credential hasher that hashes on the calling thread, with no queue timeout and no metrics reports. */
+    public static CredentialHasher getCredentialHasher() {
+        CredentialHasher hasher = new CredentialHasher();
+        hasher.setExecutorService(MoreExecutors.newDirectExecutorService());
+        hasher.setBridgeConfig(Mockito.mock(BridgeConfig.class));
+        return hasher;
+    }
 
 }
@@ -0,0 +1,196 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.HEALTH_CODE;
+import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.CUSTOM;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.QUESTION;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventType.ANSWERED;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.FUTURE_ONLY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent;
+import org.sagebionetworks.bridge.models.activities.ActivityEvent;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+public class ActivityEventMapCacheTest {
+    private static final DateTime TIMESTAMP = DateTime.parse("2020-05-28T00:00:00.000Z");
+    private static final String MILLIS = Long.toString(TIMESTAMP.getMillis());
+    private static final String MAP_KEY = CacheKey.activityEventMap(HEALTH_CODE, TEST_STUDY_ID).toString();
+    private static final String VERSION_KEY = CacheKey.activityEventMapVersion(HEALTH_CODE, TEST_STUDY_ID)
+            .toString();
+
+    @Mock
+    private BridgeConfig mockConfig;
+
+    @Mock
+    private JedisPool mockJedisPool;
+
+    @Mock
+    private Jedis mockJedis;
+
+    @Captor
+    private ArgumentCaptor<List<String>> keysCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<String>> argsCaptor;
+
+    private ActivityEventMapCache cache;
+
+    private AtomicInteger loads;
+
+    private Supplier<Map<String, DateTime>> loader;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+        when(mockConfig.get(ActivityEventMapCache.ENABLED_PROPERTY)).thenReturn("true");
+        when(mockConfig.getInt(ActivityEventMapCache.EXPIRE_PROPERTY)).thenReturn(300);
+
+        cache = new ActivityEventMapCache();
+        cache.setJedisPool(mockJedisPool);
+        cache.setBridgeConfig(mockConfig);
+
+        loads = new AtomicInteger();
+        loader = () -> {
+            loads.incrementAndGet();
+            return ImmutableMap.of("enrollment", TIMESTAMP);
+        };
+    }
+
+    private void mockGetScript(String... result) {
+        when(mockJedis.evalsha(eq(ActivityEventMapCache.GET_SCRIPT.getSha()), anyList(), anyList()))
+                .thenReturn(ImmutableList.copyOf(result));
+    }
+
+    @Test
+    public void getCachedMap() {
+        mockGetScript("3", ActivityEventMapCache.LOADED_FIELD, "1", "enrollment", MILLIS);
+
+        Map<String, DateTime> eventMap = cache.get(HEALTH_CODE, TEST_STUDY_ID, loader);
+
+        assertEquals(eventMap, ImmutableMap.of("enrollment", new DateTime(TIMESTAMP, DateTimeZone.UTC)));
+        assertEquals(loads.get(), 0);
+        verify(mockJedis).evalsha(eq(ActivityEventMapCache.GET_SCRIPT.getSha()), keysCaptor.capture(), anyList());
+        assertEquals(keysCaptor.getValue(), ImmutableList.of(MAP_KEY, VERSION_KEY));
+        verify(mockJedis, never()).evalsha(eq(ActivityEventMapCache.LOAD_SCRIPT.getSha()), anyList(), anyList());
+        verify(mockJedis).close();
+    }
+
+    @Test
+    public void getCachedEmptyMap() {
+        mockGetScript("3", ActivityEventMapCache.LOADED_FIELD, "1");
+
+        assertTrue(cache.get(HEALTH_CODE, TEST_STUDY_ID, loader).isEmpty());
+        assertEquals(loads.get(), 0);
+    }
+
+    @Test
+    public void getLoadsAndCachesMapAtVersion() {
+        mockGetScript("3");
+
+        Map<String, DateTime> eventMap = cache.get(HEALTH_CODE, TEST_STUDY_ID, loader);
+
+        assertEquals(eventMap, ImmutableMap.of("enrollment", TIMESTAMP));
+        assertEquals(loads.get(), 1);
+        verify(mockJedis).evalsha(eq(ActivityEventMapCache.LOAD_SCRIPT.getSha()), keysCaptor.capture(),
+                argsCaptor.capture());
+        assertEquals(keysCaptor.getValue(), ImmutableList.of(MAP_KEY, VERSION_KEY));
+        // The map is only cached if the version read before the load is still current.
+        assertEquals(argsCaptor.getValue(),
+                ImmutableList.of("3", "300", ActivityEventMapCache.LOADED_FIELD, "1", "enrollment", MILLIS));
+    }
+
+    @Test
+    public void putWritesEventThrough() {
+        ActivityEvent event = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
+                .withStudyId(TEST_STUDY_ID).withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP).build();
+
+        cache.put(HEALTH_CODE, event);
+
+        verify(mockJedis).evalsha(eq(ActivityEventMapCache.PUT_SCRIPT.getSha()), keysCaptor.capture(),
+                argsCaptor.capture());
+        assertEquals(keysCaptor.getValue(), ImmutableList.of(MAP_KEY, VERSION_KEY));
+        assertEquals(argsCaptor.getValue(), ImmutableList.of("enrollment", MILLIS, "0", "300"));
+    }
+
+    @Test
+    public void putFutureOnlyEventOnlyIfLater() {
+        ActivityEvent event = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
+                .withStudyId(TEST_STUDY_ID).withObjectType(CUSTOM).withObjectId("eventKey")
+                .withUpdateType(FUTURE_ONLY).withTimestamp(TIMESTAMP).build();
+
+        cache.put(HEALTH_CODE, event);
+
+        verify(mockJedis).evalsha(eq(ActivityEventMapCache.PUT_SCRIPT.getSha()), anyList(), argsCaptor.capture());
+        assertEquals(argsCaptor.getValue(), ImmutableList.of("custom:eventKey", MILLIS, "1", "300"));
+    }
+
+    @Test
+    public void putAnsweredEventInvalidatesMap() {
+        ActivityEvent event = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
+                .withObjectType(QUESTION).withObjectId("questionGuid").withEventType(ANSWERED)
+                .withAnswerValue("answer").withTimestamp(TIMESTAMP).build();
+
+        cache.put(HEALTH_CODE, event);
+
+        verify(mockJedis, never()).evalsha(eq(ActivityEventMapCache.PUT_SCRIPT.getSha()), anyList(), anyList());
+        verify(mockJedis).evalsha(eq(ActivityEventMapCache.INVALIDATE_SCRIPT.getSha()), keysCaptor.capture(),
+                anyList());
+        assertEquals(keysCaptor.getValue(), ImmutableList.of(CacheKey.activityEventMap(HEALTH_CODE, null).toString(),
+                CacheKey.activityEventMapVersion(HEALTH_CODE, null).toString()));
+    }
+
+    @Test
+    public void invalidate() {
+        cache.invalidate(HEALTH_CODE, TEST_STUDY_ID);
+
+        verify(mockJedis).evalsha(eq(ActivityEventMapCache.INVALIDATE_SCRIPT.getSha()), keysCaptor.capture(),
+                argsCaptor.capture());
+        assertEquals(keysCaptor.getValue(), ImmutableList.of(MAP_KEY, VERSION_KEY));
+        assertEquals(argsCaptor.getValue(), ImmutableList.of("300"));
+    }
+
+    @Test
+    public void disabled() {
+        when(mockConfig.get(ActivityEventMapCache.ENABLED_PROPERTY)).thenReturn("false");
+        cache.setBridgeConfig(mockConfig);
+        ActivityEvent event = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
+                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP).build();
+
+        cache.get(HEALTH_CODE, TEST_STUDY_ID, loader);
+        cache.get(HEALTH_CODE, TEST_STUDY_ID, loader);
+        cache.put(HEALTH_CODE, event);
+        cache.invalidate(HEALTH_CODE, TEST_STUDY_ID);
+
+        assertEquals(loads.get(), 2);
+        verifyZeroInteractions(mockJedisPool);
+    }
+}
@@ -0,0 +1,121 @@
+package org.sagebionetworks.bridge.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.Roles;
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.config.Environment;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
+import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.models.apps.App;
+import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+public class CacheEncodingTest {
+    private static final String SESSION_TOKEN = "sessionToken";
+
+    @Test
+    public void sessionRoundTrip() throws Exception {
+        UserSession session = createSession();
+
+        byte[] ser = CacheEncoding.encode(StudyParticipant.CACHE_WRITER, session);
+        assertTrue(CacheEncoding.isBinary(ser));
+
+        UserSession deser = CacheEncoding.decode(ser, UserSession.class);
+        // The cache writer encrypts the health code, which is decrypted on deserialization
+        assertEquals(deser.getParticipant(), session.getParticipant());
+        assertEquals(deser.getSessionToken(), SESSION_TOKEN);
+        assertEquals(deser.getInternalSessionToken(), "internalSessionToken");
+        assertTrue(deser.isAuthenticated());
+        assertEquals(deser.getEnvironment(), Environment.LOCAL);
+        assertEquals(deser.getIpAddress(), "1.2.3.4");
+        assertEquals(deser.getAppId(), TEST_APP_ID);
+        assertEquals(deser.getConsentStatuses(), session.getConsentStatuses());
+    }
+
+    @Test
+    public void appRoundTrip() throws Exception {
+        App app = TestUtils.getValidApp(CacheEncodingTest.class);
+
+        byte[] ser = CacheEncoding.encode(BridgeObjectMapper.get().writer(), app);
+
+        assertEquals(CacheEncoding.decode(ser, App.class), app);
+    }
+
+    @Test
+    public void binaryIsSmallerThanJson() throws Exception {
+        UserSession session = createSession();
+
+        byte[] json = StudyParticipant.CACHE_WRITER.writeValueAsBytes(session);
+        byte[] binary = CacheEncoding.encode(StudyParticipant.CACHE_WRITER, session);
+
+        assertTrue(binary.length < json.length, "binary=" + binary.length + ", json=" + json.length);
+    }
+
+    @Test
+    public void jsonIsNotBinary() throws Exception {
+        String json = StudyParticipant.CACHE_WRITER.writeValueAsString(createSession());
+
+        assertFalse(CacheEncoding.isBinary(json));
+        assertFalse(CacheEncoding.isBinary(json.getBytes(UTF_8)));
+        assertFalse(CacheEncoding.isBinary((String) null));
+        assertFalse(CacheEncoding.isBinary((byte[]) null));
+        assertFalse(CacheEncoding.isBinary(""));
+        assertFalse(CacheEncoding.isBinary(new byte[0]));
+    }
+
+    @Test
+    public void binaryReadAsStringIsBinary() throws Exception {
+        byte[] ser = CacheEncoding.encode(StudyParticipant.CACHE_WRITER, createSession());
+
+        assertTrue(CacheEncoding.isBinary(new String(ser, UTF_8)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void decodeRejectsJson() throws Exception {
+        byte[] json = StudyParticipant.CACHE_WRITER.writeValueAsBytes(createSession());
+
+        CacheEncoding.decode(json, UserSession.class);
+    }
+
+    private UserSession createSession() {
+        Set<String> dataGroups = Sets.newHashSet();
+        for (int i = 0; i < 20; i++) {
+            dataGroups.add("dataGroup" + i);
+        }
+        StudyParticipant participant = new StudyParticipant.Builder().withId("userId")
+                .withHealthCode("healthCode").withEmail("email@email.com").withFirstName("First")
+                .withLastName("Last").withCreatedOn(DateTime.parse("2020-01-01T00:00:00.000Z"))
+                .withRoles(ImmutableSet.of(Roles.DEVELOPER)).withLanguages(ImmutableList.of("en", "fr"))
+                .withDataGroups(dataGroups).build();
+
+        SubpopulationGuid guid = SubpopulationGuid.create(TEST_APP_ID);
+        ConsentStatus status = new ConsentStatus.Builder().withName("Default Consent Group").withGuid(guid)
+                .withRequired(true).withConsented(true).withSignedMostRecentConsent(true).build();
+
+        UserSession session = new UserSession(participant);
+        session.setSessionToken(SESSION_TOKEN);
+        session.setInternalSessionToken("internalSessionToken");
+        session.setAuthenticated(true);
+        session.setEnvironment(Environment.LOCAL);
+        session.setIpAddress("1.2.3.4");
+        session.setAppId(TEST_APP_ID);
+        session.setConsentStatuses(ImmutableMap.of(guid, status));
+        return session;
+    }
+}
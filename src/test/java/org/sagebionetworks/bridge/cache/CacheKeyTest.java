@@ -35,6 +35,21 @@ public class CacheKeyTest {
                 "test-org-id:test-app:OrgSponsoredStudies");
     }
     
+    @Test
+    public void activityEventMap() {
+        assertEquals(CacheKey.activityEventMap("healthCode", null).toString(), "healthCode:ActivityEventMap");
+        assertEquals(CacheKey.activityEventMap("healthCode", "studyId").toString(),
+                "healthCode:studyId:ActivityEventMap");
+    }
+    
+    @Test
+    public void activityEventMapVersion() {
+        assertEquals(CacheKey.activityEventMapVersion("healthCode", null).toString(),
+                "healthCode:ActivityEventMapVersion");
+        assertEquals(CacheKey.activityEventMapVersion("healthCode", "studyId").toString(),
+                "healthCode:studyId:ActivityEventMapVersion");
+    }
+    
     @Test
     public void tagList() { 
         assertEquals(CacheKey.tagList().toString(), "TagList");
@@ -1,7 +1,10 @@
 package org.sagebionetworks.bridge.cache;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.doReturn;
@@ -9,6 +12,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
@@ -33,10 +37,12 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.crypto.AesGcmEncryptor;
 import org.sagebionetworks.bridge.crypto.Encryptor;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
@@ -49,6 +55,7 @@ import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -528,6 +535,299 @@ public class CacheProviderTest {
         verify(transaction).exec();
     }
     
+    @Test
+    public void setUserSessionUpdatesLocalSessionCache() throws Exception {
+        LocalSessionCache mockLocalSessionCache = mock(LocalSessionCache.class);
+        when(mockLocalSessionCache.isEnabled()).thenReturn(true);
+        cacheProvider.setLocalSessionCache(mockLocalSessionCache);
+        
+        UserSession session = createUserSession();
+        cacheProvider.setUserSession(session);
+        
+        verify(mockLocalSessionCache).invalidate(USER_ID);
+        verify(mockLocalSessionCache).put(session);
+    }
+    
+    @Test
+    public void removeSessionInvalidatesLocalSessionCache() throws Exception {
+        LocalSessionCache mockLocalSessionCache = mock(LocalSessionCache.class);
+        when(mockLocalSessionCache.isEnabled()).thenReturn(true);
+        cacheProvider.setLocalSessionCache(mockLocalSessionCache);
+        
+        cacheProvider.removeSession(createUserSession());
+        
+        verify(mockLocalSessionCache).invalidate(USER_ID);
+    }
+    
+    @Test
+    public void getUserSessionFromLocalSessionCache() throws Exception {
+        LocalSessionCache mockLocalSessionCache = mock(LocalSessionCache.class);
+        when(mockLocalSessionCache.isEnabled()).thenReturn(true);
+        UserSession session = createUserSession();
+        when(mockLocalSessionCache.get(DECRYPTED_SESSION_TOKEN)).thenReturn(session);
+        cacheProvider.setLocalSessionCache(mockLocalSessionCache);
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved, session);
+        
+        verify(jedisOps, never()).get(anyString());
+        verify(mockLocalSessionCache, never()).put(any());
+        verify(mockLocalSessionCache, never()).put(any(), anyLong());
+    }
+    
+    @Test
+    public void getUserSessionMissesLocalSessionCache() throws Exception {
+        LocalSessionCache mockLocalSessionCache = mock(LocalSessionCache.class);
+        when(mockLocalSessionCache.isEnabled()).thenReturn(true);
+        cacheProvider.setLocalSessionCache(mockLocalSessionCache);
+        
+        UserSession session = createUserSession();
+        when(jedisOps.get(USER_ID_TO_SESSION.toString()))
+                .thenReturn(StudyParticipant.CACHE_WRITER.writeValueAsString(session));
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        
+        verify(mockLocalSessionCache).put(retrieved, 0L);
+        verify(mockLocalSessionCache, never()).compare(any(), any(), any());
+    }
+    
+    @Test
+    public void getUserSessionInvalidatedDuringReadIsNotCachedLocally() throws Exception {
+        LocalCacheTestFixture fixture = new LocalCacheTestFixture(LocalSessionCache.ENABLED_PROPERTY,
+                LocalSessionCache.MAX_SIZE_PROPERTY, LocalSessionCache.EXPIRE_PROPERTY);
+        LocalSessionCache localSessionCache = new LocalSessionCache();
+        localSessionCache.setLocalCacheManager(fixture.localCacheManager);
+        localSessionCache.setBridgeConfig(fixture.mockConfig);
+        localSessionCache.init();
+        cacheProvider.setLocalSessionCache(localSessionCache);
+        
+        // Another server invalidates the session after it has been read from Redis, but before it is cached here.
+        String ser = StudyParticipant.CACHE_WRITER.writeValueAsString(createUserSession());
+        when(jedisOps.get(USER_ID_TO_SESSION.toString())).thenAnswer(invocation -> {
+            fixture.receiveInvalidation(LocalSessionCache.SESSION_CACHE_NAME, USER_ID);
+            return ser;
+        }).thenReturn(ser);
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertNull(localSessionCache.get(DECRYPTED_SESSION_TOKEN));
+        assertEquals(fixture.stats(LocalSessionCache.SESSION_CACHE_NAME).getCounters()
+                .get(InvalidatingLocalCache.OUTDATED_LOAD_COUNTER), Long.valueOf(1L));
+        
+        // The next read is cached, and the session after that is served from this server.
+        cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        verify(jedisOps, times(2)).get(USER_ID_TO_SESSION.toString());
+    }
+    
+    @Test
+    public void getUserSessionInShadowModeReadsRedis() throws Exception {
+        LocalSessionCache mockLocalSessionCache = mock(LocalSessionCache.class);
+        when(mockLocalSessionCache.isEnabled()).thenReturn(true);
+        when(mockLocalSessionCache.isShadowMode()).thenReturn(true);
+        UserSession localSession = createUserSession();
+        when(mockLocalSessionCache.get(DECRYPTED_SESSION_TOKEN)).thenReturn(localSession);
+        cacheProvider.setLocalSessionCache(mockLocalSessionCache);
+        
+        when(jedisOps.get(USER_ID_TO_SESSION.toString()))
+                .thenReturn(StudyParticipant.CACHE_WRITER.writeValueAsString(localSession));
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        
+        verify(jedisOps).get(TOKEN_TO_USER_ID.toString());
+        verify(jedisOps).get(USER_ID_TO_SESSION.toString());
+        verify(mockLocalSessionCache).compare(DECRYPTED_SESSION_TOKEN, localSession, retrieved);
+        verify(mockLocalSessionCache).put(retrieved, 0L);
+    }
+    
+    @Test
+    public void getUserSessionNotFoundIsNotCachedLocally() throws Exception {
+        LocalSessionCache mockLocalSessionCache = mock(LocalSessionCache.class);
+        when(mockLocalSessionCache.isEnabled()).thenReturn(true);
+        cacheProvider.setLocalSessionCache(mockLocalSessionCache);
+        
+        assertNull(cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN));
+        
+        verify(mockLocalSessionCache, never()).put(any(), anyLong());
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getUserSessionWithScript() throws Exception {
+        Jedis mockJedis = mockSessionScripts();
+        UserSession session = createUserSession();
+        byte[] ser = StudyParticipant.CACHE_WRITER.writeValueAsBytes(session);
+        when(mockJedis.evalsha(any(byte[].class), any(List.class), any(List.class))).thenReturn(ser);
+        
+        UserSession retrieved = cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(retrieved.getId(), USER_ID);
+        
+        ArgumentCaptor<List> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockJedis).evalsha(aryEq(bytes(CacheProvider.GET_SESSION_SCRIPT.getSha())), keysCaptor.capture(),
+                argsCaptor.capture());
+        assertEquals(strings(keysCaptor.getValue()), ImmutableList.of(TOKEN_TO_USER_ID.toString()));
+        assertEquals(strings(argsCaptor.getValue()), ImmutableList.of(":session2:user"));
+        
+        verify(jedisOps, never()).get(anyString());
+        verify(mockJedis).close();
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getUserSessionWithScriptTokenMismatch() throws Exception {
+        Jedis mockJedis = mockSessionScripts();
+        UserSession session = createUserSession();
+        session.setSessionToken("anotherSessionToken");
+        byte[] ser = StudyParticipant.CACHE_WRITER.writeValueAsBytes(session);
+        when(mockJedis.evalsha(any(byte[].class), any(List.class), any(List.class))).thenReturn(ser);
+        
+        assertNull(cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN));
+        
+        verify(jedisOps).del(TOKEN_TO_USER_ID.toString());
+    }
+    
+    @Test
+    public void getUserSessionWithScriptNotFound() throws Exception {
+        mockSessionScripts();
+        
+        assertNull(cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN));
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void getUserSessionWithScriptError() throws Exception {
+        Jedis mockJedis = mockSessionScripts();
+        when(mockJedis.evalsha(any(byte[].class), any(List.class), any(List.class)))
+                .thenThrow(new RuntimeException());
+        
+        cacheProvider.getUserSession(DECRYPTED_SESSION_TOKEN);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void setUserSessionWithScript() throws Exception {
+        Jedis mockJedis = mockSessionScripts();
+        when(mockJedis.evalsha(any(byte[].class), any(List.class), any(List.class))).thenReturn(100L);
+        cacheProvider.setSessionExpireInSeconds(200);
+        
+        UserSession session = createUserSession();
+        cacheProvider.setUserSession(session);
+        
+        ArgumentCaptor<List> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockJedis).evalsha(aryEq(bytes(CacheProvider.SET_SESSION_SCRIPT.getSha())), keysCaptor.capture(),
+                argsCaptor.capture());
+        assertEquals(strings(keysCaptor.getValue()),
+                ImmutableList.of(TOKEN_TO_USER_ID.toString(), USER_ID_TO_SESSION.toString()));
+        List<String> args = strings(argsCaptor.getValue());
+        assertEquals(args.get(0), USER_ID);
+        // Without the binary format, the session is still written as JSON
+        UserSession persisted = BridgeObjectMapper.get().readValue(args.get(1), UserSession.class);
+        assertEquals(persisted.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(args.get(2), "200");
+        
+        verify(jedisOps, never()).getTransaction();
+        verify(jedisOps, never()).ttl(anyString());
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void setUserSessionWithScriptFails() throws Exception {
+        mockSessionScripts();
+        
+        cacheProvider.setUserSession(createUserSession());
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void setUserSessionInBinaryFormat() throws Exception {
+        Jedis mockJedis = mockBinaryFormat();
+        when(mockJedis.evalsha(any(byte[].class), any(List.class), any(List.class))).thenReturn(100L);
+        
+        cacheProvider.setUserSession(createUserSession());
+        
+        ArgumentCaptor<List> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockJedis).evalsha(aryEq(bytes(CacheProvider.SET_SESSION_SCRIPT.getSha())), any(List.class),
+                argsCaptor.capture());
+        byte[] ser = (byte[]) argsCaptor.getValue().get(1);
+        assertTrue(CacheEncoding.isBinary(ser));
+        UserSession persisted = CacheEncoding.decode(ser, UserSession.class);
+        assertEquals(persisted.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(persisted.getParticipant().getHealthCode(), "healthCode");
+        
+        verify(jedisOps, never()).getTransaction();
+    }
+    
+    @Test
+    public void getUserSessionByUserIdInBinaryFormat() throws Exception {
+        Jedis mockJedis = mockBinaryFormat();
+        byte[] ser = CacheEncoding.encode(StudyParticipant.CACHE_WRITER, createUserSession());
+        when(mockJedis.get(aryEq(bytes(USER_ID_TO_SESSION.toString())))).thenReturn(ser);
+        
+        UserSession session = cacheProvider.getUserSessionByUserId(USER_ID);
+        assertEquals(session.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+        assertEquals(session.getParticipant().getHealthCode(), "healthCode");
+        
+        verify(jedisOps, never()).get(anyString());
+    }
+    
+    @Test
+    public void getUserSessionByUserIdReadsLegacyJsonWithBinaryFormat() throws Exception {
+        Jedis mockJedis = mockBinaryFormat();
+        byte[] ser = StudyParticipant.CACHE_WRITER.writeValueAsBytes(createUserSession());
+        when(mockJedis.get(aryEq(bytes(USER_ID_TO_SESSION.toString())))).thenReturn(ser);
+        
+        UserSession session = cacheProvider.getUserSessionByUserId(USER_ID);
+        assertEquals(session.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+    }
+    
+    @Test
+    public void getUserSessionByUserIdReadsBinaryFormatWhenDisabled() throws Exception {
+        // A server that is not writing the binary format must still read sessions written by one that is.
+        Jedis mockJedis = mockSessionScripts();
+        byte[] ser = CacheEncoding.encode(StudyParticipant.CACHE_WRITER, createUserSession());
+        when(jedisOps.get(USER_ID_TO_SESSION.toString())).thenReturn(new String(ser, UTF_8));
+        when(mockJedis.get(aryEq(bytes(USER_ID_TO_SESSION.toString())))).thenReturn(ser);
+        
+        UserSession session = cacheProvider.getUserSessionByUserId(USER_ID);
+        assertEquals(session.getSessionToken(), DECRYPTED_SESSION_TOKEN);
+    }
+    
+    private Jedis mockSessionScripts() {
+        return mockConfig(false);
+    }
+    
+    private Jedis mockBinaryFormat() {
+        return mockConfig(true);
+    }
+    
+    private Jedis mockConfig(boolean binaryFormat) {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.get(CacheProvider.SESSION_SCRIPTS_PROPERTY)).thenReturn("true");
+        when(mockConfig.get(CacheProvider.BINARY_FORMAT_PROPERTY)).thenReturn(Boolean.toString(binaryFormat));
+        cacheProvider.setBridgeConfig(mockConfig);
+        
+        Jedis mockJedis = mock(Jedis.class);
+        JedisPool mockPool = mock(JedisPool.class);
+        when(mockPool.getResource()).thenReturn(mockJedis);
+        cacheProvider.setJedisPool(mockPool);
+        return mockJedis;
+    }
+    
+    private static byte[] bytes(String value) {
+        return value.getBytes(UTF_8);
+    }
+    
+    private static List<String> strings(List<?> values) {
+        List<String> strings = Lists.newArrayList();
+        for (Object value : values) {
+            strings.add(new String((byte[]) value, UTF_8));
+        }
+        return strings;
+    }
+    
     @Test
     public void testSetUserSessionNullSessionToken() throws Exception {
         StudyParticipant participant = new StudyParticipant.Builder()
@@ -612,6 +912,42 @@ public class CacheProviderTest {
         verify(jedisOps).expire(TEST_ID_KEY, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
     }
 
+    @Test
+    public void setAppInBinaryFormat() throws Exception {
+        Jedis mockJedis = mockBinaryFormat();
+        when(mockJedis.setex(any(byte[].class), anyInt(), any(byte[].class))).thenReturn("OK");
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        
+        cacheProvider.setApp(app);
+        
+        ArgumentCaptor<byte[]> serCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockJedis).setex(aryEq(bytes(TEST_ID_KEY)), eq(BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS),
+                serCaptor.capture());
+        assertEquals(CacheEncoding.decode(serCaptor.getValue(), App.class), app);
+        verify(jedisOps, never()).setex(anyString(), anyInt(), anyString());
+    }
+    
+    @Test
+    public void getAppInBinaryFormat() throws Exception {
+        Jedis mockJedis = mockBinaryFormat();
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(mockJedis.get(aryEq(bytes(TEST_ID_KEY))))
+                .thenReturn(CacheEncoding.encode(BridgeObjectMapper.get().writer(), app));
+        
+        assertEquals(cacheProvider.getApp(TEST_APP_ID), app);
+        
+        verify(jedisOps).expire(TEST_ID_KEY, BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void getAppNotFoundDoesNotResetExpiration() {
+        assertNull(cacheProvider.getApp(TEST_APP_ID));
+        
+        verify(jedisOps, never()).expire(anyString(), anyInt());
+    }
+
     @Test
     public void removeApp() {
         cacheProvider.removeApp(TEST_APP_ID);
@@ -0,0 +1,162 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+
+import java.util.function.Supplier;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+public class InvalidatingLocalCacheTest {
+    private static final String CACHE_NAME = "TestCache";
+    private static final String GROUP = "group";
+    private static final String GLOBAL_GROUP = "global";
+
+    private LocalCacheTestFixture fixture;
+
+    private InvalidatingLocalCache<AppConfig> cache;
+
+    private Supplier<AppConfig> loader;
+
+    @BeforeMethod
+    public void before() {
+        fixture = new LocalCacheTestFixture("enabled", "maxSize", "expire");
+        cache = new InvalidatingLocalCache<>(fixture.localCacheManager, CACHE_NAME, LocalCacheTestFixture.MAX_SIZE,
+                LocalCacheTestFixture.EXPIRE_SECONDS, BridgeObjectMapper.get().constructType(AppConfig.class),
+                GLOBAL_GROUP);
+        loader = fixture.countingLoader(() -> {
+            AppConfig appConfig = AppConfig.create();
+            appConfig.setLabel("label");
+            return appConfig;
+        });
+    }
+
+    @Test
+    public void valueIsCachedAsCopies() {
+        cache.get(GROUP, "a", loader);
+        AppConfig first = cache.get(GROUP, "a", loader);
+        AppConfig second = cache.get(GROUP, "a", loader);
+
+        assertEquals(fixture.loads.get(), 1);
+        assertEquals(first.getLabel(), "label");
+        assertNotSame(second, first);
+
+        // Changing a copy does not change the cache.
+        first.setLabel("changed");
+        assertEquals(cache.get(GROUP, "a", loader).getLabel(), "label");
+    }
+
+    @Test
+    public void nullAndUncacheableValuesAreNotCached() {
+        Supplier<AppConfig> missingLoader = fixture.countingLoader(() -> null);
+        assertNull(cache.get(GROUP, "a", missingLoader));
+        cache.get(GROUP, "b", loader, value -> false);
+        cache.get(GROUP, "b", loader, value -> false);
+
+        cache.get(GROUP, "a", loader);
+        assertEquals(fixture.loads.get(), 4);
+    }
+
+    @Test
+    public void invalidateRemovesOnlyTheGroup() {
+        cache.get(GROUP, "a", loader);
+        cache.get(GROUP, "b", loader);
+        // Starts with the same characters, but is another group.
+        cache.get(GROUP + "2", "a", loader);
+
+        cache.invalidate(GROUP);
+        fixture.verifyPublished(CACHE_NAME, GROUP);
+
+        cache.get(GROUP, "a", loader);
+        cache.get(GROUP, "b", loader);
+        cache.get(GROUP + "2", "a", loader);
+        assertEquals(fixture.loads.get(), 5);
+        assertEquals(fixture.stats(CACHE_NAME).getCounters().get(InvalidatingLocalCache.INVALIDATION_COUNTER),
+                Long.valueOf(1L));
+    }
+
+    @Test
+    public void invalidationFromOtherServer() {
+        cache.get(GROUP, "a", loader);
+
+        fixture.receiveInvalidation(CACHE_NAME, GROUP);
+
+        cache.get(GROUP, "a", loader);
+        assertEquals(fixture.loads.get(), 2);
+        fixture.verifyNotPublished(CACHE_NAME, GROUP);
+    }
+
+    @Test
+    public void invalidateGlobalGroupRemovesEverything() {
+        cache.get(GROUP, "a", loader);
+        cache.get("otherGroup", "a", loader);
+
+        cache.invalidate(GLOBAL_GROUP);
+
+        cache.get(GROUP, "a", loader);
+        cache.get("otherGroup", "a", loader);
+        assertEquals(fixture.loads.get(), 4);
+    }
+
+    @Test
+    public void loadOutdatedByInvalidationIsNotCached() {
+        Supplier<AppConfig> racingLoader = () -> {
+            AppConfig appConfig = loader.get();
+            fixture.receiveInvalidation(CACHE_NAME, GROUP);
+            return appConfig;
+        };
+        assertEquals(cache.get(GROUP, "a", racingLoader).getLabel(), "label");
+
+        cache.get(GROUP, "a", loader);
+        cache.get(GROUP, "a", loader);
+        assertEquals(fixture.loads.get(), 2);
+        assertEquals(fixture.stats(CACHE_NAME).getCounters().get(InvalidatingLocalCache.OUTDATED_LOAD_COUNTER),
+                Long.valueOf(1L));
+    }
+
+    @Test
+    public void loadOutdatedByGlobalInvalidationIsNotCached() {
+        Supplier<AppConfig> racingLoader = () -> {
+            AppConfig appConfig = loader.get();
+            fixture.receiveInvalidation(CACHE_NAME, GLOBAL_GROUP);
+            return appConfig;
+        };
+        cache.get(GROUP, "a", racingLoader);
+
+        cache.get(GROUP, "a", loader);
+        cache.get(GROUP, "a", loader);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void missingEntriesAreCachedUntilInvalidated() {
+        InvalidatingLocalCache<AppConfig> missingCache = new InvalidatingLocalCache<>(fixture.localCacheManager,
+                "MissingTestCache", LocalCacheTestFixture.MAX_SIZE, LocalCacheTestFixture.EXPIRE_SECONDS,
+                BridgeObjectMapper.get().constructType(AppConfig.class), null, 30);
+        Supplier<AppConfig> missingLoader = fixture.countingLoader(() -> null);
+
+        assertNull(missingCache.get(GROUP, "a", missingLoader));
+        assertNull(missingCache.get(GROUP, "a", missingLoader));
+        assertEquals(fixture.loads.get(), 1);
+
+        // Once the entry is added, it is found.
+        missingCache.invalidate(GROUP);
+        assertEquals(missingCache.get(GROUP, "a", loader).getLabel(), "label");
+        missingCache.get(GROUP, "a", loader);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void loadAfterInvalidationIsCached() {
+        cache.invalidate(GROUP);
+
+        cache.get(GROUP, "a", loader);
+        cache.get(GROUP, "a", loader);
+        assertEquals(fixture.loads.get(), 1);
+    }
+}
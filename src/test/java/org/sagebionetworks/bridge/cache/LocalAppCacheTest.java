@@ -0,0 +1,247 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.joda.time.DateTimeUtils;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.models.apps.App;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class LocalAppCacheTest {
+    private static final long NOW = 1600000000000L;
+
+    @Mock
+    private BridgeConfig mockConfig;
+
+    @Mock
+    private JedisPool mockJedisPool;
+
+    @Mock
+    private Jedis mockJedis;
+
+    private LocalCacheManager localCacheManager;
+
+    private LocalAppCache cache;
+
+    private List<String> loads;
+
+    private App app;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+        when(mockConfig.get(LocalAppCache.ENABLED_PROPERTY)).thenReturn("true");
+        when(mockConfig.getInt(LocalAppCache.MAX_SIZE_PROPERTY)).thenReturn(10);
+        when(mockConfig.getInt(LocalAppCache.REFRESH_PROPERTY)).thenReturn(30);
+        when(mockConfig.getInt(LocalAppCache.EXPIRE_PROPERTY)).thenReturn(300);
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+
+        localCacheManager = new LocalCacheManager();
+        localCacheManager.setJedisPool(mockJedisPool);
+
+        cache = new LocalAppCache();
+        cache.setLocalCacheManager(localCacheManager);
+        // Refreshes run in the calling thread
+        cache.setAsyncExecutorService(MoreExecutors.newDirectExecutorService());
+        cache.setBridgeConfig(mockConfig);
+        cache.init();
+
+        loads = Lists.newArrayList();
+        app = createApp(1L);
+    }
+
+    @AfterMethod
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    private App createApp(Long version) {
+        App app = TestUtils.getValidApp(LocalAppCacheTest.class);
+        app.setIdentifier(TEST_APP_ID);
+        app.setVersion(version);
+        return app;
+    }
+
+    private Function<String, App> loader(App app) {
+        return (appId) -> {
+            loads.add(appId);
+            return app;
+        };
+    }
+
+    private LocalCacheStats stats() {
+        return localCacheManager.getStats().get(LocalAppCache.APP_CACHE_NAME);
+    }
+
+    @Test
+    public void disabled() {
+        LocalCacheManager mockManager = mock(LocalCacheManager.class);
+        when(mockConfig.get(LocalAppCache.ENABLED_PROPERTY)).thenReturn("false");
+
+        LocalAppCache cache = new LocalAppCache();
+        cache.setLocalCacheManager(mockManager);
+        cache.setBridgeConfig(mockConfig);
+        cache.init();
+
+        assertFalse(cache.isEnabled());
+        verify(mockManager, never()).newCache(anyString(), anyLong(), anyLong());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void refreshMustBeShorterThanExpiration() {
+        when(mockConfig.getInt(LocalAppCache.REFRESH_PROPERTY)).thenReturn(300);
+
+        LocalAppCache cache = new LocalAppCache();
+        cache.setLocalCacheManager(new LocalCacheManager());
+        cache.setBridgeConfig(mockConfig);
+        cache.init();
+    }
+
+    @Test
+    public void getLoadsAndCachesCopy() {
+        App first = cache.get(TEST_APP_ID, loader(app));
+        App second = cache.get(TEST_APP_ID, loader(app));
+        App third = cache.get(TEST_APP_ID, loader(app));
+
+        assertEquals(loads, Lists.newArrayList(TEST_APP_ID));
+        assertEquals(second, app);
+        assertNotSame(second, third);
+
+        // Changing a copy does not change the cached app
+        second.setName("Changed name");
+        assertEquals(cache.get(TEST_APP_ID, loader(app)).getName(), first.getName());
+
+        LocalCacheStats stats = stats();
+        assertEquals(stats.getHitCount(), 3L);
+        assertEquals(stats.getMissCount(), 1L);
+    }
+
+    @Test
+    public void getDoesNotCacheMissingApp() {
+        assertNull(cache.get(TEST_APP_ID, loader(null)));
+        assertNull(cache.get(TEST_APP_ID, loader(null)));
+
+        assertEquals(loads.size(), 2);
+    }
+
+    @Test
+    public void getRefreshesAfterInterval() {
+        cache.get(TEST_APP_ID, loader(app));
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + 40000L);
+        App updated = createApp(2L);
+        updated.setName("Updated name");
+
+        // The cached app is returned while it is refreshed
+        App retrieved = cache.get(TEST_APP_ID, loader(updated));
+        assertEquals(retrieved.getVersion(), Long.valueOf(1L));
+        assertEquals(cache.get(TEST_APP_ID, loader(updated)).getName(), "Updated name");
+
+        assertEquals(loads.size(), 2);
+        LocalCacheStats stats = stats();
+        assertEquals(stats.getCounters().get(LocalAppCache.REFRESH_COUNTER), Long.valueOf(1L));
+        assertEquals(stats.getCounters().get(LocalAppCache.STALE_READ_COUNTER), Long.valueOf(1L));
+        assertEquals(stats.getCounters().get(LocalAppCache.STALE_READ_AGE_COUNTER), Long.valueOf(40000L));
+    }
+
+    @Test
+    public void getDropsAppWhenRefreshFails() {
+        cache.get(TEST_APP_ID, loader(app));
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + 40000L);
+        cache.get(TEST_APP_ID, (appId) -> {
+            throw new EntityNotFoundException(App.class);
+        });
+        assertEquals(stats().getCounters().get(LocalAppCache.REFRESH_FAILURE_COUNTER), Long.valueOf(1L));
+
+        cache.get(TEST_APP_ID, loader(app));
+        assertEquals(loads.size(), 2);
+    }
+
+    @Test
+    public void invalidate() {
+        cache.get(TEST_APP_ID, loader(app));
+
+        cache.invalidate(TEST_APP_ID, 2L);
+
+        verify(mockJedis).publish(LocalCacheManager.INVALIDATION_CHANNEL,
+                localCacheManager.getNodeId() + "|" + LocalAppCache.APP_CACHE_NAME + "|" + TEST_APP_ID + "|2");
+
+        // An outdated app (e.g. from a load that started before the update) is not cached
+        cache.get(TEST_APP_ID, loader(app));
+        cache.get(TEST_APP_ID, loader(app));
+        assertEquals(loads.size(), 3);
+        assertEquals(stats().getCounters().get(LocalAppCache.OUTDATED_VERSION_COUNTER), Long.valueOf(2L));
+
+        // The updated app is cached
+        App updated = createApp(2L);
+        cache.get(TEST_APP_ID, loader(updated));
+        cache.get(TEST_APP_ID, loader(updated));
+        assertEquals(loads.size(), 4);
+    }
+
+    @Test
+    public void invalidateDeletedApp() {
+        cache.get(TEST_APP_ID, loader(app));
+
+        cache.invalidate(TEST_APP_ID, null);
+
+        verify(mockJedis).publish(LocalCacheManager.INVALIDATION_CHANNEL, localCacheManager.getNodeId() + "|"
+                + LocalAppCache.APP_CACHE_NAME + "|" + TEST_APP_ID + "|" + Long.MAX_VALUE);
+        cache.get(TEST_APP_ID, loader(app));
+        assertEquals(loads.size(), 2);
+    }
+
+    @Test
+    public void invalidatedByOtherServer() {
+        cache.get(TEST_APP_ID, loader(app));
+
+        localCacheManager.onMessage("other-node|" + LocalAppCache.APP_CACHE_NAME + "|" + TEST_APP_ID + "|2");
+
+        cache.get(TEST_APP_ID, loader(createApp(2L)));
+        assertEquals(loads.size(), 2);
+        assertEquals(stats().getCounters().get(LocalAppCache.INVALIDATION_COUNTER), Long.valueOf(1L));
+    }
+
+    @Test
+    public void invalidationOfOlderVersionIgnored() {
+        App updated = createApp(3L);
+        cache.get(TEST_APP_ID, loader(updated));
+
+        cache.onInvalidation(TEST_APP_ID + "|2");
+        cache.onInvalidation("malformed");
+        cache.onInvalidation(TEST_APP_ID + "|malformed");
+
+        cache.get(TEST_APP_ID, loader(updated));
+        assertEquals(loads.size(), 1);
+        assertTrue(stats().getSize() > 0L);
+    }
+}
@@ -0,0 +1,149 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.BridgeConstants.SHARED_APP_ID;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+public class LocalAppConfigCacheTest {
+    private static final String CONFIG_GUID = "configGuid";
+    private static final String OTHER_APP_ID = "otherApp";
+    private static final long MODIFIED_ON = 1000L;
+
+    private LocalCacheTestFixture fixture;
+
+    private LocalAppConfigCache cache;
+
+    private Supplier<AppConfig> resolver;
+
+    @BeforeMethod
+    public void before() {
+        fixture = new LocalCacheTestFixture(LocalAppConfigCache.ENABLED_PROPERTY,
+                LocalAppConfigCache.MAX_SIZE_PROPERTY, LocalAppConfigCache.EXPIRE_PROPERTY);
+        cache = createCache();
+        resolver = fixture.countingLoader(() -> {
+            AppConfig resolved = createAppConfig();
+            resolved.setConfigElements(ImmutableMap.of("clientData", TestUtils.getClientData()));
+            return resolved;
+        });
+    }
+
+    private LocalAppConfigCache createCache() {
+        LocalAppConfigCache cache = new LocalAppConfigCache();
+        cache.setLocalCacheManager(fixture.localCacheManager);
+        cache.setBridgeConfig(fixture.mockConfig);
+        cache.init();
+        return cache;
+    }
+
+    private static AppConfig createAppConfig() {
+        AppConfig appConfig = AppConfig.create();
+        appConfig.setAppId(TEST_APP_ID);
+        appConfig.setGuid(CONFIG_GUID);
+        appConfig.setLabel("label");
+        appConfig.setModifiedOn(MODIFIED_ON);
+        return appConfig;
+    }
+
+    @Test
+    public void appConfigIsCached() {
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        AppConfig first = cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        AppConfig second = cache.get(TEST_APP_ID, createAppConfig(), resolver);
+
+        assertEquals(fixture.loads.get(), 1);
+        assertEquals(first.getAppId(), TEST_APP_ID);
+        assertEquals(first.getGuid(), CONFIG_GUID);
+        assertEquals(first.getLabel(), "label");
+        assertEquals(first.getConfigElements().get("clientData"), TestUtils.getClientData());
+
+        // Every caller gets its own copy.
+        assertNotSame(second, first);
+    }
+
+    @Test
+    public void modifiedAppConfigIsResolvedAgain() {
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+
+        AppConfig appConfig = createAppConfig();
+        appConfig.setModifiedOn(MODIFIED_ON + 1);
+        cache.get(TEST_APP_ID, appConfig, resolver);
+
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void unsavedAppConfigIsNotCached() {
+        AppConfig appConfig = createAppConfig();
+        appConfig.setGuid(null);
+
+        cache.get(TEST_APP_ID, appConfig, resolver);
+        cache.get(TEST_APP_ID, appConfig, resolver);
+
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void invalidate() {
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        cache.get(OTHER_APP_ID, createAppConfig(), resolver);
+
+        cache.invalidate(TEST_APP_ID);
+        fixture.verifyPublished(LocalAppConfigCache.APP_CONFIG_CACHE_NAME, TEST_APP_ID);
+
+        // The app's config is resolved again, but not the other app's config.
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        cache.get(OTHER_APP_ID, createAppConfig(), resolver);
+        assertEquals(fixture.loads.get(), 3);
+    }
+
+    @Test
+    public void invalidateSharedAppClearsAllApps() {
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        cache.get(OTHER_APP_ID, createAppConfig(), resolver);
+
+        fixture.receiveInvalidation(LocalAppConfigCache.APP_CONFIG_CACHE_NAME, SHARED_APP_ID);
+
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        cache.get(OTHER_APP_ID, createAppConfig(), resolver);
+        assertEquals(fixture.loads.get(), 4);
+    }
+
+    @Test
+    public void resolutionOutdatedByInvalidationIsNotCached() {
+        // A referenced survey is changed on another server while this server resolves the app config.
+        Supplier<AppConfig> racingResolver = () -> {
+            AppConfig resolved = resolver.get();
+            fixture.receiveInvalidation(LocalAppConfigCache.APP_CONFIG_CACHE_NAME, TEST_APP_ID);
+            return resolved;
+        };
+        cache.get(TEST_APP_ID, createAppConfig(), racingResolver);
+
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void disabled() {
+        when(fixture.mockConfig.get(LocalAppConfigCache.ENABLED_PROPERTY)).thenReturn("false");
+        cache = createCache();
+
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        cache.get(TEST_APP_ID, createAppConfig(), resolver);
+        cache.invalidate(TEST_APP_ID);
+
+        assertEquals(fixture.loads.get(), 2);
+        fixture.verifyNotPublished(LocalAppConfigCache.APP_CONFIG_CACHE_NAME, TEST_APP_ID);
+    }
+}
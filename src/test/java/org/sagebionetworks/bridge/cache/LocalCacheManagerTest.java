@@ -0,0 +1,145 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.Lists;
+
+public class LocalCacheManagerTest {
+    private static final String CACHE_NAME = "TestCache";
+
+    @Mock
+    private JedisPool mockJedisPool;
+
+    @Mock
+    private Jedis mockJedis;
+
+    private LocalCacheManager manager;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+
+        manager = new LocalCacheManager();
+        manager.setJedisPool(mockJedisPool);
+    }
+
+    @Test
+    public void newCacheRecordsStats() {
+        Cache<String, String> cache = manager.newCache(CACHE_NAME, 10, 60);
+        cache.put("key", "value");
+        cache.getIfPresent("key");
+        cache.getIfPresent("other-key");
+        manager.incrementCounter(CACHE_NAME, "counter");
+        manager.incrementCounter(CACHE_NAME, "counter");
+
+        Map<String, LocalCacheStats> stats = manager.getStats();
+        LocalCacheStats cacheStats = stats.get(CACHE_NAME);
+        assertEquals(cacheStats.getSize(), 1L);
+        assertEquals(cacheStats.getHitCount(), 1L);
+        assertEquals(cacheStats.getMissCount(), 1L);
+        assertEquals(cacheStats.getEvictionCount(), 0L);
+        assertEquals(cacheStats.getHitRate(), 0.5);
+        assertEquals(cacheStats.getCounters().get("counter"), Long.valueOf(2L));
+    }
+
+    @Test
+    public void newCacheEvictsOverMaximumSize() {
+        Cache<String, String> cache = manager.newCache(CACHE_NAME, 1, 60);
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+
+        assertEquals(manager.getStats().get(CACHE_NAME).getEvictionCount(), 1L);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void newCacheRejectsDuplicateName() {
+        manager.newCache(CACHE_NAME, 10, 60);
+        manager.newCache(CACHE_NAME, 10, 60);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void newCacheRejectsInvalidSize() {
+        manager.newCache(CACHE_NAME, 0, 60);
+    }
+
+    @Test
+    public void publishInvalidation() {
+        manager.publishInvalidation(CACHE_NAME, "key");
+
+        verify(mockJedis).publish(LocalCacheManager.INVALIDATION_CHANNEL,
+                manager.getNodeId() + "|" + CACHE_NAME + "|key");
+        verify(mockJedis).close();
+    }
+
+    @Test
+    public void publishInvalidationFailureIsNotThrown() {
+        doThrow(new RuntimeException()).when(mockJedis).publish(anyString(), anyString());
+
+        manager.publishInvalidation(CACHE_NAME, "key");
+    }
+
+    @Test
+    public void onMessageFromOtherServerCallsListener() {
+        List<String> keys = Lists.newArrayList();
+        manager.addInvalidationListener(CACHE_NAME, keys::add);
+
+        manager.onMessage("other-node|" + CACHE_NAME + "|key|with|delimiters");
+        assertEquals(keys, Lists.newArrayList("key|with|delimiters"));
+    }
+
+    @Test
+    public void onMessageFromThisServerIgnored() {
+        List<String> keys = Lists.newArrayList();
+        manager.addInvalidationListener(CACHE_NAME, keys::add);
+
+        manager.onMessage(manager.getNodeId() + "|" + CACHE_NAME + "|key");
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test
+    public void onMessageForUnknownCacheIgnored() {
+        List<String> keys = Lists.newArrayList();
+        manager.addInvalidationListener(CACHE_NAME, keys::add);
+
+        manager.onMessage("other-node|OtherCache|key");
+        manager.onMessage("malformed message");
+        assertTrue(keys.isEmpty());
+    }
+
+    @Test
+    public void invalidationListenerEvictsEntry() {
+        Cache<String, String> cache = manager.newCache(CACHE_NAME, 10, 60);
+        manager.addInvalidationListener(CACHE_NAME, cache::invalidate);
+        cache.put("key", "value");
+
+        manager.onMessage("other-node|" + CACHE_NAME + "|key");
+        assertNull(cache.getIfPresent("key"));
+    }
+
+    @Test
+    public void stopSubscriberWhenNotSubscribed() {
+        LocalCacheManager manager = new LocalCacheManager();
+        manager.setJedisPool(mock(JedisPool.class));
+        manager.stopSubscriber();
+    }
+}
@@ -0,0 +1,69 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * The setup shared by the tests of the local caches that invalidate their entries in every server: a mock
+ * configuration that enables the cache, a cache manager that publishes to a mock Redis, and a count of loads.
+ */
+class LocalCacheTestFixture {
+    static final int MAX_SIZE = 10;
+    static final int EXPIRE_SECONDS = 300;
+    private static final String OTHER_NODE_ID = "otherNode";
+
+    final BridgeConfig mockConfig = mock(BridgeConfig.class);
+    final Jedis mockJedis = mock(Jedis.class);
+    final LocalCacheManager localCacheManager = new LocalCacheManager();
+    final AtomicInteger loads = new AtomicInteger();
+
+    LocalCacheTestFixture(String enabledProperty, String maxSizeProperty, String expireProperty) {
+        JedisPool mockJedisPool = mock(JedisPool.class);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+        localCacheManager.setJedisPool(mockJedisPool);
+
+        when(mockConfig.get(enabledProperty)).thenReturn("true");
+        when(mockConfig.getInt(maxSizeProperty)).thenReturn(MAX_SIZE);
+        when(mockConfig.getInt(expireProperty)).thenReturn(EXPIRE_SECONDS);
+    }
+
+    /** A loader that counts its calls in {@link #loads}. */
+    <T> Supplier<T> countingLoader(Supplier<T> supplier) {
+        return () -> {
+            loads.incrementAndGet();
+            return supplier.get();
+        };
+    }
+
+    /** Deliver an invalidation message, as if it were published by another server. */
+    void receiveInvalidation(String cacheName, String key) {
+        localCacheManager.onMessage(OTHER_NODE_ID + "|" + cacheName + "|" + key);
+    }
+
+    void verifyPublished(String cacheName, String key) {
+        verify(mockJedis).publish(LocalCacheManager.INVALIDATION_CHANNEL, message(cacheName, key));
+    }
+
+    void verifyNotPublished(String cacheName, String key) {
+        verify(mockJedis, never()).publish(LocalCacheManager.INVALIDATION_CHANNEL, message(cacheName, key));
+    }
+
+    /** The statistics of the named cache, with its counters. */
+    LocalCacheStats stats(String cacheName) {
+        return localCacheManager.getStats().get(cacheName);
+    }
+
+    private String message(String cacheName, String key) {
+        return localCacheManager.getNodeId() + "|" + cacheName + "|" + key;
+    }
+}
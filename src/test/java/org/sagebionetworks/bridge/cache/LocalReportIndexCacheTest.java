@@ -0,0 +1,162 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.reports.ReportDataKey;
+import org.sagebionetworks.bridge.models.reports.ReportIndex;
+import org.sagebionetworks.bridge.models.reports.ReportType;
+
+public class LocalReportIndexCacheTest {
+    private static final String IDENTIFIER = "report";
+    private static final ReportDataKey KEY = new ReportDataKey.Builder().withAppId(TEST_APP_ID)
+            .withReportType(ReportType.PARTICIPANT).withHealthCode("healthCode").withIdentifier(IDENTIFIER).build();
+    private static final ReportDataKey OTHER_PARTICIPANT_KEY = new ReportDataKey.Builder().withAppId(TEST_APP_ID)
+            .withReportType(ReportType.PARTICIPANT).withHealthCode("otherHealthCode").withIdentifier(IDENTIFIER)
+            .build();
+    private static final ReportDataKey STUDY_KEY = new ReportDataKey.Builder().withAppId(TEST_APP_ID)
+            .withReportType(ReportType.STUDY).withIdentifier(IDENTIFIER).build();
+    private static final String GROUP = TEST_APP_ID + ":PARTICIPANT|" + IDENTIFIER;
+
+    private LocalCacheTestFixture fixture;
+
+    private LocalReportIndexCache cache;
+
+    private Supplier<ReportIndex> loader;
+
+    private Supplier<ReportIndex> missingLoader;
+
+    @BeforeMethod
+    public void before() {
+        fixture = new LocalCacheTestFixture(LocalReportIndexCache.ENABLED_PROPERTY,
+                LocalReportIndexCache.MAX_SIZE_PROPERTY, LocalReportIndexCache.EXPIRE_PROPERTY);
+        when(fixture.mockConfig.getInt(LocalReportIndexCache.MISSING_EXPIRE_PROPERTY)).thenReturn(30);
+        cache = createCache();
+
+        loader = fixture.countingLoader(() -> {
+            ReportIndex index = ReportIndex.create();
+            index.setKey(KEY.getIndexKeyString());
+            index.setIdentifier(IDENTIFIER);
+            index.setStudyIds(ImmutableSet.of("studyA"));
+            index.setPublic(true);
+            return index;
+        });
+        missingLoader = fixture.countingLoader(() -> null);
+    }
+
+    private LocalReportIndexCache createCache() {
+        LocalReportIndexCache cache = new LocalReportIndexCache();
+        cache.setLocalCacheManager(fixture.localCacheManager);
+        cache.setBridgeConfig(fixture.mockConfig);
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    public void indexIsCached() {
+        cache.getIndex(KEY, loader);
+        ReportIndex first = cache.getIndex(KEY, loader);
+        ReportIndex second = cache.getIndex(KEY, loader);
+
+        assertEquals(fixture.loads.get(), 1);
+        assertEquals(first.getKey(), KEY.getIndexKeyString());
+        assertEquals(first.getIdentifier(), IDENTIFIER);
+        assertEquals(first.getStudyIds(), ImmutableSet.of("studyA"));
+        assertTrue(first.isPublic());
+
+        // Every caller gets its own copy.
+        assertNotSame(second, first);
+    }
+
+    @Test
+    public void participantsShareIndex() {
+        cache.getIndex(KEY, loader);
+        cache.getIndex(OTHER_PARTICIPANT_KEY, loader);
+        cache.getIndex(STUDY_KEY, loader);
+
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void missingIndexIsCached() {
+        assertNull(cache.getIndex(KEY, missingLoader));
+        assertNull(cache.getIndex(KEY, missingLoader));
+
+        assertEquals(fixture.loads.get(), 1);
+    }
+
+    @Test
+    public void missingIndexIsCachedSeparately() {
+        cache.getIndex(KEY, missingLoader);
+        cache.getIndex(STUDY_KEY, loader);
+
+        // Reports without an index are held in their own cache, with its own (shorter) expiration.
+        assertEquals(fixture.stats(LocalReportIndexCache.CACHE_NAME).getSize(), 1L);
+        assertEquals(fixture.stats(LocalReportIndexCache.CACHE_NAME + InvalidatingLocalCache.MISSING_CACHE_SUFFIX)
+                .getSize(), 1L);
+    }
+
+    @Test
+    public void missingIndexIsNotCachedWithoutMissingExpiration() {
+        fixture = new LocalCacheTestFixture(LocalReportIndexCache.ENABLED_PROPERTY,
+                LocalReportIndexCache.MAX_SIZE_PROPERTY, LocalReportIndexCache.EXPIRE_PROPERTY);
+        cache = createCache();
+        missingLoader = fixture.countingLoader(() -> null);
+
+        assertNull(cache.getIndex(KEY, missingLoader));
+        assertNull(cache.getIndex(KEY, missingLoader));
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void invalidate() {
+        cache.getIndex(KEY, missingLoader);
+        cache.getIndex(STUDY_KEY, loader);
+
+        cache.invalidate(KEY);
+        fixture.verifyPublished(LocalReportIndexCache.CACHE_NAME, GROUP);
+
+        // The index that was added is loaded, but not the other index.
+        assertEquals(cache.getIndex(KEY, loader).getIdentifier(), IDENTIFIER);
+        cache.getIndex(STUDY_KEY, loader);
+        assertEquals(fixture.loads.get(), 3);
+    }
+
+    @Test
+    public void loadOutdatedByInvalidationIsNotCached() {
+        // The index is added on another server while this server loads it.
+        Supplier<ReportIndex> racingLoader = () -> {
+            ReportIndex index = missingLoader.get();
+            fixture.receiveInvalidation(LocalReportIndexCache.CACHE_NAME, GROUP);
+            return index;
+        };
+        assertNull(cache.getIndex(KEY, racingLoader));
+
+        cache.getIndex(KEY, loader);
+        cache.getIndex(KEY, loader);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void disabled() {
+        when(fixture.mockConfig.get(LocalReportIndexCache.ENABLED_PROPERTY)).thenReturn("false");
+        cache = createCache();
+
+        cache.getIndex(KEY, loader);
+        cache.getIndex(KEY, loader);
+        cache.invalidate(KEY);
+
+        assertEquals(fixture.loads.get(), 2);
+        fixture.verifyNotPublished(LocalReportIndexCache.CACHE_NAME, GROUP);
+    }
+}
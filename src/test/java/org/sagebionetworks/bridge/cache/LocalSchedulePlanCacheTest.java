@@ -0,0 +1,138 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.schedules.SchedulePlan;
+
+public class LocalSchedulePlanCacheTest {
+    private static final String PLAN_GUID = "planGuid";
+
+    private LocalCacheTestFixture fixture;
+
+    private LocalSchedulePlanCache cache;
+
+    private Supplier<List<SchedulePlan>> loader;
+
+    @BeforeMethod
+    public void before() {
+        fixture = new LocalCacheTestFixture(LocalSchedulePlanCache.ENABLED_PROPERTY,
+                LocalSchedulePlanCache.MAX_SIZE_PROPERTY, LocalSchedulePlanCache.EXPIRE_PROPERTY);
+        cache = createCache();
+        loader = fixture.countingLoader(() -> ImmutableList.of(createPlan()));
+    }
+
+    private LocalSchedulePlanCache createCache() {
+        LocalSchedulePlanCache cache = new LocalSchedulePlanCache();
+        cache.setLocalCacheManager(fixture.localCacheManager);
+        cache.setBridgeConfig(fixture.mockConfig);
+        cache.init();
+        return cache;
+    }
+
+    private static SchedulePlan createPlan() {
+        SchedulePlan plan = SchedulePlan.create();
+        plan.setAppId(TEST_APP_ID);
+        plan.setGuid(PLAN_GUID);
+        plan.setLabel("label");
+        plan.setVersion(2L);
+        return plan;
+    }
+
+    @Test
+    public void plansAreCached() {
+        cache.get(TEST_APP_ID, false, loader);
+        List<SchedulePlan> first = cache.get(TEST_APP_ID, false, loader);
+        List<SchedulePlan> second = cache.get(TEST_APP_ID, false, loader);
+
+        assertEquals(fixture.loads.get(), 1);
+        assertEquals(first.size(), 1);
+        assertEquals(first.get(0).getAppId(), TEST_APP_ID);
+        assertEquals(first.get(0).getGuid(), PLAN_GUID);
+        assertEquals(first.get(0).getLabel(), "label");
+        assertEquals(first.get(0).getVersion(), Long.valueOf(2L));
+
+        // Every caller gets its own copies.
+        assertNotSame(second.get(0), first.get(0));
+    }
+
+    @Test
+    public void changingCopyDoesNotChangeCache() {
+        cache.get(TEST_APP_ID, false, loader).get(0).setLabel("changed");
+        cache.get(TEST_APP_ID, false, loader).get(0).setLabel("changed");
+
+        assertEquals(cache.get(TEST_APP_ID, false, loader).get(0).getLabel(), "label");
+    }
+
+    @Test
+    public void plansCachedWithAndWithoutDeleted() {
+        cache.get(TEST_APP_ID, false, loader);
+        cache.get(TEST_APP_ID, true, loader);
+        cache.get(TEST_APP_ID, true, loader);
+
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void invalidate() {
+        cache.get(TEST_APP_ID, false, loader);
+        cache.get(TEST_APP_ID, true, loader);
+        cache.get("otherApp", false, loader);
+
+        cache.invalidate(TEST_APP_ID);
+        fixture.verifyPublished(LocalSchedulePlanCache.SCHEDULE_PLAN_CACHE_NAME, TEST_APP_ID);
+
+        // Both lists of the app are reloaded, but not the other app's plans.
+        cache.get(TEST_APP_ID, false, loader);
+        cache.get(TEST_APP_ID, true, loader);
+        cache.get("otherApp", false, loader);
+        assertEquals(fixture.loads.get(), 5);
+    }
+
+    @Test
+    public void invalidationFromOtherServer() {
+        cache.get(TEST_APP_ID, false, loader);
+
+        fixture.receiveInvalidation(LocalSchedulePlanCache.SCHEDULE_PLAN_CACHE_NAME, TEST_APP_ID);
+
+        cache.get(TEST_APP_ID, false, loader);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void loadOutdatedByInvalidationIsNotCached() {
+        // The plans are changed on another server while this server is loading them.
+        Supplier<List<SchedulePlan>> racingLoader = () -> {
+            List<SchedulePlan> plans = loader.get();
+            fixture.receiveInvalidation(LocalSchedulePlanCache.SCHEDULE_PLAN_CACHE_NAME, TEST_APP_ID);
+            return plans;
+        };
+        cache.get(TEST_APP_ID, false, racingLoader);
+
+        cache.get(TEST_APP_ID, false, loader);
+        cache.get(TEST_APP_ID, false, loader);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void disabled() {
+        when(fixture.mockConfig.get(LocalSchedulePlanCache.ENABLED_PROPERTY)).thenReturn("false");
+        cache = createCache();
+
+        cache.get(TEST_APP_ID, false, loader);
+        cache.get(TEST_APP_ID, false, loader);
+        cache.invalidate(TEST_APP_ID);
+
+        assertEquals(fixture.loads.get(), 2);
+        fixture.verifyNotPublished(LocalSchedulePlanCache.SCHEDULE_PLAN_CACHE_NAME, TEST_APP_ID);
+    }
+}
@@ -0,0 +1,231 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.config.Environment;
+import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+public class LocalSessionCacheTest {
+    private static final String USER_ID = "userId";
+    private static final String SESSION_TOKEN = "sessionToken";
+
+    @Mock
+    private BridgeConfig mockConfig;
+
+    @Mock
+    private JedisPool mockJedisPool;
+
+    @Mock
+    private Jedis mockJedis;
+
+    private LocalCacheManager localCacheManager;
+
+    private LocalSessionCache cache;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+
+        cache = createCache(true, false);
+    }
+
+    private LocalSessionCache createCache(boolean enabled, boolean shadowMode) {
+        when(mockConfig.get(LocalSessionCache.ENABLED_PROPERTY)).thenReturn(Boolean.toString(enabled));
+        when(mockConfig.get(LocalSessionCache.SHADOW_MODE_PROPERTY)).thenReturn(Boolean.toString(shadowMode));
+        when(mockConfig.getInt(LocalSessionCache.MAX_SIZE_PROPERTY)).thenReturn(10);
+        when(mockConfig.getInt(LocalSessionCache.EXPIRE_PROPERTY)).thenReturn(60);
+
+        localCacheManager = new LocalCacheManager();
+        localCacheManager.setJedisPool(mockJedisPool);
+
+        LocalSessionCache cache = new LocalSessionCache();
+        cache.setLocalCacheManager(localCacheManager);
+        cache.setBridgeConfig(mockConfig);
+        cache.init();
+        return cache;
+    }
+
+    private UserSession createSession(String sessionToken) {
+        UserSession session = new UserSession(new StudyParticipant.Builder().withId(USER_ID)
+                .withHealthCode("healthCode").withEmail("email@email.com").build());
+        session.setSessionToken(sessionToken);
+        session.setInternalSessionToken("internalSessionToken");
+        session.setReauthToken("reauthToken");
+        session.setAuthenticated(true);
+        session.setEnvironment(Environment.LOCAL);
+        session.setIpAddress("1.2.3.4");
+        session.setAppId(TEST_APP_ID);
+        return session;
+    }
+
+    @Test
+    public void disabled() {
+        LocalCacheManager mockManager = mock(LocalCacheManager.class);
+        when(mockConfig.get(LocalSessionCache.ENABLED_PROPERTY)).thenReturn("false");
+        when(mockConfig.getInt(LocalSessionCache.MAX_SIZE_PROPERTY)).thenReturn(10);
+        when(mockConfig.getInt(LocalSessionCache.EXPIRE_PROPERTY)).thenReturn(60);
+
+        LocalSessionCache cache = new LocalSessionCache();
+        cache.setLocalCacheManager(mockManager);
+        cache.setBridgeConfig(mockConfig);
+        cache.init();
+
+        assertFalse(cache.isEnabled());
+        verify(mockManager, never()).newCache(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void shadowMode() {
+        LocalSessionCache cache = createCache(true, true);
+        assertTrue(cache.isEnabled());
+        assertTrue(cache.isShadowMode());
+    }
+
+    @Test
+    public void getMiss() {
+        assertNull(cache.get(SESSION_TOKEN));
+    }
+
+    @Test
+    public void putAndGet() {
+        UserSession session = createSession(SESSION_TOKEN);
+        cache.put(session);
+
+        UserSession retrieved = cache.get(SESSION_TOKEN);
+        assertNotSame(retrieved, session);
+        assertEquals(retrieved.getParticipant(), session.getParticipant());
+        assertEquals(retrieved.getSessionToken(), SESSION_TOKEN);
+        assertEquals(retrieved.getInternalSessionToken(), "internalSessionToken");
+        assertTrue(retrieved.isAuthenticated());
+        assertEquals(retrieved.getEnvironment(), Environment.LOCAL);
+        assertEquals(retrieved.getIpAddress(), "1.2.3.4");
+        assertEquals(retrieved.getAppId(), TEST_APP_ID);
+        assertEquals(retrieved.getConsentStatuses(), session.getConsentStatuses());
+        // Not persisted to Redis, so not cached either
+        assertNull(retrieved.getReauthToken());
+
+        // Changes to the returned copy are not visible to other callers
+        retrieved.setAuthenticated(false);
+        assertTrue(cache.get(SESSION_TOKEN).isAuthenticated());
+
+        LocalCacheStats stats = localCacheManager.getStats().get(LocalSessionCache.SESSION_CACHE_NAME);
+        assertEquals(stats.getHitCount(), 2L);
+    }
+
+    @Test
+    public void getWithReplacedTokenMisses() {
+        cache.put(createSession(SESSION_TOKEN));
+        cache.put(createSession("newSessionToken"));
+
+        assertNull(cache.get(SESSION_TOKEN));
+        assertEquals(cache.get("newSessionToken").getSessionToken(), "newSessionToken");
+    }
+
+    @Test
+    public void invalidate() {
+        cache.put(createSession(SESSION_TOKEN));
+
+        cache.invalidate(USER_ID);
+
+        assertNull(cache.get(SESSION_TOKEN));
+        verify(mockJedis).publish(LocalCacheManager.INVALIDATION_CHANNEL,
+                localCacheManager.getNodeId() + "|" + LocalSessionCache.SESSION_CACHE_NAME + "|" + USER_ID);
+    }
+
+    @Test
+    public void invalidatedByOtherServer() {
+        cache.put(createSession(SESSION_TOKEN));
+
+        localCacheManager.onMessage("other-node|" + LocalSessionCache.SESSION_CACHE_NAME + "|" + USER_ID);
+
+        assertNull(cache.get(SESSION_TOKEN));
+    }
+
+    @Test
+    public void putAfterInvalidationDuringReadIsNotCached() {
+        long sequence = cache.getInvalidationSequence();
+        localCacheManager.onMessage("other-node|" + LocalSessionCache.SESSION_CACHE_NAME + "|" + USER_ID);
+
+        cache.put(createSession(SESSION_TOKEN), sequence);
+
+        assertNull(cache.get(SESSION_TOKEN));
+        LocalCacheStats stats = localCacheManager.getStats().get(LocalSessionCache.SESSION_CACHE_NAME);
+        assertEquals(stats.getCounters().get(InvalidatingLocalCache.OUTDATED_LOAD_COUNTER), Long.valueOf(1L));
+    }
+
+    @Test
+    public void putAfterEarlierInvalidationIsCached() {
+        cache.invalidate(USER_ID);
+
+        cache.put(createSession(SESSION_TOKEN), cache.getInvalidationSequence());
+
+        assertEquals(cache.get(SESSION_TOKEN).getSessionToken(), SESSION_TOKEN);
+    }
+
+    @Test
+    public void compareMatch() {
+        UserSession session = createSession(SESSION_TOKEN);
+        cache.put(session);
+
+        cache.compare(SESSION_TOKEN, cache.get(SESSION_TOKEN), LocalSessionCache.copy(session));
+
+        LocalCacheStats stats = localCacheManager.getStats().get(LocalSessionCache.SESSION_CACHE_NAME);
+        assertEquals(stats.getCounters().get(LocalSessionCache.SHADOW_MATCH_COUNTER), Long.valueOf(1L));
+        assertNull(stats.getCounters().get(LocalSessionCache.SHADOW_MISMATCH_COUNTER));
+        assertEquals(cache.get(SESSION_TOKEN).getSessionToken(), SESSION_TOKEN);
+    }
+
+    @Test
+    public void compareMismatch() {
+        UserSession session = createSession(SESSION_TOKEN);
+        cache.put(session);
+
+        UserSession redisSession = LocalSessionCache.copy(session);
+        redisSession.setAuthenticated(false);
+        cache.compare(SESSION_TOKEN, cache.get(SESSION_TOKEN), redisSession);
+
+        LocalCacheStats stats = localCacheManager.getStats().get(LocalSessionCache.SESSION_CACHE_NAME);
+        assertEquals(stats.getCounters().get(LocalSessionCache.SHADOW_MISMATCH_COUNTER), Long.valueOf(1L));
+        assertNull(cache.get(SESSION_TOKEN));
+    }
+
+    @Test
+    public void compareMismatchWhenRemovedFromRedis() {
+        cache.put(createSession(SESSION_TOKEN));
+
+        cache.compare(SESSION_TOKEN, cache.get(SESSION_TOKEN), null);
+
+        LocalCacheStats stats = localCacheManager.getStats().get(LocalSessionCache.SESSION_CACHE_NAME);
+        assertEquals(stats.getCounters().get(LocalSessionCache.SHADOW_MISMATCH_COUNTER), Long.valueOf(1L));
+    }
+
+    @Test
+    public void compareWithoutLocalSessionDoesNothing() {
+        cache.compare(SESSION_TOKEN, null, createSession(SESSION_TOKEN));
+
+        LocalCacheStats stats = localCacheManager.getStats().get(LocalSessionCache.SESSION_CACHE_NAME);
+        assertTrue(stats.getCounters().isEmpty());
+    }
+}
@@ -0,0 +1,170 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
+import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
+import org.sagebionetworks.bridge.models.surveys.Survey;
+import org.sagebionetworks.bridge.models.surveys.SurveyInfoScreen;
+
+public class LocalSurveyCacheTest {
+    private static final String SURVEY_GUID = "surveyGuid";
+    private static final String OTHER_SURVEY_GUID = "otherSurveyGuid";
+    private static final long CREATED_ON = 1000L;
+    private static final GuidCreatedOnVersionHolder KEYS = new GuidCreatedOnVersionHolderImpl(SURVEY_GUID,
+            CREATED_ON);
+    private static final GuidCreatedOnVersionHolder OTHER_KEYS = new GuidCreatedOnVersionHolderImpl(
+            OTHER_SURVEY_GUID, CREATED_ON);
+
+    private static final String GROUP = TEST_APP_ID + "|" + SURVEY_GUID;
+
+    private LocalCacheTestFixture fixture;
+
+    private LocalSurveyCache cache;
+
+    private Supplier<Survey> loader;
+
+    @BeforeMethod
+    public void before() {
+        fixture = new LocalCacheTestFixture(LocalSurveyCache.ENABLED_PROPERTY, LocalSurveyCache.MAX_SIZE_PROPERTY,
+                LocalSurveyCache.EXPIRE_PROPERTY);
+        when(fixture.mockConfig.getInt(LocalSurveyCache.MOST_RECENT_EXPIRE_PROPERTY)).thenReturn(60);
+        cache = createCache();
+        loader = fixture.countingLoader(() -> createSurvey(true));
+    }
+
+    private LocalSurveyCache createCache() {
+        LocalSurveyCache cache = new LocalSurveyCache();
+        cache.setLocalCacheManager(fixture.localCacheManager);
+        cache.setBridgeConfig(fixture.mockConfig);
+        cache.init();
+        return cache;
+    }
+
+    private static Survey createSurvey(boolean published) {
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        survey.setGuid(SURVEY_GUID);
+        survey.setCreatedOn(CREATED_ON);
+        survey.setName("name");
+        survey.setPublished(published);
+        SurveyInfoScreen screen = SurveyInfoScreen.create();
+        screen.setIdentifier("screen");
+        survey.setElements(ImmutableList.of(screen));
+        return survey;
+    }
+
+    @Test
+    public void publishedSurveyIsCached() {
+        cache.getSurvey(TEST_APP_ID, KEYS, true, loader);
+        Survey first = cache.getSurvey(TEST_APP_ID, KEYS, true, loader);
+        Survey second = cache.getSurvey(TEST_APP_ID, KEYS, true, loader);
+
+        assertEquals(fixture.loads.get(), 1);
+        assertEquals(first.getAppId(), TEST_APP_ID);
+        assertEquals(first.getGuid(), SURVEY_GUID);
+        assertEquals(first.getCreatedOn(), CREATED_ON);
+        assertEquals(first.getName(), "name");
+        assertTrue(first.isPublished());
+        assertEquals(first.getElements().size(), 1);
+        assertEquals(first.getElements().get(0).getIdentifier(), "screen");
+
+        // Every caller gets its own copy.
+        assertNotSame(second, first);
+    }
+
+    @Test
+    public void surveyWithAndWithoutElementsAreCachedSeparately() {
+        cache.getSurvey(TEST_APP_ID, KEYS, true, loader);
+        cache.getSurvey(TEST_APP_ID, KEYS, false, loader);
+        cache.getSurvey(TEST_APP_ID, KEYS, false, loader);
+
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void unpublishedSurveyIsNotCached() {
+        Supplier<Survey> unpublishedLoader = fixture.countingLoader(() -> createSurvey(false));
+        cache.getSurvey(TEST_APP_ID, KEYS, true, unpublishedLoader);
+        cache.getSurvey(TEST_APP_ID, KEYS, true, unpublishedLoader);
+
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void missingSurveyIsNotCached() {
+        Supplier<Survey> missingLoader = fixture.countingLoader(() -> null);
+        assertNull(cache.getSurvey(TEST_APP_ID, KEYS, true, missingLoader));
+        assertNull(cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, missingLoader));
+        cache.getSurvey(TEST_APP_ID, KEYS, true, missingLoader);
+
+        assertEquals(fixture.loads.get(), 3);
+    }
+
+    @Test
+    public void mostRecentlyPublishedSurveyIsCached() {
+        cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, loader);
+        Survey survey = cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, loader);
+
+        assertEquals(fixture.loads.get(), 1);
+        assertEquals(survey.getAppId(), TEST_APP_ID);
+        assertEquals(survey.getGuid(), SURVEY_GUID);
+    }
+
+    @Test
+    public void invalidate() {
+        cache.getSurvey(TEST_APP_ID, KEYS, true, loader);
+        cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, loader);
+        cache.getSurvey(TEST_APP_ID, OTHER_KEYS, true, loader);
+
+        cache.invalidate(TEST_APP_ID, SURVEY_GUID);
+        fixture.verifyPublished(LocalSurveyCache.PUBLISHED_SURVEY_CACHE_NAME, GROUP);
+        fixture.verifyPublished(LocalSurveyCache.MOST_RECENTLY_PUBLISHED_CACHE_NAME, GROUP);
+
+        // The survey is loaded again, but not the other survey.
+        cache.getSurvey(TEST_APP_ID, KEYS, true, loader);
+        cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, loader);
+        cache.getSurvey(TEST_APP_ID, OTHER_KEYS, true, loader);
+        assertEquals(fixture.loads.get(), 5);
+    }
+
+    @Test
+    public void loadOutdatedByInvalidationIsNotCached() {
+        // The survey is published on another server while this server loads the most recently published version.
+        Supplier<Survey> racingLoader = () -> {
+            Survey survey = loader.get();
+            fixture.receiveInvalidation(LocalSurveyCache.MOST_RECENTLY_PUBLISHED_CACHE_NAME, GROUP);
+            return survey;
+        };
+        cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, racingLoader);
+
+        cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, loader);
+        cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, loader);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void disabled() {
+        when(fixture.mockConfig.get(LocalSurveyCache.ENABLED_PROPERTY)).thenReturn("false");
+        cache = createCache();
+
+        cache.getSurvey(TEST_APP_ID, KEYS, true, loader);
+        cache.getSurvey(TEST_APP_ID, KEYS, true, loader);
+        cache.getMostRecentlyPublishedSurvey(TEST_APP_ID, SURVEY_GUID, true, loader);
+        cache.invalidate(TEST_APP_ID, SURVEY_GUID);
+
+        assertEquals(fixture.loads.get(), 3);
+        fixture.verifyNotPublished(LocalSurveyCache.PUBLISHED_SURVEY_CACHE_NAME, GROUP);
+    }
+}
@@ -0,0 +1,163 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.MODIFIED_ON;
+import static org.sagebionetworks.bridge.TestConstants.SCHEDULE_GUID;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.models.schedules2.Schedule2;
+import org.sagebionetworks.bridge.models.schedules2.timelines.Timeline;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+public class LocalTimelineCacheTest {
+    @Mock
+    private BridgeConfig mockConfig;
+
+    @Mock
+    private JedisPool mockJedisPool;
+
+    @Mock
+    private Jedis mockJedis;
+
+    private LocalCacheManager localCacheManager;
+
+    private LocalTimelineCache cache;
+
+    private AtomicInteger calculations;
+
+    private Supplier<Timeline> calculator;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+        when(mockConfig.get(LocalTimelineCache.ENABLED_PROPERTY)).thenReturn("true");
+        when(mockConfig.getInt(LocalTimelineCache.MAX_SIZE_PROPERTY)).thenReturn(10);
+        when(mockConfig.getInt(LocalTimelineCache.EXPIRE_PROPERTY)).thenReturn(300);
+
+        localCacheManager = new LocalCacheManager();
+        localCacheManager.setJedisPool(mockJedisPool);
+
+        cache = new LocalTimelineCache();
+        cache.setLocalCacheManager(localCacheManager);
+        cache.setBridgeConfig(mockConfig);
+        cache.init();
+
+        calculations = new AtomicInteger();
+        calculator = () -> {
+            calculations.incrementAndGet();
+            return new Timeline.Builder().build();
+        };
+    }
+
+    private static Schedule2 createSchedule() {
+        Schedule2 schedule = new Schedule2();
+        schedule.setAppId(TEST_APP_ID);
+        schedule.setGuid(SCHEDULE_GUID);
+        schedule.setModifiedOn(MODIFIED_ON);
+        return schedule;
+    }
+
+    @Test
+    public void timelineIsCached() {
+        Timeline first = cache.get(createSchedule(), "en", calculator);
+        Timeline second = cache.get(createSchedule(), "en", calculator);
+
+        assertSame(second, first);
+        assertEquals(calculations.get(), 1);
+    }
+
+    @Test
+    public void timelineCachedForEachLanguageKey() {
+        Timeline english = cache.get(createSchedule(), "en", calculator);
+        Timeline french = cache.get(createSchedule(), "fr", calculator);
+
+        assertNotSame(french, english);
+        assertEquals(calculations.get(), 2);
+    }
+
+    @Test
+    public void modifiedScheduleIsRecalculated() {
+        cache.get(createSchedule(), "en", calculator);
+
+        Schedule2 schedule = createSchedule();
+        schedule.setModifiedOn(MODIFIED_ON.plusMinutes(1));
+        cache.get(schedule, "en", calculator);
+
+        assertEquals(calculations.get(), 2);
+    }
+
+    @Test
+    public void unsavedScheduleIsNotCached() {
+        Schedule2 schedule = createSchedule();
+        schedule.setModifiedOn(null);
+
+        cache.get(schedule, "en", calculator);
+        cache.get(schedule, "en", calculator);
+
+        assertEquals(calculations.get(), 2);
+    }
+
+    @Test
+    public void invalidate() {
+        cache.get(createSchedule(), "en", calculator);
+        cache.get(createSchedule(), "fr", calculator);
+
+        Schedule2 otherSchedule = createSchedule();
+        otherSchedule.setGuid("otherGuid");
+        cache.get(otherSchedule, "en", calculator);
+
+        cache.invalidate(TEST_APP_ID, SCHEDULE_GUID);
+        verify(mockJedis).publish(LocalCacheManager.INVALIDATION_CHANNEL, localCacheManager.getNodeId() + "|"
+                + LocalTimelineCache.TIMELINE_CACHE_NAME + "|" + TEST_APP_ID + "|" + SCHEDULE_GUID + "|");
+
+        // Both languages of the schedule are recalculated, but not the other schedule.
+        cache.get(createSchedule(), "en", calculator);
+        cache.get(createSchedule(), "fr", calculator);
+        cache.get(otherSchedule, "en", calculator);
+        assertEquals(calculations.get(), 5);
+    }
+
+    @Test
+    public void onInvalidation() {
+        cache.get(createSchedule(), "en", calculator);
+
+        cache.onInvalidation(TEST_APP_ID + "|" + SCHEDULE_GUID + "|");
+
+        cache.get(createSchedule(), "en", calculator);
+        assertEquals(calculations.get(), 2);
+    }
+
+    @Test
+    public void disabled() {
+        when(mockConfig.get(LocalTimelineCache.ENABLED_PROPERTY)).thenReturn("false");
+        cache = new LocalTimelineCache();
+        cache.setLocalCacheManager(localCacheManager);
+        cache.setBridgeConfig(mockConfig);
+        cache.init();
+
+        cache.get(createSchedule(), "en", calculator);
+        cache.get(createSchedule(), "en", calculator);
+        cache.invalidate(TEST_APP_ID, SCHEDULE_GUID);
+
+        assertEquals(calculations.get(), 2);
+        verify(mockJedis, never()).publish(LocalCacheManager.INVALIDATION_CHANNEL, localCacheManager.getNodeId()
+                + "|" + LocalTimelineCache.TIMELINE_CACHE_NAME + "|" + TEST_APP_ID + "|" + SCHEDULE_GUID + "|");
+    }
+}
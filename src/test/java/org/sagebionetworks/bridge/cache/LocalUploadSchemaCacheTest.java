@@ -0,0 +1,143 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
+import org.sagebionetworks.bridge.models.upload.UploadFieldType;
+import org.sagebionetworks.bridge.models.upload.UploadSchema;
+import org.sagebionetworks.bridge.models.upload.UploadSchemaType;
+
+public class LocalUploadSchemaCacheTest {
+    private static final String SCHEMA_ID = "schemaId";
+    private static final String OTHER_SCHEMA_ID = "otherSchemaId";
+    private static final int REVISION = 2;
+
+    private static final String GROUP = TEST_APP_ID + "|" + SCHEMA_ID;
+
+    private LocalCacheTestFixture fixture;
+
+    private LocalUploadSchemaCache cache;
+
+    private Supplier<UploadSchema> loader;
+
+    @BeforeMethod
+    public void before() {
+        fixture = new LocalCacheTestFixture(LocalUploadSchemaCache.ENABLED_PROPERTY,
+                LocalUploadSchemaCache.MAX_SIZE_PROPERTY, LocalUploadSchemaCache.EXPIRE_PROPERTY);
+        cache = createCache();
+        loader = fixture.countingLoader(LocalUploadSchemaCacheTest::createSchema);
+    }
+
+    private LocalUploadSchemaCache createCache() {
+        LocalUploadSchemaCache cache = new LocalUploadSchemaCache();
+        cache.setLocalCacheManager(fixture.localCacheManager);
+        cache.setBridgeConfig(fixture.mockConfig);
+        cache.init();
+        return cache;
+    }
+
+    private static UploadSchema createSchema() {
+        UploadSchema schema = UploadSchema.create();
+        schema.setAppId(TEST_APP_ID);
+        schema.setSchemaId(SCHEMA_ID);
+        schema.setRevision(REVISION);
+        schema.setName("name");
+        schema.setSchemaType(UploadSchemaType.IOS_DATA);
+        schema.setFieldDefinitions(ImmutableList.of(new UploadFieldDefinition.Builder().withName("field")
+                .withType(UploadFieldType.ATTACHMENT_V2).build()));
+        return schema;
+    }
+
+    @Test
+    public void schemaRevisionIsCached() {
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        UploadSchema first = cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        UploadSchema second = cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+
+        assertEquals(fixture.loads.get(), 1);
+        assertEquals(first.getAppId(), TEST_APP_ID);
+        assertEquals(first.getSchemaId(), SCHEMA_ID);
+        assertEquals(first.getRevision(), REVISION);
+        assertEquals(first.getName(), "name");
+        assertEquals(first.getSchemaType(), UploadSchemaType.IOS_DATA);
+        assertEquals(first.getFieldDefinitions().size(), 1);
+        assertEquals(first.getFieldDefinitions().get(0).getName(), "field");
+        assertEquals(first.getFieldDefinitions().get(0).getType(), UploadFieldType.ATTACHMENT_V2);
+
+        // Every caller gets its own copy.
+        assertNotSame(second, first);
+    }
+
+    @Test
+    public void revisionsAreCachedSeparately() {
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION + 1, loader);
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION + 1, loader);
+
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void missingSchemaIsNotCached() {
+        Supplier<UploadSchema> missingLoader = fixture.countingLoader(() -> null);
+        assertNull(cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, missingLoader));
+
+        // Once the revision is created, it is found.
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void invalidate() {
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION + 1, loader);
+        cache.getUploadSchema(TEST_APP_ID, OTHER_SCHEMA_ID, REVISION, loader);
+
+        cache.invalidate(TEST_APP_ID, SCHEMA_ID);
+        fixture.verifyPublished(LocalUploadSchemaCache.CACHE_NAME, GROUP);
+
+        // Both revisions are loaded again, but not the other schema.
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION + 1, loader);
+        cache.getUploadSchema(TEST_APP_ID, OTHER_SCHEMA_ID, REVISION, loader);
+        assertEquals(fixture.loads.get(), 5);
+    }
+
+    @Test
+    public void loadOutdatedByInvalidationIsNotCached() {
+        // The schema revision is updated on another server while this server loads it.
+        Supplier<UploadSchema> racingLoader = () -> {
+            UploadSchema schema = loader.get();
+            fixture.receiveInvalidation(LocalUploadSchemaCache.CACHE_NAME, GROUP);
+            return schema;
+        };
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, racingLoader);
+
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        assertEquals(fixture.loads.get(), 2);
+    }
+
+    @Test
+    public void disabled() {
+        when(fixture.mockConfig.get(LocalUploadSchemaCache.ENABLED_PROPERTY)).thenReturn("false");
+        cache = createCache();
+
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        cache.getUploadSchema(TEST_APP_ID, SCHEMA_ID, REVISION, loader);
+        cache.invalidate(TEST_APP_ID, SCHEMA_ID);
+
+        assertEquals(fixture.loads.get(), 2);
+        fixture.verifyNotPublished(LocalUploadSchemaCache.CACHE_NAME, GROUP);
+    }
+}
@@ -0,0 +1,94 @@
+package org.sagebionetworks.bridge.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import com.google.common.collect.ImmutableList;
+
+public class RedisScriptTest {
+    private static final String SCRIPT = "return redis.call('GET', KEYS[1])";
+    private static final List<String> KEYS = ImmutableList.of("key");
+    private static final List<String> ARGS = ImmutableList.of("arg");
+    private static final List<byte[]> BINARY_KEYS = ImmutableList.of("key".getBytes(UTF_8));
+    private static final List<byte[]> BINARY_ARGS = ImmutableList.of("arg".getBytes(UTF_8));
+
+    private Jedis mockJedis;
+    private RedisScript script;
+
+    @BeforeMethod
+    public void before() {
+        mockJedis = mock(Jedis.class);
+        script = new RedisScript(SCRIPT);
+    }
+
+    @Test
+    public void shaOfScript() {
+        assertEquals(script.getSha(), DigestUtils.sha1Hex(SCRIPT));
+    }
+
+    @Test
+    public void evalBySha() {
+        when(mockJedis.evalsha(script.getSha(), KEYS, ARGS)).thenReturn("value");
+
+        assertEquals(script.eval(mockJedis, KEYS, ARGS), "value");
+        verify(mockJedis, never()).eval(SCRIPT, KEYS, ARGS);
+    }
+
+    @Test
+    public void evalLoadsScriptWhenNotCached() {
+        when(mockJedis.evalsha(script.getSha(), KEYS, ARGS))
+                .thenThrow(new JedisDataException("NOSCRIPT No matching script. Please use EVAL."));
+        when(mockJedis.eval(SCRIPT, KEYS, ARGS)).thenReturn("value");
+
+        assertEquals(script.eval(mockJedis, KEYS, ARGS), "value");
+    }
+
+    @Test(expectedExceptions = JedisDataException.class)
+    public void evalRethrowsOtherErrors() {
+        when(mockJedis.evalsha(script.getSha(), KEYS, ARGS))
+                .thenThrow(new JedisDataException("ERR Error running script"));
+
+        script.eval(mockJedis, KEYS, ARGS);
+    }
+
+    @Test
+    public void evalBinaryBySha() {
+        byte[] value = new byte[] { 2, 0, 1 };
+        when(mockJedis.evalsha(aryEq(script.getSha().getBytes(UTF_8)), eq(BINARY_KEYS), eq(BINARY_ARGS)))
+                .thenReturn(value);
+
+        assertEquals(script.evalBinary(mockJedis, BINARY_KEYS, BINARY_ARGS), value);
+        verify(mockJedis, never()).eval(aryEq(SCRIPT.getBytes(UTF_8)), eq(BINARY_KEYS), eq(BINARY_ARGS));
+    }
+
+    @Test
+    public void evalBinaryLoadsScriptWhenNotCached() {
+        byte[] value = new byte[] { 2, 0, 1 };
+        when(mockJedis.evalsha(aryEq(script.getSha().getBytes(UTF_8)), eq(BINARY_KEYS), eq(BINARY_ARGS)))
+                .thenThrow(new JedisDataException("NOSCRIPT No matching script. Please use EVAL."));
+        when(mockJedis.eval(aryEq(SCRIPT.getBytes(UTF_8)), eq(BINARY_KEYS), eq(BINARY_ARGS)))
+                .thenReturn(value);
+
+        assertEquals(script.evalBinary(mockJedis, BINARY_KEYS, BINARY_ARGS), value);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void scriptRequired() {
+        new RedisScript(" ");
+    }
+}
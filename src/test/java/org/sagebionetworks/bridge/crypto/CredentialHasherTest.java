@@ -0,0 +1,132 @@
+package org.sagebionetworks.bridge.crypto;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+import org.sagebionetworks.bridge.util.TimingStats;
+
+public class CredentialHasherTest {
+    private static final String PLAINTEXT = "P@ssword1";
+
+    @Mock
+    private BridgeConfig mockConfig;
+
+    private CredentialHasher hasher;
+
+    @BeforeMethod
+    public void before() {
+        MockitoAnnotations.initMocks(this);
+        when(mockConfig.getInt(CredentialHasher.QUEUE_TIMEOUT_PROPERTY)).thenReturn(5000);
+        when(mockConfig.getInt(CredentialHasher.HASH_TIMEOUT_PROPERTY)).thenReturn(5000);
+
+        hasher = new CredentialHasher();
+        hasher.setExecutorService(MoreExecutors.newDirectExecutorService());
+        hasher.setBridgeConfig(mockConfig);
+    }
+
+    @Test
+    public void generateAndCheckHash() throws Exception {
+        String hash = hasher.generateHash(DEFAULT_PASSWORD_ALGORITHM, PLAINTEXT);
+
+        assertTrue(hasher.checkHash(DEFAULT_PASSWORD_ALGORITHM, hash, PLAINTEXT));
+        assertFalse(hasher.checkHash(DEFAULT_PASSWORD_ALGORITHM, hash, "wrong"));
+
+        Map<String, TimingStats> stats = hasher.getStats();
+        assertEquals(stats.keySet(), ImmutableSet.of(CredentialHasher.QUEUE_WAIT_KEY,
+                "checkHash:" + DEFAULT_PASSWORD_ALGORITHM.name(), "generateHash:" + DEFAULT_PASSWORD_ALGORITHM.name()));
+        assertEquals(stats.get(CredentialHasher.QUEUE_WAIT_KEY).getCount(), 3L);
+        assertEquals(stats.get("checkHash:" + DEFAULT_PASSWORD_ALGORITHM.name()).getCount(), 2L);
+        assertEquals(stats.get("generateHash:" + DEFAULT_PASSWORD_ALGORITHM.name()).getCount(), 1L);
+
+        // Does not throw.
+        hasher.report();
+    }
+
+    @Test(expectedExceptions = ServiceUnavailableException.class,
+            expectedExceptionsMessageRegExp = CredentialHasher.BUSY_MESSAGE)
+    public void fullQueueIsServiceUnavailable() throws Exception {
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+        when(mockExecutor.submit(any(Callable.class))).thenThrow(new RejectedExecutionException());
+        hasher.setExecutorService(mockExecutor);
+
+        hasher.checkHash(DEFAULT_PASSWORD_ALGORITHM, "hash", PLAINTEXT);
+    }
+
+    @Test
+    public void queueTimeoutIsServiceUnavailable() throws Exception {
+        when(mockConfig.getInt(CredentialHasher.QUEUE_TIMEOUT_PROPERTY)).thenReturn(1);
+        hasher.setBridgeConfig(mockConfig);
+
+        // A single thread that is kept busy, so the next hash waits in the queue past the timeout.
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                Thread.sleep(50);
+                return null;
+            });
+            hasher.setExecutorService(executor);
+            try {
+                hasher.generateHash(DEFAULT_PASSWORD_ALGORITHM, PLAINTEXT);
+                throw new AssertionError("Should have thrown exception");
+            } catch (ServiceUnavailableException e) {
+                assertEquals(e.getMessage(), CredentialHasher.BUSY_MESSAGE);
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        // The hash was never timed.
+        assertEquals(hasher.getStats().keySet(), ImmutableSet.of(CredentialHasher.QUEUE_WAIT_KEY));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void waitTimeoutIsServiceUnavailable() throws Exception {
+        Future<Object> mockFuture = mock(Future.class);
+        when(mockFuture.get(anyLong(), any())).thenThrow(new TimeoutException());
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+        when(mockExecutor.submit(any(Callable.class))).thenReturn(mockFuture);
+        hasher.setExecutorService(mockExecutor);
+
+        try {
+            hasher.checkHash(DEFAULT_PASSWORD_ALGORITHM, "hash", PLAINTEXT);
+            throw new AssertionError("Should have thrown exception");
+        } catch (ServiceUnavailableException e) {
+            assertEquals(e.getMessage(), CredentialHasher.BUSY_MESSAGE);
+        }
+        // Waits for the queue timeout plus the hash timeout, and the hash is cancelled.
+        verify(mockFuture).get(10000L, TimeUnit.MILLISECONDS);
+        verify(mockFuture).cancel(true);
+    }
+
+    @Test(expectedExceptions = NumberFormatException.class)
+    public void hashExceptionsAreRethrown() throws Exception {
+        // A malformed hash fails inside the algorithm, on the executor's thread.
+        hasher.checkHash(DEFAULT_PASSWORD_ALGORITHM, "not-a-hash", PLAINTEXT);
+    }
+}
@@ -1,5 +1,8 @@
 package org.sagebionetworks.bridge.dynamodb;
 
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.LT;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NE;
+import static com.amazonaws.services.dynamodbv2.model.ConditionalOperator.OR;
 import static org.sagebionetworks.bridge.TestConstants.HEALTH_CODE;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ACTIVITY;
@@ -13,7 +16,10 @@ import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateTy
 import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.IMMUTABLE;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.MUTABLE;
 import static org.testng.Assert.assertEquals;
+import static org.sagebionetworks.bridge.dynamodb.DynamoActivityEventDao.EVENT_ID_FIELD;
+import static org.sagebionetworks.bridge.dynamodb.DynamoActivityEventDao.TIMESTAMP_FIELD;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
@@ -22,7 +28,11 @@ import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.ImmutableList;
 
 import org.joda.time.DateTime;
@@ -78,6 +88,9 @@ public class DynamoActivityEventDaoTest extends Mockito {
     @Captor
     ArgumentCaptor<List<DynamoActivityEvent>> listCaptor;
     
+    @Captor
+    ArgumentCaptor<DynamoDBSaveExpression> saveExpressionCaptor;
+    
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
@@ -88,27 +101,13 @@ public class DynamoActivityEventDaoTest extends Mockito {
         boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
         assertTrue(result);
         
-        verify(mockMapper).load(eventCaptor.capture());
-        DynamoActivityEvent loadKey = eventCaptor.getValue();
-        assertEquals(loadKey.getHealthCode(), HEALTH_CODE);
-        assertEquals(loadKey.getEventId(), "survey:AAA-BBB-CCC:finished");
-        
-        verify(mockMapper).save(eventCaptor.capture());
+        verify(mockMapper).save(eventCaptor.capture(), saveExpressionCaptor.capture());
         assertSame(eventCaptor.getValue(), SURVEY_FINISHED_EVENT);
-    }
-    
-    @Test
-    public void publishEventIsMutableAndLater() {
-        DynamoActivityEvent earlierEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(SURVEY).withEventType(FINISHED).withTimestamp(TIMESTAMP.minusHours(1))
-                .withObjectId("AAA-BBB-CCC").build();
-        when(mockMapper.load(any())).thenReturn(earlierEvent);
+        // The event is not read before it is written.
+        verify(mockMapper, never()).load(any());
         
-        boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
-        assertTrue(result);
-        
-        verify(mockMapper).save(eventCaptor.capture());
-        assertSame(eventCaptor.getValue(), SURVEY_FINISHED_EVENT);
+        // Survey finished events can only move into the future.
+        assertCondition(saveExpressionCaptor.getValue(), LT);
     }
     
     @Test
@@ -116,7 +115,7 @@ public class DynamoActivityEventDaoTest extends Mockito {
         boolean result = dao.publishEvent(ENROLLMENT_EVENT_WITH_STUDY_ID);
         assertTrue(result);
         
-        verify(mockMapper).save(eventCaptor.capture());
+        verify(mockMapper).save(eventCaptor.capture(), any(DynamoDBSaveExpression.class));
         
         DynamoActivityEvent event = eventCaptor.getValue();
         assertEquals(event.getEventId(), "enrollment");
@@ -125,49 +124,28 @@ public class DynamoActivityEventDaoTest extends Mockito {
     }
     
     @Test
-    public void publishEventIsEarlierFails() {
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(SURVEY).withEventType(FINISHED).withTimestamp(TIMESTAMP.plusHours(1))
-                .withObjectId("AAA-BBB-CCC").build();
-        when(mockMapper.load(any())).thenReturn(laterEvent);
+    public void publishEventConditionFails() {
+        doThrow(new ConditionalCheckFailedException("")).when(mockMapper).save(any(),
+                any(DynamoDBSaveExpression.class));
         
         boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
         assertFalse(result);
-        
-        verify(mockMapper, never()).save(any());
     }
     
     @Test
-    public void publishEvent_ImmutableFirstSucceeds() {
+    public void publishEvent_ImmutableOnlyIfDoesNotExist() {
         dao.publishEvent(ENROLLMENT_EVENT);
         
-        verify(mockMapper).save(ENROLLMENT_EVENT);
-    }
-    
-    @Test
-    public void publishEvent_ImmutableEarlierFails() {
-        when(mockMapper.load(any())).thenReturn(ENROLLMENT_EVENT);
-        DynamoActivityEvent earlierEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.minusHours(1)).build();
-
-        dao.publishEvent(earlierEvent);
-        
-        verify(mockMapper, never()).save(any());
-    }
-    
-    @Test
-    public void publishEvent_ImmutableLaterFails() {
-        when(mockMapper.load(any())).thenReturn(ENROLLMENT_EVENT);
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.plusHours(1)).build();
-
-        dao.publishEvent(laterEvent);
+        verify(mockMapper).save(eq(ENROLLMENT_EVENT), saveExpressionCaptor.capture());
         
-        verify(mockMapper, never()).save(any());
+        DynamoDBSaveExpression expression = saveExpressionCaptor.getValue();
+        assertEquals(expression.getExpected().size(), 1);
+        assertFalse(expression.getExpected().get(EVENT_ID_FIELD).getExists());
+        assertNull(expression.getConditionalOperator());
     }
     
     @Test
-    public void publishEvent_MutableFirstSucceeds() {
+    public void publishEvent_MutableIfTimestampDiffers() {
         DynamoActivityEvent event = new DynamoActivityEvent.Builder()
                 .withHealthCode(HEALTH_CODE)
                 .withObjectType(CUSTOM)
@@ -176,41 +154,12 @@ public class DynamoActivityEventDaoTest extends Mockito {
         
         dao.publishEvent(event);
         
-        verify(mockMapper).save(event);
-    }
-    
-    @Test
-    public void publishEvent_MutableEarlierSucceeds() {
-        DynamoActivityEvent.Builder builder = new DynamoActivityEvent.Builder()
-                .withHealthCode(HEALTH_CODE)
-                .withObjectType(CUSTOM)
-                .withUpdateType(MUTABLE)
-                .withTimestamp(TIMESTAMP);
-        when(mockMapper.load(any())).thenReturn(builder.build());
-        DynamoActivityEvent event = builder.withTimestamp(TIMESTAMP.minusHours(1)).build();
-        
-        dao.publishEvent(event);
-        
-        verify(mockMapper).save(event);
-    }
-    
-    @Test
-    public void publishEvent_MutableLaterSucceeds() {
-        DynamoActivityEvent.Builder builder = new DynamoActivityEvent.Builder()
-                .withHealthCode(HEALTH_CODE)
-                .withObjectType(CUSTOM)
-                .withUpdateType(MUTABLE)
-                .withTimestamp(TIMESTAMP);
-        when(mockMapper.load(any())).thenReturn(builder.build());
-        DynamoActivityEvent event = builder.withTimestamp(TIMESTAMP.plusHours(1)).build();
-        
-        dao.publishEvent(event);
-        
-        verify(mockMapper).save(event);
+        verify(mockMapper).save(eq(event), saveExpressionCaptor.capture());
+        assertCondition(saveExpressionCaptor.getValue(), NE);
     }
     
     @Test
-    public void publishEvent_FutureOnlyFirstSucceeds() {
+    public void publishEvent_FutureOnlyIfTimestampIsLater() {
         DynamoActivityEvent event = new DynamoActivityEvent.Builder()
                 .withHealthCode(HEALTH_CODE)
                 .withObjectType(CUSTOM)
@@ -219,37 +168,20 @@ public class DynamoActivityEventDaoTest extends Mockito {
         
         dao.publishEvent(event);
         
-        verify(mockMapper).save(event);
-    }
-    
-    @Test
-    public void publishEvent_FutureOnlyEarlierFails() {
-        DynamoActivityEvent.Builder builder = new DynamoActivityEvent.Builder()
-                .withHealthCode(HEALTH_CODE)
-                .withObjectType(CUSTOM)
-                .withUpdateType(FUTURE_ONLY)
-                .withTimestamp(TIMESTAMP);
-        when(mockMapper.load(any())).thenReturn(builder.build());
-        DynamoActivityEvent event = builder.withTimestamp(TIMESTAMP.minusHours(1)).build();
-        
-        dao.publishEvent(event);
-        
-        verify(mockMapper, never()).save(any());
+        verify(mockMapper).save(eq(event), saveExpressionCaptor.capture());
+        // The persisted timestamp must be less than the new timestamp.
+        assertCondition(saveExpressionCaptor.getValue(), LT);
     }
     
-    @Test
-    public void publishEvent_FutureOnlyLaterSucceeds() {
-        DynamoActivityEvent.Builder builder = new DynamoActivityEvent.Builder()
-                .withHealthCode(HEALTH_CODE)
-                .withObjectType(CUSTOM)
-                .withUpdateType(FUTURE_ONLY)
-                .withTimestamp(TIMESTAMP);
-        when(mockMapper.load(any())).thenReturn(builder.build());
-        DynamoActivityEvent event = builder.withTimestamp(TIMESTAMP.plusHours(1)).build();
-        
-        dao.publishEvent(event);
+    private void assertCondition(DynamoDBSaveExpression expression, ComparisonOperator timestampOperator) {
+        assertEquals(expression.getConditionalOperator(), OR.name());
+        assertFalse(expression.getExpected().get(EVENT_ID_FIELD).getExists());
         
-        verify(mockMapper).save(event);
+        ExpectedAttributeValue timestamp = expression.getExpected().get(TIMESTAMP_FIELD);
+        assertEquals(timestamp.getComparisonOperator(), timestampOperator.name());
+        assertNull(timestamp.getValue());
+        assertEquals(timestamp.getAttributeValueList().size(), 1);
+        assertEquals(timestamp.getAttributeValueList().get(0).getN(), Long.toString(TIMESTAMP.getMillis()));
     }
     
     @Test
@@ -402,17 +334,4 @@ public class DynamoActivityEventDaoTest extends Mockito {
         List<DynamoActivityEvent> eventsToDelete = listCaptor.getValue();
         assertEquals(eventsToDelete, savedEvents);
     }
-    
-    @Test
-    public void publishEventIsImmutableFails() {
-        when(mockMapper.load(any())).thenReturn(ENROLLMENT_EVENT);
-
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.plusHours(1)).build();
-
-        boolean result = dao.publishEvent(laterEvent);
-        assertFalse(result);
-
-        verify(mockMapper, never()).save(any());
-    }
-}    
+}
@@ -3,8 +3,15 @@ package org.sagebionetworks.bridge.dynamodb;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -27,6 +34,9 @@ public class DynamoCriteriaDaoTest extends Mockito {
     @Captor
     ArgumentCaptor<DynamoCriteria> criteriaCaptor;
     
+    @Captor
+    ArgumentCaptor<List<Object>> hashKeysCaptor;
+    
     @InjectMocks
     DynamoCriteriaDao dao;
     
@@ -60,6 +70,27 @@ public class DynamoCriteriaDaoTest extends Mockito {
         assertEquals(key.getKey(), CRITERIA_KEY);
     }
 
+    @Test
+    public void getCriteriaByKeys() {
+        Criteria saved = Criteria.create();
+        saved.setKey(CRITERIA_KEY);
+        when(mockMapper.batchLoad(anyList())).thenReturn(ImmutableMap.of("Criteria", ImmutableList.of(saved)));
+        
+        Map<String, Criteria> results = dao.getCriteriaByKeys(ImmutableSet.of(CRITERIA_KEY, "other:key"));
+        // Criteria that don't exist are not in the results.
+        assertEquals(results, ImmutableMap.of(CRITERIA_KEY, saved));
+        
+        verify(mockMapper).batchLoad(hashKeysCaptor.capture());
+        assertEquals(hashKeysCaptor.getValue().size(), 2);
+        assertEquals(((DynamoCriteria) hashKeysCaptor.getValue().get(0)).getKey(), CRITERIA_KEY);
+    }
+    
+    @Test
+    public void getCriteriaByKeysEmpty() {
+        assertTrue(dao.getCriteriaByKeys(ImmutableSet.of()).isEmpty());
+        verify(mockMapper, never()).batchLoad(anyList());
+    }
+    
     @Test
     public void getCriteriaNotFound() {
         assertNull( dao.getCriteria(CRITERIA_KEY) );
@@ -8,19 +8,25 @@ import static org.sagebionetworks.bridge.models.reports.ReportType.STUDY;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -193,6 +199,41 @@ public class DynamoReportDataDaoTest extends Mockito {
         assertEquals(reportData.getDateTime().getZone(), DateTimeZone.UTC);
     }
     
+    @Test
+    public void saveReportDataBatch() {
+        when(mockMapper.batchSave(any(Iterable.class))).thenReturn(ImmutableList.of());
+        
+        List<ReportData> failed = dao.saveReportDataBatch(ImmutableList.of(report0, report1));
+        
+        assertTrue(failed.isEmpty());
+        verify(mockMapper).batchSave(ImmutableList.of(report0, report1));
+        assertEquals(report0.getDateTime().getZone(), DateTimeZone.UTC);
+        assertEquals(report1.getDateTime().getZone(), DateTimeZone.UTC);
+    }
+    
+    @Test
+    public void saveReportDataBatchReturnsUnprocessedRecords() {
+        // Report data is converted to UTC before it is written, so build the unprocessed item after the call.
+        when(mockMapper.batchSave(any(Iterable.class))).thenAnswer(invocation -> {
+            WriteRequest request = new WriteRequest().withPutRequest(new PutRequest().withItem(ImmutableMap.of(
+                    "key", new AttributeValue(report1.getKey()), "date", new AttributeValue(report1.getDate()))));
+            FailedBatch failure = new FailedBatch();
+            failure.setException(new RuntimeException("Throughput exceeded"));
+            failure.setUnprocessedItems(ImmutableMap.of("ReportData", ImmutableList.of(request)));
+            return ImmutableList.of(failure);
+        });
+        
+        List<ReportData> failed = dao.saveReportDataBatch(ImmutableList.of(report0, report1, report2));
+        
+        assertEquals(failed, ImmutableList.of(report1));
+    }
+    
+    @Test
+    public void saveReportDataBatchEmpty() {
+        assertTrue(dao.saveReportDataBatch(ImmutableList.of()).isEmpty());
+        verify(mockMapper, never()).batchSave(any(Iterable.class));
+    }
+    
     @Test
     public void deleteReportData() {
         when(mockMapper.query(eq(DynamoReportData.class), any())).thenReturn(mockQueryList);
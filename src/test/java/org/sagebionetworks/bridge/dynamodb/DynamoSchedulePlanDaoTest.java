@@ -43,6 +43,7 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
@@ -90,6 +91,8 @@ public class DynamoSchedulePlanDaoTest extends Mockito {
         Criteria criteria = scheduleCriteria.getCriteria();
         
         when(mockCriteriaDao.getCriteria(SCHEDULE_CRITERIA_KEY)).thenReturn(criteria);
+        when(mockCriteriaDao.getCriteriaByKeys(ImmutableSet.of(SCHEDULE_CRITERIA_KEY)))
+                .thenReturn(ImmutableMap.of(SCHEDULE_CRITERIA_KEY, criteria));
     }
     
     @AfterMethod
@@ -144,13 +147,16 @@ public class DynamoSchedulePlanDaoTest extends Mockito {
         assertCriteria(criteria);
         
         String key = criteria.getKey();
-        verify(mockCriteriaDao).getCriteria(key);
+        // Criteria for all the plans are loaded at once.
+        verify(mockCriteriaDao).getCriteriaByKeys(ImmutableSet.of(key));
+        verify(mockCriteriaDao, never()).getCriteria(any());
         
         // now have criteriaDao return a different criteria object, that should update the plan
         Criteria persistedCriteria = Criteria.create();
         persistedCriteria.setMinAppVersion(IOS, 1);
         persistedCriteria.setMaxAppVersion(IOS, 65);
-        when(mockCriteriaDao.getCriteria(key)).thenReturn(persistedCriteria);
+        when(mockCriteriaDao.getCriteriaByKeys(ImmutableSet.of(key)))
+                .thenReturn(ImmutableMap.of(key, persistedCriteria));
         
         plans = dao.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
         plan = plans.get(0);
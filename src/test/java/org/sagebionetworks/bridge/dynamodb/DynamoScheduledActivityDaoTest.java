@@ -14,6 +14,7 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,6 +36,7 @@ import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
@@ -44,6 +46,7 @@ import org.sagebionetworks.bridge.models.schedules.ScheduleContext;
 import org.sagebionetworks.bridge.models.schedules.ScheduledActivity;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
@@ -51,6 +54,9 @@ import com.amazonaws.services.dynamodbv2.document.Item;
 import com.amazonaws.services.dynamodbv2.document.QueryOutcome;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -528,6 +534,26 @@ public class DynamoScheduledActivityDaoTest {
         assertEquals(argument.getValue(), activities);
     }
     
+    @Test
+    public void updateActivitiesReportsActivitiesNotSaved() {
+        Map<String, AttributeValue> item = ImmutableMap.of("healthCode", new AttributeValue(HEALTH_CODE),
+                "guid", new AttributeValue("guid1"));
+        FailedBatch failure = new FailedBatch();
+        failure.setException(new ProvisionedThroughputExceededException("Throughput exceeded"));
+        failure.setUnprocessedItems(ImmutableMap.of("ScheduledActivity",
+                ImmutableList.of(new WriteRequest(new PutRequest(item)))));
+        List<ScheduledActivity> activities = ImmutableList.of(ScheduledActivity.create());
+        when(mapper.batchSave(activities)).thenReturn(ImmutableList.of(failure));
+        
+        try {
+            activityDao.updateActivities(HEALTH_CODE, activities);
+            fail("Should have thrown exception");
+        } catch (BridgeServiceException e) {
+            assertTrue(e.getMessage().contains("[guid1]"));
+            assertTrue(e.getMessage().contains("Throughput exceeded"));
+        }
+    }
+    
     @SuppressWarnings("unchecked")
     @Test
     public void updateActivitiesWithEmptyListDoesNotCallBatchSave() {
@@ -47,6 +47,9 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.LocalCacheManager;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -78,6 +81,7 @@ public class HibernateAccountDaoTest extends Mockito {
     private static final AccountId ACCOUNT_ID_WITH_SYNID = AccountId.forSynapseUserId(TEST_APP_ID,
             SYNAPSE_USER_ID);
 
+    private static final String ACCOUNTS_BY_ID_QUERY = FULL_QUERY + " WHERE acct.id IN (:ids)";
     private static final String STUDY_A = "studyA";
     private static final String STUDY_B = "studyB";
     private static final Map<String, Object> APP_QUERY_PARAMS = new ImmutableMap.Builder<String, Object>()
@@ -446,10 +450,10 @@ public class HibernateAccountDaoTest extends Mockito {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
         
-        String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN "
+        String expQuery = "SELECT acct.id, acct.createdOn FROM HibernateAccount AS acct LEFT JOIN "
                 + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
                 + "WHERE acct.appId = :appId AND size(acct.roles) > 0 AND acct.orgMembership "
-                +"= :orgId GROUP BY acct.id";
+                +"= :orgId GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct "
                 + "LEFT JOIN acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
@@ -471,10 +475,12 @@ public class HibernateAccountDaoTest extends Mockito {
         hibernateAccount2.setEmail("email2@example.com");
         hibernateAccount2.setEnrollments(set);
 
-        when(mockHibernateHelper.queryGet(expQuery, APP_QUERY_PARAMS, 10, 5, String.class))
-                .thenReturn(ImmutableList.of("account-1", "account-2"));
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-1")).thenReturn(hibernateAccount1);        
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-2")).thenReturn(hibernateAccount2);
+        when(mockHibernateHelper.queryGet(expQuery, APP_QUERY_PARAMS, 10, 5, Object[].class))
+                .thenReturn(ImmutableList.of(idRow("account-1", CREATED_ON), idRow("account-2", CREATED_ON)));
+        // The accounts are not returned in the order of the page.
+        when(mockHibernateHelper.queryGet(ACCOUNTS_BY_ID_QUERY, ImmutableMap.of("ids",
+                ImmutableList.of("account-1", "account-2")), null, null, HibernateAccount.class))
+                .thenReturn(ImmutableList.of(hibernateAccount2, hibernateAccount1));
         when(mockHibernateHelper.queryCount(eq(expCountQuery), any())).thenReturn(12);
 
         // execute and validate
@@ -509,12 +515,127 @@ public class HibernateAccountDaoTest extends Mockito {
         assertEquals(accountSummaryList.get(1).getStudyIds(), ImmutableSet.of(STUDY_A, STUDY_B));
 
         // verify hibernate calls
-        verify(mockHibernateHelper).queryGet(eq(expQuery), eq(APP_QUERY_PARAMS), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, "account-1");
-        verify(mockHibernateHelper).getById(HibernateAccount.class, "account-2");
+        verify(mockHibernateHelper).queryGet(eq(expQuery), eq(APP_QUERY_PARAMS), eq(10), eq(5), eq(Object[].class));
+        verify(mockHibernateHelper).queryGet(ACCOUNTS_BY_ID_QUERY, ImmutableMap.of("ids",
+                ImmutableList.of("account-1", "account-2")), null, null, HibernateAccount.class);
+        verify(mockHibernateHelper, never()).getById(any(), any());
         verify(mockHibernateHelper).queryCount(expCountQuery, APP_QUERY_PARAMS);
     }
 
+    @Test
+    public void getPagedSkipsDeletedAccount() throws Exception {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(Object[].class)))
+                .thenReturn(ImmutableList.of(idRow("account-1", CREATED_ON), idRow(ACCOUNT_ID, CREATED_ON)));
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of(makeValidHibernateAccount(false)));
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().build();
+        List<AccountSummary> summaries = dao.getPagedAccountSummaries(TEST_APP_ID, search).getItems();
+        
+        assertEquals(summaries.size(), 1);
+        assertEquals(summaries.get(0).getId(), ACCOUNT_ID);
+    }
+    
+    @Test
+    public void getPagedWithNoAccountsDoesNotLoadAccounts() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertTrue(page.getItems().isEmpty());
+        verify(mockHibernateHelper, never()).queryGet(any(), any(), any(), any(), eq(HibernateAccount.class));
+    }
+    
+    @Test
+    public void getPagedCachesCount() {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.getInt(HibernateAccountDao.COUNT_CACHE_MAX_SIZE_PROPERTY)).thenReturn(10);
+        when(mockConfig.getInt(HibernateAccountDao.COUNT_CACHE_EXPIRE_PROPERTY)).thenReturn(60);
+        dao.setLocalCacheManager(new LocalCacheManager());
+        dao.setBridgeConfig(mockConfig);
+        dao.init();
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(12);
+        
+        AccountSummarySearch page1 = new AccountSummarySearch.Builder().withPageSize(5).build();
+        AccountSummarySearch page2 = new AccountSummarySearch.Builder().withOffsetBy(5).withPageSize(5).build();
+        AccountSummarySearch otherSearch = new AccountSummarySearch.Builder().withEmailFilter(EMAIL).build();
+        assertEquals(dao.getPagedAccountSummaries(TEST_APP_ID, page1).getTotal(), (Integer) 12);
+        assertEquals(dao.getPagedAccountSummaries(TEST_APP_ID, page2).getTotal(), (Integer) 12);
+        dao.getPagedAccountSummaries(TEST_APP_ID, otherSearch);
+        
+        // Counted once for both pages of the first search, and once for the other search.
+        verify(mockHibernateHelper, times(2)).queryCount(any(), any());
+    }
+    
+    @Test
+    public void getPagedWithOffsetKey() throws Exception {
+        String expQuery = "SELECT acct.id, acct.createdOn FROM HibernateAccount AS acct LEFT JOIN acct.enrollments AS "
+                + "enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
+                + "(acct.createdOn > :offsetCreatedOn OR (acct.createdOn = :offsetCreatedOn AND "
+                + "acct.id > :offsetId)) GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
+        String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct LEFT JOIN "
+                + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId";
+        
+        HibernateAccount hibernateAccount1 = makeValidHibernateAccount(false);
+        hibernateAccount1.setId("account-1");
+        hibernateAccount1.setCreatedOn(CREATED_ON);
+        HibernateAccount hibernateAccount2 = makeValidHibernateAccount(false);
+        hibernateAccount2.setId("account-2");
+        hibernateAccount2.setCreatedOn(CREATED_ON.plusMinutes(1));
+        when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), eq(Object[].class)))
+                .thenReturn(ImmutableList.of(idRow("account-1", CREATED_ON),
+                        idRow("account-2", CREATED_ON.plusMinutes(1))));
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of(hibernateAccount1, hibernateAccount2));
+        when(mockHibernateHelper.queryCount(expCountQuery, APP_QUERY_PARAMS)).thenReturn(12);
+        
+        // offsetBy is ignored when there is an offset key.
+        String offsetKey = CREATED_ON.getMillis() + ":account-0";
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(10)
+                .withOffsetKey(offsetKey).withPageSize(2).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertEquals(page.getItems().size(), 2);
+        assertEquals(page.getTotal(), (Integer) 12);
+        assertEquals(page.getNextPageOffsetKey(), CREATED_ON.plusMinutes(1).getMillis() + ":account-2");
+        assertEquals(page.getRequestParams().get(ResourceList.OFFSET_KEY), offsetKey);
+        assertNull(page.getRequestParams().get(ResourceList.OFFSET_BY));
+        
+        verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), isNull(), eq(2),
+                eq(Object[].class));
+        assertEquals(paramCaptor.getValue().get("offsetCreatedOn"), new DateTime(CREATED_ON.getMillis()));
+        assertEquals(paramCaptor.getValue().get("offsetId"), "account-0");
+    }
+    
+    @Test
+    public void getPagedWithLastPageHasNoNextPageOffsetKey() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withOffsetKey(CREATED_ON.getMillis() + ":account-0").build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertNull(page.getNextPageOffsetKey());
+    }
+    
+    @Test
+    public void getPagedWithDeletedAccountsHasNextPageOffsetKey() {
+        // Every account of the page is deleted after its ID is retrieved.
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(Object[].class)))
+                .thenReturn(ImmutableList.of(idRow("account-1", CREATED_ON),
+                        idRow("account-2", CREATED_ON.plusMinutes(1))));
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withOffsetKey(CREATED_ON.getMillis() + ":account-0").withPageSize(2).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertTrue(page.getItems().isEmpty());
+        assertEquals(page.getNextPageOffsetKey(), CREATED_ON.plusMinutes(1).getMillis() + ":account-2");
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class, expectedExceptionsMessageRegExp = "Invalid offsetKey: foo")
+    public void getPagedWithInvalidOffsetKey() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("foo").build();
+        dao.getPagedAccountSummaries(TEST_APP_ID, search);
+    }
+    
     @Test
     public void getPagedRemovesStudiesNotInCaller() throws Exception {
         RequestContext.set(new RequestContext.Builder()
@@ -531,10 +652,10 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount2 = makeValidHibernateAccount(false);
         hibernateAccount2.setId("account-2");
         hibernateAccount2.setEnrollments(set);
-        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any()))
-                .thenReturn(ImmutableList.of("account-1", "account-2"));
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-1")).thenReturn(hibernateAccount1);
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-2")).thenReturn(hibernateAccount2);
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(Object[].class)))
+                .thenReturn(ImmutableList.of(idRow("account-1", CREATED_ON), idRow("account-2", CREATED_ON)));
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(HibernateAccount.class)))
+                .thenReturn(ImmutableList.of(hibernateAccount1, hibernateAccount2));
 
         AccountSummarySearch search = new AccountSummarySearch.Builder().build();
         PagedResourceList<AccountSummary> accountSummaryResourceList = dao.getPagedAccountSummaries(TEST_APP_ID, search);
@@ -547,13 +668,14 @@ public class HibernateAccountDaoTest extends Mockito {
 
     @Test
     public void getPagedWithOptionalParams() throws Exception {
-        String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments AS "
+        String expQuery = "SELECT acct.id, acct.createdOn FROM HibernateAccount AS acct LEFT JOIN acct.enrollments AS "
                 + "enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
                 + "acct.email LIKE :email AND acct.phone.number LIKE :number AND acct.createdOn >= "
                 + ":startTime AND acct.createdOn <= :endTime AND :language IN ELEMENTS(acct.languages) "
                 + "AND size(acct.roles) > 0 AND (:IN1 IN elements(acct.dataGroups) AND :IN2 IN "
                 + "elements(acct.dataGroups)) AND (:NOTIN1 NOT IN elements(acct.dataGroups) AND "
-                + ":NOTIN2 NOT IN elements(acct.dataGroups)) AND acct.orgMembership = :orgId GROUP BY acct.id";
+                + ":NOTIN2 NOT IN elements(acct.dataGroups)) AND acct.orgMembership = :orgId "
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct LEFT JOIN "
                 + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = "
@@ -569,9 +691,9 @@ public class HibernateAccountDaoTest extends Mockito {
 
         // mock hibernate
         when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), any()))
-                .thenReturn(ImmutableList.of(ACCOUNT_ID));
-        when(mockHibernateHelper.getById(HibernateAccount.class, ACCOUNT_ID))
-                .thenReturn(makeValidHibernateAccount(false));
+                .thenReturn(ImmutableList.of(idRow(ACCOUNT_ID, CREATED_ON)));
+        when(mockHibernateHelper.queryGet(eq(ACCOUNTS_BY_ID_QUERY), any(), any(), any(), any()))
+                .thenReturn(ImmutableList.of(makeValidHibernateAccount(false)));
         when(mockHibernateHelper.queryCount(eq(expCountQuery), any())).thenReturn(11);
 
         // execute and validate - Just validate filters and query, since everything else is tested in getPaged().
@@ -614,8 +736,9 @@ public class HibernateAccountDaoTest extends Mockito {
         params.put("language", "de");
         params.put("orgId", TEST_ORG_ID);
 
-        verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, ACCOUNT_ID);
+        verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(10), eq(5), eq(Object[].class));
+        verify(mockHibernateHelper).queryGet(ACCOUNTS_BY_ID_QUERY, ImmutableMap.of("ids",
+                ImmutableList.of(ACCOUNT_ID)), null, null, HibernateAccount.class);
         verify(mockHibernateHelper).queryCount(eq(expCountQuery), paramCaptor.capture());
 
         Map<String, Object> capturedParams = paramCaptor.getAllValues().get(0);
@@ -669,11 +792,11 @@ public class HibernateAccountDaoTest extends Mockito {
 
     @Test
     public void getPagedWithOptionalEmptySetParams() throws Exception {
-        String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
+        String expQuery = "SELECT acct.id, acct.createdOn FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
                 + "acct.email LIKE :email AND acct.phone.number LIKE :number AND acct.createdOn >= "
                 + ":startTime AND acct.createdOn <= :endTime AND :language IN ELEMENTS(acct.languages) "
-                + "GROUP BY acct.id";
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct LEFT JOIN "
                 + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId WHERE "
@@ -687,9 +810,9 @@ public class HibernateAccountDaoTest extends Mockito {
 
         // mock hibernate
         when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), any()))
-                .thenReturn(ImmutableList.of(ACCOUNT_ID));
-        when(mockHibernateHelper.getById(HibernateAccount.class, ACCOUNT_ID))
-            .thenReturn(makeValidHibernateAccount(false));
+                .thenReturn(ImmutableList.of(idRow(ACCOUNT_ID, CREATED_ON)));
+        when(mockHibernateHelper.queryGet(eq(ACCOUNTS_BY_ID_QUERY), any(), any(), any(), any()))
+                .thenReturn(ImmutableList.of(makeValidHibernateAccount(false)));
         when(mockHibernateHelper.queryCount(any(), any())).thenReturn(11);
 
         // execute and validate - Just validate filters and query, since everything else is tested in getPaged().
@@ -722,8 +845,9 @@ public class HibernateAccountDaoTest extends Mockito {
         params.put("endTime", endDate);
         params.put("language", "de");
 
-        verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, ACCOUNT_ID);
+        verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(10), eq(5), eq(Object[].class));
+        verify(mockHibernateHelper).queryGet(ACCOUNTS_BY_ID_QUERY, ImmutableMap.of("ids",
+                ImmutableList.of(ACCOUNT_ID)), null, null, HibernateAccount.class);
         verify(mockHibernateHelper).queryCount(eq(expCountQuery), paramCaptor.capture());
 
         Map<String, Object> capturedParams = paramCaptor.getAllValues().get(0);
@@ -745,9 +869,9 @@ public class HibernateAccountDaoTest extends Mockito {
     
     @Test
     public void getPagedScopedToOrgStudies() {
-        String queryExpr = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
+        String queryExpr = "SELECT acct.id, acct.createdOn FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
-                + "enrollment.studyId IN (:studies) GROUP BY acct.id";
+                + "enrollment.studyId IN (:studies) GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
         
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(STUDY_COORDINATOR))
@@ -756,16 +880,16 @@ public class HibernateAccountDaoTest extends Mockito {
         AccountSummarySearch search = new AccountSummarySearch.Builder().build();
         dao.getPagedAccountSummaries(TEST_APP_ID, search);
 
-        verify(mockHibernateHelper).queryGet(eq(queryExpr), paramCaptor.capture(), eq(0), eq(50), eq(String.class));
+        verify(mockHibernateHelper).queryGet(eq(queryExpr), paramCaptor.capture(), eq(0), eq(50), eq(Object[].class));
         assertEquals(paramCaptor.getValue().get("appId"), TEST_APP_ID);
         assertEquals(paramCaptor.getValue().get("studies"), ImmutableSet.of("A", "B"));
     }
 
     @Test
     public void getPagedNotScopedToOrgStudiesForAdmin() {
-        String queryExpr = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
+        String queryExpr = "SELECT acct.id, acct.createdOn FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId "
-                + "GROUP BY acct.id";
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
         
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN))
@@ -774,7 +898,7 @@ public class HibernateAccountDaoTest extends Mockito {
         AccountSummarySearch search = new AccountSummarySearch.Builder().build();
         dao.getPagedAccountSummaries(TEST_APP_ID, search);
 
-        verify(mockHibernateHelper).queryGet(eq(queryExpr), paramCaptor.capture(), eq(0), eq(50), eq(String.class));
+        verify(mockHibernateHelper).queryGet(eq(queryExpr), paramCaptor.capture(), eq(0), eq(50), eq(Object[].class));
         assertEquals(paramCaptor.getValue().get("appId"), TEST_APP_ID);
         assertNull(paramCaptor.getValue().get("studies"));
     }
@@ -872,7 +996,8 @@ public class HibernateAccountDaoTest extends Mockito {
                 search, false);
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments AS enrollment "
-                + "WITH acct.id = enrollment.accountId WHERE acct.appId = :appId GROUP BY acct.id";
+                + "WITH acct.id = enrollment.accountId WHERE acct.appId = :appId GROUP BY acct.createdOn, acct.id "
+                + "ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("appId"), TEST_APP_ID);
@@ -886,7 +1011,8 @@ public class HibernateAccountDaoTest extends Mockito {
                 search, false);
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments AS enrollment "
                 + "WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
-                + ":language IN ELEMENTS(acct.languages) GROUP BY acct.id";
+                + ":language IN ELEMENTS(acct.languages) "
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("appId"), TEST_APP_ID);
         assertEquals(builder.getParameters().get("language"), "en");
@@ -903,7 +1029,7 @@ public class HibernateAccountDaoTest extends Mockito {
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
                 + "(:IN1 IN elements(acct.dataGroups)) AND (:NOTIN1 NOT IN elements(acct.dataGroups)) "
-                + "GROUP BY acct.id";
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("NOTIN1"), "sdk-int-1");
@@ -921,7 +1047,8 @@ public class HibernateAccountDaoTest extends Mockito {
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
-                + "(:IN1 IN elements(acct.dataGroups)) GROUP BY acct.id";
+                + "(:IN1 IN elements(acct.dataGroups)) "
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("IN1"), "group1");
@@ -938,7 +1065,8 @@ public class HibernateAccountDaoTest extends Mockito {
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
-                + "(:IN1 IN elements(acct.dataGroups) AND :IN2 IN elements(acct.dataGroups)) GROUP BY acct.id";
+                + "(:IN1 IN elements(acct.dataGroups) AND :IN2 IN elements(acct.dataGroups)) "
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("IN1"), "sdk-int-1");
@@ -956,7 +1084,8 @@ public class HibernateAccountDaoTest extends Mockito {
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
-                + "(:NOTIN1 NOT IN elements(acct.dataGroups)) GROUP BY acct.id";
+                + "(:NOTIN1 NOT IN elements(acct.dataGroups)) "
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("NOTIN1"), "group1");
@@ -974,7 +1103,7 @@ public class HibernateAccountDaoTest extends Mockito {
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
                 + "(:NOTIN1 NOT IN elements(acct.dataGroups) AND :NOTIN2 NOT IN elements(acct.dataGroups)) "
-                + "GROUP BY acct.id";
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("NOTIN1"), "sdk-int-1");
@@ -992,7 +1121,8 @@ public class HibernateAccountDaoTest extends Mockito {
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN "
                 +"acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
-                +"WHERE acct.appId = :appId AND acct.orgMembership = :orgId GROUP BY acct.id";
+                +"WHERE acct.appId = :appId AND acct.orgMembership = :orgId GROUP BY acct.createdOn, acct.id "
+                + "ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("orgId"), TEST_ORG_ID);
@@ -1008,7 +1138,8 @@ public class HibernateAccountDaoTest extends Mockito {
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN "
                 +"acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
-                +"WHERE acct.appId = :appId AND acct.orgMembership IS NULL GROUP BY acct.id";
+                +"WHERE acct.appId = :appId AND acct.orgMembership IS NULL GROUP BY acct.createdOn, acct.id "
+                + "ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertNull(builder.getParameters().get("orgId"));
@@ -1024,7 +1155,8 @@ public class HibernateAccountDaoTest extends Mockito {
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN "
                 +"acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
-                +"WHERE acct.appId = :appId AND size(acct.roles) > 0 GROUP BY acct.id";
+                +"WHERE acct.appId = :appId AND size(acct.roles) > 0 "
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertNull(builder.getParameters().get("orgId"));
@@ -1044,7 +1176,7 @@ public class HibernateAccountDaoTest extends Mockito {
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct " 
                 + "LEFT JOIN acct.enrollments AS enrollment WITH acct.id = " 
                 + "enrollment.accountId WHERE acct.appId = :appId AND " 
-                + "enrollment.studyId IN (:studies) GROUP BY acct.id";
+                + "enrollment.studyId IN (:studies) GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("studies"), ImmutableSet.of(TEST_STUDY_ID));
@@ -1064,7 +1196,7 @@ public class HibernateAccountDaoTest extends Mockito {
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct " 
                 + "LEFT JOIN acct.enrollments AS enrollment WITH acct.id = " 
                 + "enrollment.accountId WHERE acct.appId = :appId AND " 
-                + "enrollment.studyId IN (:studies) GROUP BY acct.id";
+                + "enrollment.studyId IN (:studies) GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("studies"), ImmutableSet.of(TEST_STUDY_ID));
@@ -1081,7 +1213,8 @@ public class HibernateAccountDaoTest extends Mockito {
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct " 
                 + "LEFT JOIN acct.enrollments AS enrollment WITH acct.id = " 
-                + "enrollment.accountId WHERE acct.appId = :appId GROUP BY acct.id";
+                + "enrollment.accountId WHERE acct.appId = :appId "
+                + "GROUP BY acct.createdOn, acct.id ORDER BY acct.createdOn, acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertNull(builder.getParameters().get("studies"));
@@ -1119,6 +1252,10 @@ public class HibernateAccountDaoTest extends Mockito {
     }
 
     // Create minimal generic account for everything that will be used by HibernateAccountDao.
+    private static Object[] idRow(String id, DateTime createdOn) {
+        return new Object[] { id, createdOn };
+    }
+    
     private static Account makeValidGenericAccount() {
         Account genericAccount = Account.create();
         genericAccount.setId(ACCOUNT_ID);
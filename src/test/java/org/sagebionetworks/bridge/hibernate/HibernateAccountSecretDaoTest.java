@@ -2,12 +2,14 @@ package org.sagebionetworks.bridge.hibernate;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.security.InvalidKeyException;
@@ -31,6 +33,7 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.accounts.AccountSecret;
 import org.sagebionetworks.bridge.models.accounts.AccountSecretType;
@@ -41,6 +44,8 @@ public class HibernateAccountSecretDaoTest {
     private static final DateTime CREATED_ON = DateTime.parse("2018-10-10T03:10:30.000Z");
     private static final String ACCOUNT_ID = "id";
     private static final String TOKEN = "token";
+    private static final String SELECTOR = "selector";
+    private static final String SELECTOR_TOKEN = SELECTOR + AccountSecret.SELECTOR_DELIMITER + TOKEN;
     private static final int ROTATIONS = 4;
     
     @Spy
@@ -59,6 +64,7 @@ public class HibernateAccountSecretDaoTest {
     public void before() {
         MockitoAnnotations.initMocks(this);
         dao.setHibernateHelper(helper);
+        dao.setCredentialHasher(TestUtils.getCredentialHasher());
         //when(dao.generateHash(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM, TOKEN)).thenReturn(TOKEN);
         DateTimeUtils.setCurrentMillisFixed(CREATED_ON.getMillis());
     }
@@ -80,6 +86,73 @@ public class HibernateAccountSecretDaoTest {
         assertNotEquals(secret.getHash(), TOKEN);
         assertEquals(secret.getType(), AccountSecretType.REAUTH);
         assertEquals(secret.getCreatedOn(), CREATED_ON);
+        assertNull(secret.getSelector());
+    }
+    
+    @Test
+    public void createSecretWithSelector() {
+        dao.createSecret(AccountSecretType.REAUTH, ACCOUNT_ID, SELECTOR_TOKEN);
+        
+        verify(helper).create(secretCaptor.capture());
+        
+        AccountSecret secret = secretCaptor.getValue();
+        assertEquals(secret.getSelector(), SELECTOR);
+        assertNotEquals(secret.getHash(), SELECTOR_TOKEN);
+    }
+    
+    @Test
+    public void verifySecretWithSelector() throws Exception {
+        HibernateAccountSecret secret = makeSecret(SELECTOR_TOKEN);
+        secret.setSelector(SELECTOR);
+        secret.setCreatedOn(CREATED_ON);
+        when(helper.queryGet(eq(HibernateAccountSecretDao.GET_BY_SELECTOR_QUERY), any(), 
+                eq(0), eq(1), eq(HibernateAccountSecret.class))).thenReturn(ImmutableList.of(secret));
+        when(helper.queryCount(eq(HibernateAccountSecretDao.COUNT_NEWER_QUERY), any())).thenReturn(ROTATIONS - 1);
+        
+        assertTrue(dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, SELECTOR_TOKEN, ROTATIONS).isPresent());
+        
+        verify(helper).queryGet(eq(HibernateAccountSecretDao.GET_BY_SELECTOR_QUERY), paramsCaptor.capture(), 
+                eq(0), eq(1), eq(HibernateAccountSecret.class));
+        Map<String, Object> params = paramsCaptor.getValue();
+        assertEquals(params.get("accountId"), ACCOUNT_ID);
+        assertEquals(params.get("type"), AccountSecretType.REAUTH);
+        assertEquals(params.get("selector"), SELECTOR);
+        
+        verify(helper).queryCount(eq(HibernateAccountSecretDao.COUNT_NEWER_QUERY), paramsCaptor.capture());
+        params = paramsCaptor.getValue();
+        assertEquals(params.get("accountId"), ACCOUNT_ID);
+        assertEquals(params.get("type"), AccountSecretType.REAUTH);
+        assertEquals(params.get("createdOn"), CREATED_ON);
+        
+        verify(helper, never()).queryGet(eq(HibernateAccountSecretDao.GET_QUERY), any(), any(), any(), any());
+    }
+    
+    @Test
+    public void verifySecretWithSelectorFailsAfterRotations() throws Exception {
+        HibernateAccountSecret secret = makeSecret(SELECTOR_TOKEN);
+        secret.setSelector(SELECTOR);
+        when(helper.queryGet(eq(HibernateAccountSecretDao.GET_BY_SELECTOR_QUERY), any(), 
+                eq(0), eq(1), eq(HibernateAccountSecret.class))).thenReturn(ImmutableList.of(secret));
+        when(helper.queryCount(eq(HibernateAccountSecretDao.COUNT_NEWER_QUERY), any())).thenReturn(ROTATIONS);
+        
+        assertFalse(dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, SELECTOR_TOKEN, ROTATIONS).isPresent());
+    }
+    
+    @Test
+    public void verifySecretWithSelectorFailsWhenNotFound() throws Exception {
+        when(helper.queryGet(eq(HibernateAccountSecretDao.GET_BY_SELECTOR_QUERY), any(), 
+                eq(0), eq(1), eq(HibernateAccountSecret.class))).thenReturn(ImmutableList.of());
+        
+        assertFalse(dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, SELECTOR_TOKEN, ROTATIONS).isPresent());
+        verify(helper, never()).queryCount(any(), any());
+    }
+    
+    @Test
+    public void verifySecretWithoutSelectorSkipsSecretsWithSelectors() throws Exception {
+        List<HibernateAccountSecret> results = makeResults(TOKEN);
+        results.get(0).setSelector(SELECTOR);
+        
+        assertFalse(dao.verifySecret(AccountSecretType.REAUTH, ACCOUNT_ID, TOKEN, ROTATIONS).isPresent());
     }
     
     @Test
@@ -155,13 +228,18 @@ public class HibernateAccountSecretDaoTest {
     private List<HibernateAccountSecret> makeResults(String... hashes) throws InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException {
         List<HibernateAccountSecret> results = new ArrayList<>();
         for (String hash : hashes) {
-            HibernateAccountSecret secret = new HibernateAccountSecret();
-            secret.setAlgorithm(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM);
-            secret.setHash(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM.generateHash(hash));
-            results.add(secret);
+            results.add(makeSecret(hash));
         }
         when(helper.queryGet(eq(HibernateAccountSecretDao.GET_QUERY), any(), 
                 eq(0), eq(ROTATIONS), eq(HibernateAccountSecret.class))).thenReturn(results);
         return results;
     }
+    
+    private HibernateAccountSecret makeSecret(String plaintext)
+            throws InvalidKeyException, InvalidKeySpecException, NoSuchAlgorithmException {
+        HibernateAccountSecret secret = new HibernateAccountSecret();
+        secret.setAlgorithm(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM);
+        secret.setHash(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM.generateHash(plaintext));
+        return secret;
+    }
 }
@@ -3,6 +3,9 @@ package org.sagebionetworks.bridge.hibernate;
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.testng.Assert.assertNotNull;
 
+import java.util.function.Function;
+
+import org.hibernate.Session;
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -15,6 +18,8 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.models.RequestInfo;
 
+import com.google.common.collect.ImmutableList;
+
 public class HibernateRequestInfoDaoTest extends Mockito {
     
     @InjectMocks
@@ -58,6 +63,39 @@ public class HibernateRequestInfoDaoTest extends Mockito {
         assertNotNull(captured.getSignedInOn());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void updateRequestInfos() {
+        RequestInfo existingInfo = new RequestInfo.Builder().withUserId(TEST_USER_ID)
+                .withSignedInOn(DateTime.now()).build();
+        RequestInfo updatedInfo = new RequestInfo.Builder().withUserId(TEST_USER_ID)
+                .withActivitiesAccessedOn(DateTime.now()).build();
+        RequestInfo newInfo = new RequestInfo.Builder().withUserId("otherUserId")
+                .withActivitiesAccessedOn(DateTime.now()).build();
+        
+        Session mockSession = mock(Session.class);
+        when(mockSession.get(RequestInfo.class, TEST_USER_ID)).thenReturn(existingInfo);
+        when(mockHelper.executeWithExceptionHandling(any(), any())).thenAnswer(invocation -> 
+                ((Function<Session, Object>) invocation.getArgument(1)).apply(mockSession));
+        
+        dao.updateRequestInfos(ImmutableList.of(updatedInfo, newInfo));
+        
+        // Both updates are made in one transaction
+        verify(mockHelper, times(1)).executeWithExceptionHandling(any(), any());
+        verify(mockSession).merge(requestInfoCaptor.capture());
+        RequestInfo captured = requestInfoCaptor.getValue();
+        assertNotNull(captured.getActivitiesAccessedOn());
+        assertNotNull(captured.getSignedInOn());
+        verify(mockSession).save(newInfo);
+    }
+    
+    @Test
+    public void updateRequestInfosEmpty() {
+        dao.updateRequestInfos(ImmutableList.of());
+        
+        verify(mockHelper, never()).executeWithExceptionHandling(any(), any());
+    }
+
     @Test
     public void getRequestInfo() {
         dao.getRequestInfo(TEST_USER_ID);
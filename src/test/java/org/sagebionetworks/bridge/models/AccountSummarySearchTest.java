@@ -68,6 +68,7 @@ public class AccountSummarySearchTest {
         
         AccountSummarySearch search = new AccountSummarySearch.Builder()
             .withOffsetBy(10)
+            .withOffsetKey("offsetKey")
             .withPageSize(100)
             .withEmailFilter("email")
             .withPhoneFilter("phone")
@@ -91,6 +92,7 @@ public class AccountSummarySearchTest {
         AccountSummarySearch deser = BridgeObjectMapper.get().readValue(json, AccountSummarySearch.class);
         
         assertEquals(deser.getOffsetBy(), 10);
+        assertEquals(deser.getOffsetKey(), "offsetKey");
         assertEquals(deser.getPageSize(), 100);
         assertEquals(deser.getEmailFilter(), "email");
         assertEquals(deser.getPhoneFilter(), "phone");
@@ -111,6 +113,7 @@ public class AccountSummarySearchTest {
         
         AccountSummarySearch search = new AccountSummarySearch.Builder()
             .withOffsetBy(10)
+            .withOffsetKey("offsetKey")
             .withPageSize(100)
             .withEmailFilter("email")
             .withPhoneFilter("phone")
@@ -125,6 +128,7 @@ public class AccountSummarySearchTest {
 
         AccountSummarySearch copy = new AccountSummarySearch.Builder().copyOf(search).build();
         assertEquals(copy.getOffsetBy(), 10);
+        assertEquals(copy.getOffsetKey(), "offsetKey");
         assertEquals(copy.getPageSize(), 100);
         assertEquals(copy.getEmailFilter(), "email");
         assertEquals(copy.getPhoneFilter(), "phone");
@@ -483,6 +483,31 @@ public class CriteriaUtilsTest {
         assertSame(selected.get(2), appConfig3);
     }
 
+    @Test
+    public void filterByCriteriaSortsLanguageMatchedIgnoringCaseFirst() {
+        AppConfig frAppConfig = AppConfig.create();
+        frAppConfig.setCriteria(getCriteria().lang("fr").build());
+        
+        AppConfig enAppConfig = AppConfig.create();
+        enAppConfig.setCriteria(getCriteria().lang("EN").build());
+        
+        AppConfig noLangAppConfig = AppConfig.create();
+        noLangAppConfig.setCriteria(getCriteria().build());
+        
+        List<AppConfig> collection = ImmutableList.of(frAppConfig, enAppConfig, noLangAppConfig);
+        
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withLanguages(ImmutableList.of("en", "fr", "en")).build();
+        
+        // "EN" matches "en", but it is not the same string, so it sorts with the criteria that don't
+        // declare a language (in their original order), before the exact match.
+        List<AppConfig> selected = CriteriaUtils.filterByCriteria(context, collection, null);
+        assertEquals(selected.size(), 3);
+        assertSame(selected.get(0), enAppConfig);
+        assertSame(selected.get(1), noLangAppConfig);
+        assertSame(selected.get(2), frAppConfig);
+    }
+
     private CriteriaContext.Builder getContext() {
         return new CriteriaContext.Builder().withAppId(TEST_APP_ID);
     }
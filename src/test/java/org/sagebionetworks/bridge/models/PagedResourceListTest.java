@@ -108,6 +108,24 @@ public class PagedResourceListTest {
         assertNull(node.get("endTime"));
     }
     
+    @Test
+    public void canSerializeNextPageOffsetKey() throws Exception {
+        PagedResourceList<AccountSummary> page = new PagedResourceList<AccountSummary>(
+                Lists.newArrayList(SUMMARY1), 2).withNextPageOffsetKey("nextPageOffsetKey");
+        
+        JsonNode node = BridgeObjectMapper.get().valueToTree(page);
+        assertEquals(node.get("nextPageOffsetKey").textValue(), "nextPageOffsetKey");
+        
+        PagedResourceList<AccountSummary> serPage = BridgeObjectMapper.get().readValue(node.toString(), 
+                new TypeReference<PagedResourceList<AccountSummary>>() {});
+        assertEquals(serPage.getNextPageOffsetKey(), "nextPageOffsetKey");
+        
+        // Not included when there is no next page.
+        node = BridgeObjectMapper.get().valueToTree(new PagedResourceList<AccountSummary>(
+                Lists.newArrayList(SUMMARY1), 2));
+        assertNull(node.get("nextPageOffsetKey"));
+    }
+    
     @Test(expectedExceptions = NullPointerException.class)
     public void totalCannotBeNull() throws Exception {
         List<AccountSummary> accounts = Lists.newArrayListWithCapacity(2);
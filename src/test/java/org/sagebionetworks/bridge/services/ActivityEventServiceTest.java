@@ -22,6 +22,7 @@ import static org.testng.Assert.fail;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableMap;
 import org.joda.time.DateTime;
@@ -37,6 +38,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.ActivityEventMapCache;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.activities.ActivityEvent;
@@ -60,6 +62,9 @@ public class ActivityEventServiceTest {
     @Mock
     private ActivityEventDao activityEventDao;
     
+    @Mock
+    private ActivityEventMapCache mockActivityEventMapCache;
+    
     @Mock
     private AppService mockAppService;
     
@@ -75,8 +80,13 @@ public class ActivityEventServiceTest {
         activityEventService = new ActivityEventService();
         
         activityEventService.setActivityEventDao(activityEventDao);
+        activityEventService.setActivityEventMapCache(mockActivityEventMapCache);
         activityEventService.setAppService(mockAppService);
         activityEventService.setParticipantService(mockParticipantService);
+        
+        // The event map is not cached.
+        when(mockActivityEventMapCache.get(any(), any(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<Map<String, DateTime>>>getArgument(2).get());
     }
 
     @Test
@@ -99,6 +109,29 @@ public class ActivityEventServiceTest {
         assertEquals(activityEvent.getTimestamp(), timestamp);
     }
 
+    @Test
+    public void publishedEventIsWrittenThroughToCache() {
+        App app = App.create();
+        app.setCustomEvents(ImmutableMap.of("eventKey1", FUTURE_ONLY));
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+
+        activityEventService.publishCustomEvent(app, TEST_STUDY_ID, HEALTH_CODE, "eventKey1", DateTime.now());
+
+        verify(activityEventDao).publishEvent(eventCaptor.capture());
+        verify(mockActivityEventMapCache).put(HEALTH_CODE, eventCaptor.getValue());
+    }
+
+    @Test
+    public void eventNotPublishedIsNotWrittenToCache() {
+        App app = App.create();
+        app.setCustomEvents(ImmutableMap.of("eventKey1", FUTURE_ONLY));
+        when(activityEventDao.publishEvent(any())).thenReturn(false);
+
+        activityEventService.publishCustomEvent(app, TEST_STUDY_ID, HEALTH_CODE, "eventKey1", DateTime.now());
+
+        verify(mockActivityEventMapCache, never()).put(any(), any());
+    }
+
     @Test
     public void canPublishGlobalCustomEventPassesUpdateType() throws Exception {
         App app = App.create();
@@ -270,6 +303,19 @@ public class ActivityEventServiceTest {
         verify(mockParticipantService, never()).getParticipant(any(), anyString(), anyBoolean());
     }
     
+    @Test
+    public void getActivityEventMapFromCache() {
+        Map<String, DateTime> map = ImmutableMap.of("enrollment", ENROLLMENT, "created_on", CREATED_ON);
+        when(mockActivityEventMapCache.get(eq(HEALTH_CODE), eq(TEST_STUDY_ID), any())).thenReturn(map);
+        
+        Map<String, DateTime> results = activityEventService.getActivityEventMap(TEST_APP_ID, TEST_STUDY_ID,
+                HEALTH_CODE);
+        assertEquals(results.get("enrollment"), ENROLLMENT);
+        assertEquals(results.get("study_start_date"), ENROLLMENT);
+        
+        verify(activityEventDao, never()).getActivityEventMap(any(), any());
+    }
+    
     @Test
     public void canSetGlobalStudyStartDateWithEnrollment() {
         Map<String, DateTime> map = Maps.newHashMap();
@@ -349,6 +395,7 @@ public class ActivityEventServiceTest {
         
         verify(activityEventDao).deleteActivityEvents(HEALTH_CODE, null);
         verifyNoMoreInteractions(activityEventDao);
+        verify(mockActivityEventMapCache).invalidate(HEALTH_CODE, null);
     }
     
     @Test
@@ -357,6 +404,7 @@ public class ActivityEventServiceTest {
         
         verify(activityEventDao).deleteActivityEvents(HEALTH_CODE, TEST_STUDY_ID);
         verifyNoMoreInteractions(activityEventDao);
+        verify(mockActivityEventMapCache).invalidate(HEALTH_CODE, TEST_STUDY_ID);
     }
     
     @Test
@@ -905,9 +953,12 @@ public class ActivityEventServiceTest {
         App app = App.create();
         app.setCustomEvents(ImmutableMap.of("eventKey", FUTURE_ONLY));
         
+        when(activityEventDao.deleteCustomEvent(any())).thenReturn(true);
+        
         activityEventService.deleteCustomEvent(app, TEST_STUDY_ID, HEALTH_CODE, "eventKey");
         
         verify(activityEventDao).deleteCustomEvent(eventCaptor.capture());
+        verify(mockActivityEventMapCache).invalidate(HEALTH_CODE, TEST_STUDY_ID);
         
         ActivityEvent event = eventCaptor.getValue();
         assertEquals(event.getEventId(), "custom:eventKey");
@@ -924,6 +975,8 @@ public class ActivityEventServiceTest {
         activityEventService.deleteCustomEvent(app, TEST_STUDY_ID, HEALTH_CODE, "eventKey");
         
         verify(activityEventDao).deleteCustomEvent(eventCaptor.capture());
+        // Nothing was deleted.
+        verify(mockActivityEventMapCache, never()).invalidate(any(), any());
         
         ActivityEvent event = eventCaptor.getValue();
         assertEquals(event.getUpdateType(), MUTABLE);
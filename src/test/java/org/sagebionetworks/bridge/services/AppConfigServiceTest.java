@@ -2,6 +2,8 @@ package org.sagebionetworks.bridge.services;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyInt;
@@ -15,6 +17,8 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 
 import org.joda.time.DateTime;
@@ -31,7 +35,9 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.LocalAppConfigCache;
 import org.sagebionetworks.bridge.dao.AppConfigDao;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.models.ClientInfo;
@@ -108,6 +114,9 @@ public class AppConfigServiceTest {
     @Mock
     private ReferenceResolver mockReferenceResolver;
     
+    @Mock
+    private LocalAppConfigCache mockAppConfigCache;
+    
     @Captor
     private ArgumentCaptor<AppConfig> appConfigCaptor;
     
@@ -129,6 +138,8 @@ public class AppConfigServiceTest {
         
         when(service.getCurrentTimestamp()).thenReturn(TIMESTAMP.getMillis());
         when(service.getGUID()).thenReturn(GUID);
+        when(mockAppConfigCache.get(any(), any(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<AppConfig>>getArgument(2).get());
         
         AppConfig savedAppConfig = AppConfig.create();
         savedAppConfig.setLabel("AppConfig");
@@ -222,6 +233,66 @@ public class AppConfigServiceTest {
 
         AppConfig retValue = setupAndTestConfigResolution(() -> service.getAppConfigForUser(context, true));
         assertEquals(retValue, appConfig2);
+        
+        verify(mockAppConfigCache).get(eq(TEST_APP_ID), eq(appConfig2), any());
+    }
+    
+    @Test
+    public void getAppConfigForUserResolvesReferencesConcurrently() {
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            service.setResolverExecutorService(executorService);
+            CriteriaContext context = new CriteriaContext.Builder()
+                    .withClientInfo(ClientInfo.fromUserAgentCache("app/7 (Motorola Flip-Phone; Android/14) BridgeJavaSDK/10"))
+                    .withAppId(TEST_APP_ID).build();
+            
+            AppConfig appConfig2 = setupConfigsForUser();
+            
+            AppConfig retValue = setupAndTestConfigResolution(() -> service.getAppConfigForUser(context, true));
+            assertEquals(retValue, appConfig2);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void getAppConfigForUserConcurrentLookupFails() {
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            service.setResolverExecutorService(executorService);
+            CriteriaContext context = new CriteriaContext.Builder()
+                    .withClientInfo(ClientInfo.fromUserAgentCache("app/7 (Motorola Flip-Phone; Android/14) BridgeJavaSDK/10"))
+                    .withAppId(TEST_APP_ID).build();
+            setupConfigsForUser();
+            when(mockSurveyService.getSurvey(TEST_APP_ID, SURVEY_KEY, false, false))
+                    .thenThrow(new BadRequestException("test"));
+            
+            service.getAppConfigForUser(context, true);
+            fail("Should have thrown exception");
+        } catch (BadRequestException e) {
+            // The lookup's exception is thrown on the request thread.
+            assertEquals(e.getMessage(), "test");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void getAppConfigForUserFromCache() {
+        CriteriaContext context = new CriteriaContext.Builder()
+                .withClientInfo(ClientInfo.fromUserAgentCache("app/7 (Motorola Flip-Phone; Android/14) BridgeJavaSDK/10"))
+                .withAppId(TEST_APP_ID).build();
+        AppConfig appConfig2 = setupConfigsForUser();
+        
+        AppConfig cached = AppConfig.create();
+        when(mockAppConfigCache.get(eq(TEST_APP_ID), eq(appConfig2), any())).thenReturn(cached);
+        
+        AppConfig retValue = service.getAppConfigForUser(context, true);
+        assertSame(retValue, cached);
+        
+        verify(mockSurveyService, never()).getSurvey(any(), any(), anyBoolean(), anyBoolean());
+        verify(mockAssessmentService, never()).getAssessmentByGuid(any(), any());
+        verify(mockAppConfigElementService, never()).getElementRevision(any(), any(), anyLong());
     }
     
     private AppConfig setupAndTestConfigResolution(Supplier<AppConfig> supplier) {
@@ -543,6 +614,8 @@ public class AppConfigServiceTest {
         verify(mockStudyService).getStudyIds(TEST_APP_ID);
 
         assertEquals(oldConfig, returnValue);
+        
+        verify(mockAppConfigCache).invalidate(TEST_APP_ID);
     }
     
     @Test(expectedExceptions = InvalidEntityException.class)
@@ -565,6 +638,7 @@ public class AppConfigServiceTest {
         service.deleteAppConfig(TEST_APP_ID,  GUID);
         
         verify(mockDao).deleteAppConfig(TEST_APP_ID, GUID);
+        verify(mockAppConfigCache).invalidate(TEST_APP_ID);
     }
     
     @Test
@@ -572,5 +646,6 @@ public class AppConfigServiceTest {
         service.deleteAppConfigPermanently(TEST_APP_ID, GUID);
         
         verify(mockDao).deleteAppConfigPermanently(TEST_APP_ID, GUID);
+        verify(mockAppConfigCache).invalidate(TEST_APP_ID);
     }
 }
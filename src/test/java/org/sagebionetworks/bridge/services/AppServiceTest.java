@@ -28,6 +28,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Charsets;
@@ -67,6 +68,7 @@ import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.LocalAppCache;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.AppDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoApp;
@@ -140,6 +142,8 @@ public class AppServiceTest extends Mockito {
     @Mock
     CacheProvider mockCacheProvider;
     @Mock
+    LocalAppCache mockLocalAppCache;
+    @Mock
     SubpopulationService mockSubpopService;
     @Mock
     EmailVerificationService mockEmailVerificationService;
@@ -256,6 +260,51 @@ public class AppServiceTest extends Mockito {
         service.getApp(TEST_APP_ID, false);
     }
     
+    @Test
+    public void getAppFromLocalAppCache() {
+        when(mockLocalAppCache.isEnabled()).thenReturn(true);
+        when(mockLocalAppCache.get(eq(TEST_APP_ID), any())).thenReturn(app);
+        
+        assertSame(service.getApp(TEST_APP_ID), app);
+        
+        verify(mockCacheProvider, never()).getApp(any());
+        verify(mockAppDao, never()).getApp(any());
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getAppLocalAppCacheLoadsFromCacheProvider() {
+        when(mockLocalAppCache.isEnabled()).thenReturn(true);
+        when(mockLocalAppCache.get(eq(TEST_APP_ID), any())).thenAnswer(invocation -> 
+                ((Function<String, App>) invocation.getArgument(1)).apply(TEST_APP_ID));
+        when(mockCacheProvider.getApp(TEST_APP_ID)).thenReturn(app);
+        
+        assertSame(service.getApp(TEST_APP_ID), app);
+        
+        verify(mockAppDao, never()).getApp(any());
+    }
+    
+    @Test
+    public void updateAppInvalidatesLocalAppCache() {
+        when(mockLocalAppCache.isEnabled()).thenReturn(true);
+        App updatedApp = getTestApp();
+        updatedApp.setVersion(2L);
+        
+        service.updateApp(updatedApp, true);
+        
+        verify(mockLocalAppCache).invalidate(TEST_APP_ID, 3L);
+    }
+    
+    @Test
+    public void deleteAppInvalidatesLocalAppCache() {
+        when(mockLocalAppCache.isEnabled()).thenReturn(true);
+        when(mockLocalAppCache.get(eq(TEST_APP_ID), any())).thenReturn(app);
+        
+        service.deleteApp(TEST_APP_ID, false);
+        
+        verify(mockLocalAppCache).invalidate(TEST_APP_ID, null);
+    }
+    
     @Test
     public void getApps() {
         when(mockAppDao.getApps()).thenReturn(ImmutableList.of(app));
@@ -47,6 +47,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.LocalAppConfigCache;
 import org.sagebionetworks.bridge.dao.AssessmentDao;
 import org.sagebionetworks.bridge.dao.AssessmentResourceDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -82,6 +83,9 @@ public class AssessmentServiceTest extends Mockito {
     @Mock
     Organization mockOrganization;
     
+    @Mock
+    LocalAppConfigCache mockAppConfigCache;
+    
     @Captor
     ArgumentCaptor<Assessment> assessmentCaptor;
     
@@ -910,6 +914,8 @@ public class AssessmentServiceTest extends Mockito {
         // verify that a fuller copy also occurred
         assertEquals(assessmentToPublish.getTitle(), existing.getTitle());
         assertEquals(assessmentToPublish.getTags(), existing.getTags());
+        
+        verify(mockAppConfigCache).invalidate(TEST_APP_ID);
     }
     
     @Test
@@ -1205,6 +1211,7 @@ public class AssessmentServiceTest extends Mockito {
         service.deleteAssessmentPermanently(TEST_APP_ID, GUID);
         
         verify(mockDao).deleteAssessment(TEST_APP_ID, ASSESSMENT);
+        verify(mockAppConfigCache).invalidate(TEST_APP_ID);
     }
     
     @Test
@@ -1212,6 +1219,7 @@ public class AssessmentServiceTest extends Mockito {
         when(mockDao.getAssessment(TEST_APP_ID, GUID)).thenReturn(Optional.empty());
         service.deleteAssessmentPermanently(TEST_APP_ID, GUID);
         verify(mockDao, never()).deleteAssessment(any(), any());
+        verify(mockAppConfigCache, never()).invalidate(any());
     }
         
     // OWNERSHIP VERIFICATION
@@ -22,6 +22,7 @@ import static org.sagebionetworks.bridge.TestConstants.USER_STUDY_IDS;
 import static org.sagebionetworks.bridge.models.accounts.AccountSecretType.REAUTH;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
@@ -65,6 +66,7 @@ import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountSecret;
 import org.sagebionetworks.bridge.models.accounts.AccountSecretType;
 import org.sagebionetworks.bridge.models.accounts.AccountStatus;
 import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
@@ -1614,4 +1616,15 @@ public class AuthenticationServiceTest {
        assertEquals(extId, EXTERNAL_ID);
        assertFalse(map.keySet().contains("test"));
    }
-}
\ No newline at end of file
+
+   @Test
+   public void generateReauthTokenHasSelector() {
+       String token = service.generateReauthToken();
+       
+       String[] parts = token.split("\\" + AccountSecret.SELECTOR_DELIMITER);
+       assertEquals(parts.length, 2);
+       assertEquals(parts[0].length(), 21);
+       assertEquals(parts[1].length(), 21);
+       assertNotEquals(service.generateReauthToken(), token);
+   }
+}
@@ -1,19 +1,30 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.util.Map;
 import java.util.Set;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.LocalCacheManager;
+import org.sagebionetworks.bridge.cache.LocalCacheStats;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.surveys.Survey;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
@@ -24,16 +35,22 @@ public class CacheAdminServiceTest {
 
     private static final String REQUEST_INFO_KEY = CacheKey.requestInfo("10E9SFUz9BYrqCrTzfiaNW").toString();
     
+    private static final String USER_ID = "xh7YDmjGQuTKnfdv9iJb0";
+    
     private CacheAdminService adminService;
     
+    private CacheProvider mockCacheProvider;
+    
     @BeforeMethod
     public void before() {
         adminService = new CacheAdminService();
         
         JedisPool pool = mock(JedisPool.class);
         when(pool.getResource()).thenReturn(createStubJedis());
+        mockCacheProvider = mock(CacheProvider.class);
 
         adminService.setJedisPool(pool);
+        adminService.setCacheProvider(mockCacheProvider);
     }
     
     @Test
@@ -62,6 +79,32 @@ public class CacheAdminServiceTest {
         adminService.removeItem("xh7YDmjGQuTKnfdv9iJb0:session:user");
     }
     
+    @Test
+    public void removesUserSessionThroughCacheProvider() {
+        UserSession session = new UserSession();
+        when(mockCacheProvider.getUserSessionByUserId(USER_ID)).thenReturn(session);
+        
+        adminService.removeItem(CacheKey.userIdToSession(USER_ID).toString());
+        
+        verify(mockCacheProvider).removeSession(session);
+    }
+    
+    @Test
+    public void removeUserSessionThatDoesNotExist() {
+        try {
+            adminService.removeItem(CacheKey.userIdToSession(USER_ID).toString());
+            fail("Should have thrown exception");
+        } catch (BridgeServiceException e) {
+            // expected
+        }
+        verify(mockCacheProvider, never()).removeSession(any());
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void doesNotRemoveSessionTokens() {
+        adminService.removeItem(CacheKey.tokenToUserId("sessionToken").toString());
+    }
+    
     @Test(expectedExceptions = BridgeServiceException.class)
     public void throwsExceptionWhenThereIsNoKey() {
         adminService.removeItem("not:a:key");
@@ -82,6 +125,17 @@ public class CacheAdminServiceTest {
         adminService.removeItem(REQUEST_INFO_KEY);
     }
     
+    @Test
+    public void getLocalCacheStats() {
+        LocalCacheManager mockManager = mock(LocalCacheManager.class);
+        Map<String, LocalCacheStats> stats = ImmutableMap.of("UserSession",
+                new LocalCacheStats(1L, new CacheStats(1L, 2L, 0L, 0L, 0L, 3L), null));
+        when(mockManager.getStats()).thenReturn(stats);
+        adminService.setLocalCacheManager(mockManager);
+        
+        assertEquals(adminService.getLocalCacheStats(), stats);
+    }
+    
     private Jedis createStubJedis() {
         Set<String> KEYS = Sets.newHashSet(CacheKey.app("foo").toString(),
                 CacheKey.viewKey(Survey.class, "baz").toString());
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.services;
 
 import static java.lang.Boolean.TRUE;
 import static org.joda.time.DateTimeZone.UTC;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeUtils.collectExternalIds;
 import static org.sagebionetworks.bridge.RequestContext.NULL_INSTANCE;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
@@ -11,6 +12,8 @@ import static org.sagebionetworks.bridge.Roles.RESEARCHER;
 import static org.sagebionetworks.bridge.Roles.STUDY_COORDINATOR;
 import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
 import static org.sagebionetworks.bridge.Roles.WORKER;
+import static org.sagebionetworks.bridge.TestConstants.SUMMARY1;
+import static org.sagebionetworks.bridge.TestConstants.SUMMARY2;
 import static org.sagebionetworks.bridge.TestConstants.SYNAPSE_USER_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_ORG_ID;
@@ -33,6 +36,7 @@ import static org.testng.Assert.fail;
 
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -64,6 +68,7 @@ import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.crypto.CredentialHasher;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -189,6 +194,9 @@ public class ParticipantServiceTest extends Mockito {
     @InjectMocks
     private ParticipantService participantService;
     
+    @Spy
+    private CredentialHasher credentialHasher = TestUtils.getCredentialHasher();
+    
     @Mock
     private AccountService accountService;
     
@@ -320,7 +328,7 @@ public class ParticipantServiceTest extends Mockito {
     }
     
     @Test
-    public void createParticipant() {
+    public void createParticipant() throws Exception {
         APP.setEmailVerificationEnabled(true);
         when(participantService.generateGUID()).thenReturn(ID);
         when(studyService.getStudy(TEST_APP_ID, STUDY_ID, false)).thenReturn(Study.create());
@@ -335,6 +343,7 @@ public class ParticipantServiceTest extends Mockito {
         verify(accountService).createAccount(eq(APP), accountCaptor.capture());
         verify(accountWorkflowService).sendEmailVerificationToken(APP, ID, EMAIL);
         verify(enrollmentService).addEnrollment(eq(accountCaptor.getValue()), enrollmentCaptor.capture());
+        verify(credentialHasher).generateHash(PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM, PASSWORD);
         
         Account account = accountCaptor.getValue();
         assertEquals(account.getId(), ID);
@@ -789,6 +798,37 @@ public class ParticipantServiceTest extends Mockito {
         verify(accountService).getPagedAccountSummaries(TEST_APP_ID, search); 
     }
     
+    @Test
+    public void getAccountSummaryIterator() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(10).withPageSize(5)
+                .withEmailFilter("foo").build();
+        AccountSummarySearch page1 = new AccountSummarySearch.Builder().withPageSize(API_MAXIMUM_PAGE_SIZE)
+                .withEmailFilter("foo").build();
+        AccountSummarySearch page2 = new AccountSummarySearch.Builder().copyOf(page1).withOffsetKey("key1").build();
+        AccountSummarySearch page3 = new AccountSummarySearch.Builder().copyOf(page1).withOffsetKey("key2").build();
+        when(accountService.getPagedAccountSummaries(TEST_APP_ID, page1)).thenReturn(
+                new PagedResourceList<>(ImmutableList.of(SUMMARY1), 2).withNextPageOffsetKey("key1"));
+        // A page can be empty if its accounts were deleted.
+        when(accountService.getPagedAccountSummaries(TEST_APP_ID, page2)).thenReturn(
+                new PagedResourceList<AccountSummary>(ImmutableList.of(), 2).withNextPageOffsetKey("key2"));
+        when(accountService.getPagedAccountSummaries(TEST_APP_ID, page3)).thenReturn(
+                new PagedResourceList<>(ImmutableList.of(SUMMARY2), 2));
+        
+        Iterator<AccountSummary> iterator = participantService.getAccountSummaryIterator(APP, search);
+        
+        // Pages are retrieved as the iterator advances.
+        verify(accountService, never()).getPagedAccountSummaries(any(), any());
+        assertEquals(ImmutableList.copyOf(iterator), ImmutableList.of(SUMMARY1, SUMMARY2));
+        verify(accountService, times(3)).getPagedAccountSummaries(any(), any());
+    }
+    
+    @Test(expectedExceptions = InvalidEntityException.class)
+    public void getAccountSummaryIteratorWithInvalidSearch() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withStartTime(END_DATE).withEndTime(START_DATE).build();
+        participantService.getAccountSummaryIterator(APP, search);
+    }
+    
     @Test(expectedExceptions = NullPointerException.class)
     public void getPagedAccountSummariesWithBadStudy() {
         participantService.getPagedAccountSummaries(null, AccountSummarySearch.EMPTY_SEARCH);
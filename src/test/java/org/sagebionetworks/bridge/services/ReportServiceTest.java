@@ -3,7 +3,9 @@ package org.sagebionetworks.bridge.services;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
@@ -14,6 +16,7 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
@@ -30,6 +33,7 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.LocalReportIndexCache;
 import org.sagebionetworks.bridge.dao.ReportDataDao;
 import org.sagebionetworks.bridge.dao.ReportIndexDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -40,12 +44,14 @@ import org.sagebionetworks.bridge.models.DateRangeResourceList;
 import org.sagebionetworks.bridge.models.ReportTypeResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.reports.ReportData;
+import org.sagebionetworks.bridge.models.reports.ReportDataBatchResult;
 import org.sagebionetworks.bridge.models.reports.ReportDataKey;
 import org.sagebionetworks.bridge.models.reports.ReportIndex;
 import org.sagebionetworks.bridge.models.reports.ReportType;
 
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
@@ -84,9 +90,15 @@ public class ReportServiceTest {
     @Mock
     ReportIndexDao mockReportIndexDao;
     
+    @Mock
+    LocalReportIndexCache mockReportIndexCache;
+    
     @Captor
     ArgumentCaptor<ReportData> reportDataCaptor;
     
+    @Captor
+    ArgumentCaptor<List<ReportData>> reportDataListCaptor;
+    
     @Captor
     ArgumentCaptor<ReportIndex> reportIndexCaptor;
     
@@ -115,6 +127,11 @@ public class ReportServiceTest {
         
         service.setReportDataDao(mockReportDataDao);
         service.setReportIndexDao(mockReportIndexDao);
+        service.setLocalReportIndexCache(mockReportIndexCache);
+        
+        // The cache always loads from the DAO.
+        when(mockReportIndexCache.getIndex(any(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<ReportIndex>>getArgument(1).get());
 
         List<ReportData> list = Lists.newArrayList();
         list.add(createReport(LocalDate.parse("2015-02-10"), "First", "Name"));
@@ -297,6 +314,7 @@ public class ReportServiceTest {
                 .withAppId(TEST_APP_ID)
                 .withReportType(ReportType.STUDY)
                 .withIdentifier(IDENTIFIER).build(), null);
+        verify(mockReportIndexCache).invalidate(STUDY_REPORT_DATA_KEY);
     }
     
     @Test
@@ -327,6 +345,8 @@ public class ReportServiceTest {
                 .withAppId(TEST_APP_ID)
                 .withReportType(ReportType.PARTICIPANT)
                 .withIdentifier(IDENTIFIER).build(), null);
+        verify(mockReportIndexCache).getIndex(eq(PARTICIPANT_REPORT_DATA_KEY), any());
+        verify(mockReportIndexCache).invalidate(PARTICIPANT_REPORT_DATA_KEY);
     }
     
     @Test
@@ -337,6 +357,115 @@ public class ReportServiceTest {
         service.saveParticipantReport(TEST_APP_ID, IDENTIFIER, HEALTH_CODE, someData);
 
         verify(mockReportIndexDao, never()).addIndex(any(), any());
+        verify(mockReportIndexCache, never()).invalidate(any());
+    }
+    
+    @Test
+    public void saveParticipantReportBatch() {
+        ReportData first = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        first.setStudyIds(ImmutableSet.of("studyA"));
+        ReportData second = createReport(LocalDate.parse("2015-02-11"), "Last", "Name");
+        ReportData third = createReport(LocalDate.parse("2015-02-12"), "Other", "Name");
+        when(mockReportDataDao.saveReportDataBatch(anyList())).thenReturn(ImmutableList.of(third));
+        
+        ReportDataBatchResult result = service.saveParticipantReportBatch(TEST_APP_ID, IDENTIFIER, HEALTH_CODE,
+                ImmutableList.of(first, second, third));
+        
+        assertEquals(result.getSavedDates(), ImmutableList.of("2015-02-10", "2015-02-11"));
+        assertEquals(result.getFailedDates(), ImmutableList.of("2015-02-12"));
+        
+        // One index check, one batch write, and the index is created with the studies of the first record.
+        verify(mockReportIndexDao).getIndex(PARTICIPANT_REPORT_DATA_KEY);
+        verify(mockReportDataDao).saveReportDataBatch(reportDataListCaptor.capture());
+        verify(mockReportDataDao, never()).saveReportData(any());
+        verify(mockReportIndexDao).addIndex(PARTICIPANT_REPORT_DATA_KEY, ImmutableSet.of("studyA"));
+        verify(mockReportIndexCache).invalidate(PARTICIPANT_REPORT_DATA_KEY);
+        
+        List<ReportData> saved = reportDataListCaptor.getValue();
+        assertEquals(saved, ImmutableList.of(first, second, third));
+        for (ReportData reportData : saved) {
+            assertEquals(reportData.getKey(), PARTICIPANT_REPORT_DATA_KEY.getKeyString());
+        }
+    }
+    
+    @Test
+    public void saveParticipantReportBatchSavesLastRecordForDate() {
+        ReportData first = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData second = createReport(LocalDate.parse("2015-02-10"), "Last", "Name");
+        when(mockReportIndexDao.getIndex(any())).thenReturn(ReportIndex.create());
+        when(mockReportDataDao.saveReportDataBatch(anyList())).thenReturn(ImmutableList.of());
+        
+        ReportDataBatchResult result = service.saveParticipantReportBatch(TEST_APP_ID, IDENTIFIER, HEALTH_CODE,
+                ImmutableList.of(first, second));
+        
+        assertEquals(result.getSavedDates(), ImmutableList.of("2015-02-10"));
+        assertTrue(result.getFailedDates().isEmpty());
+        verify(mockReportDataDao).saveReportDataBatch(ImmutableList.of(second));
+        verify(mockReportIndexDao, never()).addIndex(any(), any());
+    }
+    
+    @Test
+    public void saveParticipantReportBatchSavesSameTimeInTwoTimeZones() {
+        ReportData first = createReport(null, "First", "Name");
+        first.setDateTime(DateTime.parse("2015-02-10T10:00:00.000-07:00"));
+        ReportData second = createReport(null, "Last", "Name");
+        second.setDateTime(DateTime.parse("2015-02-10T17:00:00.000Z"));
+        when(mockReportIndexDao.getIndex(any())).thenReturn(ReportIndex.create());
+        when(mockReportDataDao.saveReportDataBatch(anyList())).thenReturn(ImmutableList.of());
+        
+        ReportDataBatchResult result = service.saveParticipantReportBatch(TEST_APP_ID, IDENTIFIER, HEALTH_CODE,
+                ImmutableList.of(first, second));
+        
+        // The date is stored with its offset, so these are different records, and both are saved.
+        assertEquals(result.getSavedDates(),
+                ImmutableList.of("2015-02-10T10:00:00.000-07:00", "2015-02-10T17:00:00.000Z"));
+        assertTrue(result.getFailedDates().isEmpty());
+        verify(mockReportDataDao).saveReportDataBatch(ImmutableList.of(first, second));
+    }
+    
+    @Test
+    public void saveParticipantReportBatchDoesNotAddIndexIfNothingSaved() {
+        ReportData first = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        when(mockReportDataDao.saveReportDataBatch(anyList())).thenReturn(ImmutableList.of(first));
+        
+        ReportDataBatchResult result = service.saveParticipantReportBatch(TEST_APP_ID, IDENTIFIER, HEALTH_CODE,
+                ImmutableList.of(first));
+        
+        assertEquals(result.getFailedDates(), ImmutableList.of("2015-02-10"));
+        verify(mockReportIndexDao, never()).addIndex(any(), any());
+    }
+    
+    @Test
+    public void saveParticipantReportBatchValidatesAllRecordsBeforeSaving() {
+        ReportData first = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        first.setStudyIds(ImmutableSet.of("studyA"));
+        ReportData second = createReport(LocalDate.parse("2015-02-11"), "Last", "Name");
+        second.setStudyIds(ImmutableSet.of("studyB"));
+        
+        try {
+            service.saveParticipantReportBatch(TEST_APP_ID, IDENTIFIER, HEALTH_CODE,
+                    ImmutableList.of(first, second));
+            fail("Should have thrown exception");
+        } catch (InvalidEntityException e) {
+            assertEquals(e.getErrors().get("studyIds").get(0), "studyIds cannot be changed once created for a report");
+        }
+        verify(mockReportDataDao, never()).saveReportDataBatch(anyList());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class,
+            expectedExceptionsMessageRegExp = ReportService.BATCH_SIZE_MSG)
+    public void saveParticipantReportBatchEmpty() {
+        service.saveParticipantReportBatch(TEST_APP_ID, IDENTIFIER, HEALTH_CODE, ImmutableList.of());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class,
+            expectedExceptionsMessageRegExp = ReportService.BATCH_SIZE_MSG)
+    public void saveParticipantReportBatchTooLarge() {
+        List<ReportData> reportDataList = Lists.newArrayList();
+        for (int i = 0; i <= ReportService.MAX_BATCH_SIZE; i++) {
+            reportDataList.add(CANNED_REPORT);
+        }
+        service.saveParticipantReportBatch(TEST_APP_ID, IDENTIFIER, HEALTH_CODE, reportDataList);
     }
     
     @Test
@@ -345,6 +474,7 @@ public class ReportServiceTest {
         
         verify(mockReportDataDao).deleteReportData(STUDY_REPORT_DATA_KEY);
         verify(mockReportIndexDao).removeIndex(STUDY_REPORT_DATA_KEY);
+        verify(mockReportIndexCache).invalidate(STUDY_REPORT_DATA_KEY);
     }
     
     @Test
@@ -365,6 +495,7 @@ public class ReportServiceTest {
         ReportDataKey key = reportDataKeyCaptor.getValue();
         assertEquals(key.getAppId(), TEST_APP_ID);
         assertEquals(key.getIdentifier(), IDENTIFIER);
+        verify(mockReportIndexCache).invalidate(key);
     }
     
     @Test
@@ -400,6 +531,7 @@ public class ReportServiceTest {
             verify(mockReportDataDao).deleteReportDataRecord(STUDY_REPORT_DATA_KEY, DATE.toString());
             verify(mockReportDataDao).getReportData(STUDY_REPORT_DATA_KEY, startDate, endDate);
             verify(mockReportIndexDao).removeIndex(STUDY_REPORT_DATA_KEY);
+            verify(mockReportIndexCache).invalidate(STUDY_REPORT_DATA_KEY);
         } finally {
             DateTimeUtils.setCurrentMillisSystem();
         }
@@ -627,6 +759,7 @@ public class ReportServiceTest {
         service.updateReportIndex(TEST_APP_ID, ReportType.STUDY, updatedIndex);
         
         verify(mockReportIndexDao).updateIndex(reportIndexCaptor.capture());
+        verify(mockReportIndexCache).invalidate(STUDY_REPORT_DATA_KEY);
         
         ReportIndex captured = reportIndexCaptor.getValue();
         assertEquals(captured.getIdentifier(), IDENTIFIER);
@@ -1,8 +1,16 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.mockito.ArgumentCaptor;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -12,10 +20,16 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.RequestInfoDao;
+import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
 import org.sagebionetworks.bridge.models.RequestInfo;
 
+import com.google.common.collect.Maps;
+
 public class RequestInfoServiceTest extends Mockito {
+    private static final DateTime SIGNED_IN_ON = DateTime.parse("2020-01-01T10:00:00.000Z");
+    private static final DateTime ACTIVITIES_ACCESSED_ON = DateTime.parse("2020-01-01T11:00:00.000Z");
     
     @InjectMocks
     RequestInfoService service;
@@ -71,6 +85,161 @@ public class RequestInfoServiceTest extends Mockito {
         verify(mockRequestInfoDao, never()).updateRequestInfo(any());
     }
     
+    private void enableWriteBehind(int maxPending, int batchSize) {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.get(RequestInfoService.WRITE_BEHIND_ENABLED_PROPERTY)).thenReturn("true");
+        when(mockConfig.getInt(RequestInfoService.FLUSH_INTERVAL_PROPERTY)).thenReturn(60000);
+        when(mockConfig.getInt(RequestInfoService.MAX_PENDING_PROPERTY)).thenReturn(maxPending);
+        when(mockConfig.getInt(RequestInfoService.BATCH_SIZE_PROPERTY)).thenReturn(batchSize);
+        service.setBridgeConfig(mockConfig);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void updateRequestInfoWriteBehind() {
+        enableWriteBehind(10, 10);
+        assertTrue(service.isWriteBehindEnabled());
+        
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID)
+                .withSignedInOn(SIGNED_IN_ON).build());
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID)
+                .withActivitiesAccessedOn(ACTIVITIES_ACCESSED_ON).build());
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId("otherUserId")
+                .withSignedInOn(SIGNED_IN_ON).build());
+        verify(mockRequestInfoDao, never()).updateRequestInfo(any());
+        
+        service.flush();
+        
+        ArgumentCaptor<List<RequestInfo>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockRequestInfoDao).updateRequestInfos(captor.capture());
+        Map<String, RequestInfo> persisted = Maps.uniqueIndex(captor.getValue(), RequestInfo::getUserId);
+        assertEquals(persisted.size(), 2);
+        assertEquals(persisted.get(TEST_USER_ID).getSignedInOn(), SIGNED_IN_ON);
+        assertEquals(persisted.get(TEST_USER_ID).getActivitiesAccessedOn(), ACTIVITIES_ACCESSED_ON);
+        
+        // Nothing left to flush
+        service.flush();
+        verify(mockRequestInfoDao, times(1)).updateRequestInfos(any());
+    }
+    
+    @Test
+    public void updateRequestInfoWriteBehindFlushesInBatches() {
+        enableWriteBehind(10, 2);
+        for (int i = 0; i < 5; i++) {
+            service.updateRequestInfo(new RequestInfo.Builder().withUserId("user" + i).build());
+        }
+        
+        service.flush();
+        
+        verify(mockRequestInfoDao, times(3)).updateRequestInfos(any());
+    }
+    
+    @Test
+    public void updateRequestInfoWriteBehindFullPersistsImmediately() {
+        enableWriteBehind(1, 10);
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID).build());
+        // Already pending, so still merged
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID).build());
+        
+        RequestInfo otherInfo = new RequestInfo.Builder().withUserId("otherUserId").build();
+        service.updateRequestInfo(otherInfo);
+        
+        verify(mockRequestInfoDao).updateRequestInfo(otherInfo);
+    }
+    
+    @Test
+    public void getRequestInfoIncludesPendingUpdate() {
+        enableWriteBehind(10, 10);
+        when(mockRequestInfoDao.getRequestInfo(TEST_USER_ID)).thenReturn(new RequestInfo.Builder()
+                .withUserId(TEST_USER_ID).withSignedInOn(SIGNED_IN_ON).build());
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID)
+                .withActivitiesAccessedOn(ACTIVITIES_ACCESSED_ON).build());
+        
+        RequestInfo retrieved = service.getRequestInfo(TEST_USER_ID);
+        assertEquals(retrieved.getSignedInOn(), SIGNED_IN_ON);
+        assertEquals(retrieved.getActivitiesAccessedOn(), ACTIVITIES_ACCESSED_ON);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void flushFailureRetriedOnNextFlush() {
+        enableWriteBehind(10, 10);
+        doThrow(new RuntimeException()).doNothing().when(mockRequestInfoDao).updateRequestInfos(any());
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfo(any());
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID)
+                .withSignedInOn(SIGNED_IN_ON).build());
+        
+        service.flush();
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID)
+                .withActivitiesAccessedOn(ACTIVITIES_ACCESSED_ON).build());
+        service.flush();
+        
+        ArgumentCaptor<List<RequestInfo>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockRequestInfoDao, times(2)).updateRequestInfos(captor.capture());
+        RequestInfo persisted = captor.getAllValues().get(1).get(0);
+        assertEquals(persisted.getSignedInOn(), SIGNED_IN_ON);
+        assertEquals(persisted.getActivitiesAccessedOn(), ACTIVITIES_ACCESSED_ON);
+    }
+    
+    @Test
+    public void flushFailurePersistsEachUpdate() {
+        enableWriteBehind(10, 10);
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfos(any());
+        RequestInfo deletedAccountInfo = new RequestInfo.Builder().withUserId("deletedUserId").build();
+        doThrow(new ConstraintViolationException.Builder().withMessage("Foreign key").build())
+                .when(mockRequestInfoDao).updateRequestInfo(deletedAccountInfo);
+        RequestInfo requestInfo = new RequestInfo.Builder().withUserId(TEST_USER_ID).build();
+        service.updateRequestInfo(deletedAccountInfo);
+        service.updateRequestInfo(requestInfo);
+        
+        service.flush();
+        
+        verify(mockRequestInfoDao).updateRequestInfo(deletedAccountInfo);
+        verify(mockRequestInfoDao).updateRequestInfo(requestInfo);
+        
+        // The update that violates a constraint is not retried
+        service.flush();
+        verify(mockRequestInfoDao, times(1)).updateRequestInfos(any());
+        assertNull(service.getRequestInfo("deletedUserId"));
+    }
+    
+    @Test
+    public void flushFailureDroppedAfterMaxAttempts() {
+        enableWriteBehind(10, 10);
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfos(any());
+        doThrow(new RuntimeException()).when(mockRequestInfoDao).updateRequestInfo(any());
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID).build());
+        
+        for (int i = 0; i <= RequestInfoService.MAX_ATTEMPTS; i++) {
+            service.flush();
+        }
+        
+        verify(mockRequestInfoDao, times(RequestInfoService.MAX_ATTEMPTS)).updateRequestInfo(any());
+        assertNull(service.getRequestInfo(TEST_USER_ID));
+    }
+    
+    @Test
+    public void stopFlushingPersistsPendingUpdates() throws Exception {
+        enableWriteBehind(10, 10);
+        service.startFlushing();
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID).build());
+        
+        service.stopFlushing();
+        
+        verify(mockRequestInfoDao).updateRequestInfos(any());
+    }
+    
+    @Test
+    public void removeRequestInfoDropsPendingUpdate() {
+        enableWriteBehind(10, 10);
+        service.updateRequestInfo(new RequestInfo.Builder().withUserId(TEST_USER_ID).build());
+        
+        service.removeRequestInfo(TEST_USER_ID);
+        service.flush();
+        
+        verify(mockRequestInfoDao, never()).updateRequestInfos(any());
+    }
+    
     @Test
     public void removeRequestInfo() {
         service.removeRequestInfo(TEST_USER_ID);
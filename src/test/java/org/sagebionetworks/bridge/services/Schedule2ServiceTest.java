@@ -25,6 +25,7 @@ import static org.testng.Assert.fail;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -44,6 +45,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.LocalTimelineCache;
 import org.sagebionetworks.bridge.dao.Schedule2Dao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -72,6 +74,9 @@ public class Schedule2ServiceTest extends Mockito {
     
     @Mock
     Schedule2Dao mockDao;
+    
+    @Mock
+    LocalTimelineCache mockTimelineCache;
 
     @InjectMocks
     @Spy
@@ -87,6 +92,8 @@ public class Schedule2ServiceTest extends Mockito {
         doReturn(CREATED_ON).when(service).getCreatedOn();
         doReturn(MODIFIED_ON).when(service).getModifiedOn();
         doReturn(GUID).when(service).generateGuid();
+        when(mockTimelineCache.get(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Timeline>>getArgument(2).get());
     }
     
     @AfterMethod
@@ -486,6 +493,8 @@ public class Schedule2ServiceTest extends Mockito {
         assertFalse(captured.isDeleted());
         assertFalse(captured.isPublished());
         assertEquals(captured.getVersion(), 2L);
+        
+        verify(mockTimelineCache).invalidate(TEST_APP_ID, GUID);
     }
     
     @Test(expectedExceptions = PublishedEntityException.class)
@@ -581,6 +590,7 @@ public class Schedule2ServiceTest extends Mockito {
         verify(mockDao).updateSchedule(scheduleCaptor.capture());
         assertTrue(scheduleCaptor.getValue().isPublished());
         assertEquals(scheduleCaptor.getValue().getModifiedOn(), MODIFIED_ON);
+        verify(mockTimelineCache).invalidate(TEST_APP_ID, GUID);
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -624,6 +634,7 @@ public class Schedule2ServiceTest extends Mockito {
         service.deleteSchedule(TEST_APP_ID, GUID);
         
         verify(mockDao).deleteSchedule(existing);
+        verify(mockTimelineCache).invalidate(TEST_APP_ID, GUID);
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -672,6 +683,7 @@ public class Schedule2ServiceTest extends Mockito {
         service.deleteSchedulePermanently(TEST_APP_ID, GUID);
         
         verify(mockDao).deleteSchedulePermanently(existing);
+        verify(mockTimelineCache).invalidate(TEST_APP_ID, GUID);
     }
 
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -861,6 +873,19 @@ public class Schedule2ServiceTest extends Mockito {
         assertNotNull(timeline);
     }
     
+    @Test
+    public void getTimelineForScheduleUsesCache() {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerLanguages(ImmutableList.of("EN", "fr")).build());
+        Schedule2 schedule = new Schedule2();
+        schedule.setModifiedOn(MODIFIED_ON);
+        
+        Timeline timeline = service.getTimelineForSchedule(schedule);
+        assertNotNull(timeline);
+        
+        verify(mockTimelineCache).get(eq(schedule), eq("en,fr"), any());
+    }
+    
     @Test
     public void getTimelineMetadata() {
         TimelineMetadata meta = new TimelineMetadata();
@@ -16,6 +16,7 @@ import static org.testng.Assert.fail;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
@@ -23,6 +24,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.LocalSchedulePlanCache;
 import org.sagebionetworks.bridge.dao.SchedulePlanDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoApp;
@@ -54,6 +56,7 @@ public class SchedulePlanServiceTest {
     private SchedulePlanDao mockSchedulePlanDao;
     private SurveyService mockSurveyService;
     private StudyService mockStudyService;
+    private LocalSchedulePlanCache mockSchedulePlanCache;
     
     @BeforeMethod
     public void before() {
@@ -65,11 +68,15 @@ public class SchedulePlanServiceTest {
         mockSchedulePlanDao = mock(SchedulePlanDao.class);
         mockSurveyService = mock(SurveyService.class);
         mockStudyService = mock(StudyService.class);
+        mockSchedulePlanCache = mock(LocalSchedulePlanCache.class);
+        when(mockSchedulePlanCache.get(any(), anyBoolean(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<List<SchedulePlan>>>getArgument(2).get());
         
         service = new SchedulePlanService();
         service.setSchedulePlanDao(mockSchedulePlanDao);
         service.setSurveyService(mockSurveyService);
         service.setStudyService(mockStudyService);
+        service.setLocalSchedulePlanCache(mockSchedulePlanCache);
         
         Survey survey1 = new TestSurvey(SchedulePlanServiceTest.class, false);
         survey1.setIdentifier("identifier1");
@@ -123,6 +130,7 @@ public class SchedulePlanServiceTest {
         verify(mockSurveyService).getSurveyMostRecentlyPublishedVersion(any(), any(), anyBoolean());
         verify(mockSurveyService).getSurvey(eq(TEST_APP_ID), any(), eq(false), eq(true));
         verify(mockSchedulePlanDao).createSchedulePlan(any(), spCaptor.capture());
+        verify(mockSchedulePlanCache).invalidate(TEST_APP_ID);
         
         List<Activity> activities = spCaptor.getValue().getStrategy().getAllPossibleSchedules().get(0).getActivities();
         assertEquals(activities.get(0).getSurvey().getIdentifier(), "identifier1");
@@ -143,6 +151,7 @@ public class SchedulePlanServiceTest {
         verify(mockSurveyService).getSurvey(eq(TEST_APP_ID), any(), eq(false), eq(true));
         verify(mockSchedulePlanDao).getSchedulePlan(app.getIdentifier(), plan.getGuid());
         verify(mockSchedulePlanDao).updateSchedulePlan(any(), spCaptor.capture());
+        verify(mockSchedulePlanCache).invalidate(TEST_APP_ID);
         
         List<Activity> activities = spCaptor.getValue().getStrategy().getAllPossibleSchedules().get(0).getActivities();
         assertEquals(activities.get(0).getSurvey().getIdentifier(), "identifier1");
@@ -278,6 +287,7 @@ public class SchedulePlanServiceTest {
         assertEquals(returned, plans);
         
         verify(mockSchedulePlanDao).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+        verify(mockSchedulePlanCache).get(eq(TEST_APP_ID), eq(false), any());
     }
     
     @Test
@@ -289,6 +299,7 @@ public class SchedulePlanServiceTest {
         assertEquals(returned, plans);
         
         verify(mockSchedulePlanDao).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, true);
+        verify(mockSchedulePlanCache).get(eq(TEST_APP_ID), eq(true), any());
     }
     
     @Test
@@ -296,6 +307,7 @@ public class SchedulePlanServiceTest {
         service.deleteSchedulePlan(TEST_APP_ID, "planGuid");
         
         verify(mockSchedulePlanDao).deleteSchedulePlan(TEST_APP_ID, "planGuid");
+        verify(mockSchedulePlanCache).invalidate(TEST_APP_ID);
     }
     
     @Test
@@ -303,6 +315,7 @@ public class SchedulePlanServiceTest {
         service.deleteSchedulePlanPermanently(TEST_APP_ID, "planGuid");
         
         verify(mockSchedulePlanDao).deleteSchedulePlanPermanently(TEST_APP_ID, "planGuid");
+        verify(mockSchedulePlanCache).invalidate(TEST_APP_ID);
     }
     
     private SchedulePlan constructorInvalidSchedulePlan() {
@@ -7,6 +7,7 @@ import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -25,6 +26,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
@@ -48,6 +51,7 @@ import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoScheduledActivity;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.ClientInfo;
@@ -71,6 +75,7 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -138,15 +143,6 @@ public class ScheduledActivityServiceTest {
         Map<String,DateTime> map = ImmutableMap.of();
         when(activityEventService.getActivityEventMap(eq(TEST_APP_ID), anyString(), anyString())).thenReturn(map);
         
-        when(activityDao.getActivity(any(), anyString(), anyString(), eq(true))).thenAnswer(invocation -> {
-            Object[] args = invocation.getArguments();
-            DynamoScheduledActivity schActivity = new DynamoScheduledActivity();
-            schActivity.setTimeZone((DateTimeZone)args[0]);
-            schActivity.setHealthCode((String)args[1]);
-            schActivity.setGuid((String)args[2]);
-            return schActivity;
-        });
-        
         doReturn(SURVEY_CREATED_ON.getMillis()).when(survey).getCreatedOn();
         doReturn("identifier").when(survey).getIdentifier();
         when(surveyService.getSurveyMostRecentlyPublishedVersion(
@@ -202,6 +198,28 @@ public class ScheduledActivityServiceTest {
                 eq(app), eq(null), eq(HEALTH_CODE), any(DateTime.class));
     }
     
+    @Test
+    public void getScheduledActivitiesDoesNotPublishEventAgain() {
+        when(activityEventService.getActivityEventMap(TEST_APP_ID, null, HEALTH_CODE))
+                .thenReturn(ImmutableMap.of("activities_retrieved", ENROLLMENT));
+        ScheduleContext context = createScheduleContext(ENDS_ON).build();
+        service.getScheduledActivities(app, context);
+        
+        verify(activityEventService, never()).publishActivitiesRetrieved(any(), any(), any(), any());
+        verify(activityEventService).getActivityEventMap(TEST_APP_ID, null, HEALTH_CODE);
+    }
+    
+    @Test
+    public void getScheduledActivitiesV4DoesNotPublishEventAgain() {
+        when(activityEventService.getActivityEventMap(TEST_APP_ID, null, HEALTH_CODE))
+                .thenReturn(ImmutableMap.of("activities_retrieved", ENROLLMENT));
+        ScheduleContext context = createScheduleContext(ENDS_ON).build();
+        service.getScheduledActivitiesV4(app, context);
+        
+        verify(activityEventService, never()).publishActivitiesRetrieved(any(), any(), any(), any());
+        verify(activityEventService).getActivityEventMap(TEST_APP_ID, null, HEALTH_CODE);
+    }
+    
     @Test
     public void activityHistoryDefaultsDateRange() {
         DateTimeUtils.setCurrentMillisFixed(STARTS_ON.getMillis());
@@ -287,12 +305,33 @@ public class ScheduledActivityServiceTest {
             activity.setFinishedOn(DateTimeUtils.currentTimeMillis());
         }
         
+        mockGetActivitiesForUpdate();
+        
         service.updateScheduledActivities("AAA", scheduledActivities);
         
+        // The duplicate is only loaded once.
+        verify(activityDao).getActivities(eq(DateTimeZone.UTC), scheduledActivityListCaptor.capture());
+        assertEquals(scheduledActivityListCaptor.getValue().size(), size);
+        
         verify(activityDao).updateActivities(eq("AAA"), scheduledActivityListCaptor.capture());
         assertEquals(scheduledActivityListCaptor.getValue().size(), size);
     }
     
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void updateActivitiesThatDoNotExistThrows() {
+        ScheduleContext context = createScheduleContext(ENDS_ON).build();
+        List<ScheduledActivity> scheduledActivities = TestUtils.runSchedulerForActivities(context);
+        scheduledActivities.get(0).setFinishedOn(NOW.getMillis());
+        
+        // Only the first activity is persisted.
+        ScheduledActivity dbActivity = ScheduledActivity.create();
+        dbActivity.setHealthCode("AAA");
+        dbActivity.setGuid(scheduledActivities.get(0).getGuid());
+        when(activityDao.getActivities(eq(DateTimeZone.UTC), any())).thenReturn(ImmutableList.of(dbActivity));
+        
+        service.updateScheduledActivities("AAA", scheduledActivities);
+    }
+    
     @Test
     public void missingEnrollmentEventIsSuppliedFromAccountCreatedOn() {
         ScheduleContext context = new ScheduleContext.Builder()
@@ -341,12 +380,17 @@ public class ScheduledActivityServiceTest {
         
         ArgumentCaptor<List> updateCapture = ArgumentCaptor.forClass(List.class);
         ArgumentCaptor<ScheduledActivity> publishCapture = ArgumentCaptor.forClass(ScheduledActivity.class);
+        mockGetActivitiesForUpdate();
         
         service.updateScheduledActivities("BBB", scheduledActivities);
         
         verify(activityDao).updateActivities(anyString(), updateCapture.capture());
-        // Three activities have timestamp updates and need to be persisted
-        verify(activityDao, times(count)).getActivity(any(), anyString(), anyString(), eq(true));
+        // All the activities are loaded at once
+        verify(activityDao).getActivities(eq(DateTimeZone.UTC), scheduledActivityListCaptor.capture());
+        assertEquals(scheduledActivityListCaptor.getValue().size(), count);
+        for (ScheduledActivity key : scheduledActivityListCaptor.getValue()) {
+            assertEquals(key.getHealthCode(), "BBB");
+        }
         // Two activities have been finished and generate activity finished events
         verify(activityEventService, times(2)).publishActivityFinishedEvent(publishCapture.capture());
         
@@ -805,8 +849,8 @@ public class ScheduledActivityServiceTest {
         oneTimeActivity.setFinishedOn(NOW.plusMinutes(5).getMillis());
         
         mockAllCallsForDbActivities(ImmutableList.of());
-        when(activityDao.getActivity(context.getStartsOn().getZone(), HEALTH_CODE, guid, false))
-                .thenReturn(oneTimeActivity);
+        when(activityDao.getActivities(eq(context.getStartsOn().getZone()), any()))
+                .thenReturn(ImmutableList.of(oneTimeActivity));
         
         List<ScheduledActivity> scheduledActivities = service.getScheduledActivitiesV4(app, context);
         assertEquals(scheduledActivities.size(), 1);
@@ -817,7 +861,9 @@ public class ScheduledActivityServiceTest {
         verify(activityDao, times(1)).getActivityHistoryV2(HEALTH_CODE, "guidForCCC", context.getStartsOn(), context.getEndsOn(),
                 null, BridgeConstants.API_MAXIMUM_PAGE_SIZE);
         // Retrieve any remaining scheduled activity from the DB to ensure state is maintained. 
-        verify(activityDao, times(1)).getActivity(context.getStartsOn().getZone(), HEALTH_CODE, guid, false);
+        verify(activityDao, times(1)).getActivities(eq(context.getStartsOn().getZone()),
+                scheduledActivityListCaptor.capture());
+        assertEquals(toGuids(scheduledActivityListCaptor.getValue()), ImmutableSet.of(guid));
         
         verify(activityDao).saveActivities(scheduledActivityListCaptor.capture());
         
@@ -1265,6 +1311,58 @@ public class ScheduledActivityServiceTest {
         assertEquals(toGuids(activities), toGuids(dbActivities));
     }
     
+    @Test
+    public void getActivitiesV4QueriesHistoriesConcurrently() throws Exception {
+        DateTime startsOn = DateTime.now().minusDays(2);
+        DateTime endsOn = DateTime.now().plusDays(2);
+        ScheduleContext context = createScheduleContext(endsOn).withStartsOn(startsOn).build();
+        
+        List<ScheduledActivity> dbActivities = service.scheduleActivitiesForPlans(context);
+        for (ScheduledActivity activity : dbActivities) {
+            activity.setStartedOn(DateUtils.getCurrentMillisFromEpoch());
+            activity.setFinishedOn(DateUtils.getCurrentMillisFromEpoch());
+        }
+        mockAllCallsForDbActivities(dbActivities);
+        Set<String> activityGuids = dbActivities.stream().map(act -> act.getGuid().split(":")[0]).collect(toSet());
+        assertTrue(activityGuids.size() > 1);
+        
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            service.setActivityQueryExecutorService(executorService);
+            List<ScheduledActivity> activities = service.getScheduledActivitiesV4(app, context);
+            
+            assertEquals(toGuids(activities), toGuids(dbActivities));
+            for (String activityGuid : activityGuids) {
+                verify(activityDao).getActivityHistoryV2(HEALTH_CODE, activityGuid, context.getStartsOn(),
+                        context.getEndsOn(), null, API_MAXIMUM_PAGE_SIZE);
+            }
+            // Everything was found by the history queries.
+            verify(activityDao, never()).getActivities(any(), any());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void getActivitiesV4FailedHistoryQueryThrows() throws Exception {
+        DateTime startsOn = DateTime.now().minusDays(2);
+        DateTime endsOn = DateTime.now().plusDays(2);
+        ScheduleContext context = createScheduleContext(endsOn).withStartsOn(startsOn).build();
+        
+        List<ScheduledActivity> scheduledActivities = service.scheduleActivitiesForPlans(context);
+        String activityGuid = scheduledActivities.get(0).getGuid().split(":")[0];
+        when(activityDao.getActivityHistoryV2(eq(HEALTH_CODE), eq(activityGuid), any(), any(), eq(null),
+                eq(API_MAXIMUM_PAGE_SIZE))).thenThrow(new BadRequestException("Query failed"));
+        
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            service.setActivityQueryExecutorService(executorService);
+            service.getScheduledActivitiesV4(app, context);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+    
     // BRIDGE-1964. This test reproduces the stack trace in production. 
     @Test
     public void nullsRemovedAndLogged() {
@@ -1284,10 +1382,26 @@ public class ScheduledActivityServiceTest {
         dbActivity.setLocalScheduledOn(LocalDateTime.parse("2017-02-23T13:00:00.000"));
         // This is the critical line. Without this, the service fails. Also tested in DAO code.
         dbActivity.setTimeZone(context.getStartsOn().getZone());
-        when(mockedActivityDao.getActivity(context.getStartsOn().getZone(), HEALTH_CODE, "AAA:2017-02-23T13:00:00.000", false)).thenReturn(dbActivity);
+        when(mockedActivityDao.getActivities(eq(context.getStartsOn().getZone()), any()))
+                .thenReturn(ImmutableList.of(dbActivity));
         
         service.getScheduledActivitiesV4(app, context);
-        verify(mockedActivityDao).getActivity(context.getStartsOn().getZone(), HEALTH_CODE, "AAA:2017-02-23T13:00:00.000", false);
+        verify(mockedActivityDao).getActivities(eq(context.getStartsOn().getZone()), any());
+    }
+    
+    // Every activity that is loaded for an update exists in the database.
+    private void mockGetActivitiesForUpdate() {
+        when(activityDao.getActivities(eq(DateTimeZone.UTC), any())).thenAnswer(invocation -> {
+            List<ScheduledActivity> dbActivities = Lists.newArrayList();
+            for (ScheduledActivity key : invocation.<List<ScheduledActivity>>getArgument(1)) {
+                DynamoScheduledActivity dbActivity = new DynamoScheduledActivity();
+                dbActivity.setTimeZone(DateTimeZone.UTC);
+                dbActivity.setHealthCode(key.getHealthCode());
+                dbActivity.setGuid(key.getGuid());
+                dbActivities.add(dbActivity);
+            }
+            return dbActivities;
+        });
     }
     
     private void mockAllCallsForDbActivities(List<ScheduledActivity> dbActivities) {
@@ -1344,7 +1458,8 @@ public class ScheduledActivityServiceTest {
         
         List<ScheduledActivity> activities = service.getScheduledActivities(app, context);
         
-        verify(activityEventService).getActivityEventMap(TEST_APP_ID, null, "healthCode");
+        // The events are retrieved again after activities_retrieved is published for the first time.
+        verify(activityEventService, times(2)).getActivityEventMap(TEST_APP_ID, null, "healthCode");
         verify(schedulePlanService).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
         
         return activities.get(0).getScheduledOn().toString();
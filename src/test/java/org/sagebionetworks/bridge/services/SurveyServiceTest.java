@@ -21,6 +21,7 @@ import static org.testng.Assert.fail;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -35,6 +36,8 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.LocalAppConfigCache;
+import org.sagebionetworks.bridge.cache.LocalSurveyCache;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
@@ -90,6 +93,12 @@ public class SurveyServiceTest {
     @Mock
     AppService mockAppService;
     
+    @Mock
+    LocalAppConfigCache mockAppConfigCache;
+    
+    @Mock
+    LocalSurveyCache mockSurveyCache;
+    
     @Captor
     ArgumentCaptor<GuidCreatedOnVersionHolder> keysCaptor;
     
@@ -114,6 +123,10 @@ public class SurveyServiceTest {
         when(mockAppService.getApp(TEST_APP_ID)).thenReturn(app);
 
         when(mockSurveyDao.createSurvey(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(mockSurveyCache.getSurvey(any(), any(), anyBoolean(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<Survey>>getArgument(3).get());
+        when(mockSurveyCache.getMostRecentlyPublishedSurvey(any(), any(), anyBoolean(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<Survey>>getArgument(3).get());
 
         // Create service.
         service = new SurveyService();
@@ -122,6 +135,8 @@ public class SurveyServiceTest {
         service.setSchedulePlanService(mockSchedulePlanService);
         service.setSharedModuleMetadataService(mockSharedModuleMetadataService);
         service.setPublishValidator(mockSurveyPublishValidator);
+        service.setLocalAppConfigCache(mockAppConfigCache);
+        service.setLocalSurveyCache(mockSurveyCache);
     }
 
     @Test
@@ -184,6 +199,7 @@ public class SurveyServiceTest {
         
         service.getSurvey(TEST_APP_ID, SURVEY_KEYS, false, true);
         
+        verify(mockSurveyCache).getSurvey(eq(TEST_APP_ID), eq(SURVEY_KEYS), eq(false), any());
         verify(mockSurveyDao).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
     }
     
@@ -196,6 +212,7 @@ public class SurveyServiceTest {
         
         service.getSurveyMostRecentlyPublishedVersion(TEST_APP_ID, SURVEY_GUID, false);
         
+        verify(mockSurveyCache).getMostRecentlyPublishedSurvey(eq(TEST_APP_ID), eq(SURVEY_GUID), eq(false), any());
         verify(mockSurveyDao).getSurveyMostRecentlyPublishedVersion(TEST_APP_ID, SURVEY_GUID, false);
     }
     
@@ -261,6 +278,7 @@ public class SurveyServiceTest {
         // execute and validate
         Survey retval = service.publishSurvey(TEST_APP_ID, SURVEY_KEYS, true);
         assertSame(retval, survey);
+        verify(mockSurveyCache).invalidate(TEST_APP_ID, SURVEY_GUID);
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -306,6 +324,8 @@ public class SurveyServiceTest {
         
         verify(mockSurveyDao).deleteSurvey(surveyCaptor.capture());
         assertEquals(surveyCaptor.getValue(), survey);
+        verify(mockSurveyCache).invalidate(TEST_APP_ID, survey.getGuid());
+        verify(mockAppConfigCache).invalidate(TEST_APP_ID);
     }
     
     @Test
@@ -334,6 +354,8 @@ public class SurveyServiceTest {
         
         verify(mockSurveyDao).deleteSurveyPermanently(eq(TEST_APP_ID), keysCaptor.capture());
         assertEquals(keysCaptor.getValue(), survey);
+        verify(mockSurveyCache).invalidate(TEST_APP_ID, survey.getGuid());
+        verify(mockAppConfigCache).invalidate(TEST_APP_ID);
     }
 
     @Test(expectedExceptions = BadRequestException.class)
@@ -625,6 +647,8 @@ public class SurveyServiceTest {
         
         verify(mockSurveyDao).updateSurvey(eq(TEST_APP_ID), surveyCaptor.capture());
         assertFalse(surveyCaptor.getValue().isDeleted());
+        verify(mockSurveyCache).invalidate(TEST_APP_ID, SURVEY_GUID);
+        verify(mockAppConfigCache).invalidate(TEST_APP_ID);
     }
     
     @Test
@@ -849,6 +873,7 @@ public class SurveyServiceTest {
         service.versionSurvey(TEST_APP_ID, SURVEY_KEYS);
         
         verify(mockSurveyDao).getSurvey(TEST_APP_ID, SURVEY_KEYS, false);
+        verify(mockSurveyCache).invalidate(TEST_APP_ID, SURVEY_GUID);
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -10,11 +11,14 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.fail;
 
+import java.util.function.Supplier;
+
 import com.google.common.collect.ImmutableList;
 import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.LocalUploadSchemaCache;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.surveys.DataType;
@@ -43,8 +47,13 @@ public class UploadSchemaServiceFromSurveyTest {
     @BeforeMethod
     public void setup() {
         dao = mock(UploadSchemaDao.class);
+        LocalUploadSchemaCache mockSchemaCache = mock(LocalUploadSchemaCache.class);
+        when(mockSchemaCache.getUploadSchema(any(), any(), anyInt(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<UploadSchema>>getArgument(3).get());
+
         svc = new UploadSchemaService();
         svc.setUploadSchemaDao(dao);
+        svc.setLocalUploadSchemaCache(mockSchemaCache);
     }
 
     @Test
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
@@ -19,6 +20,7 @@ import static org.testng.Assert.fail;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -29,6 +31,7 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.LocalUploadSchemaCache;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -53,6 +56,7 @@ public class UploadSchemaServiceTest {
     private UploadSchemaDao dao;
     private UploadSchemaService svc;
     private SharedModuleMetadataService mockSharedModuleMetadataService;
+    private LocalUploadSchemaCache mockSchemaCache;
 
     @Captor
     ArgumentCaptor<String> queryCaptor;
@@ -67,9 +71,16 @@ public class UploadSchemaServiceTest {
         svcInputSchema = makeSimpleSchema();
         dao = mock(UploadSchemaDao.class);
         mockSharedModuleMetadataService = mock(SharedModuleMetadataService.class);
+
+        // The cache always loads from the DAO.
+        mockSchemaCache = mock(LocalUploadSchemaCache.class);
+        when(mockSchemaCache.getUploadSchema(any(), any(), anyInt(), any())).thenAnswer(
+                invocation -> invocation.<Supplier<UploadSchema>>getArgument(3).get());
+
         svc = new UploadSchemaService();
         svc.setUploadSchemaDao(dao);
         svc.setSharedModuleMetadataService(mockSharedModuleMetadataService);
+        svc.setLocalUploadSchemaCache(mockSchemaCache);
     }
 
     @Test(expectedExceptions = BadRequestException.class)
@@ -294,6 +305,7 @@ public class UploadSchemaServiceTest {
         // execute and verify delete call
         svc.deleteUploadSchemaById(TEST_APP_ID, SCHEMA_ID);
         verify(dao).deleteUploadSchemas(schemaListToDelete);
+        verify(mockSchemaCache).invalidate(TEST_APP_ID, SCHEMA_ID);
 
         // verify query args
         verify(mockSharedModuleMetadataService).queryAllMetadata(eq(false), eq(false), queryCaptor.capture(),
@@ -315,6 +327,7 @@ public class UploadSchemaServiceTest {
         // execute and verify delete call
         svc.deleteUploadSchemaByIdPermanently(TEST_APP_ID, SCHEMA_ID);
         verify(dao).deleteUploadSchemasPermanently(schemaListToDelete);
+        verify(mockSchemaCache).invalidate(TEST_APP_ID, SCHEMA_ID);
 
         // verify query args
         verify(mockSharedModuleMetadataService).queryAllMetadata(eq(false), eq(false), queryCaptor.capture(),
@@ -438,6 +451,7 @@ public class UploadSchemaServiceTest {
         // execute and verify delete call
         svc.deleteUploadSchemaByIdAndRevision(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
         verify(dao).deleteUploadSchemas(ImmutableList.of(schemaToDelete));
+        verify(mockSchemaCache).invalidate(TEST_APP_ID, SCHEMA_ID);
 
         // verify query args
         verify(mockSharedModuleMetadataService).queryAllMetadata(eq(false), eq(false), queryCaptor.capture(),
@@ -459,6 +473,7 @@ public class UploadSchemaServiceTest {
         // execute and verify delete call
         svc.deleteUploadSchemaByIdAndRevisionPermanently(TEST_APP_ID, SCHEMA_ID, SCHEMA_REV);
         verify(dao).deleteUploadSchemasPermanently(ImmutableList.of(schemaToDelete));
+        verify(mockSchemaCache).invalidate(TEST_APP_ID, SCHEMA_ID);
 
         // verify query args
         verify(mockSharedModuleMetadataService).queryAllMetadata(eq(false), eq(false), queryCaptor.capture(),
@@ -660,6 +675,7 @@ public class UploadSchemaServiceTest {
         UploadSchema svcOutputSchema = svc.getUploadSchemaByIdAndRevNoThrow(TEST_APP_ID, SCHEMA_ID,
                 SCHEMA_REV);
         assertSame(svcOutputSchema, daoOutputSchema);
+        verify(mockSchemaCache).getUploadSchema(eq(TEST_APP_ID), eq(SCHEMA_ID), eq(SCHEMA_REV), any());
     }
 
     @Test(expectedExceptions = BadRequestException.class)
@@ -927,6 +943,7 @@ public class UploadSchemaServiceTest {
 
         // verify no calls to dao
         verify(dao, never()).updateSchemaRevision(any());
+        verify(mockSchemaCache, never()).invalidate(any(), any());
     }
 
     @Test
@@ -981,6 +998,7 @@ public class UploadSchemaServiceTest {
 
         // Validate DAO input is also svcOutput.
         assertSame(svcOutputSchema, daoOutputSchema);
+        verify(mockSchemaCache).invalidate(TEST_APP_ID, SCHEMA_ID);
     }
 
     private static UploadSchema makeSimpleSchema() {
@@ -54,6 +54,7 @@ import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.NotFoundException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
@@ -572,8 +573,34 @@ public class UploadServiceTest {
         
         svc.uploadComplete(TEST_APP_ID, S3_WORKER, upload, true);
         
+        verify(mockUploadValidationService).reserve(TEST_APP_ID);
         verify(mockUploadDao).uploadComplete(S3_WORKER, upload);
         verify(mockUploadValidationService).validateUpload(TEST_APP_ID, upload);
+        verify(mockUploadValidationService, never()).cancelReservation(any());
+    }
+    
+    @Test
+    public void uploadCompleteValidationQueueFull() throws Exception {
+        UploadRequest uploadRequest = constructUploadRequest();
+        DynamoUpload2 upload = new DynamoUpload2(uploadRequest, HEALTH_CODE);
+        upload.setUploadId(ORIGINAL_UPLOAD_ID);
+        
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setSSEAlgorithm(AES_256_SERVER_SIDE_ENCRYPTION);
+        when(mockS3Client.getObjectMetadata(UPLOAD_BUCKET_NAME, ORIGINAL_UPLOAD_ID)).thenReturn(metadata);
+        doThrow(new ServiceUnavailableException("Queue full")).when(mockUploadValidationService)
+                .reserve(TEST_APP_ID);
+        
+        try {
+            svc.uploadComplete(TEST_APP_ID, S3_WORKER, upload, false);
+            fail("expected exception");
+        } catch (ServiceUnavailableException ex) {
+            // expected exception
+        }
+        
+        // The upload is not marked complete, so the client can complete it again later.
+        verify(mockUploadDao, never()).uploadComplete(any(), any());
+        verify(mockUploadValidationService, never()).validateUpload(any(), any());
     }
     
     @Test
@@ -633,6 +660,7 @@ public class UploadServiceTest {
         
         verify(mockUploadDao).uploadComplete(S3_WORKER, upload);
         verify(mockUploadValidationService, never()).validateUpload(TEST_APP_ID, upload);
+        verify(mockUploadValidationService).cancelReservation(TEST_APP_ID);
     }
     
     UploadRequest constructUploadRequest() {
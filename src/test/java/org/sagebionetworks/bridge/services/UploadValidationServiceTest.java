@@ -1,49 +1,100 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertSame;
 
-import java.util.concurrent.ExecutorService;
-
+import com.google.common.collect.ImmutableMap;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
 import org.sagebionetworks.bridge.models.apps.App;
-import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutor;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutorStats;
+import org.sagebionetworks.bridge.upload.UploadValidationMetrics;
+import org.sagebionetworks.bridge.upload.UploadValidationMetricsStats;
 import org.sagebionetworks.bridge.upload.UploadValidationTask;
 import org.sagebionetworks.bridge.upload.UploadValidationTaskFactory;
 
 public class UploadValidationServiceTest {
+    private App app;
+    private UploadValidationExecutor mockExecutor;
+    private UploadValidationTaskFactory mockTaskFactory;
+    private UploadValidationMetrics mockMetrics;
+    private UploadValidationService svc;
+
+    @BeforeMethod
+    public void before() {
+        app = TestUtils.getValidApp(UploadValidationServiceTest.class);
+        mockExecutor = mock(UploadValidationExecutor.class);
+        mockTaskFactory = mock(UploadValidationTaskFactory.class);
+        mockMetrics = mock(UploadValidationMetrics.class);
+
+        // set up service
+        svc = new UploadValidationService();
+        svc.setUploadValidationExecutor(mockExecutor);
+        svc.setTaskFactory(mockTaskFactory);
+        svc.setUploadValidationMetrics(mockMetrics);
+    }
+
     @Test
     public void test() {
-        // UploadValidationService is a simple call-through to the task factory and the async thread pool. As such, our
-        // test strategy is to verify that execution flows through to these dependencies.
+        // UploadValidationService is a simple call-through to the task factory and the upload validation executor. As
+        // such, our test strategy is to verify that execution flows through to these dependencies.
 
         // inputs
-        App app = TestUtils.getValidApp(UploadValidationServiceTest.class);
-        Upload upload = new DynamoUpload2();
+        DynamoUpload2 upload = new DynamoUpload2();
+        upload.setContentLength(1234L);
 
         // mock task
         UploadValidationTask mockTask = mock(UploadValidationTask.class);
-
-        // mock task factory
-        UploadValidationTaskFactory mockTaskFactory = mock(UploadValidationTaskFactory.class);
         when(mockTaskFactory.newTask(app.getIdentifier(), upload)).thenReturn(mockTask);
 
-        // mock async thread pool
-        ExecutorService mockExecutor = mock(ExecutorService.class);
-
-        // set up service
-        UploadValidationService svc = new UploadValidationService();
-        svc.setAsyncExecutorService(mockExecutor);
-        svc.setTaskFactory(mockTaskFactory);
-
         // execute
         svc.validateUpload(app.getIdentifier(), upload);
 
         // validate
-        verify(mockExecutor).execute(mockTask);
+        ArgumentCaptor<Runnable> onShutdownCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockExecutor).execute(eq(app.getIdentifier()), eq(1234L), same(mockTask), onShutdownCaptor.capture());
+
+        // If the server shuts down first, the upload is marked as not validated.
+        onShutdownCaptor.getValue().run();
+        verify(mockTask).markNotValidated();
+    }
+
+    @Test
+    public void reserve() {
+        svc.reserve(app.getIdentifier());
+        verify(mockExecutor).reserve(app.getIdentifier());
+    }
+
+    @Test
+    public void cancelReservation() {
+        svc.cancelReservation(app.getIdentifier());
+        verify(mockExecutor).cancelReservation(app.getIdentifier());
+    }
+
+    @Test
+    public void getExecutorStats() {
+        UploadValidationExecutorStats stats = new UploadValidationExecutorStats(10, 0, 0, 0, 0, 1000,
+                ImmutableMap.of(), 0L, 0L, 0L, 0L, 0L, 0L);
+        when(mockExecutor.getStats()).thenReturn(stats);
+
+        assertSame(svc.getExecutorStats(), stats);
+    }
+
+    @Test
+    public void getMetricsStats() {
+        UploadValidationMetricsStats stats = new UploadValidationMetricsStats(ImmutableMap.of(), ImmutableMap.of(),
+                ImmutableMap.of(), null);
+        when(mockMetrics.getStats()).thenReturn(stats);
+
+        assertSame(svc.getMetricsStats(), stats);
     }
 }
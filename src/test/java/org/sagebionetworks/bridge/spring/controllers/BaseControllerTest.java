@@ -509,6 +509,20 @@ public class BaseControllerTest extends Mockito {
         assertEquals(info.getAppId(), TEST_APP_ID);
     }
 
+    @Test
+    public void getRequestInfoBuilderWithWriteBehind() {
+        when(requestInfoService.isWriteBehindEnabled()).thenReturn(true);
+        when(mockRequest.getHeader(USER_AGENT)).thenReturn(UA);
+        session.setParticipant(new StudyParticipant.Builder().withId(TEST_USER_ID).build());
+
+        RequestInfo info = controller.getRequestInfoBuilder(session).build();
+        assertEquals(info.getUserId(), TEST_USER_ID);
+        assertEquals(info.getUserAgent(), UA);
+
+        // The update is merged with the existing request info when it is persisted
+        verify(requestInfoService, never()).getRequestInfo(any());
+    }
+
 
     @Test(expectedExceptions = UnsupportedVersionException.class)
     public void testInvalidSupportedVersionThrowsException() throws Exception {
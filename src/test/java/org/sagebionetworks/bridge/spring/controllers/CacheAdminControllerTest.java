@@ -10,11 +10,14 @@ import static org.sagebionetworks.bridge.TestUtils.assertDelete;
 import static org.sagebionetworks.bridge.TestUtils.assertGet;
 import static org.testng.Assert.assertEquals;
 
+import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
 import org.mockito.InjectMocks;
@@ -25,6 +28,7 @@ import org.mockito.Spy;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.LocalCacheStats;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.StatusMessage;
 import org.sagebionetworks.bridge.models.accounts.Account;
@@ -75,6 +79,7 @@ public class CacheAdminControllerTest extends Mockito {
     public void verifyAnnotations() throws Exception {
         assertCrossOrigin(CacheAdminController.class);
         assertGet(CacheAdminController.class, "listItems");
+        assertGet(CacheAdminController.class, "getLocalCacheStats");
         assertDelete(CacheAdminController.class, "removeItem");
     }    
     
@@ -105,6 +110,23 @@ public class CacheAdminControllerTest extends Mockito {
         controller.listItems();
     }
     
+    @Test
+    public void getLocalCacheStats() throws Exception {
+        Map<String, LocalCacheStats> stats = ImmutableMap.of("UserSession",
+                new LocalCacheStats(1L, new CacheStats(1L, 2L, 0L, 0L, 0L, 3L), null));
+        when(mockCacheAdminService.getLocalCacheStats()).thenReturn(stats);
+        
+        assertEquals(controller.getLocalCacheStats(), stats);
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void getLocalCacheStatsRejectsAppAdmin() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(ADMIN)).withId(TEST_USER_ID).build());
+        
+        controller.getLocalCacheStats();
+    }
+    
     @Test
     public void removeItem() throws Exception {
         session.setAppId(TEST_APP_ID);
@@ -19,6 +19,7 @@ import static org.sagebionetworks.bridge.TestConstants.PASSWORD;
 import static org.sagebionetworks.bridge.TestConstants.PHONE;
 import static org.sagebionetworks.bridge.TestConstants.SUBPOP_GUID;
 import static org.sagebionetworks.bridge.TestConstants.SUMMARY1;
+import static org.sagebionetworks.bridge.TestConstants.SUMMARY2;
 import static org.sagebionetworks.bridge.TestConstants.SYNAPSE_USER_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TIMESTAMP;
@@ -45,12 +46,16 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8_VALUE;
 
+import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -310,6 +315,8 @@ public class ParticipantControllerTest extends Mockito {
         assertPost(ParticipantController.class, "searchForAccountSummaries");
         assertGet(ParticipantController.class, "getParticipantsForWorker");
         assertPost(ParticipantController.class, "searchForAccountSummariesForWorker");
+        assertPost(ParticipantController.class, "exportAccountSummaries");
+        assertPost(ParticipantController.class, "exportAccountSummariesForWorker");
         assertCreate(ParticipantController.class, "createParticipant");
         assertGet(ParticipantController.class, "getParticipant");
         assertGet(ParticipantController.class, "getParticipantForWorker");
@@ -1564,6 +1571,42 @@ public class ParticipantControllerTest extends Mockito {
         assertEquals(search, payload);
     }
     
+    @Test
+    public void exportAccountSummaries() throws Exception {
+        AccountSummarySearch payload = setAccountSummarySearch();
+        ByteArrayOutputStream output = mockResponseOutputStream();
+        when(mockParticipantService.getAccountSummaryIterator(eq(app), any()))
+                .thenReturn(ImmutableList.of(SUMMARY1, SUMMARY2).iterator());
+
+        controller.exportAccountSummaries();
+
+        verify(mockParticipantService).getAccountSummaryIterator(eq(app), searchCaptor.capture());
+        assertEquals(searchCaptor.getValue(), payload);
+        verify(mockResponse).setContentType(APPLICATION_JSON_UTF8_VALUE);
+
+        List<AccountSummary> summaries = MAPPER.readValue(output.toByteArray(),
+                new TypeReference<List<AccountSummary>>() {});
+        assertEquals(summaries.size(), 2);
+        assertEquals(summaries.get(0).getId(), SUMMARY1.getId());
+        assertEquals(summaries.get(1).getId(), SUMMARY2.getId());
+    }
+
+    @Test
+    public void exportAccountSummariesForWorker() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder().copyOf(session.getParticipant())
+                .withRoles(ImmutableSet.of(Roles.WORKER)).build());
+        AccountSummarySearch payload = setAccountSummarySearch();
+        ByteArrayOutputStream output = mockResponseOutputStream();
+        when(mockParticipantService.getAccountSummaryIterator(eq(app), any()))
+                .thenReturn(ImmutableList.<AccountSummary>of().iterator());
+
+        controller.exportAccountSummariesForWorker(app.getIdentifier());
+
+        verify(mockParticipantService).getAccountSummaryIterator(eq(app), searchCaptor.capture());
+        assertEquals(searchCaptor.getValue(), payload);
+        assertEquals(output.toString("UTF-8"), "[]");
+    }
+    
     @Test
     public void getEnrollments() {
         doReturn(session).when(controller).getAuthenticatedSession(false, RESEARCHER);
@@ -1661,6 +1704,24 @@ public class ParticipantControllerTest extends Mockito {
         assertEquals(participantRosterRequest.getPassword(), "password");
     }
 
+    private ByteArrayOutputStream mockResponseOutputStream() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        when(mockResponse.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+        });
+        return output;
+    }
+
     private AccountSummarySearch setAccountSummarySearch() throws Exception {
         AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(10).withPageSize(100)
                 .withEmailFilter("email").withPhoneFilter("phone").withAllOfGroups(ImmutableSet.of("group1"))
@@ -12,6 +12,7 @@ import static org.sagebionetworks.bridge.TestUtils.assertCreate;
 import static org.sagebionetworks.bridge.TestUtils.assertCrossOrigin;
 import static org.sagebionetworks.bridge.TestUtils.assertDelete;
 import static org.sagebionetworks.bridge.TestUtils.assertGet;
+import static org.sagebionetworks.bridge.TestUtils.assertPost;
 import static org.sagebionetworks.bridge.TestUtils.mockRequestBody;
 import static org.sagebionetworks.bridge.models.reports.ReportType.PARTICIPANT;
 import static org.testng.Assert.assertEquals;
@@ -26,6 +27,7 @@ import javax.servlet.http.HttpServletRequest;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -61,6 +63,7 @@ import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.reports.ReportData;
+import org.sagebionetworks.bridge.models.reports.ReportDataBatchResult;
 import org.sagebionetworks.bridge.models.reports.ReportDataKey;
 import org.sagebionetworks.bridge.models.reports.ReportIndex;
 import org.sagebionetworks.bridge.models.reports.ReportType;
@@ -106,6 +109,9 @@ public class ParticipantReportControllerTest extends Mockito {
     @Captor
     ArgumentCaptor<ReportData> reportDataCaptor;
     
+    @Captor
+    ArgumentCaptor<List<ReportData>> reportDataListCaptor;
+    
     @Captor
     ArgumentCaptor<ReportIndex> reportDataIndex;
     
@@ -167,6 +173,7 @@ public class ParticipantReportControllerTest extends Mockito {
         assertGet(ParticipantReportController.class, "getParticipantReportForSelf");
         assertGet(ParticipantReportController.class, "getParticipantReportForSelfV4");
         assertCreate(ParticipantReportController.class, "saveParticipantReportForSelf");
+        assertPost(ParticipantReportController.class, "saveParticipantReportBatchForSelf");
         assertGet(ParticipantReportController.class, "listParticipantReportIndices");
         assertGet(ParticipantReportController.class, "getParticipantReportIndex");
         assertGet(ParticipantReportController.class, "getParticipantReport");
@@ -219,6 +226,40 @@ public class ParticipantReportControllerTest extends Mockito {
         assertNull(reportData.getKey());
     }
     
+    @Test
+    public void saveParticipantDataBatchForSelf() throws Exception {
+        String json = TestUtils.createJson("[{'date':'2015-02-12','data':{'field1':'First'}},"
+                + "{'date':'2015-02-13','data':{'field1':'Last'}}]");
+        mockRequestBody(mockRequest, json);
+        
+        ReportDataBatchResult batchResult = new ReportDataBatchResult(ImmutableList.of("2015-02-12"),
+                ImmutableList.of("2015-02-13"));
+        when(mockReportService.saveParticipantReportBatch(eq(session.getAppId()), eq(REPORT_ID), eq(HEALTH_CODE),
+                any())).thenReturn(batchResult);
+        
+        ReportDataBatchResult result = controller.saveParticipantReportBatchForSelf(REPORT_ID);
+        assertEquals(result, batchResult);
+        
+        verify(mockReportService).saveParticipantReportBatch(eq(session.getAppId()), eq(REPORT_ID),
+                eq(HEALTH_CODE), reportDataListCaptor.capture());
+        
+        List<ReportData> reportDataList = reportDataListCaptor.getValue();
+        assertEquals(reportDataList.size(), 2);
+        assertEquals(reportDataList.get(0).getDate(), "2015-02-12");
+        assertEquals(reportDataList.get(0).getData().get("field1").asText(), "First");
+        assertNull(reportDataList.get(0).getKey());
+        assertEquals(reportDataList.get(1).getDate(), "2015-02-13");
+        assertEquals(reportDataList.get(1).getData().get("field1").asText(), "Last");
+        assertNull(reportDataList.get(1).getKey());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void saveParticipantDataBatchForSelfNullRecord() throws Exception {
+        mockRequestBody(mockRequest, "[null]");
+        
+        controller.saveParticipantReportBatchForSelf(REPORT_ID);
+    }
+    
     @Test
     public void getParticipantReportDataNoDatesForSelf() throws Exception {
         doReturn(makeResults(START_DATE, END_DATE)).when(mockReportService).getParticipantReport(session.getAppId(),
@@ -1059,6 +1059,7 @@ public class StudyParticipantControllerTest extends Mockito {
         Schedule2 schedule = new Schedule2();
         schedule.setModifiedOn(MODIFIED_ON);
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, study)).thenReturn(schedule);
+        when(mockScheduleService.getTimelineForSchedule(schedule)).thenReturn(new Timeline.Builder().build());
         
         ResponseEntity<Timeline> retValue = controller.getTimelineForSelf(TEST_STUDY_ID);
         assertEquals(retValue.getStatusCodeValue(), 200);
@@ -1123,6 +1124,7 @@ public class StudyParticipantControllerTest extends Mockito {
         Schedule2 schedule = new Schedule2();
         schedule.setModifiedOn(MODIFIED_ON);
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, study)).thenReturn(schedule);
+        when(mockScheduleService.getTimelineForSchedule(schedule)).thenReturn(new Timeline.Builder().build());
         
         ResponseEntity<Timeline> retValue = controller.getTimelineForSelf(TEST_STUDY_ID);
         assertEquals(retValue.getStatusCodeValue(), 200);
@@ -1155,6 +1157,7 @@ public class StudyParticipantControllerTest extends Mockito {
         // just make this different so we can verify this is set
         schedule.setModifiedOn(CREATED_ON); 
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, study)).thenReturn(schedule);
+        when(mockScheduleService.getTimelineForSchedule(schedule)).thenReturn(new Timeline.Builder().build());
         
         ResponseEntity<Timeline> retValue = controller.getTimelineForSelf(TEST_STUDY_ID);
         assertEquals(retValue.getStatusCodeValue(), 200);
@@ -1186,6 +1189,7 @@ public class StudyParticipantControllerTest extends Mockito {
         // just make this different so we can verify this is set
         schedule.setModifiedOn(CREATED_ON); 
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, study)).thenReturn(schedule);
+        when(mockScheduleService.getTimelineForSchedule(schedule)).thenReturn(new Timeline.Builder().build());
 
         ResponseEntity<Timeline> retValue = controller.getTimelineForSelf(TEST_STUDY_ID);
         assertEquals(retValue.getStatusCodeValue(), 200);
@@ -1213,6 +1217,7 @@ public class StudyParticipantControllerTest extends Mockito {
         Schedule2 schedule = new Schedule2();
         schedule.setModifiedOn(MODIFIED_ON);
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, study)).thenReturn(schedule);
+        when(mockScheduleService.getTimelineForSchedule(schedule)).thenReturn(new Timeline.Builder().build());
         
         ResponseEntity<Timeline> retValue = controller.getTimelineForSelf(TEST_STUDY_ID);
         assertEquals(retValue.getStatusCodeValue(), 200);
@@ -1270,6 +1275,7 @@ public class StudyParticipantControllerTest extends Mockito {
         Schedule2 schedule = new Schedule2();
         schedule.setModifiedOn(MODIFIED_ON);
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, study)).thenReturn(schedule);
+        when(mockScheduleService.getTimelineForSchedule(schedule)).thenReturn(new Timeline.Builder().build());
         
         ResponseEntity<Timeline> retValue = controller.getTimelineForSelf(TEST_STUDY_ID);
         assertEquals(retValue.getStatusCodeValue(), 200);
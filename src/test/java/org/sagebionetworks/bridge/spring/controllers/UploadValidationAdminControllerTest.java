@@ -0,0 +1,98 @@
+package org.sagebionetworks.bridge.spring.controllers;
+
+import static org.sagebionetworks.bridge.Roles.ADMIN;
+import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.sagebionetworks.bridge.TestUtils.assertCrossOrigin;
+import static org.sagebionetworks.bridge.TestUtils.assertGet;
+import static org.testng.Assert.assertSame;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
+import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.services.UploadValidationService;
+import org.sagebionetworks.bridge.util.TimingStats;
+import org.sagebionetworks.bridge.upload.UploadValidationExecutorStats;
+import org.sagebionetworks.bridge.upload.UploadValidationMetricsStats;
+
+public class UploadValidationAdminControllerTest extends Mockito {
+
+    @Mock
+    private UploadValidationService mockUploadValidationService;
+
+    @InjectMocks
+    @Spy
+    private UploadValidationAdminController controller = new UploadValidationAdminController();
+
+    private UserSession session;
+
+    @BeforeMethod
+    private void before() {
+        MockitoAnnotations.initMocks(this);
+
+        session = new UserSession();
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(SUPERADMIN)).withId(TEST_USER_ID).build());
+        doAnswer(answer -> {
+            if (session.isInRole(SUPERADMIN)) {
+                return session;
+            }
+            throw new UnauthorizedException("Nope");
+        }).when(controller).getAuthenticatedSession(any());
+    }
+
+    @Test
+    public void verifyAnnotations() throws Exception {
+        assertCrossOrigin(UploadValidationAdminController.class);
+        assertGet(UploadValidationAdminController.class, "getExecutorStats");
+        assertGet(UploadValidationAdminController.class, "getMetricsStats");
+    }
+
+    @Test
+    public void getExecutorStats() {
+        UploadValidationExecutorStats stats = new UploadValidationExecutorStats(10, 2, 3, 1, 0, 1000,
+                ImmutableMap.of(TEST_APP_ID, 4), 500L, 200L, 800L, 20L, 1L, 16L);
+        when(mockUploadValidationService.getExecutorStats()).thenReturn(stats);
+
+        assertSame(controller.getExecutorStats(), stats);
+    }
+
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void getExecutorStatsRejectsAppAdmin() {
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(ADMIN)).withId(TEST_USER_ID).build());
+
+        controller.getExecutorStats();
+    }
+
+    @Test
+    public void getMetricsStats() {
+        TimingStats timing = new TimingStats(2L, 150L, 100L, 200L, 100L, 200L, 200L, 4096L);
+        UploadValidationMetricsStats stats = new UploadValidationMetricsStats(
+                ImmutableMap.of("UnzipHandler", timing), ImmutableMap.of(TEST_APP_ID, timing),
+                ImmutableMap.of("v1_legacy", timing), timing);
+        when(mockUploadValidationService.getMetricsStats()).thenReturn(stats);
+
+        assertSame(controller.getMetricsStats(), stats);
+    }
+
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void getMetricsStatsRejectsAppAdmin() {
+        session.setParticipant(new StudyParticipant.Builder()
+                .withRoles(ImmutableSet.of(ADMIN)).withId(TEST_USER_ID).build());
+
+        controller.getMetricsStats();
+    }
+}
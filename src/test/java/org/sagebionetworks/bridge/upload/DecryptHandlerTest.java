@@ -8,6 +8,7 @@ import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 
 import java.io.ByteArrayInputStream;
@@ -98,4 +99,16 @@ public class DecryptHandlerTest {
         assertSame(ctx.getDecryptedDataFile(), dataFile);
         verifyZeroInteractions(mockSvc);
     }
+
+    @Test
+    public void alreadyDecryptedWhileStreaming() throws Exception {
+        byte[] decryptedData = "decrypted test data".getBytes(Charsets.UTF_8);
+        ctx.setDataFile(null);
+        ctx.setDecryptedData(decryptedData);
+        handler.handle(ctx);
+
+        assertSame(ctx.getDecryptedData(), decryptedData);
+        assertNull(ctx.getDecryptedDataFile());
+        verifyZeroInteractions(mockSvc);
+    }
 }
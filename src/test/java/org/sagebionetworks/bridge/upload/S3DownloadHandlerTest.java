@@ -4,18 +4,29 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
 
 import com.google.common.base.Charsets;
 
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
 import org.sagebionetworks.bridge.file.InMemoryFileHelper;
 import org.sagebionetworks.bridge.s3.S3Helper;
+import org.sagebionetworks.bridge.services.UploadArchiveService;
 
 public class S3DownloadHandlerTest {
     @Test
@@ -53,4 +64,86 @@ public class S3DownloadHandlerTest {
         byte[] dataFileContent = inMemoryFileHelper.getBytes(ctx.getDataFile());
         assertEquals(new String(dataFileContent, Charsets.UTF_8), "test data");
     }
+
+    @Test
+    public void streamInMemory() throws Exception {
+        InMemoryFileHelper inMemoryFileHelper = new InMemoryFileHelper();
+        UploadValidationContext ctx = createStreamingContext(inMemoryFileHelper, true);
+        UploadArchiveService mockSvc = mockDecrypt();
+
+        S3DownloadHandler handler = createStreamingHandler(inMemoryFileHelper, mockSvc, 100);
+        handler.handle(ctx);
+
+        assertEquals(new String(ctx.getDecryptedData(), Charsets.UTF_8), "decrypted test data");
+        assertNull(ctx.getDecryptedDataFile());
+        assertNull(ctx.getDataFile());
+    }
+
+    @Test
+    public void streamSpillsToDisk() throws Exception {
+        InMemoryFileHelper inMemoryFileHelper = new InMemoryFileHelper();
+        UploadValidationContext ctx = createStreamingContext(inMemoryFileHelper, true);
+        UploadArchiveService mockSvc = mockDecrypt();
+
+        S3DownloadHandler handler = createStreamingHandler(inMemoryFileHelper, mockSvc, 4);
+        handler.handle(ctx);
+
+        assertNull(ctx.getDecryptedData());
+        assertEquals(ctx.getDecryptedDataFile().getName(), "test-upload-id.zip");
+        byte[] decryptedFileContent = inMemoryFileHelper.getBytes(ctx.getDecryptedDataFile());
+        assertEquals(new String(decryptedFileContent, Charsets.UTF_8), "decrypted test data");
+        assertNull(ctx.getDataFile());
+    }
+
+    @Test
+    public void streamNotEncrypted() throws Exception {
+        InMemoryFileHelper inMemoryFileHelper = new InMemoryFileHelper();
+        UploadValidationContext ctx = createStreamingContext(inMemoryFileHelper, false);
+        UploadArchiveService mockSvc = mock(UploadArchiveService.class);
+
+        S3DownloadHandler handler = createStreamingHandler(inMemoryFileHelper, mockSvc, 100);
+        handler.handle(ctx);
+
+        assertEquals(new String(ctx.getDecryptedData(), Charsets.UTF_8), "test data");
+        verifyZeroInteractions(mockSvc);
+    }
+
+    private static UploadValidationContext createStreamingContext(InMemoryFileHelper inMemoryFileHelper,
+            boolean encrypted) {
+        DynamoUpload2 upload2 = new DynamoUpload2();
+        upload2.setUploadId("test-upload-id");
+        upload2.setEncrypted(encrypted);
+
+        UploadValidationContext ctx = new UploadValidationContext();
+        ctx.setAppId(TEST_APP_ID);
+        ctx.setUpload(upload2);
+        ctx.setTempDir(inMemoryFileHelper.createTempDir());
+        return ctx;
+    }
+
+    private static UploadArchiveService mockDecrypt() {
+        UploadArchiveService mockSvc = mock(UploadArchiveService.class);
+        when(mockSvc.decrypt(eq(TEST_APP_ID), any(InputStream.class))).thenReturn(new ByteArrayInputStream(
+                "decrypted test data".getBytes(Charsets.UTF_8)));
+        return mockSvc;
+    }
+
+    private static S3DownloadHandler createStreamingHandler(InMemoryFileHelper inMemoryFileHelper,
+            UploadArchiveService mockSvc, int memoryBufferBytes) {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.get(S3DownloadHandler.STREAMING_ENABLED_PROPERTY)).thenReturn("true");
+        when(mockConfig.getInt(S3DownloadHandler.MEMORY_BUFFER_PROPERTY)).thenReturn(memoryBufferBytes);
+
+        S3Object s3Object = new S3Object();
+        s3Object.setObjectContent(new ByteArrayInputStream("test data".getBytes(Charsets.UTF_8)));
+        AmazonS3 mockS3Client = mock(AmazonS3.class);
+        when(mockS3Client.getObject(TestConstants.UPLOAD_BUCKET, "test-upload-id")).thenReturn(s3Object);
+
+        S3DownloadHandler handler = new S3DownloadHandler();
+        handler.setFileHelper(inMemoryFileHelper);
+        handler.setS3Client(mockS3Client);
+        handler.setUploadArchiveService(mockSvc);
+        handler.setBridgeConfig(mockConfig);
+        return handler;
+    }
 }
@@ -0,0 +1,74 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+
+import com.google.common.base.Charsets;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.file.InMemoryFileHelper;
+
+public class SpillingOutputStreamTest {
+    private static final byte[] DATA = "test data".getBytes(Charsets.UTF_8);
+
+    private InMemoryFileHelper inMemoryFileHelper;
+    private File spillFile;
+
+    @BeforeMethod
+    public void before() {
+        inMemoryFileHelper = new InMemoryFileHelper();
+        File tmpDir = inMemoryFileHelper.createTempDir();
+        spillFile = inMemoryFileHelper.newFile(tmpDir, "spill-file");
+    }
+
+    @Test
+    public void inMemory() throws Exception {
+        SpillingOutputStream outputStream = new SpillingOutputStream(inMemoryFileHelper, spillFile, DATA.length);
+        outputStream.write(DATA, 0, 4);
+        outputStream.write(DATA, 4, DATA.length - 4);
+        outputStream.close();
+
+        assertTrue(outputStream.isInMemory());
+        assertEquals(outputStream.getBytes(), DATA);
+        assertEquals(outputStream.getSize(), DATA.length);
+        assertEquals(outputStream.getSpilledBytes(), 0L);
+    }
+
+    @Test
+    public void spillsOverThreshold() throws Exception {
+        SpillingOutputStream outputStream = new SpillingOutputStream(inMemoryFileHelper, spillFile, 4);
+        outputStream.write(DATA, 0, 4);
+        assertTrue(outputStream.isInMemory());
+
+        // The data in memory is moved to the file along with the rest of the data.
+        outputStream.write(DATA[4]);
+        outputStream.write(DATA, 5, DATA.length - 5);
+        outputStream.close();
+
+        assertFalse(outputStream.isInMemory());
+        assertEquals(outputStream.getFile(), spillFile);
+        assertEquals(inMemoryFileHelper.getBytes(spillFile), DATA);
+        assertEquals(outputStream.getSize(), DATA.length);
+        assertEquals(outputStream.getSpilledBytes(), DATA.length);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void getBytesAfterSpill() throws Exception {
+        SpillingOutputStream outputStream = new SpillingOutputStream(inMemoryFileHelper, spillFile, 0);
+        outputStream.write(DATA);
+        outputStream.close();
+        outputStream.getBytes();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void getFileInMemory() throws Exception {
+        SpillingOutputStream outputStream = new SpillingOutputStream(inMemoryFileHelper, spillFile, DATA.length);
+        outputStream.write(DATA);
+        outputStream.close();
+        outputStream.getFile();
+    }
+}
@@ -67,7 +67,25 @@ public class UnzipHandlerTest {
     public void test() throws Exception {
         // The handler is a simple pass-through to the UploadArchiveService, so just test that execution flows through
         // to the service as expected.
+        Map<String, byte[]> mockUnzippedDataMap = mockUnzip();
 
+        // execute and validate
+        handler.handle(ctx);
+        assertUnzipped(mockUnzippedDataMap);
+    }
+
+    @Test
+    public void decryptedDataInMemory() throws Exception {
+        Map<String, byte[]> mockUnzippedDataMap = mockUnzip();
+        ctx.setDecryptedDataFile(null);
+        ctx.setDecryptedData(ZIPPED_FILE_DUMMY_CONTENT);
+
+        // execute and validate
+        handler.handle(ctx);
+        assertUnzipped(mockUnzippedDataMap);
+    }
+
+    private Map<String, byte[]> mockUnzip() {
         // mock UploadArchiveService
         Map<String, byte[]> mockUnzippedDataMap = ImmutableMap.of(
                 "foo", "foo data".getBytes(Charsets.UTF_8),
@@ -91,9 +109,10 @@ public class UnzipHandlerTest {
             // Required return.
             return null;
         }).when(mockSvc).unzip(any(), any(), any());
+        return mockUnzippedDataMap;
+    }
 
-        // execute and validate
-        handler.handle(ctx);
+    private void assertUnzipped(Map<String, byte[]> mockUnzippedDataMap) throws Exception {
         Map<String, File> unzippedFileMap = ctx.getUnzippedDataFileMap();
         assertEquals(unzippedFileMap.size(), mockUnzippedDataMap.size());
         for (String oneUnzippedFileName : mockUnzippedDataMap.keySet()) {
@@ -125,4 +144,19 @@ public class UnzipHandlerTest {
         // We hever call the unzip service.
         verifyZeroInteractions(mockSvc);
     }
+
+    @Test
+    public void notZippedInMemory() throws Exception {
+        upload.setZipped(false);
+        ctx.setDecryptedDataFile(null);
+        ctx.setDecryptedData(ZIPPED_FILE_DUMMY_CONTENT);
+        handler.handle(ctx);
+
+        // The data is written to a file for the downstream handlers.
+        Map<String, File> unzippedDataFileMap = ctx.getUnzippedDataFileMap();
+        assertEquals(unzippedDataFileMap.size(), 1);
+        assertEquals(inMemoryFileHelper.getBytes(unzippedDataFileMap.get(upload.getFilename())),
+                ZIPPED_FILE_DUMMY_CONTENT);
+        verifyZeroInteractions(mockSvc);
+    }
 }
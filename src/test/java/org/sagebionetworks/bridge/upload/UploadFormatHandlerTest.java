@@ -4,6 +4,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -62,6 +63,7 @@ public class UploadFormatHandlerTest {
         verify(mockV1LegacyHandler).handle(context);
         verifyZeroInteractions(mockV2GenericHandler);
         verifyCommonAttributes(context);
+        assertEquals(context.getUploadFormat(), UploadFormat.V1_LEGACY);
     }
 
     @Test
@@ -71,6 +73,7 @@ public class UploadFormatHandlerTest {
         verify(mockV1LegacyHandler).handle(context);
         verifyZeroInteractions(mockV2GenericHandler);
         verifyCommonAttributes(context);
+        assertEquals(context.getUploadFormat(), UploadFormat.V1_LEGACY);
     }
 
     @Test
@@ -80,6 +83,7 @@ public class UploadFormatHandlerTest {
         verify(mockV2GenericHandler).handle(context);
         verifyZeroInteractions(mockV1LegacyHandler);
         verifyCommonAttributes(context);
+        assertEquals(context.getUploadFormat(), UploadFormat.V2_GENERIC);
     }
 
     @Test
@@ -92,6 +96,7 @@ public class UploadFormatHandlerTest {
         uploadFormatHandler.handle(context);
         verifyZeroInteractions(mockV1LegacyHandler, mockV2GenericHandler);
         verifyCommonAttributes(context);
+        assertNull(context.getUploadFormat());
     }
 
     private static void verifyCommonAttributes(UploadValidationContext ctx) {
@@ -1,7 +1,9 @@
 package org.sagebionetworks.bridge.upload;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
 
@@ -66,6 +68,18 @@ public class UploadRawZipHandlerTest {
         assertEquals(record.getRawDataAttachmentId(), EXPECTED_NON_ZIPPED_FILENAME);
     }
 
+    @Test
+    public void decryptedDataInMemory() throws Exception {
+        byte[] decryptedData = "decrypted data".getBytes();
+        context.setDecryptedDataFile(null);
+        context.setDecryptedData(decryptedData);
+
+        handler.handle(context);
+        verify(mockUploadFileHelper).uploadBytesAsAttachment(EXPECTED_RAW_DATA_ZIP_FILENAME, decryptedData);
+        verify(mockUploadFileHelper, never()).uploadFileAsAttachment(any(), any());
+        assertEquals(record.getRawDataAttachmentId(), EXPECTED_RAW_DATA_ZIP_FILENAME);
+    }
+
     @Test(expectedExceptions = UploadValidationException.class)
     public void errorCase() throws Exception {
         // Mock uploadFileHelper to throw.
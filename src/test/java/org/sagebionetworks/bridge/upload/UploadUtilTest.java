@@ -807,4 +807,14 @@ public class UploadUtilTest {
         assertEquals(outputMap.get("foo"), "bar");
         assertEquals(outputMap.get("sanitize____this"), "sanitize this's value");
     }
+
+    @Test
+    public void getThroughputMegabytesPerSecond() {
+        assertEquals(UploadUtil.getThroughputMegabytesPerSecond(3 * 1024 * 1024, 2000), 1.5, 0.0001);
+    }
+
+    @Test
+    public void getThroughputMegabytesPerSecondWithoutElapsedTime() {
+        assertEquals(UploadUtil.getThroughputMegabytesPerSecond(1024, 0), 0.0, 0.0);
+    }
 }
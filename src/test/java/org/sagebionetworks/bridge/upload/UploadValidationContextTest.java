@@ -46,6 +46,7 @@ public class UploadValidationContextTest {
         File tempDir = mock(File.class);
         File dataFile = mock(File.class);
         File decryptedDataFile = mock(File.class);
+        byte[] decryptedData = new byte[] { 1, 2, 3 };
         Map<String, File> unzippedDataFileMap = ImmutableMap.<String, File>builder().put("foo", mock(File.class))
                 .put("bar", mock(File.class)).put("baz", mock(File.class)).build();
         JsonNode infoJsonNode = BridgeObjectMapper.get().createObjectNode();
@@ -61,8 +62,10 @@ public class UploadValidationContextTest {
         original.setTempDir(tempDir);
         original.setDataFile(dataFile);
         original.setDecryptedDataFile(decryptedDataFile);
+        original.setDecryptedData(decryptedData);
         original.setUnzippedDataFileMap(unzippedDataFileMap);
         original.setInfoJsonNode(infoJsonNode);
+        original.setUploadFormat(UploadFormat.V2_GENERIC);
         original.setHealthDataRecord(record);
         original.setRecordId("test-record");
 
@@ -75,8 +78,10 @@ public class UploadValidationContextTest {
         assertSame(copy.getTempDir(), tempDir);
         assertSame(copy.getDataFile(), dataFile);
         assertSame(copy.getDecryptedDataFile(), decryptedDataFile);
+        assertSame(copy.getDecryptedData(), decryptedData);
         assertEquals(copy.getUnzippedDataFileMap(), unzippedDataFileMap);
         assertSame(copy.getInfoJsonNode(), infoJsonNode);
+        assertEquals(copy.getUploadFormat(), UploadFormat.V2_GENERIC);
         assertSame(copy.getHealthDataRecord(), record);
         assertEquals(copy.getRecordId(), "test-record");
 
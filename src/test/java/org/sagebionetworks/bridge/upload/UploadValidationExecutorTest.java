@@ -0,0 +1,348 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTimeUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+
+public class UploadValidationExecutorTest {
+    private static final long NOW = 1600000000000L;
+    private static final long SMALL = 100L;
+    private static final long LARGE = 10000L;
+
+    private UploadValidationExecutor executor;
+    private List<String> ran;
+    private List<String> notValidated;
+
+    @BeforeMethod
+    public void before() {
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+        // No worker threads; tests run the queued tasks with runNext().
+        executor = createExecutor(0, 5, 3);
+        ran = new ArrayList<>();
+        notValidated = new ArrayList<>();
+    }
+
+    @AfterMethod
+    public void after() {
+        executor.stop();
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    private static UploadValidationExecutor createExecutor(int threadCount, int maxQueued, int maxQueuedPerApp) {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.getInt(UploadValidationExecutor.THREAD_COUNT_PROPERTY)).thenReturn(threadCount);
+        when(mockConfig.getInt(UploadValidationExecutor.MAX_QUEUED_PROPERTY)).thenReturn(maxQueued);
+        when(mockConfig.getInt(UploadValidationExecutor.MAX_QUEUED_PER_APP_PROPERTY)).thenReturn(maxQueuedPerApp);
+        when(mockConfig.getInt(UploadValidationExecutor.SMALL_UPLOAD_PROPERTY)).thenReturn(1000);
+
+        UploadValidationExecutor executor = new UploadValidationExecutor();
+        executor.setBridgeConfig(mockConfig);
+        executor.start();
+        return executor;
+    }
+
+    private void submit(String appId, long contentLength, String name) {
+        executor.reserve(appId);
+        executor.execute(appId, contentLength, () -> ran.add(name), () -> notValidated.add(name));
+    }
+
+    private void runAll() {
+        while (executor.runNext()) {
+            // keep running
+        }
+    }
+
+    @Test
+    public void appsTakeTurns() {
+        submit("app1", SMALL, "app1-a");
+        submit("app1", SMALL, "app1-b");
+        submit("app1", SMALL, "app1-c");
+        submit("app2", SMALL, "app2-a");
+        submit("app3", SMALL, "app3-a");
+
+        runAll();
+        assertEquals(ran, ImmutableList.of("app1-a", "app2-a", "app3-a", "app1-b", "app1-c"));
+    }
+
+    @Test
+    public void smallUploadsFirstWithoutStarvingLargeUploads() {
+        submit("app1", LARGE, "large-a");
+        submit("app1", LARGE, "large-b");
+        submit("app2", SMALL, "small-a");
+        submit("app2", SMALL, "small-b");
+        submit("app2", SMALL, "small-c");
+
+        runAll();
+        // Every fourth dispatch is a large upload.
+        assertEquals(ran, ImmutableList.of("small-a", "small-b", "small-c", "large-a", "large-b"));
+    }
+
+    @Test
+    public void largeUploadTurnTakesPlaceOfSmallUpload() {
+        for (int i = 0; i < 3; i++) {
+            submit("app" + i, SMALL, "small-" + i);
+        }
+        submit("app3", SMALL, "small-3");
+        submit("app4", LARGE, "large");
+
+        runAll();
+        assertEquals(ran, ImmutableList.of("small-0", "small-1", "small-2", "large", "small-3"));
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() {
+        submit("app1", SMALL, "a");
+        submit("app1", SMALL, "b");
+        submit("app2", SMALL, "c");
+        submit("app2", SMALL, "d");
+        executor.reserve("app3");
+
+        try {
+            executor.reserve("app4");
+            fail("expected exception");
+        } catch (ServiceUnavailableException e) {
+            // expected exception
+        }
+
+        // Running a task frees its place.
+        assertTrue(executor.runNext());
+        executor.reserve("app4");
+        assertEquals(executor.getStats().getRejectedCount(), 1L);
+    }
+
+    @Test(expectedExceptions = ServiceUnavailableException.class)
+    public void rejectsWhenAppShareIsFull() {
+        submit("app1", SMALL, "a");
+        submit("app1", SMALL, "b");
+        executor.reserve("app1");
+        executor.reserve("app1");
+    }
+
+    @Test
+    public void cancelReservationReleasesPlace() {
+        executor.reserve("app1");
+        executor.reserve("app1");
+        executor.reserve("app1");
+        executor.cancelReservation("app1");
+        executor.reserve("app1");
+
+        // Cancelling without a reservation does nothing.
+        executor.cancelReservation("app2");
+        assertEquals(executor.getStats().getReservations(), 3);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void executeRequiresReservation() {
+        executor.execute("app1", SMALL, () -> ran.add("a"), () -> notValidated.add("a"));
+    }
+
+    @Test
+    public void runNextWithEmptyQueue() {
+        assertFalse(executor.runNext());
+    }
+
+    @Test
+    public void failedTaskIsCounted() {
+        executor.reserve("app1");
+        executor.execute("app1", SMALL, () -> {
+            throw new IllegalArgumentException();
+        }, () -> notValidated.add("a"));
+
+        assertTrue(executor.runNext());
+        assertEquals(executor.getStats().getCompletedCount(), 1L);
+        assertEquals(executor.getStats().getActiveThreads(), 0);
+    }
+
+    @Test
+    public void stats() {
+        submit("app1", SMALL, "a");
+        DateTimeUtils.setCurrentMillisFixed(NOW + 1000L);
+        submit("app1", LARGE, "b");
+        submit("app2", SMALL, "c");
+        executor.reserve("app3");
+        DateTimeUtils.setCurrentMillisFixed(NOW + 3000L);
+
+        UploadValidationExecutorStats stats = executor.getStats();
+        assertEquals(stats.getThreadCount(), 0);
+        assertEquals(stats.getQueueDepth(), 3);
+        assertEquals(stats.getSmallUploadQueueDepth(), 2);
+        assertEquals(stats.getLargeUploadQueueDepth(), 1);
+        assertEquals(stats.getReservations(), 1);
+        assertEquals(stats.getMaxQueued(), 5);
+        assertEquals(stats.getQueueDepthByApp(), ImmutableMap.of("app1", 2, "app2", 1));
+        assertEquals(stats.getOldestWaitMillis(), 3000L);
+        assertEquals(stats.getSubmittedCount(), 3L);
+
+        // Run "a" (waited 3000 ms) and "c" (waited 2000 ms).
+        executor.runNext();
+        executor.runNext();
+        stats = executor.getStats();
+        assertEquals(stats.getQueueDepth(), 1);
+        assertEquals(stats.getOldestWaitMillis(), 2000L);
+        assertEquals(stats.getAverageWaitMillis(), 2500L);
+        assertEquals(stats.getMaxWaitMillis(), 3000L);
+        assertEquals(stats.getCompletedCount(), 2L);
+    }
+
+    @Test
+    public void workerThreadsRunTasks() throws Exception {
+        UploadValidationExecutor executor = createExecutor(2, 5, 5);
+        try {
+            CountDownLatch latch = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                executor.reserve("app1");
+                executor.execute("app1", SMALL, latch::countDown, () -> notValidated.add("a"));
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    public void errorDoesNotEndWorkerThread() throws Exception {
+        UploadValidationExecutor executor = createExecutor(1, 5, 5);
+        try {
+            executor.reserve("app1");
+            executor.execute("app1", SMALL, () -> {
+                throw new OutOfMemoryError();
+            }, () -> notValidated.add("a"));
+
+            CountDownLatch latch = new CountDownLatch(1);
+            executor.reserve("app1");
+            executor.execute("app1", SMALL, latch::countDown, () -> notValidated.add("b"));
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    public void stopMarksQueuedTasksNotValidated() {
+        submit("app1", SMALL, "a");
+        submit("app2", LARGE, "b");
+        executor.reserve("app3");
+
+        executor.stop();
+
+        assertEquals(notValidated, ImmutableList.of("a", "b"));
+        assertTrue(ran.isEmpty());
+        assertFalse(executor.runNext());
+        UploadValidationExecutorStats stats = executor.getStats();
+        assertEquals(stats.getQueueDepth(), 0);
+        assertTrue(stats.getQueueDepthByApp().isEmpty());
+
+        // A place reserved before shutdown can still be used, but the task is not run.
+        executor.execute("app3", SMALL, () -> ran.add("c"), () -> notValidated.add("c"));
+        assertEquals(notValidated, ImmutableList.of("a", "b", "c"));
+        assertTrue(ran.isEmpty());
+        assertEquals(executor.getStats().getReservations(), 0);
+    }
+
+    @Test(expectedExceptions = ServiceUnavailableException.class)
+    public void reserveAfterStopIsRejected() {
+        executor.stop();
+        executor.reserve("app1");
+    }
+
+    @Test
+    public void failedShutdownCallbackDoesNotStopOthers() {
+        executor.reserve("app1");
+        executor.execute("app1", SMALL, () -> ran.add("a"), () -> {
+            throw new IllegalStateException();
+        });
+        submit("app2", SMALL, "b");
+
+        executor.stop();
+
+        assertEquals(notValidated, ImmutableList.of("b"));
+    }
+
+    // Every task that is accepted is either run or marked not validated, exactly once, no matter how submitting,
+    // dispatching, and shutting down interleave.
+    @Test
+    public void concurrentSubmitDispatchAndStop() throws Exception {
+        UploadValidationExecutor executor = createExecutor(4, 50, 20);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        Set<Integer> finished = ConcurrentHashMap.newKeySet();
+
+        int submitterCount = 8;
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService submitters = Executors.newFixedThreadPool(submitterCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < submitterCount; i++) {
+                futures.add(submitters.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < 1000; j++) {
+                        String appId = "app" + (j % 5);
+                        try {
+                            executor.reserve(appId);
+                        } catch (ServiceUnavailableException e) {
+                            continue;
+                        }
+                        int id = accepted.incrementAndGet();
+                        Runnable finish = () -> {
+                            if (!finished.add(id)) {
+                                duplicates.incrementAndGet();
+                            }
+                        };
+                        executor.execute(appId, (j % 2 == 0) ? SMALL : LARGE, finish, finish);
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+
+            // Stop while the submitters are still submitting.
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (executor.getStats().getCompletedCount() < 100 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1L);
+            }
+            executor.stop();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+
+            // Tasks that were dispatched before the executor stopped are allowed to finish.
+            while (finished.size() < accepted.get() && System.currentTimeMillis() < deadline + 5000L) {
+                Thread.sleep(1L);
+            }
+            assertEquals(finished.size(), accepted.get());
+            assertEquals(duplicates.get(), 0);
+
+            UploadValidationExecutorStats stats = executor.getStats();
+            assertEquals(stats.getQueueDepth(), 0);
+            assertEquals(stats.getReservations(), 0);
+            assertTrue(stats.getQueueDepthByApp().isEmpty());
+        } finally {
+            executor.stop();
+            submitters.shutdownNow();
+        }
+    }
+}
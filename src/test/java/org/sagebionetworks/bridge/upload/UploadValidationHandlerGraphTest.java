@@ -0,0 +1,126 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
+
+public class UploadValidationHandlerGraphTest {
+    @Test
+    public void productionHandlers() {
+        // Same order as SpringConfig.uploadValidationHandlerList().
+        List<UploadValidationHandler> handlerList = ImmutableList.of(new S3DownloadHandler(), new DecryptHandler(),
+                new UnzipHandler(), new InitRecordHandler(), new UploadFormatHandler(), new StrictValidationHandler(),
+                new TranscribeConsentHandler(), new UploadRawZipHandler(), new UploadArtifactsHandler());
+        UploadValidationHandlerGraph graph = new UploadValidationHandlerGraph(handlerList);
+        assertEquals(graph.size(), 9);
+
+        // Download, decrypt, unzip, and init record run in order.
+        assertEquals(graph.getDependencyCount(0), 0);
+        assertEquals(graph.getDependents(1), ImmutableList.of(2, 7, 8));
+        assertEquals(graph.getDependents(2), ImmutableList.of(3, 4, 7, 8));
+
+        // Once the record exists, upload format and transcribe consent run at the same time. Strict validation runs
+        // after upload format.
+        assertEquals(graph.getDependents(3), ImmutableList.of(4, 5, 6, 7, 8));
+        assertEquals(graph.getDependents(4), ImmutableList.of(5, 7, 8));
+        assertEquals(graph.getDependencyCount(6), 1);
+
+        // The raw zip upload and upload artifacts have side effects, so they wait for every earlier handler to
+        // succeed, including strict validation.
+        assertEquals(graph.getDependents(5), ImmutableList.of(7, 8));
+        assertEquals(graph.getDependents(6), ImmutableList.of(7, 8));
+        assertEquals(graph.getDependencyCount(7), 7);
+        assertEquals(graph.getDependencyCount(8), 8);
+    }
+
+    @Test
+    public void handlerWithoutDeclarationsRunsAlone() {
+        UploadValidationHandler stage1 = new TestStage(ImmutableList.of(), ImmutableList.of());
+        UploadValidationHandler handler = mock(UploadValidationHandler.class);
+        UploadValidationHandler stage2 = new TestStage(ImmutableList.of(), ImmutableList.of());
+        UploadValidationHandler stage3 = new TestStage(ImmutableList.of(), ImmutableList.of());
+        UploadValidationHandlerGraph graph = new UploadValidationHandlerGraph(ImmutableList.of(stage1, handler,
+                stage2, stage3));
+
+        assertEquals(graph.getDependents(0), ImmutableList.of(1));
+        assertEquals(graph.getDependents(1), ImmutableList.of(2, 3));
+        // Stages with nothing in common don't depend on each other.
+        assertEquals(graph.getDependencyCount(3), 1);
+    }
+
+    @Test
+    public void readAfterReadIsIndependent() {
+        UploadValidationHandler reader1 = new TestStage(ImmutableList.of(Field.DATA_FILE), ImmutableList.of());
+        UploadValidationHandler reader2 = new TestStage(ImmutableList.of(Field.DATA_FILE), ImmutableList.of());
+        UploadValidationHandler writer = new TestStage(ImmutableList.of(), ImmutableList.of(Field.DATA_FILE));
+        UploadValidationHandlerGraph graph = new UploadValidationHandlerGraph(ImmutableList.of(reader1, reader2,
+                writer));
+
+        assertEquals(graph.getDependencyCount(1), 0);
+        // The writer waits for both readers.
+        assertEquals(graph.getDependencyCount(2), 2);
+    }
+
+    @Test
+    public void stageWithSideEffectsDependsOnEveryEarlierHandler() {
+        UploadValidationHandler writer = new TestStage(ImmutableList.of(), ImmutableList.of(Field.RECORD_DATA));
+        UploadValidationHandler validator = new TestStage(ImmutableList.of(Field.RECORD_DATA),
+                ImmutableList.of(Field.RECORD_VALIDATION_ERRORS));
+        UploadValidationHandler sideEffect = new TestStage(ImmutableList.of(Field.DATA_FILE), ImmutableList.of(),
+                true);
+        UploadValidationHandler reader = new TestStage(ImmutableList.of(Field.RECORD_DATA), ImmutableList.of());
+        UploadValidationHandlerGraph graph = new UploadValidationHandlerGraph(ImmutableList.of(writer, validator,
+                sideEffect, reader));
+
+        // The stage with side effects shares nothing with the earlier stages, but still waits for them.
+        assertEquals(graph.getDependencyCount(2), 2);
+        // Later stages depend on it only if they share something with it.
+        assertEquals(graph.getDependents(2), ImmutableList.of());
+    }
+
+    private static class TestStage implements UploadValidationStage {
+        private final Set<Field> inputs;
+        private final Set<Field> outputs;
+        private final boolean sideEffects;
+
+        TestStage(List<Field> inputs, List<Field> outputs) {
+            this(inputs, outputs, false);
+        }
+
+        TestStage(List<Field> inputs, List<Field> outputs, boolean sideEffects) {
+            this.inputs = ImmutableSet.copyOf(inputs);
+            this.outputs = ImmutableSet.copyOf(outputs);
+            this.sideEffects = sideEffects;
+        }
+
+        @Override
+        public Set<Field> getInputs() {
+            return inputs;
+        }
+
+        @Override
+        public Set<Field> getOutputs() {
+            return outputs;
+        }
+
+        @Override
+        public boolean hasSideEffects() {
+            return sideEffects;
+        }
+
+        @Override
+        public void handle(@Nonnull UploadValidationContext context) {
+            // Never run.
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.util.TimingStats;
+
+public class UploadValidationMetricsTest {
+    private UploadValidationMetrics metrics;
+
+    @BeforeMethod
+    public void before() {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.getInt(UploadValidationMetrics.REPORT_INTERVAL_PROPERTY)).thenReturn(0);
+
+        metrics = new UploadValidationMetrics();
+        metrics.setBridgeConfig(mockConfig);
+    }
+
+    @Test
+    public void recordHandler() {
+        metrics.recordHandler("UnzipHandler", 100L, 2048L);
+        metrics.recordHandler("UnzipHandler", 300L, 2048L);
+        metrics.recordHandler("DecryptHandler", 50L, 2048L);
+
+        UploadValidationMetricsStats stats = metrics.getStats();
+        assertEquals(stats.getHandlers().keySet(), ImmutableSet.of("DecryptHandler", "UnzipHandler"));
+        TimingStats unzipStats = stats.getHandlers().get("UnzipHandler");
+        assertEquals(unzipStats.getCount(), 2L);
+        assertEquals(unzipStats.getMeanMillis(), 200L);
+        assertEquals(unzipStats.getTotalBytes(), 4096L);
+        assertTrue(stats.getApps().isEmpty());
+    }
+
+    @Test
+    public void recordUpload() {
+        metrics.recordUpload(TEST_APP_ID, UploadFormat.V1_LEGACY, 1000L, 100L);
+        metrics.recordUpload(TEST_APP_ID, UploadFormat.V2_GENERIC, 500L, 200L);
+        // No format, counted only for the app.
+        metrics.recordUpload("other-app", null, 20L, 300L);
+
+        UploadValidationMetricsStats stats = metrics.getStats();
+        assertEquals(stats.getApps().keySet(), ImmutableSet.of("other-app", TEST_APP_ID));
+        assertEquals(stats.getApps().get(TEST_APP_ID).getCount(), 2L);
+        assertEquals(stats.getApps().get(TEST_APP_ID).getTotalBytes(), 300L);
+        assertEquals(stats.getFormats().keySet(), ImmutableSet.of("v1_legacy", "v2_generic"));
+        assertEquals(stats.getFormats().get("v1_legacy").getMaxMillis(), 1000L);
+        assertTrue(stats.getHandlers().isEmpty());
+    }
+
+    @Test
+    public void recordEndToEnd() {
+        metrics.recordEndToEnd(5000L, 100L);
+
+        TimingStats endToEnd = metrics.getStats().getEndToEnd();
+        assertEquals(endToEnd.getCount(), 1L);
+        assertEquals(endToEnd.getMaxMillis(), 5000L);
+        assertEquals(endToEnd.getTotalBytes(), 100L);
+    }
+
+    @Test
+    public void report() {
+        UploadValidationMetricsReporter failingReporter = mock(UploadValidationMetricsReporter.class);
+        doThrow(RuntimeException.class).when(failingReporter).report(any());
+        UploadValidationMetricsReporter mockReporter = mock(UploadValidationMetricsReporter.class);
+        metrics.setReporters(ImmutableList.of(failingReporter, mockReporter));
+        metrics.recordHandler("UnzipHandler", 100L, 2048L);
+
+        metrics.report();
+
+        // A failing reporter doesn't keep the others from reporting.
+        ArgumentCaptor<UploadValidationMetricsStats> statsCaptor = ArgumentCaptor.forClass(
+                UploadValidationMetricsStats.class);
+        verify(mockReporter).report(statsCaptor.capture());
+        assertEquals(statsCaptor.getValue().getHandlers().get("UnzipHandler").getCount(), 1L);
+    }
+}
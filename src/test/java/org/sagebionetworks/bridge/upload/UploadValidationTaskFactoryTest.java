@@ -1,15 +1,19 @@
 package org.sagebionetworks.bridge.upload;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.file.FileHelper;
 import org.sagebionetworks.bridge.models.apps.App;
@@ -21,11 +25,16 @@ public class UploadValidationTaskFactoryTest {
 
     @Test
     public void test() {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.get(UploadValidationTaskFactory.PARALLEL_STAGES_ENABLED_PROPERTY)).thenReturn("true");
+        ExecutorService mockStageExecutorService = mock(ExecutorService.class);
+
         // test dao and handlers
         List<UploadValidationHandler> handlerList = Collections.emptyList();
         UploadDao dao = mock(UploadDao.class);
         FileHelper fileHelper = new FileHelper();
         HealthDataService healthDataService = new HealthDataService();
+        UploadValidationMetrics metrics = new UploadValidationMetrics();
 
         // set up task factory
         UploadValidationTaskFactory taskFactory = new UploadValidationTaskFactory();
@@ -33,6 +42,9 @@ public class UploadValidationTaskFactoryTest {
         taskFactory.setHandlerList(handlerList);
         taskFactory.setUploadDao(dao);
         taskFactory.setHealthDataService(healthDataService);
+        taskFactory.setUploadValidationMetrics(metrics);
+        taskFactory.setStageExecutorService(mockStageExecutorService);
+        taskFactory.setBridgeConfig(mockConfig);
 
         // inputs
         App app = TestUtils.getValidApp(UploadValidationTaskFactoryTest.class);
@@ -49,5 +61,22 @@ public class UploadValidationTaskFactoryTest {
         assertSame(task.getHandlerList(), handlerList);
         assertSame(task.getUploadDao(), dao);
         assertSame(task.getHealthDataService(), healthDataService);
+        assertSame(task.getUploadValidationMetrics(), metrics);
+        assertSame(task.getStageExecutorService(), mockStageExecutorService);
+    }
+
+    @Test
+    public void parallelStagesDisabled() {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.get(UploadValidationTaskFactory.PARALLEL_STAGES_ENABLED_PROPERTY)).thenReturn("false");
+
+        UploadValidationTaskFactory taskFactory = new UploadValidationTaskFactory();
+        taskFactory.setHandlerList(Collections.emptyList());
+        taskFactory.setStageExecutorService(mock(ExecutorService.class));
+        taskFactory.setBridgeConfig(mockConfig);
+
+        // Handlers run one at a time on the upload validation thread.
+        UploadValidationTask task = taskFactory.newTask("test-app", Upload.create());
+        assertNull(task.getStageExecutorService());
     }
 }
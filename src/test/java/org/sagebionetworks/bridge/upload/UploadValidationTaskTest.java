@@ -1,15 +1,19 @@
 package org.sagebionetworks.bridge.upload;
 
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.notNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.mockito.Mockito.eq;
 
@@ -17,14 +21,23 @@ import javax.annotation.Nonnull;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
+import org.joda.time.DateTimeUtils;
 import org.joda.time.LocalDate;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.dao.UploadDao;
@@ -36,6 +49,7 @@ import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.upload.Upload;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
 import org.sagebionetworks.bridge.services.HealthDataService;
+import org.sagebionetworks.bridge.upload.UploadValidationContext.Field;
 
 public class UploadValidationTaskTest {
     private static final long CREATED_ON = 1424136378727L;
@@ -49,6 +63,8 @@ public class UploadValidationTaskTest {
     private static final String UPLOAD_ID = "upload-id";
     private static final long UPLOADED_ON = 1462575525894L;
     private static final String USER_EXTERNAL_ID = "external-id";
+    private static final long CONTENT_LENGTH = 4096L;
+    private static final long COMPLETED_ON = 1600000000000L;
 
     private final List<UploadValidationHandler> handlerList = ImmutableList.of(
             new MessageHandler("foo was here"), new MessageHandler("bar was here"),
@@ -57,6 +73,7 @@ public class UploadValidationTaskTest {
     private UploadValidationContext ctx;
     private InMemoryFileHelper inMemoryFileHelper;
     private UploadDao mockDao;
+    private UploadValidationMetrics mockMetrics;
     private UploadValidationTask task;
     private Upload upload;
 
@@ -72,6 +89,7 @@ public class UploadValidationTaskTest {
 
         upload = Upload.create();
         upload.setUploadId("test-upload");
+        upload.setContentLength(CONTENT_LENGTH);
 
         ctx = new UploadValidationContext();
         ctx.setAppId(app.getIdentifier());
@@ -80,6 +98,7 @@ public class UploadValidationTaskTest {
         // Set up other pre-reqs
         inMemoryFileHelper = new InMemoryFileHelper();
         mockDao = mock(UploadDao.class);
+        mockMetrics = mock(UploadValidationMetrics.class);
 
         // Set up task. Spy so we can verify some calls.
         task = spy(new UploadValidationTask(ctx));
@@ -87,6 +106,13 @@ public class UploadValidationTaskTest {
         task.setHandlerList(handlerList);
         task.setHealthDataService(healthDataService);
         task.setUploadDao(mockDao);
+        task.setUploadValidationMetrics(mockMetrics);
+    }
+
+    @AfterMethod
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+        RequestContext.set(null);
     }
 
     @Test
@@ -103,6 +129,33 @@ public class UploadValidationTaskTest {
         assertEquals(messageList.get(0), "foo was here");
         assertEquals(messageList.get(1), "bar was here");
         assertEquals(messageList.get(2), "kilroy was here");
+
+        // validate timings
+        verify(mockMetrics, times(3)).recordHandler(eq("MessageHandler"), anyLong(), eq(CONTENT_LENGTH));
+        verify(mockMetrics).recordHandler(eq("RecordIdHandler"), anyLong(), eq(CONTENT_LENGTH));
+        verify(mockMetrics).recordUpload(eq(ctx.getAppId()), eq(null), anyLong(), eq(CONTENT_LENGTH));
+
+        // Upload has no completion time, so there's no end-to-end time.
+        verify(mockMetrics, never()).recordEndToEnd(anyLong(), anyLong());
+    }
+
+    @Test
+    public void recordsEndToEndTime() {
+        upload.setCompletedOn(COMPLETED_ON);
+        DateTimeUtils.setCurrentMillisFixed(COMPLETED_ON + 2500L);
+
+        testHelper(handlerList, UploadStatus.SUCCEEDED, RECORD_ID);
+        verify(mockMetrics).recordEndToEnd(2500L, CONTENT_LENGTH);
+    }
+
+    @Test
+    public void recordsUploadFormat() {
+        List<UploadValidationHandler> handlerList = ImmutableList.of(new RecordIdHandler(RECORD_ID),
+                context -> context.setUploadFormat(UploadFormat.V2_GENERIC));
+
+        testHelper(handlerList, UploadStatus.SUCCEEDED, RECORD_ID);
+        verify(mockMetrics).recordUpload(eq(ctx.getAppId()), eq(UploadFormat.V2_GENERIC), anyLong(),
+                eq(CONTENT_LENGTH));
     }
 
     @Test
@@ -146,6 +199,10 @@ public class UploadValidationTaskTest {
         assertEquals(messageList.size(), 2);
         assertEquals(messageList.get(0), "foo succeeded");
         assertFalse(Strings.isNullOrEmpty(messageList.get(1)));
+
+        // The failed handler is timed; the handlers after it don't run.
+        verify(mockMetrics).recordHandler(eq(barHandler.getClass().getSimpleName()), anyLong(), eq(CONTENT_LENGTH));
+        verify(mockMetrics, never()).recordHandler(eq("RecordIdHandler"), anyLong(), anyLong());
     }
 
     // helper test method, encapsulating core setup and validation
@@ -166,6 +223,146 @@ public class UploadValidationTaskTest {
         assertTrue(inMemoryFileHelper.isEmpty());
     }
 
+    @Test
+    public void independentStagesRunAtSameTime() {
+        ExecutorService stageExecutorService = Executors.newFixedThreadPool(2);
+        try {
+            // Each stage waits for the other to start, so they only succeed if they run at the same time.
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            UploadValidationHandler waitingHandler = context -> {
+                bothStarted.countDown();
+                awaitLatch(bothStarted);
+            };
+            List<UploadValidationHandler> handlerList = ImmutableList.of(
+                    new TestStage(ImmutableSet.of(), ImmutableSet.of(Field.RECORD_PARTICIPANT), waitingHandler),
+                    new TestStage(ImmutableSet.of(), ImmutableSet.of(Field.RECORD_RAW_DATA), waitingHandler),
+                    new RecordIdHandler(RECORD_ID));
+            task.setStageExecutorService(stageExecutorService);
+
+            testHelper(handlerList, UploadStatus.SUCCEEDED, RECORD_ID);
+            verify(mockMetrics, times(2)).recordHandler(eq("TestStage"), anyLong(), eq(CONTENT_LENGTH));
+        } finally {
+            stageExecutorService.shutdown();
+        }
+    }
+
+    @Test
+    public void failedStageStopsDependentStages() {
+        ExecutorService stageExecutorService = Executors.newFixedThreadPool(2);
+        try {
+            // The failing stage and the independent stage start together. The independent stage finishes, but the
+            // stage that depends on the failed stage, and the handler after it, never run.
+            UploadValidationHandler dependentHandler = mock(UploadValidationHandler.class);
+            List<UploadValidationHandler> handlerList = ImmutableList.of(
+                    new TestStage(ImmutableSet.of(), ImmutableSet.of(Field.RECORD_DATA), context -> {
+                        throw new UploadValidationException("stage failed");
+                    }),
+                    new TestStage(ImmutableSet.of(), ImmutableSet.of(Field.RECORD_RAW_DATA),
+                            context -> context.addMessage("independent stage ran")),
+                    new TestStage(ImmutableSet.of(Field.RECORD_DATA), ImmutableSet.of(), dependentHandler),
+                    new RecordIdHandler("never called"));
+            task.setStageExecutorService(stageExecutorService);
+
+            testHelper(handlerList, UploadStatus.VALIDATION_FAILED, null);
+            verifyZeroInteractions(dependentHandler);
+
+            List<String> messageList = ctx.getMessageList();
+            assertEquals(messageList.size(), 2);
+            assertEquals(messageList.get(0), "independent stage ran");
+            assertTrue(messageList.get(1).contains("stage failed"));
+        } finally {
+            stageExecutorService.shutdown();
+        }
+    }
+
+    @Test
+    public void failedStrictValidationPreventsRawZipUpload() throws Exception {
+        ExecutorService stageExecutorService = Executors.newFixedThreadPool(2);
+        try {
+            StrictValidationHandler strictValidationHandler = spy(new StrictValidationHandler());
+            doThrow(new UploadValidationException("invalid record")).when(strictValidationHandler)
+                    .handle(notNull());
+            UploadRawZipHandler uploadRawZipHandler = spy(new UploadRawZipHandler());
+            UploadArtifactsHandler uploadArtifactsHandler = spy(new UploadArtifactsHandler());
+
+            // Stand-ins for the handlers that create the record, and for transcribe consent, which runs at the same
+            // time as strict validation.
+            List<UploadValidationHandler> handlerList = ImmutableList.of(
+                    new TestStage(ImmutableSet.of(), ImmutableSet.of(Field.DECRYPTED_DATA, Field.RECORD,
+                            Field.RECORD_DATA), context -> {}),
+                    strictValidationHandler,
+                    new TestStage(ImmutableSet.of(Field.RECORD), ImmutableSet.of(Field.RECORD_PARTICIPANT),
+                            context -> {}),
+                    uploadRawZipHandler, uploadArtifactsHandler);
+            task.setStageExecutorService(stageExecutorService);
+
+            testHelper(handlerList, UploadStatus.VALIDATION_FAILED, null);
+            verify(uploadRawZipHandler, never()).handle(notNull());
+            verify(uploadArtifactsHandler, never()).handle(notNull());
+
+            List<String> messageList = ctx.getMessageList();
+            assertEquals(messageList.size(), 1);
+            assertTrue(messageList.get(0).contains("invalid record"));
+        } finally {
+            stageExecutorService.shutdown();
+        }
+    }
+
+    @Test
+    public void stagesFailingAtSameTimeReportFirstFailure() {
+        ExecutorService stageExecutorService = Executors.newFixedThreadPool(2);
+        try {
+            // Both stages start before either fails.
+            CountDownLatch bothStarted = new CountDownLatch(2);
+            List<UploadValidationHandler> handlerList = ImmutableList.of(
+                    new TestStage(ImmutableSet.of(), ImmutableSet.of(Field.RECORD_DATA), context -> {
+                        bothStarted.countDown();
+                        awaitLatch(bothStarted);
+                        throw new UploadValidationException("first stage failed");
+                    }),
+                    new TestStage(ImmutableSet.of(), ImmutableSet.of(Field.RECORD_PARTICIPANT), context -> {
+                        bothStarted.countDown();
+                        awaitLatch(bothStarted);
+                        throw new UploadValidationException("second stage failed");
+                    }),
+                    new RecordIdHandler("never called"));
+            task.setStageExecutorService(stageExecutorService);
+
+            testHelper(handlerList, UploadStatus.VALIDATION_FAILED, null);
+
+            // Only one failure is reported, as if the stages had run one at a time.
+            List<String> messageList = ctx.getMessageList();
+            assertEquals(messageList.size(), 1);
+            assertTrue(messageList.get(0).contains("first stage failed"));
+        } finally {
+            stageExecutorService.shutdown();
+        }
+    }
+
+    @Test
+    public void requestContextRestoredAfterHandler() {
+        RequestContext requestContext = new RequestContext.Builder().withCallerUserId("validator").build();
+        RequestContext.set(requestContext);
+
+        // Like TranscribeConsentHandler, this handler takes on the identity of the uploading account.
+        List<UploadValidationHandler> handlerList = ImmutableList.of(
+                context -> RequestContext.set(new RequestContext.Builder().withCallerUserId("participant").build()),
+                new RecordIdHandler(RECORD_ID));
+
+        testHelper(handlerList, UploadStatus.SUCCEEDED, RECORD_ID);
+        assertSame(RequestContext.get(), requestContext);
+    }
+
+    private static void awaitLatch(CountDownLatch latch) throws UploadValidationException {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new UploadValidationException("timed out");
+            }
+        } catch (InterruptedException ex) {
+            throw new UploadValidationException(ex);
+        }
+    }
+
     @Test
     public void writeValidationStatusException() {
         // Trivial record ID handler, to make the test not degenerate.
@@ -186,6 +383,27 @@ public class UploadValidationTaskTest {
         verify(task).logWriteValidationStatusException(UploadStatus.SUCCEEDED, toThrow);
     }
 
+    @Test
+    public void markNotValidated() {
+        task.markNotValidated();
+
+        verify(mockDao).writeValidationStatus(upload, UploadStatus.VALIDATION_FAILED,
+                ImmutableList.of(UploadValidationTask.NOT_VALIDATED_MESSAGE), null);
+        // No handlers were run.
+        verifyZeroInteractions(mockMetrics);
+    }
+
+    @Test
+    public void markNotValidatedWriteValidationStatusException() {
+        RuntimeException toThrow = new RuntimeException();
+        doThrow(toThrow).when(mockDao).writeValidationStatus(upload, UploadStatus.VALIDATION_FAILED,
+                ImmutableList.of(UploadValidationTask.NOT_VALIDATED_MESSAGE), null);
+
+        task.markNotValidated();
+
+        verify(task).logWriteValidationStatusException(UploadStatus.VALIDATION_FAILED, toThrow);
+    }
+
     // Test handler that makes its presence known only by writing a message to the validation context.
     private static class MessageHandler implements UploadValidationHandler {
         private final String message;
@@ -215,6 +433,34 @@ public class UploadValidationTaskTest {
         }
     }
 
+    // Test stage that declares its inputs and outputs, and delegates to another handler.
+    private static class TestStage implements UploadValidationStage {
+        private final Set<Field> inputs;
+        private final Set<Field> outputs;
+        private final UploadValidationHandler delegate;
+
+        public TestStage(Set<Field> inputs, Set<Field> outputs, UploadValidationHandler delegate) {
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Set<Field> getInputs() {
+            return inputs;
+        }
+
+        @Override
+        public Set<Field> getOutputs() {
+            return outputs;
+        }
+
+        @Override
+        public void handle(@Nonnull UploadValidationContext context) throws UploadValidationException {
+            delegate.handle(context);
+        }
+    }
+
     private static HealthDataRecord makeRecordWithId(@SuppressWarnings("SameParameterValue") String recordId)
             throws IOException {
         HealthDataRecord record = HealthDataRecord.create();
@@ -0,0 +1,80 @@
+package org.sagebionetworks.bridge.util;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+public class TimingHistogramTest {
+    @Test
+    public void empty() {
+        TimingStats stats = new TimingHistogram().getStats();
+        assertEquals(stats.getCount(), 0L);
+        assertEquals(stats.getMeanMillis(), 0L);
+        assertEquals(stats.getMinMillis(), 0L);
+        assertEquals(stats.getMaxMillis(), 0L);
+        assertEquals(stats.getP50Millis(), 0L);
+        assertEquals(stats.getP99Millis(), 0L);
+        assertEquals(stats.getTotalBytes(), 0L);
+    }
+
+    @Test
+    public void stats() {
+        TimingHistogram histogram = new TimingHistogram();
+        // 90 fast uploads, 9 slower uploads, and 1 very slow upload.
+        for (int i = 0; i < 90; i++) {
+            histogram.record(8L, 10L);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(150L, 100L);
+        }
+        histogram.record(4000L, 1000L);
+
+        TimingStats stats = histogram.getStats();
+        assertEquals(stats.getCount(), 100L);
+        assertEquals(stats.getMeanMillis(), (90 * 8 + 9 * 150 + 4000) / 100);
+        assertEquals(stats.getMinMillis(), 8L);
+        assertEquals(stats.getMaxMillis(), 4000L);
+        // Percentiles are reported as the upper bound of their bucket.
+        assertEquals(stats.getP50Millis(), 10L);
+        assertEquals(stats.getP95Millis(), 200L);
+        assertEquals(stats.getP99Millis(), 200L);
+        assertEquals(stats.getTotalBytes(), 90 * 10 + 9 * 100 + 1000L);
+    }
+
+    @Test
+    public void percentileCappedAtMax() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(3L, 0L);
+        histogram.record(3L, 0L);
+
+        TimingStats stats = histogram.getStats();
+        assertEquals(stats.getP50Millis(), 3L);
+        assertEquals(stats.getP99Millis(), 3L);
+    }
+
+    @Test
+    public void overflowBucket() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(7200000L, 0L);
+
+        TimingStats stats = histogram.getStats();
+        assertEquals(stats.getP50Millis(), 7200000L);
+        assertEquals(stats.getMaxMillis(), 7200000L);
+    }
+
+    @Test
+    public void negativeTimeCountedAsZero() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(-5L, 0L);
+
+        TimingStats stats = histogram.getStats();
+        assertEquals(stats.getCount(), 1L);
+        assertEquals(stats.getMinMillis(), 0L);
+        assertEquals(stats.getMaxMillis(), 0L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void negativeBytes() {
+        new TimingHistogram().record(1L, -1L);
+    }
+}